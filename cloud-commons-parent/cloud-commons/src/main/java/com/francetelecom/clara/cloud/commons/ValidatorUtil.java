@@ -73,12 +73,43 @@ public class ValidatorUtil {
     }
 
 
-    private static <T> Set<ConstraintViolation<T>> jsr303ModelValidation(T toCheck, StringBuffer stringBuffer) {
+    /**
+     * Lazily builds the factory shared by all validations: bootstrapping it (and the constraint metadata it caches)
+     * is far more expensive than a validation. Both the factory and its validator are thread-safe.
+     */
+    private static class ValidatorHolder {
+        static final ValidatorFactory VALIDATOR_FACTORY = Validation.buildDefaultValidatorFactory();
+        static final Validator VALIDATOR = VALIDATOR_FACTORY.getValidator();
+    }
+
+    /**
+     * @return the shared, thread-safe, JSR 303 validator
+     */
+    public static Validator getValidator() {
+        return ValidatorHolder.VALIDATOR;
+    }
+
+    /**
+     * Builds the constraint metadata of the given classes, so that the first validation of such beans does not pay
+     * for it. Polymorphic members (e.g. subclasses held in a collection) get their metadata built on first
+     * validation.
+     *
+     * @param beanClasses classes to introspect
+     */
+    public static void prewarm(Class<?>... beanClasses) {
+        long start = System.currentTimeMillis();
+        for (Class<?> beanClass : beanClasses) {
+            getValidator().getConstraintsForClass(beanClass);
+        }
+        logger.debug("validation metadata of {} classes built in {} ms", beanClasses.length, System.currentTimeMillis() - start);
+    }
+
+    private static <T> Set<ConstraintViolation<T>> jsr303ModelValidation(T toCheck, StringBuffer stringBuffer, Class<?>... groups) {
         //JSR 303 model validation
-        ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
-        Validator validator = validatorFactory.getValidator();
+        return report(toCheck, getValidator().validate(toCheck, groups), stringBuffer);
+    }
 
-        Set<ConstraintViolation<T>> violations = validator.validate(toCheck);
+    private static <T> Set<ConstraintViolation<T>> report(T toCheck, Set<ConstraintViolation<T>> violations, StringBuffer stringBuffer) {
         for (ConstraintViolation<T> violation : violations) {
             String propertyPath = violation.getPropertyPath().toString();
             String message = violation.getMessage();
@@ -94,9 +125,29 @@ public class ValidatorUtil {
         return violations;
     }
 
-    public static  <T> void validate(T toCheck) throws TechnicalException {
+    /**
+     * @param toCheck bean to validate
+     * @param groups validation groups to check, or none for the default group
+     * @throws TechnicalException if some constraints are violated
+     */
+    public static  <T> void validate(T toCheck, Class<?>... groups) throws TechnicalException {
+        StringBuffer stringBuffer = new StringBuffer();
+        Set<ConstraintViolation<T>> violations = jsr303ModelValidation(toCheck, stringBuffer, groups);
+        if (! violations.isEmpty()) {
+            throw new TechnicalException("Constraint violated on bean. " + stringBuffer.toString());
+        }
+    }
+
+    /**
+     * Validates a single property of a bean, without cascading to the beans it references
+     * @param toCheck bean to validate
+     * @param propertyName name of the property to validate
+     * @param groups validation groups to check, or none for the default group
+     * @throws TechnicalException if some constraints of the property are violated
+     */
+    public static  <T> void validateProperty(T toCheck, String propertyName, Class<?>... groups) throws TechnicalException {
         StringBuffer stringBuffer = new StringBuffer();
-        Set<ConstraintViolation<T>> violations = jsr303ModelValidation(toCheck, stringBuffer);
+        Set<ConstraintViolation<T>> violations = report(toCheck, getValidator().validateProperty(toCheck, propertyName, groups), stringBuffer);
         if (! violations.isEmpty()) {
             throw new TechnicalException("Constraint violated on bean. " + stringBuffer.toString());
         }
@@ -105,12 +156,13 @@ public class ValidatorUtil {
     /**
      * provide a way to throw a business exception on validation error (user input case)
      * @param toCheck
+     * @param groups validation groups to check, or none for the default group
      * @param <T>
      * @throws BusinessException
      */
-    public static  <T> void validateBusiness(T toCheck) throws BusinessException {
+    public static  <T> void validateBusiness(T toCheck, Class<?>... groups) throws BusinessException {
         StringBuffer stringBuffer = new StringBuffer();
-        Set<ConstraintViolation<T>> violations = jsr303ModelValidation(toCheck, stringBuffer);
+        Set<ConstraintViolation<T>> violations = jsr303ModelValidation(toCheck, stringBuffer, groups);
         if (! violations.isEmpty()) {
             throw new BusinessException("Constraint violated on bean. " + stringBuffer.toString());
         }
@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.commons;
+
+import org.junit.Test;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class ValidatorUtilTest {
+
+    public interface Strict {
+    }
+
+    public static class Bean {
+
+        @NotNull
+        private String name;
+
+        @Size(max = 5, groups = Strict.class)
+        private String code;
+
+        public Bean(String name, String code) {
+            this.name = name;
+            this.code = code;
+        }
+    }
+
+    @Test
+    public void shares_a_single_validator() {
+        assertThat(ValidatorUtil.getValidator()).isSameAs(ValidatorUtil.getValidator());
+    }
+
+    @Test
+    public void validates_default_group_unless_groups_are_requested() {
+        Bean bean = new Bean("name", "too long code");
+
+        ValidatorUtil.validate(bean);
+        try {
+            ValidatorUtil.validate(bean, Strict.class);
+            fail("expected strict constraints to be checked");
+        } catch (TechnicalException e) {
+            assertThat(e.getMessage()).contains("code");
+        }
+    }
+
+    @Test
+    public void validates_a_single_property() {
+        Bean bean = new Bean(null, "code");
+
+        ValidatorUtil.validateProperty(bean, "code");
+        try {
+            ValidatorUtil.validateProperty(bean, "name");
+            fail("expected null name to be reported");
+        } catch (TechnicalException e) {
+            assertThat(e.getMessage()).contains("name");
+        }
+    }
+
+    @Test(expected = BusinessException.class)
+    public void reports_business_violations() throws BusinessException {
+        ValidatorUtil.validateBusiness(new Bean(null, null));
+    }
+
+    @Test
+    public void validates_concurrently() throws Exception {
+        ValidatorUtil.prewarm(Bean.class);
+        final int threads = 8;
+        final int validationsPerThread = 200;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        start.await();
+                        int violations = 0;
+                        for (int i = 0; i < validationsPerThread; i++) {
+                            try {
+                                ValidatorUtil.validate(new Bean(i % 2 == 0 ? null : "name", "code"));
+                            } catch (TechnicalException e) {
+                                violations++;
+                            }
+                        }
+                        return violations;
+                    }
+                }));
+            }
+            start.countDown();
+
+            for (Future<Integer> result : results) {
+                assertThat(result.get()).isEqualTo(validationsPerThread / 2);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
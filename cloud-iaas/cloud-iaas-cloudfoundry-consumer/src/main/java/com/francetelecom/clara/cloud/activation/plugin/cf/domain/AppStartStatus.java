@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.activation.plugin.cf.domain;
+
+/**
+ * Snapshot of the start progress of a cloud foundry app, as observed at a given time: staging state and state of
+ * each of its instances.
+ */
+public final class AppStartStatus {
+
+    private final String appName;
+    private final int expectedInstances;
+    private final boolean staging;
+    private final String stagingError;
+    private final int reportedInstances;
+    private final int runningInstances;
+    private final int crashedInstances;
+    private final int flappingInstances;
+
+    private AppStartStatus(String appName, int expectedInstances, boolean staging, String stagingError, int reportedInstances, int runningInstances,
+            int crashedInstances, int flappingInstances) {
+        this.appName = appName;
+        this.expectedInstances = expectedInstances;
+        this.staging = staging;
+        this.stagingError = stagingError;
+        this.reportedInstances = reportedInstances;
+        this.runningInstances = runningInstances;
+        this.crashedInstances = crashedInstances;
+        this.flappingInstances = flappingInstances;
+    }
+
+    /**
+     * app is being staged, no instance is reported yet
+     */
+    public static AppStartStatus staging(String appName, int expectedInstances) {
+        return new AppStartStatus(appName, expectedInstances, true, null, 0, 0, 0, 0);
+    }
+
+    /**
+     * app could not be staged, it will never start
+     */
+    public static AppStartStatus stagingFailed(String appName, int expectedInstances, String stagingError) {
+        return new AppStartStatus(appName, expectedInstances, false, stagingError, 0, 0, 0, 0);
+    }
+
+    public static AppStartStatus instances(String appName, int expectedInstances, int reportedInstances, int runningInstances, int crashedInstances,
+            int flappingInstances) {
+        return new AppStartStatus(appName, expectedInstances, false, null, reportedInstances, runningInstances, crashedInstances, flappingInstances);
+    }
+
+    public String getAppName() {
+        return appName;
+    }
+
+    public int getExpectedInstances() {
+        return expectedInstances;
+    }
+
+    public boolean isStaging() {
+        return staging;
+    }
+
+    public boolean isStagingFailed() {
+        return stagingError != null;
+    }
+
+    public String getStagingError() {
+        return stagingError;
+    }
+
+    /**
+     * @return number of instances reported by cloud foundry, whatever their state
+     */
+    public int getReportedInstances() {
+        return reportedInstances;
+    }
+
+    public int getRunningInstances() {
+        return runningInstances;
+    }
+
+    public int getCrashedInstances() {
+        return crashedInstances;
+    }
+
+    public int getFlappingInstances() {
+        return flappingInstances;
+    }
+
+    public boolean isAllRunning() {
+        return runningInstances == expectedInstances;
+    }
+
+    /**
+     * @return percentage of expected instances running
+     */
+    public int getPercent() {
+        return expectedInstances == 0 ? 100 : 100 * runningInstances / expectedInstances;
+    }
+
+    @Override
+    public String toString() {
+        if (staging) {
+            return "app " + appName + " is staging";
+        }
+        if (isStagingFailed()) {
+            return "app " + appName + " failed to stage: " + stagingError;
+        }
+        return "app " + appName + " has " + runningInstances + " of " + expectedInstances + " instance(s) running (" + reportedInstances + " reported, "
+                + crashedInstances + " crashed, " + flappingInstances + " flapping)";
+    }
+}
@@ -13,6 +13,7 @@
 package com.francetelecom.clara.cloud.activation.plugin.cf.infrastructure;
 
 import com.francetelecom.clara.cloud.activation.plugin.cf.domain.AppActivationService;
+import com.francetelecom.clara.cloud.activation.plugin.cf.domain.AppStartStatus;
 import com.francetelecom.clara.cloud.activation.plugin.cf.domain.CfTaskStatus;
 import com.francetelecom.clara.cloud.commons.TechnicalException;
 import com.francetelecom.clara.cloud.commons.tasks.Started;
@@ -24,7 +25,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -95,6 +98,8 @@ public class AppActivationServiceDefaultImpl implements AppActivationService {
     @Override
     public TaskStatus getAppStatus(TaskStatus taskStatus) {
         List<TaskStatus> appSubTasks = taskStatus.listSubtasks();
+        // each app is observed at most once per poll
+        Map<String, AppStartStatus> startStatuses = new HashMap<>();
 
         for (TaskStatus subTask : appSubTasks) {
             CfTaskStatus cfAppTaskStatus = (CfTaskStatus) subTask;
@@ -102,16 +107,25 @@ public class AppActivationServiceDefaultImpl implements AppActivationService {
             int instanceCounts = cfAppTaskStatus.getInstanceCounts();
             String spaceName = cfAppTaskStatus.getSpaceName();
             try {
-                boolean appStartedProperly;
                 int nbPeeks = cfAppTaskStatus.incrNbPeeks();
 
-                cfAppTaskStatus.setPercent(100 * nbStartedInstances(appName, instanceCounts, spaceName) / instanceCounts);
-                appStartedProperly = (nbStartedInstances(appName, instanceCounts, spaceName) == instanceCounts);
+                String key = spaceName + "/" + appName;
+                AppStartStatus startStatus = startStatuses.get(key);
+                if (startStatus == null) {
+                    startStatus = cfAdapter.getAppStartStatus(instanceCounts, appName, spaceName);
+                    startStatuses.put(key, startStatus);
+                }
+                if (startStatus.isStagingFailed()) {
+                    throw new TechnicalException("Unable to start app, caught unrecoverable exception:" + startStatus.getStagingError());
+                }
+
+                cfAppTaskStatus.setPercent(startStatus.getPercent());
+                boolean appStartedProperly = startStatus.isAllRunning();
                 if (!appStartedProperly) {
                     long elapsed = System.currentTimeMillis() - cfAppTaskStatus.getStartTime();
                     if (elapsed > 1000L * (long) appStartTimeout) {
                         String msg = "timeout waiting for app " + appName + " to start: polled " + nbPeeks + " times and waited " + elapsed / 1000 + " s (max is:"
-                                + appStartTimeout + " s)";
+                                + appStartTimeout + " s), last status: " + startStatus;
                         cfAdapter.logAppDiagnostics(appName, spaceName);
                         LOGGER.info(msg);
                         cfAppTaskStatus.setAsFinishedFailed(msg);
@@ -136,10 +150,6 @@ public class AppActivationServiceDefaultImpl implements AppActivationService {
         }); // convention to return a copy that will be serialied and stored
     }
 
-    private int nbStartedInstances(String appName, int instanceCounts, String spaceName) {
-        return cfAdapter.peekAppStartStatus(instanceCounts, appName, spaceName);
-    }
-
     public void setAppStartTimeout(int appStartTimeout) {
         this.appStartTimeout = appStartTimeout;
     }
@@ -0,0 +1,575 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.activation.plugin.cf.infrastructure;
+
+import com.francetelecom.clara.cloud.commons.TechnicalException;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local disk cache of artifacts downloaded from maven repositories, so that pushing the same binaries to several
+ * apps (e.g. environments created from the same release) downloads them only once.
+ * <p>
+ * Entries are keyed by artifact url. Downloads are verified against the SHA-1 checksum published next to the artifact
+ * in the repository, when there is one. An entry is trusted for {@link #getRevalidationPeriodMs()}, after which the
+ * published checksum (or the last modification date of artifacts without checksum) is checked again, so that a
+ * republished artifact (e.g. a snapshot) is downloaded again. Concurrent requests for the same artifact share a single
+ * download. Least recently used entries are removed once the total size of the cache exceeds
+ * {@link #getMaxSizeBytes()}; entries still leased through {@link #acquire(URL, String)} are never removed.
+ * <p>
+ * Each entry is stored in its own sub directory along with a description file, so that entries are reused after a
+ * restart. They are revalidated on first use.
+ */
+public class ArtifactCache {
+
+    private static Logger logger = LoggerFactory.getLogger(ArtifactCache.class.getName());
+
+    public static final long DEFAULT_REVALIDATION_PERIOD_MS = 5 * 60 * 1000;
+
+    private static final String CHECKSUM_SUFFIX = ".sha1";
+
+    private static final String PARTIAL_DOWNLOAD_SUFFIX = ".part";
+
+    private static final String DESCRIPTION_FILENAME = "artifact-cache-entry.properties";
+
+    /**
+     * name of entry directories: sha1 of the url followed by a random UUID
+     */
+    private static final String ENTRY_DIRECTORY_PATTERN = "[0-9a-f]{40}-[0-9a-f-]{36}";
+
+    /**
+     * A cached artifact, to be given back with {@link ArtifactCache#release(Entry)} once used
+     */
+    public static final class Entry {
+        private final String key;
+        private final File file;
+        private final long size;
+        private final String checksum;
+        /**
+         * checksum published in the repository, or null if there is none
+         */
+        private final String publishedChecksum;
+        /**
+         * last modification date of the artifact in the repository, or 0 if unknown
+         */
+        private final long lastModified;
+        /**
+         * guarded by the cache
+         */
+        private long validationTime;
+        private int leases;
+        private boolean removed;
+
+        Entry(String key, File file, long size, String checksum, String publishedChecksum, long lastModified, long validationTime) {
+            this.key = key;
+            this.file = file;
+            this.size = size;
+            this.checksum = checksum;
+            this.publishedChecksum = publishedChecksum;
+            this.lastModified = lastModified;
+            this.validationTime = validationTime;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public String getChecksum() {
+            return checksum;
+        }
+
+        private boolean isValid() {
+            return file.isFile() && file.length() == size;
+        }
+
+        /**
+         * @return true if the artifact of the repository is known to be the cached one
+         */
+        private boolean isUpToDate(RemoteVersion remote) {
+            if (remote.checksum != null) {
+                return remote.checksum.equalsIgnoreCase(checksum);
+            }
+            // without checksum, only an unchanged modification date tells the artifact was not republished
+            return publishedChecksum == null && remote.lastModified != 0 && remote.lastModified == lastModified;
+        }
+    }
+
+    /**
+     * What the repository tells about an artifact without downloading it
+     */
+    private static final class RemoteVersion {
+        private final String checksum;
+        private final long lastModified;
+
+        RemoteVersion(String checksum, long lastModified) {
+            this.checksum = checksum;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private final File directory;
+
+    private final long maxSizeBytes;
+
+    private final long revalidationPeriodMs;
+
+    /**
+     * entries in access order, guarded by this
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalSizeBytes;
+
+    private final ConcurrentMap<String, FutureTask<Entry>> pendingDownloads = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong revalidationCount = new AtomicLong();
+
+    /**
+     * @param directory    directory dedicated to the cache. Entries left by a previous run are reused.
+     * @param maxSizeBytes total size of cached artifacts above which least recently used ones are removed
+     */
+    public ArtifactCache(File directory, long maxSizeBytes) {
+        this(directory, maxSizeBytes, DEFAULT_REVALIDATION_PERIOD_MS);
+    }
+
+    /**
+     * @param directory            directory dedicated to the cache. Entries left by a previous run are reused.
+     * @param maxSizeBytes         total size of cached artifacts above which least recently used ones are removed
+     * @param revalidationPeriodMs time during which a cached artifact is used without checking the repository
+     */
+    public ArtifactCache(File directory, long maxSizeBytes, long revalidationPeriodMs) {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+        this.revalidationPeriodMs = revalidationPeriodMs;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new TechnicalException("Unable to create artifact cache directory " + directory);
+        }
+        loadEntries();
+    }
+
+    /**
+     * Leases the cached copy of an artifact, downloading it if needed.
+     *
+     * @param url      where to download the artifact from
+     * @param filename name to give to the cached file
+     * @return the cached artifact, to be given back with {@link #release(Entry)}
+     * @throws TechnicalException if the artifact can not be downloaded or does not match its published checksum
+     */
+    public Entry acquire(final URL url, final String filename) {
+        final String key = sha1(url.toExternalForm());
+        while (true) {
+            Entry stale;
+            synchronized (this) {
+                Entry entry = entries.get(key);
+                if (entry != null && !entry.isValid()) {
+                    logger.warn("Cached copy of {} was altered, downloading it again", url);
+                    remove(entry);
+                    entry = null;
+                }
+                if (entry != null && System.currentTimeMillis() - entry.validationTime < revalidationPeriodMs) {
+                    hitCount.incrementAndGet();
+                    entry.leases++;
+                    return entry;
+                }
+                stale = entry;
+            }
+            final RemoteVersion remote = fetchRemoteVersion(url);
+            if (stale != null) {
+                revalidationCount.incrementAndGet();
+                synchronized (this) {
+                    if (entries.get(key) == stale && stale.isUpToDate(remote)) {
+                        stale.validationTime = System.currentTimeMillis();
+                        hitCount.incrementAndGet();
+                        stale.leases++;
+                        return stale;
+                    }
+                }
+                logger.info("{} changed in repository since it was cached", url);
+            }
+            FutureTask<Entry> download = new FutureTask<>(new Callable<Entry>() {
+                @Override
+                public Entry call() throws Exception {
+                    return download(key, url, filename, remote.checksum);
+                }
+            });
+            FutureTask<Entry> pending = pendingDownloads.putIfAbsent(key, download);
+            if (pending == null) {
+                missCount.incrementAndGet();
+                pending = download;
+                try {
+                    download.run();
+                } finally {
+                    pendingDownloads.remove(key, download);
+                }
+            }
+            Entry downloaded = waitFor(pending, url);
+            synchronized (this) {
+                if (entries.get(key) == downloaded) {
+                    downloaded.leases++;
+                    return downloaded;
+                }
+            }
+            // evicted before we could lease it, try again
+        }
+    }
+
+    /**
+     * Gives back an entry leased with {@link #acquire(URL, String)}
+     */
+    public synchronized void release(Entry entry) {
+        entry.leases--;
+        if (entry.removed && entry.leases == 0) {
+            deleteEntryDirectory(entry);
+        }
+        evictIfNeeded(null);
+    }
+
+    private Entry download(String key, URL url, String filename, String expectedChecksum) throws IOException {
+        logger.info("Downloading {} into artifact cache", url);
+        File partFile = new File(directory, key + "-" + UUID.randomUUID() + PARTIAL_DOWNLOAD_SUFFIX);
+        String checksum;
+        long lastModified;
+        InputStream in = null;
+        OutputStream out = null;
+        try {
+            URLConnection connection = url.openConnection();
+            DigestInputStream digestIn = new DigestInputStream(new BufferedInputStream(connection.getInputStream()), newSha1Digest());
+            in = digestIn;
+            lastModified = connection.getLastModified();
+            out = new FileOutputStream(partFile);
+            IOUtils.copyLarge(in, out);
+            out.close();
+            checksum = toHex(digestIn.getMessageDigest().digest());
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(partFile);
+            throw e;
+        } finally {
+            IOUtils.closeQuietly(in);
+            IOUtils.closeQuietly(out);
+        }
+        if (expectedChecksum != null && !expectedChecksum.equalsIgnoreCase(checksum)) {
+            FileUtils.deleteQuietly(partFile);
+            throw new TechnicalException("Downloaded " + url + " does not match its published checksum: expected " + expectedChecksum + " but got " + checksum);
+        }
+        File entryDirectory = new File(directory, key + "-" + UUID.randomUUID());
+        File file = new File(entryDirectory, filename);
+        Entry entry = new Entry(key, file, partFile.length(), checksum, expectedChecksum, lastModified, System.currentTimeMillis());
+        try {
+            FileUtils.moveFile(partFile, file);
+            writeDescription(entryDirectory, url, entry);
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(partFile);
+            FileUtils.deleteQuietly(entryDirectory);
+            throw e;
+        }
+
+        synchronized (this) {
+            Entry previous = entries.get(key);
+            if (previous != null) {
+                remove(previous);
+            }
+            add(entry);
+            evictIfNeeded(key);
+        }
+        return entry;
+    }
+
+    private Entry waitFor(FutureTask<Entry> download, URL url) {
+        try {
+            return download.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TechnicalException("Interrupted while waiting for download of " + url, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TechnicalException) {
+                throw (TechnicalException) e.getCause();
+            }
+            throw new TechnicalException("URL " + url + " not available", e.getCause());
+        }
+    }
+
+    /**
+     * @param keptKey key of an entry that must not be removed, or null
+     */
+    private void evictIfNeeded(String keptKey) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (totalSizeBytes > maxSizeBytes && it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.leases > 0 || entry.key.equals(keptKey)) {
+                continue;
+            }
+            it.remove();
+            totalSizeBytes -= entry.size;
+            entry.removed = true;
+            evictionCount.incrementAndGet();
+            logger.debug("Evicting {} from artifact cache", entry.file);
+            deleteEntryDirectory(entry);
+        }
+    }
+
+    private void add(Entry entry) {
+        entries.put(entry.key, entry);
+        totalSizeBytes += entry.size;
+    }
+
+    /**
+     * Removes an entry from the cache. Its file is deleted once no longer leased.
+     */
+    private void remove(Entry entry) {
+        entries.remove(entry.key);
+        totalSizeBytes -= entry.size;
+        entry.removed = true;
+        if (entry.leases == 0) {
+            deleteEntryDirectory(entry);
+        }
+    }
+
+    private static void deleteEntryDirectory(Entry entry) {
+        FileUtils.deleteQuietly(entry.file.getParentFile());
+    }
+
+    /**
+     * @return the SHA-1 published by the repository next to the artifact or, when there is none, the last
+     * modification date of the artifact
+     */
+    private RemoteVersion fetchRemoteVersion(URL url) {
+        String checksum = fetchPublishedChecksum(url);
+        if (checksum != null) {
+            return new RemoteVersion(checksum, 0);
+        }
+        return new RemoteVersion(null, fetchLastModified(url));
+    }
+
+    /**
+     * @return the SHA-1 published by the repository next to the artifact, or null if there is none
+     */
+    private String fetchPublishedChecksum(URL url) {
+        InputStream in = null;
+        try {
+            in = new URL(url.toExternalForm() + CHECKSUM_SUFFIX).openStream();
+            String content = IOUtils.toString(in, StandardCharsets.US_ASCII).trim();
+            // some repositories append the file name after the checksum
+            String checksum = content.split("\\s+")[0];
+            return checksum.matches("[0-9a-fA-F]{40}") ? checksum.toLowerCase() : null;
+        } catch (IOException e) {
+            logger.debug("No checksum published for {}: {}", url, e.toString());
+            return null;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * @return the last modification date of the artifact, or 0 if unknown
+     */
+    private long fetchLastModified(URL url) {
+        URLConnection connection = null;
+        try {
+            connection = url.openConnection();
+            if (connection instanceof HttpURLConnection) {
+                ((HttpURLConnection) connection).setRequestMethod("HEAD");
+            }
+            return connection.getLastModified();
+        } catch (IOException e) {
+            logger.debug("Unable to get last modification date of {}: {}", url, e.toString());
+            return 0;
+        } finally {
+            if (connection instanceof HttpURLConnection) {
+                ((HttpURLConnection) connection).disconnect();
+            } else if (connection != null) {
+                // e.g. file urls open the file to get its modification date
+                try {
+                    IOUtils.closeQuietly(connection.getInputStream());
+                } catch (IOException e) {
+                    // nothing was opened
+                }
+            }
+        }
+    }
+
+    private static void writeDescription(File entryDirectory, URL url, Entry entry) throws IOException {
+        Properties description = new Properties();
+        description.setProperty("url", url.toExternalForm());
+        description.setProperty("filename", entry.file.getName());
+        description.setProperty("size", String.valueOf(entry.size));
+        description.setProperty("checksum", entry.checksum);
+        if (entry.publishedChecksum != null) {
+            description.setProperty("publishedChecksum", entry.publishedChecksum);
+        }
+        description.setProperty("lastModified", String.valueOf(entry.lastModified));
+        OutputStream out = new FileOutputStream(new File(entryDirectory, DESCRIPTION_FILENAME));
+        try {
+            description.store(out, null);
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    /**
+     * @return the entry described in the given directory, or null if it is incomplete
+     */
+    private static Entry readDescription(File entryDirectory) {
+        Properties description = new Properties();
+        InputStream in = null;
+        try {
+            in = new FileInputStream(new File(entryDirectory, DESCRIPTION_FILENAME));
+            description.load(in);
+            String key = sha1(description.getProperty("url"));
+            if (!entryDirectory.getName().startsWith(key)) {
+                return null;
+            }
+            File file = new File(entryDirectory, description.getProperty("filename"));
+            // never validated: the repository is checked again on first use
+            Entry entry = new Entry(key, file, Long.parseLong(description.getProperty("size")), description.getProperty("checksum"),
+                    description.getProperty("publishedChecksum"), Long.parseLong(description.getProperty("lastModified")), 0);
+            return entry.isValid() && entry.checksum != null ? entry : null;
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Ignoring incomplete artifact cache entry {}: {}", entryDirectory, e.toString());
+            return null;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Reuses entries left by a previous run, least recently downloaded first, and removes partial downloads.
+     */
+    private synchronized void loadEntries() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                return Long.compare(file1.lastModified(), file2.lastModified());
+            }
+        });
+        for (File file : files) {
+            // only consider what this cache could have created, in case the directory is shared
+            if (file.getName().endsWith(PARTIAL_DOWNLOAD_SUFFIX) || file.getName().matches("[0-9a-f]{40}")) {
+                // partial download or entry without description
+                FileUtils.deleteQuietly(file);
+            } else if (file.isDirectory() && file.getName().matches(ENTRY_DIRECTORY_PATTERN)) {
+                Entry entry = readDescription(file);
+                if (entry == null) {
+                    FileUtils.deleteQuietly(file);
+                    continue;
+                }
+                Entry previous = entries.get(entry.key);
+                if (previous != null) {
+                    // most recent download of the artifact wins
+                    remove(previous);
+                }
+                add(entry);
+            }
+        }
+        evictIfNeeded(null);
+        logger.info("Artifact cache {} reuses {} entries ({} bytes)", directory, entries.size(), totalSizeBytes);
+    }
+
+    /**
+     * Meant to be invoked on shutdown. Cached artifacts are kept on disk to be reused on next start.
+     */
+    public synchronized void destroy() {
+        logger.info("Closing artifact cache, statistics: {}", getStatistics());
+    }
+
+    private static MessageDigest newSha1Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new TechnicalException(e);
+        }
+    }
+
+    private static String sha1(String value) {
+        return toHex(newSha1Digest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public long getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    public long getRevalidationPeriodMs() {
+        return revalidationPeriodMs;
+    }
+
+    public synchronized long getSizeBytes() {
+        return totalSizeBytes;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getRevalidationCount() {
+        return revalidationCount.get();
+    }
+
+    public String getStatistics() {
+        return "hits=" + getHitCount() + " misses=" + getMissCount() + " evictions=" + getEvictionCount() + " revalidations=" + getRevalidationCount() + " sizeBytes=" + getSizeBytes();
+    }
+}
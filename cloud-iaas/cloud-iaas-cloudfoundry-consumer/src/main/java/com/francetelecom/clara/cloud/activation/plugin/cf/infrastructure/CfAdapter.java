@@ -12,6 +12,7 @@
  */
 package com.francetelecom.clara.cloud.activation.plugin.cf.infrastructure;
 
+import com.francetelecom.clara.cloud.activation.plugin.cf.domain.AppStartStatus;
 import com.francetelecom.clara.cloud.activation.plugin.cf.domain.ServiceActivationStatus;
 import com.francetelecom.clara.cloud.commons.TechnicalException;
 import com.francetelecom.clara.cloud.techmodel.cf.*;
@@ -106,6 +107,15 @@ public interface CfAdapter {
 	 */
 	int peekAppStartStatus(int instanceCount, String appName, String spaceName);
 
+	/**
+	 * Observes in a single authenticated call the staging and instances state of an app being started
+	 * 
+	 * @param instanceCount
+	 *            number of instances expected to run
+	 * @return a snapshot of the app start progress
+	 */
+	AppStartStatus getAppStartStatus(int instanceCount, String appName, String spaceName);
+
 	/**
 	 * Create a service.
 	 * 
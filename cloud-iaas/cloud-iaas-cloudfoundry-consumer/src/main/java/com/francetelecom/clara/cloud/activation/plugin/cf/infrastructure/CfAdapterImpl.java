@@ -12,6 +12,7 @@
  */
 package com.francetelecom.clara.cloud.activation.plugin.cf.infrastructure;
 
+import com.francetelecom.clara.cloud.activation.plugin.cf.domain.AppStartStatus;
 import com.francetelecom.clara.cloud.activation.plugin.cf.domain.ServiceActivationStatus;
 import com.francetelecom.clara.cloud.archive.ManageArchive;
 import com.francetelecom.clara.cloud.commons.MavenReference;
@@ -32,7 +33,9 @@ import org.springframework.retry.RetryCallback;
 import org.springframework.retry.RetryContext;
 import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.security.oauth2.common.exceptions.OAuth2Exception;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
 
 import java.io.File;
 import java.io.IOException;
@@ -65,6 +68,8 @@ public class CfAdapterImpl implements CfAdapter {
     @Autowired
     private ManageArchive archiver;
 
+    private final CfSessionManager sessionManager;
+
     /**
      * @param httpProxyHost
      * @param httpProxyPort
@@ -110,34 +115,106 @@ public class CfAdapterImpl implements CfAdapter {
         // safe normalized
         // comparisons
         this.domain = normalizedDomain.name();
+        this.sessionManager = new CfSessionManager(org, new CfSessionManager.ClientFactory() {
+            @Override
+            public CloudFoundryOperations newClient(String spaceName) {
+                return CfAdapterImpl.this.newClient(spaceName);
+            }
+        });
     }
 
-    protected CloudFoundryOperations login() {
-        logger.info("Running on " + target + " on behalf of " + email);
-        logger.info("Using space " + space + " of organization " + org + " with domain " + domain);
+    /**
+     * Leases a logged in client from the session manager. Must be given back using {@link #logout(CloudFoundryOperations)}
+     */
+    protected CloudFoundryOperations login(String spaceName) {
+        logger.debug("Using space " + spaceName + " of organization " + org + " with domain " + domain);
+        return sessionManager.acquire(spaceName);
+    }
 
-        CloudCredentials cloudCredentials = new CloudCredentials(email, password);
-        HttpProxyConfiguration httpProxyConfiguration = httpProxyConfiguration();
+    protected void logout(CloudFoundryOperations cfClient) {
+        sessionManager.release(cfClient);
+    }
 
-        CloudFoundryClient clientWithinTargetSpace = new CloudFoundryClient(cloudCredentials, target, org, space, httpProxyConfiguration, trustSelfSignedCerts);
-        clientWithinTargetSpace.login();
-        // createDomain(domain);
+    /**
+     * Runs a callback with a client leased for the given space, then gives the client back. The client is dropped
+     * instead of being reused when the callback fails because its session is broken.
+     */
+    protected <T> T withClient(String spaceName, ClientCallback<T> callback) {
+        CloudFoundryOperations cfClient = login(spaceName);
+        try {
+            return callback.doWithClient(cfClient);
+        } catch (RuntimeException e) {
+            invalidateIfSessionBroken(cfClient, e);
+            throw e;
+        } finally {
+            logout(cfClient);
+        }
+    }
 
-        return clientWithinTargetSpace;
+    /**
+     * Work done with a logged in client, see {@link #withClient(String, ClientCallback)}
+     */
+    protected interface ClientCallback<T> {
+        T doWithClient(CloudFoundryOperations cfClient);
     }
 
-    protected CloudFoundryOperations login(String spaceName) {
+    /**
+     * Flags the client so that {@link #logout(CloudFoundryOperations)} logs it out and drops it instead of handing it
+     * to the next caller, when the failure shows its session is no longer usable (token rejected or expired).
+     */
+    protected void invalidateIfSessionBroken(CloudFoundryOperations cfClient, Throwable failure) {
+        if (isSessionBroken(failure)) {
+            logger.info("Dropping cloudfoundry client after authentication failure: " + failure);
+            sessionManager.invalidate(cfClient);
+        }
+    }
+
+    static boolean isSessionBroken(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpStatusCodeException && HttpStatus.UNAUTHORIZED.equals(((HttpStatusCodeException) cause).getStatusCode())) {
+                return true;
+            }
+            if (cause instanceof OAuth2Exception) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a new client, not yet logged in. Invoked by the session manager when no idle client is available.
+     */
+    protected CloudFoundryOperations newClient(String spaceName) {
         logger.info("Running on " + target + " on behalf of " + email);
         logger.info("Using space " + spaceName + " of organization " + org + " with domain " + domain);
 
         CloudCredentials cloudCredentials = new CloudCredentials(email, password);
         HttpProxyConfiguration httpProxyConfiguration = httpProxyConfiguration();
 
-        CloudFoundryClient clientWithinTargetSpace = new CloudFoundryClient(cloudCredentials, target, org, spaceName, httpProxyConfiguration, trustSelfSignedCerts);
-        clientWithinTargetSpace.login();
-        // createDomain(domain);
+        return new CloudFoundryClient(cloudCredentials, target, org, spaceName, httpProxyConfiguration, trustSelfSignedCerts);
+    }
 
-        return clientWithinTargetSpace;
+    /**
+     * Logs out pooled clients. Invoked on context shutdown.
+     */
+    public void destroy() {
+        sessionManager.destroy();
+    }
+
+    public CfSessionManager getSessionManager() {
+        return sessionManager;
+    }
+
+    public void setMaxClientsPerSpace(int maxClientsPerSpace) {
+        sessionManager.setMaxClientsPerSpace(maxClientsPerSpace);
+    }
+
+    public void setMaxIdleTimeMs(long maxIdleTimeMs) {
+        sessionManager.setMaxIdleTimeMs(maxIdleTimeMs);
+    }
+
+    public void setTokenRefreshMarginMs(long tokenRefreshMarginMs) {
+        sessionManager.setTokenRefreshMarginMs(tokenRefreshMarginMs);
     }
 
     public HttpProxyConfiguration httpProxyConfiguration() {
@@ -190,22 +267,20 @@ public class CfAdapterImpl implements CfAdapter {
 
     @Override
     public UUID createApp(final App app, String spaceName) {
+        return withClient(spaceName, new ClientCallback<UUID>() {
+            @Override
+            public UUID doWithClient(CloudFoundryOperations cfClient) {
+                createApplicationWithRoutes(app, cfClient);
+                adjustApplicationInstance(app, cfClient);
+                addEnvironmentVariableToApplication(app, cfClient);
 
-        final CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            createApplicationWithRoutes(app, cfClient);
-            adjustApplicationInstance(app, cfClient);
-            addEnvironmentVariableToApplication(app, cfClient);
-
-            uploadApplicationBinaries(app, cfClient);
-
-            CloudApplication application = cfClient.getApplication(app.getAppName());
+                uploadApplicationBinaries(app, cfClient);
 
-            return application.getMeta().getGuid();
+                CloudApplication application = cfClient.getApplication(app.getAppName());
 
-        } finally {
-            cfClient.logout();
-        }
+                return application.getMeta().getGuid();
+            }
+        });
     }
 
     private void adjustApplicationInstance(App app, CloudFoundryOperations cfClient) {
@@ -317,153 +392,158 @@ public class CfAdapterImpl implements CfAdapter {
 
     @Override
     public int peekAppStartStatus(int instanceCount, String appName, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            boolean pass = false;
-            try {
-                logger.info("checking if all " + instanceCount + " instance(s) of " + appName + " have started...");
-                InstancesInfo instances = getInstancesWithTimeout(cfClient, appName);
-
-                if (instances == null) {
-                    logger.info("Null InstanceInfo returned, staging is in progress or has failed. Will retry");
-                    return 0;
-                }
-
-                List<InstanceInfo> infos = instances.getInstances();
-                int currentNbInstances = 0;
-                if (instances != null) {
-                    currentNbInstances = instances.getInstances().size();
-                }
-                if (currentNbInstances == 0) {
-                    logger.warn("No instances returned, staging is in progress or has failed. Will retry");
-                    return 0;
-                }
-                if (currentNbInstances != instanceCount) {
-                    logger.error("expected " + instanceCount + " instances , but only got:" + currentNbInstances);
-                }
+        AppStartStatus status = getAppStartStatus(instanceCount, appName, spaceName);
+        if (status.isStagingFailed()) {
+            throw new TechnicalException("Unable to start app, caught unrecoverable exception:" + status.getStagingError());
+        }
+        return status.getRunningInstances();
+    }
 
-                int passCount = 0;
-                int instanceIndex = 0;
-                for (InstanceInfo info : infos) {
-                    InstanceState state1 = info.getState();
-                    if (InstanceState.RUNNING.equals(state1)) {
-                        passCount++;
-                        logger.info("app " + appName + " instance#" + instanceIndex + " is now in desired state:" + state1);
-                    } else {
-                        logger.info("app " + appName + " instance#" + instanceIndex + " is still in undesired state:" + state1);
+    @Override
+    public AppStartStatus getAppStartStatus(final int instanceCount, final String appName, String spaceName) {
+        return withClient(spaceName, new ClientCallback<AppStartStatus>() {
+            @Override
+            public AppStartStatus doWithClient(CloudFoundryOperations cfClient) {
+                try {
+                    logger.info("checking if all " + instanceCount + " instance(s) of " + appName + " have started...");
+                    CloudApplication app = cfClient.getApplication(appName);
+                    InstancesInfo instances = cfClient.getApplicationInstances(app);
+                    if (instances == null || instances.getInstances().isEmpty()) {
+                        logger.info("No instances returned for app " + appName + " in state " + app.getState() + ", staging is in progress or has failed. Will retry");
+                        return AppStartStatus.staging(appName, instanceCount);
                     }
-                    instanceIndex++;
-                }
-                return passCount;
-            } catch (StagingErrorException e) {
-                // No need to wait more, the staging failed.
-                String msg = "Unable to start app, caught unrecoverable exception:" + e;
-                throw new TechnicalException(msg, e);
-            } catch (CloudFoundryException ex) {
-                // ignore (we may get this when staging is still ongoing)
-                if (ex instanceof NotFinishedStagingException) {
-                    logger.debug("Start status of " + appName + " not yet ready: " + ex);
-                } else {
-                    logger.info("Issue checking start status of " + appName + " caught: " + ex, ex);
+                    List<InstanceInfo> infos = instances.getInstances();
+                    if (infos.size() != instanceCount) {
+                        logger.error("expected " + instanceCount + " instances , but only got:" + infos.size());
+                    }
+                    int running = 0;
+                    int crashed = 0;
+                    int flapping = 0;
+                    int instanceIndex = 0;
+                    for (InstanceInfo info : infos) {
+                        InstanceState state = info.getState();
+                        if (InstanceState.RUNNING.equals(state)) {
+                            running++;
+                        } else if (InstanceState.CRASHED.equals(state)) {
+                            crashed++;
+                        } else if (InstanceState.FLAPPING.equals(state)) {
+                            flapping++;
+                        }
+                        logger.debug("app " + appName + " instance#" + instanceIndex + " is in state:" + state);
+                        instanceIndex++;
+                    }
+                    AppStartStatus status = AppStartStatus.instances(appName, instanceCount, infos.size(), running, crashed, flapping);
+                    logger.info(status.toString());
+                    return status;
+                } catch (StagingErrorException e) {
+                    // No need to wait more, the staging failed.
+                    return AppStartStatus.stagingFailed(appName, instanceCount, e.toString());
+                } catch (NotFinishedStagingException e) {
+                    logger.debug("Start status of " + appName + " not yet ready: " + e);
+                    return AppStartStatus.staging(appName, instanceCount);
+                } catch (CloudFoundryException | HttpServerErrorException e) {
+                    // transient errors (e.g. while staging is still ongoing): next poll will retry
+                    logger.info("Issue checking start status of " + appName + " caught: " + e, e);
+                    invalidateIfSessionBroken(cfClient, e);
+                    return AppStartStatus.staging(appName, instanceCount);
                 }
-                return 0;
             }
-        } finally {
-            cfClient.logout();
-        }
+        });
     }
 
     @Override
-    public void startApp(App cfApp, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            CloudApplication.AppState state;
-            logger.info("Starting app with name=" + cfApp.getAppName());
-            try {
-                StartingInfo info = cfClient.startApplication(cfApp.getAppName());
-                CloudApplication app;
-                app = cfClient.getApplication(cfApp.getAppName());
-                state = app.getState();
-                logger.info("app is in state " + state);
-                logger.info("app staging logs are in:" + info.getStagingFile());
+    public void startApp(final App cfApp, String spaceName) {
+        withClient(spaceName, new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                CloudApplication.AppState state;
+                logger.info("Starting app with name=" + cfApp.getAppName());
                 try {
-                    String logs = cfClient.getStagingLogs(info, 0);
-                    logger.info("app staging logs:" + logs);
-                } catch (Exception e) {
-                    logger.info("unable to get app staging logs:" + e);
-                }
+                    StartingInfo info = cfClient.startApplication(cfApp.getAppName());
+                    CloudApplication app;
+                    app = cfClient.getApplication(cfApp.getAppName());
+                    state = app.getState();
+                    logger.info("app is in state " + state);
+                    logger.info("app staging logs are in:" + info.getStagingFile());
+                    try {
+                        String logs = cfClient.getStagingLogs(info, 0);
+                        logger.info("app staging logs:" + logs);
+                    } catch (Exception e) {
+                        logger.info("unable to get app staging logs:" + e);
+                    }
 
-                logger.info("app uris are:" + app.getUris());
+                    logger.info("app uris are:" + app.getUris());
 
-                int count;
-                count = cfApp.getInstanceCount();
-                if (count > 1) {
-                    cfClient.updateApplicationInstances(cfApp.getAppName(), count);
-                    app = cfClient.getApplication(cfApp.getAppName());
-                    if (count != app.getInstances()) {
-                        logger.error("expected instances to be updated to:" + count + ", got:" + app.getInstances());
+                    int count;
+                    count = cfApp.getInstanceCount();
+                    if (count > 1) {
+                        cfClient.updateApplicationInstances(cfApp.getAppName(), count);
+                        app = cfClient.getApplication(cfApp.getAppName());
+                        if (count != app.getInstances()) {
+                            logger.error("expected instances to be updated to:" + count + ", got:" + app.getInstances());
+                        }
                     }
+                } catch (Exception e) {
+                    throw new TechnicalException("unable to start app:" + cfApp.getAppName(), e);
                 }
-            } catch (Exception e) {
-                throw new TechnicalException("unable to start app:" + cfApp.getAppName(), e);
-            }
 
-            if (!CloudApplication.AppState.STARTED.equals(state)) {
-                throw new TechnicalException("Unexpected state after start:" + state);
+                if (!CloudApplication.AppState.STARTED.equals(state)) {
+                    throw new TechnicalException("Unexpected state after start:" + state);
+                }
+                return null;
             }
-        } finally {
-            cfClient.logout();
-        }
+        });
     }
 
     @Override
-    public void logAppDiagnostics(String appName, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            try {
-                List<ApplicationLog> crashLogs = cfClient.getRecentLogs(appName);
-                logger.info("Crashlogs for " + appName + " are:\n" + crashLogs);
-            } catch (Exception e) {
-                logger.info("Unable to log diagnostic details (crashlogs) for app=" + appName + ", caught:" + e, e);
-            }
+    public void logAppDiagnostics(final String appName, String spaceName) {
+        withClient(spaceName, new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                try {
+                    List<ApplicationLog> crashLogs = cfClient.getRecentLogs(appName);
+                    logger.info("Crashlogs for " + appName + " are:\n" + crashLogs);
+                } catch (Exception e) {
+                    logger.info("Unable to log diagnostic details (crashlogs) for app=" + appName + ", caught:" + e, e);
+                }
 
-            try {
-                String jonasLogDirPath = "app/.jonas_base/logs/";
-
-                String logsDirContent = cfClient.getFile(appName, 0, jonasLogDirPath);
-                logger.info("logs dir content: \n{}", logsDirContent);
-                String jonasLogFileName = getJonasLogFileName(new Date());
-                if (logsDirContent != null && logsDirContent.contains(jonasLogFileName)) {
-                    String jonasLogsContent = cfClient.getFile(appName, 0, jonasLogDirPath + jonasLogFileName);
-                    logger.info("jonasLogs Content: \n{}", jonasLogsContent);
+                try {
+                    String jonasLogDirPath = "app/.jonas_base/logs/";
+
+                    String logsDirContent = cfClient.getFile(appName, 0, jonasLogDirPath);
+                    logger.info("logs dir content: \n{}", logsDirContent);
+                    String jonasLogFileName = getJonasLogFileName(new Date());
+                    if (logsDirContent != null && logsDirContent.contains(jonasLogFileName)) {
+                        String jonasLogsContent = cfClient.getFile(appName, 0, jonasLogDirPath + jonasLogFileName);
+                        logger.info("jonasLogs Content: \n{}", jonasLogsContent);
+                    }
+                } catch (Exception e) {
+                    logger.info("Unable to log diagnostic details (jonasLogs) for app=" + appName + ", caught:" + e);
                 }
-            } catch (Exception e) {
-                logger.info("Unable to log diagnostic details (jonasLogs) for app=" + appName + ", caught:" + e);
-            }
 
-            try {
-                String buildpackDiagnosticLogsPath = "app/.buildpack-diagnostics/buildpack.log";
+                try {
+                    String buildpackDiagnosticLogsPath = "app/.buildpack-diagnostics/buildpack.log";
 
-                String buildpackDiagnosticLogs = cfClient.getFile(appName, 0, buildpackDiagnosticLogsPath);
-                logger.info("buildpackDiagnosticLogs content: \n{}", buildpackDiagnosticLogs);
-            } catch (Exception e) {
-                logger.info("Unable to log diagnostic details (buildpack diagnostic logs) for app=" + appName + ", caught:" + e);
-            }
+                    String buildpackDiagnosticLogs = cfClient.getFile(appName, 0, buildpackDiagnosticLogsPath);
+                    logger.info("buildpackDiagnosticLogs content: \n{}", buildpackDiagnosticLogs);
+                } catch (Exception e) {
+                    logger.info("Unable to log diagnostic details (buildpack diagnostic logs) for app=" + appName + ", caught:" + e);
+                }
 
-            try {
-                ApplicationStats applicationStats = cfClient.getApplicationStats(appName);
-                List<InstanceStats> records = applicationStats.getRecords();
-                int i = 0;
-                for (InstanceStats record : records) {
-                    logger.info("Stats for instance #" + i + " of App " + appName + " are: " + ReflectionToStringBuilder.toString(record));
-                    i++;
+                try {
+                    ApplicationStats applicationStats = cfClient.getApplicationStats(appName);
+                    List<InstanceStats> records = applicationStats.getRecords();
+                    int i = 0;
+                    for (InstanceStats record : records) {
+                        logger.info("Stats for instance #" + i + " of App " + appName + " are: " + ReflectionToStringBuilder.toString(record));
+                        i++;
+                    }
+                } catch (Exception e) {
+                    logger.info("Unable to log diagnostic details (app stats) for app=" + appName + ", caught:" + e, e);
                 }
-            } catch (Exception e) {
-                logger.info("Unable to log diagnostic details (app stats) for app=" + appName + ", caught:" + e, e);
+                return null;
             }
-        } finally {
-            cfClient.logout();
-        }
+        });
     }
 
     public String getJonasLogFileName(Date date) {
@@ -473,103 +553,85 @@ public class CfAdapterImpl implements CfAdapter {
     }
 
     @Override
-    public void stopApp(App cfApp, String spaceName) {
-        CloudApplication app;
-        String appName = cfApp.getAppName();
+    public void stopApp(final App cfApp, String spaceName) {
+        final String appName = cfApp.getAppName();
         logger.info("Stopping app with name=" + appName);
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            try {
-                cfClient.stopApplication(appName);
-            } catch (Exception e) {
-                throw new TechnicalException("unable to stop app:" + appName, e);
-            }
-            app = cfClient.getApplication(appName);
-            CloudApplication.AppState state = app.getState();
+        withClient(spaceName, new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                try {
+                    cfClient.stopApplication(appName);
+                } catch (Exception e) {
+                    throw new TechnicalException("unable to stop app:" + appName, e);
+                }
+                CloudApplication app = cfClient.getApplication(appName);
+                CloudApplication.AppState state = app.getState();
 
-            logger.info("app is in state " + state);
+                logger.info("app is in state " + state);
 
-            if (!CloudApplication.AppState.STOPPED.equals(state)) {
-                throw new TechnicalException("Unexpected state after start:" + state);
+                if (!CloudApplication.AppState.STOPPED.equals(state)) {
+                    throw new TechnicalException("Unexpected state after start:" + state);
+                }
+                return null;
             }
-        } finally {
-            cfClient.logout();
-        }
+        });
     }
 
     @Override
-    public void deleteApp(App app, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            String appName = app.getAppName();
-
-            deleteRoutesAndSubdomain(app, spaceName);
+    public void deleteApp(final App app, String spaceName) {
+        withClient(spaceName, new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                String appName = app.getAppName();
 
-            logger.info("Deleting app with name=" + appName);
-            try {
-                cfClient.deleteApplication(appName);
-            } catch (Exception e) {
-                logger.warn("unable to delete app:" + appName, e);
-            }
-        } finally {
-            cfClient.logout();
-        }
-    }
+                deleteRoutesAndSubdomain(app, cfClient);
 
-    protected void deleteRoutesAndSubdomain(App app, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            Set<Route> routes = app.getRoutes();
-            Set<String> subdomainsToDelete = new HashSet<String>();
-            for (Route route : routes) {
-                logger.info("Deleting route with uri=" + route.getUri());
-                if (!InternetDomainName.from(route.getDomain()).equals(normalizedDomain)) {
-                    subdomainsToDelete.add(route.getDomain());
-                }
+                logger.info("Deleting app with name=" + appName);
                 try {
-                    cfClient.deleteRoute(route.getHost(), route.getDomain());
+                    cfClient.deleteApplication(appName);
                 } catch (Exception e) {
-                    logger.warn("unable to delete route host=" + route.getHost() + " domain=" + route.getDomain() + " caught:" + e, e);
-                    // proceed
+                    logger.warn("unable to delete app:" + appName, e);
                 }
+                return null;
             }
+        });
+    }
 
-            for (String subdomain : subdomainsToDelete) {
-                try {
-                    logger.info("deleting subdomain=" + subdomain);
-                    cfClient.deleteDomain(subdomain);
-                } catch (Exception e) {
-                    logger.info("unable to delete domain=" + subdomain + " Might be in use by another app? Caught:" + e, e);
-                    // proceed
-                }
+    protected void deleteRoutesAndSubdomain(final App app, String spaceName) {
+        withClient(spaceName, new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                deleteRoutesAndSubdomain(app, cfClient);
+                return null;
             }
-        } finally {
-            cfClient.logout();
-        }
+        });
     }
 
-    private InstancesInfo getInstancesWithTimeout(CloudFoundryOperations client, String appName) {
-        int timeoutMs = 1 * 60 * 1000;
-        long start = System.currentTimeMillis();
-        while (true) {
-            try {
-                Thread.sleep(2000);
-            } catch (InterruptedException e1) {
-                // ignore
+    private void deleteRoutesAndSubdomain(App app, CloudFoundryOperations cfClient) {
+        Set<Route> routes = app.getRoutes();
+        Set<String> subdomainsToDelete = new HashSet<String>();
+        for (Route route : routes) {
+            logger.info("Deleting route with uri=" + route.getUri());
+            if (!InternetDomainName.from(route.getDomain()).equals(normalizedDomain)) {
+                subdomainsToDelete.add(route.getDomain());
             }
             try {
-                return client.getApplicationInstances(appName);
-            } catch (HttpServerErrorException e) {
-                // error 500, keep waiting
-            }
-            long startWaitTime = System.currentTimeMillis() - start;
-            if (startWaitTime > timeoutMs) {
-                String msg = "Timed out waiting for app startup:" + startWaitTime + " ms (max is:" + timeoutMs + ")";
-                logger.error(msg);
-                throw new TechnicalException(msg);
+                cfClient.deleteRoute(route.getHost(), route.getDomain());
+            } catch (Exception e) {
+                logger.warn("unable to delete route host=" + route.getHost() + " domain=" + route.getDomain() + " caught:" + e, e);
+                // proceed
             }
         }
 
+        for (String subdomain : subdomainsToDelete) {
+            try {
+                logger.info("deleting subdomain=" + subdomain);
+                cfClient.deleteDomain(subdomain);
+            } catch (Exception e) {
+                logger.info("unable to delete domain=" + subdomain + " Might be in use by another app? Caught:" + e, e);
+                // proceed
+            }
+        }
     }
 
     public boolean isUsingHttpProxy() {
@@ -585,222 +647,233 @@ public class CfAdapterImpl implements CfAdapter {
     }
 
     @Override
-    public boolean domainExists(String domainNameToCreate, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            List<CloudDomain> existingDomains = cfClient.getDomainsForOrg();
-            for (CloudDomain existingDomain : existingDomains) {
-                if (domainNameToCreate.equals(existingDomain.getName())) {
-                    return true;
+    public boolean domainExists(final String domainNameToCreate, String spaceName) {
+        return withClient(spaceName, new ClientCallback<Boolean>() {
+            @Override
+            public Boolean doWithClient(CloudFoundryOperations cfClient) {
+                List<CloudDomain> existingDomains = cfClient.getDomainsForOrg();
+                for (CloudDomain existingDomain : existingDomains) {
+                    if (domainNameToCreate.equals(existingDomain.getName())) {
+                        return true;
+                    }
                 }
+                logger.info("Did not find {} within list of domains present on cf: {}", domainNameToCreate, existingDomains);
+                return false;
             }
-            logger.info("Did not find {} within list of domains present on cf: {}", domainNameToCreate, existingDomains);
-            return false;
-        } finally {
-            cfClient.logout();
-        }
+        });
     }
 
     @Override
-    public void createService(UserProvidedService service, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            CloudService cloudService = new CloudService(null, service.getServiceName());
-            String syslogDrainUrl = service.getLogUrl();
-            cfClient.createUserProvidedService(cloudService, service.getCredentials(),syslogDrainUrl);
-        } finally {
-            cfClient.logout();
-        }
+    public void createService(final UserProvidedService service, String spaceName) {
+        withClient(spaceName, new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                CloudService cloudService = new CloudService(null, service.getServiceName());
+                String syslogDrainUrl = service.getLogUrl();
+                cfClient.createUserProvidedService(cloudService, service.getCredentials(),syslogDrainUrl);
+                return null;
+            }
+        });
     }
 
     @Override
-    public boolean serviceExists(String serviceName, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            return cfClient.getService(serviceName) != null;
-        } finally {
-            cfClient.logout();
-        }
+    public boolean serviceExists(final String serviceName, String spaceName) {
+        return withClient(spaceName, new ClientCallback<Boolean>() {
+            @Override
+            public Boolean doWithClient(CloudFoundryOperations cfClient) {
+                return cfClient.getService(serviceName) != null;
+            }
+        });
     }
 
     @Override
-    public void deleteService(String serviceName, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            // delete cloud service
-            // will unbind service from all bound application if exists
-            cfClient.deleteService(serviceName);
-        } finally {
-            cfClient.logout();
-        }
+    public void deleteService(final String serviceName, String spaceName) {
+        withClient(spaceName, new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                // delete cloud service
+                // will unbind service from all bound application if exists
+                cfClient.deleteService(serviceName);
+                return null;
+            }
+        });
     }
 
     @Override
     public void deleteAllServices(String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            cfClient.deleteAllServices();
-        } finally {
-            cfClient.logout();
-        }
+        withClient(spaceName, new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                cfClient.deleteAllServices();
+                return null;
+            }
+        });
     }
 
     @Override
     public void bindService(final String appName, final String serviceName, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            cfClient.bindService(appName, serviceName);
-        } finally {
-            cfClient.logout();
-        }
+        withClient(spaceName, new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                cfClient.bindService(appName, serviceName);
+                return null;
+            }
+        });
     }
 
     @Override
     public void unbindService(final String appName, final String serviceName, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            cfClient.unbindService(appName, serviceName);
-        } finally {
-            cfClient.logout();
-        }
+        withClient(spaceName, new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                cfClient.unbindService(appName, serviceName);
+                return null;
+            }
+        });
     }
 
     @Override
     public boolean isServiceBound(final String appName, final String serviceName, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            CloudApplication cloudApplication = cfClient.getApplication(appName);
-            if (cloudApplication == null)
-                throw new TechnicalException("application <" + appName + "> not found");
-            List<String> services = cloudApplication.getServices();
-            if (services == null)
-                return false;
-            return services.contains(serviceName);
-        } finally {
-            cfClient.logout();
-        }
+        return withClient(spaceName, new ClientCallback<Boolean>() {
+            @Override
+            public Boolean doWithClient(CloudFoundryOperations cfClient) {
+                CloudApplication cloudApplication = cfClient.getApplication(appName);
+                if (cloudApplication == null)
+                    throw new TechnicalException("application <" + appName + "> not found");
+                List<String> services = cloudApplication.getServices();
+                if (services == null)
+                    return false;
+                return services.contains(serviceName);
+            }
+        });
     }
 
-    public void addDomain(String newNormalizedDomain, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            boolean targetDomainExists = false;
-            List<CloudDomain> domainsForOrg = cfClient.getDomainsForOrg();
-            for (CloudDomain browsedDomain : domainsForOrg) {
-                String browsedDomainName = browsedDomain.getName();
-                String normalizedBrowsedDomainName = InternetDomainName.from(browsedDomainName).name();
-                if (newNormalizedDomain.equals(normalizedBrowsedDomainName)) {
-                    targetDomainExists = true;
-                    logger.info("Found domain {} bound to org {}, no need to register it", browsedDomain, getOrg());
-                    break;
+    public void addDomain(final String newNormalizedDomain, String spaceName) {
+        withClient(spaceName, new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                boolean targetDomainExists = false;
+                List<CloudDomain> domainsForOrg = cfClient.getDomainsForOrg();
+                for (CloudDomain browsedDomain : domainsForOrg) {
+                    String browsedDomainName = browsedDomain.getName();
+                    String normalizedBrowsedDomainName = InternetDomainName.from(browsedDomainName).name();
+                    if (newNormalizedDomain.equals(normalizedBrowsedDomainName)) {
+                        targetDomainExists = true;
+                        logger.info("Found domain {} bound to org {}, no need to register it", browsedDomain, getOrg());
+                        break;
+                    }
                 }
-            }
-            if (!targetDomainExists) {
-                logger.info("Did not find domain {} bound to org {} among {}, registering one", new Object[]{newNormalizedDomain, domainsForOrg, getOrg()});
-                try {
-                    cfClient.addDomain(newNormalizedDomain);
-                } catch (Exception e) {
-                    throw new TechnicalException("Unable to register domain: " + newNormalizedDomain + " for this paas instance, caught:" + e
-                            + " Please check another Paas instance/test has not reserved the same domain on the same CF instance.", e);
+                if (!targetDomainExists) {
+                    logger.info("Did not find domain {} bound to org {} among {}, registering one", new Object[]{newNormalizedDomain, domainsForOrg, getOrg()});
+                    try {
+                        cfClient.addDomain(newNormalizedDomain);
+                    } catch (Exception e) {
+                        throw new TechnicalException("Unable to register domain: " + newNormalizedDomain + " for this paas instance, caught:" + e
+                                + " Please check another Paas instance/test has not reserved the same domain on the same CF instance.", e);
+                    }
                 }
+                return null;
             }
-        } finally {
-            cfClient.logout();
-        }
+        });
     }
 
     @Override
-    public boolean appExists(String appName, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            return (cfClient.getApplication(appName) != null);
-        } catch (CloudFoundryException e) {
-            if (HttpStatus.NOT_FOUND.equals(e.getStatusCode())) {
-                return false;
-            } else {
-                throw e;
+    public boolean appExists(final String appName, String spaceName) {
+        return withClient(spaceName, new ClientCallback<Boolean>() {
+            @Override
+            public Boolean doWithClient(CloudFoundryOperations cfClient) {
+                try {
+                    return (cfClient.getApplication(appName) != null);
+                } catch (CloudFoundryException e) {
+                    if (HttpStatus.NOT_FOUND.equals(e.getStatusCode())) {
+                        return false;
+                    }
+                    throw e;
+                }
             }
-        } finally {
-            cfClient.logout();
-        }
+        });
     }
 
     @Override
-    public boolean isAppStarted(String appName, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            return (AppState.STARTED.equals(cfClient.getApplication(appName).getState()));
-        } finally {
-            cfClient.logout();
-        }
+    public boolean isAppStarted(final String appName, String spaceName) {
+        return withClient(spaceName, new ClientCallback<Boolean>() {
+            @Override
+            public Boolean doWithClient(CloudFoundryOperations cfClient) {
+                return (AppState.STARTED.equals(cfClient.getApplication(appName).getState()));
+            }
+        });
     }
 
     @Override
-    public boolean isAppStopped(String appName, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            return (AppState.STOPPED.equals(cfClient.getApplication(appName).getState()));
-        } finally {
-            cfClient.logout();
-        }
+    public boolean isAppStopped(final String appName, String spaceName) {
+        return withClient(spaceName, new ClientCallback<Boolean>() {
+            @Override
+            public Boolean doWithClient(CloudFoundryOperations cfClient) {
+                return (AppState.STOPPED.equals(cfClient.getApplication(appName).getState()));
+            }
+        });
     }
 
     @Override
-    public void createService(ManagedService service, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            CloudService cloudService = new CloudService(null, service.getServiceInstance());
-            cloudService.setLabel(service.getService());
-            cloudService.setPlan(service.getPlan());
-            cfClient.createService(cloudService);
-        } finally {
-            cfClient.logout();
-        }
+    public void createService(final ManagedService service, String spaceName) {
+        withClient(spaceName, new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                CloudService cloudService = new CloudService(null, service.getServiceInstance());
+                cloudService.setLabel(service.getService());
+                cloudService.setPlan(service.getPlan());
+                cfClient.createService(cloudService);
+                return null;
+            }
+        });
     }
 
     @Override
-    public void createSpace(SpaceName spaceName) {
-        CloudFoundryOperations cfClient = login();
-        try {
-            logger.info("creating cloud foundry space <" + spaceName + ">");
-            cfClient.createSpace(spaceName.getValue());
-            logger.info("cloud foundry space <" + spaceName + "> has been created.");
-        } finally {
-            cfClient.logout();
-        }
+    public void createSpace(final SpaceName spaceName) {
+        withClient(space, new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                logger.info("creating cloud foundry space <" + spaceName + ">");
+                cfClient.createSpace(spaceName.getValue());
+                logger.info("cloud foundry space <" + spaceName + "> has been created.");
+                return null;
+            }
+        });
     }
 
     @Override
-    public void deleteSpace(SpaceName spaceName) {
-        CloudFoundryOperations cfClient = login();
-        try {
-            logger.info("deleting cloud foundry space <" + spaceName + ">");
-            cfClient.deleteSpace(spaceName.getValue());
-            logger.info("cloud foundry space <" + spaceName + "> has been deleted.");
-        } finally {
-            cfClient.logout();
-        }
+    public void deleteSpace(final SpaceName spaceName) {
+        withClient(space, new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                logger.info("deleting cloud foundry space <" + spaceName + ">");
+                cfClient.deleteSpace(spaceName.getValue());
+                logger.info("cloud foundry space <" + spaceName + "> has been deleted.");
+                return null;
+            }
+        });
     }
 
     @Override
-    public boolean spaceExists(SpaceName spaceName) {
-        CloudFoundryOperations cfClient = login();
-        try {
-            return (cfClient.getSpace(spaceName.getValue()) != null);
-        } finally {
-            cfClient.logout();
-        }
+    public boolean spaceExists(final SpaceName spaceName) {
+        return withClient(space, new ClientCallback<Boolean>() {
+            @Override
+            public Boolean doWithClient(CloudFoundryOperations cfClient) {
+                return (cfClient.getSpace(spaceName.getValue()) != null);
+            }
+        });
     }
 
     @Override
-    public void associateManagerWithSpace(SpaceName spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName.getValue());
-        try {
-            logger.info("associating manager role to cloud foundry space <" + spaceName + "> ...");
-            cfClient.associateManagerWithSpace(spaceName.getValue());
-        } finally {
-            cfClient.logout();
-        }
+    public void associateManagerWithSpace(final SpaceName spaceName) {
+        withClient(spaceName.getValue(), new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                logger.info("associating manager role to cloud foundry space <" + spaceName + "> ...");
+                cfClient.associateManagerWithSpace(spaceName.getValue());
+                return null;
+            }
+        });
     }
 
     @Override
@@ -809,15 +882,15 @@ return getOrg();
     }
 
     @Override
-    public ServiceActivationStatus getServiceInstanceState(String serviceName, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            logger.info("getting activation status for service <" + serviceName + "> in space <" + spaceName + "> ...");
-            final CloudServiceInstance serviceInstance = cfClient.getServiceInstance(serviceName);
-            return getServiceActivationStatus(serviceName, spaceName, serviceInstance);
-        } finally {
-            cfClient.logout();
-        }
+    public ServiceActivationStatus getServiceInstanceState(final String serviceName, final String spaceName) {
+        return withClient(spaceName, new ClientCallback<ServiceActivationStatus>() {
+            @Override
+            public ServiceActivationStatus doWithClient(CloudFoundryOperations cfClient) {
+                logger.info("getting activation status for service <" + serviceName + "> in space <" + spaceName + "> ...");
+                final CloudServiceInstance serviceInstance = cfClient.getServiceInstance(serviceName);
+                return getServiceActivationStatus(serviceName, spaceName, serviceInstance);
+            }
+        });
     }
 
     protected ServiceActivationStatus getServiceActivationStatus(String serviceName, String spaceName, CloudServiceInstance serviceInstance) {
@@ -835,99 +908,102 @@ return getOrg();
     }
 
     @Override
-    public void associateDeveloperWithSpace(SpaceName spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName.getValue());
-        try {
-            logger.info("associating developer role to cloud foundry space <" + spaceName + "> ...");
-            cfClient.associateDeveloperWithSpace(spaceName.getValue());
-        } finally {
-            cfClient.logout();
-        }
+    public void associateDeveloperWithSpace(final SpaceName spaceName) {
+        withClient(spaceName.getValue(), new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                logger.info("associating developer role to cloud foundry space <" + spaceName + "> ...");
+                cfClient.associateDeveloperWithSpace(spaceName.getValue());
+                return null;
+            }
+        });
     }
 
     @Override
-    public void associateAuditorWithSpace(SpaceName spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName.getValue());
-        try {
-            logger.info("associating auditor role to cloud foundry space <" + spaceName + "> ...");
-            cfClient.associateAuditorWithSpace(spaceName.getValue());
-        } finally {
-            cfClient.logout();
-        }
+    public void associateAuditorWithSpace(final SpaceName spaceName) {
+        withClient(spaceName.getValue(), new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                logger.info("associating auditor role to cloud foundry space <" + spaceName + "> ...");
+                cfClient.associateAuditorWithSpace(spaceName.getValue());
+                return null;
+            }
+        });
     }
 
     @Override
-    public SpaceName getValidSpaceName(String nameSuffix) {
-        CloudFoundryOperations cfClient = login();
-        try {
-            int retry = 0;
-            while (retry < MAX_RETRY) {
-                SpaceName randomSpaceName = SpaceName.randomSpaceNameWithSuffix(nameSuffix);
-                if (cfClient.getSpace(randomSpaceName.getValue()) == null)
-                    return randomSpaceName;
-                retry++;
-            }
-            throw new TechnicalException("Fail to get a valid space name after " + MAX_RETRY + " attempts.");
-        } finally {
-            cfClient.logout();
-        }
+    public SpaceName getValidSpaceName(final String nameSuffix) {
+        return withClient(space, new ClientCallback<SpaceName>() {
+            @Override
+            public SpaceName doWithClient(CloudFoundryOperations cfClient) {
+                int retry = 0;
+                while (retry < MAX_RETRY) {
+                    SpaceName randomSpaceName = SpaceName.randomSpaceNameWithSuffix(nameSuffix);
+                    if (cfClient.getSpace(randomSpaceName.getValue()) == null)
+                        return randomSpaceName;
+                    retry++;
+                }
+                throw new TechnicalException("Fail to get a valid space name after " + MAX_RETRY + " attempts.");
+            }
+        });
     }
 
     @Override
-    public boolean routeExists(Route route, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            try {
-                List<CloudRoute> routes = cfClient.getRoutes(route.getDomain());
-                logger.info("found routes " + routes + " for domain <" + route.getDomain() + ">");
-                if (routes == null || routes.size() == 0)
+    public boolean routeExists(final Route route, String spaceName) {
+        return withClient(spaceName, new ClientCallback<Boolean>() {
+            @Override
+            public Boolean doWithClient(CloudFoundryOperations cfClient) {
+                try {
+                    List<CloudRoute> routes = cfClient.getRoutes(route.getDomain());
+                    logger.info("found routes " + routes + " for domain <" + route.getDomain() + ">");
+                    if (routes == null || routes.size() == 0)
+                        return false;
+                    for (CloudRoute existingRoute : routes) {
+                        if (existingRoute.getHost().equals(route.getHost()))
+                            return true;
+                    }
+                } catch (IllegalArgumentException e) {
+                    // raised when domain not found
                     return false;
-                for (CloudRoute existingRoute : routes) {
-                    if (existingRoute.getHost().equals(route.getHost()))
-                        return true;
                 }
-            } catch (IllegalArgumentException e) {
-                // raised when domain not found
                 return false;
             }
-            return false;
-        } finally {
-            cfClient.logout();
-        }
+        });
     }
 
     @Override
-    public void deleteRoute(Route route, String spaceName) {
-        CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            cfClient.deleteRoute(route.getHost(), route.getDomain());
-        } finally {
-            cfClient.logout();
-        }
+    public void deleteRoute(final Route route, String spaceName) {
+        withClient(spaceName, new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(CloudFoundryOperations cfClient) {
+                cfClient.deleteRoute(route.getHost(), route.getDomain());
+                return null;
+            }
+        });
     }
 
     @Override
     public RouteUri createRoute(final Route route, String spaceName) {
-        final CloudFoundryOperations cfClient = login(spaceName);
-        try {
-            return getRetryTemplate(MAX_RETRY).execute(new RetryCallback<RouteUri, CloudFoundryException>() {
-                @Override
-                public RouteUri doWithRetry(RetryContext context) throws CloudFoundryException {
-                    if (context.getRetryCount() == 0) {
-                        logger.info("creating cloud foundry route with uri <" + route.getUri() + ">");
-                        cfClient.addRoute(route.getHost(), route.getDomain());
-                        return new RouteUri(route.getUri());
-                    } else {
-                        RouteUri candidateRouteUri = route.candidateRouteUri();
-                        logger.info("creating cloud foundry route with uri <" + candidateRouteUri + ">");
-                        cfClient.addRoute(candidateRouteUri.getHost(), candidateRouteUri.getDomain());
-                        return candidateRouteUri;
+        return withClient(spaceName, new ClientCallback<RouteUri>() {
+            @Override
+            public RouteUri doWithClient(final CloudFoundryOperations cfClient) {
+                return getRetryTemplate(MAX_RETRY).execute(new RetryCallback<RouteUri, CloudFoundryException>() {
+                    @Override
+                    public RouteUri doWithRetry(RetryContext context) throws CloudFoundryException {
+                        if (context.getRetryCount() == 0) {
+                            logger.info("creating cloud foundry route with uri <" + route.getUri() + ">");
+                            cfClient.addRoute(route.getHost(), route.getDomain());
+                            return new RouteUri(route.getUri());
+                        } else {
+                            RouteUri candidateRouteUri = route.candidateRouteUri();
+                            logger.info("creating cloud foundry route with uri <" + candidateRouteUri + ">");
+                            cfClient.addRoute(candidateRouteUri.getHost(), candidateRouteUri.getDomain());
+                            return candidateRouteUri;
+                        }
                     }
-                }
-            });
-        } finally {
-            cfClient.logout();
-        }
+                });
+            }
+        });
     }
 
     /**
@@ -0,0 +1,395 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.activation.plugin.cf.infrastructure;
+
+import com.francetelecom.clara.cloud.commons.TechnicalException;
+import org.cloudfoundry.client.lib.CloudFoundryOperations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps authenticated CloudFoundry clients, per space, so that consecutive calls to the cloud controller reuse
+ * the same UAA login instead of performing a full login/logout each time.
+ * <p>
+ * A client is leased to a single caller at a time through {@link #acquire(String)} and must be given back with
+ * {@link #release(CloudFoundryOperations)}, or flagged with {@link #invalidate(CloudFoundryOperations)} when a call
+ * showed it is no longer usable (e.g. rejected token). Its OAuth token is renewed when it is about to expire, idle clients
+ * are logged out after {@link #setMaxIdleTimeMs(long)} and at most {@link #setMaxClientsPerSpace(int)} clients
+ * are leased at the same time for a given space.
+ */
+public class CfSessionManager {
+
+    private static Logger logger = LoggerFactory.getLogger(CfSessionManager.class.getName());
+
+    /**
+     * Creates a new (not yet logged in) client scoped to a space of the configured organization
+     */
+    public interface ClientFactory {
+
+        CloudFoundryOperations newClient(String spaceName);
+
+    }
+
+    private static class Session {
+        final String key;
+        final SpacePool pool;
+        final CloudFoundryOperations client;
+        Date tokenExpiration;
+        long lastReleaseTime;
+        volatile boolean broken;
+
+        Session(String key, SpacePool pool, CloudFoundryOperations client) {
+            this.key = key;
+            this.pool = pool;
+            this.client = client;
+        }
+    }
+
+    private static class SpacePool {
+        final Semaphore permits;
+        final Deque<Session> idleSessions = new ArrayDeque<>();
+
+        SpacePool(int maxClients) {
+            this.permits = new Semaphore(maxClients, true);
+        }
+    }
+
+    private final ClientFactory clientFactory;
+
+    private final String org;
+
+    private int maxClientsPerSpace = 4;
+
+    private long maxIdleTimeMs = 5 * 60 * 1000;
+
+    private long acquireTimeoutMs = 10 * 60 * 1000;
+
+    private long tokenRefreshMarginMs = 60 * 1000;
+
+    private final ConcurrentMap<String, SpacePool> pools = new ConcurrentHashMap<>();
+
+    private final Map<CloudFoundryOperations, Session> leasedSessions = Collections.synchronizedMap(new IdentityHashMap<CloudFoundryOperations, Session>());
+
+    private final AtomicLong lastEvictionTime = new AtomicLong(System.currentTimeMillis());
+
+    private final AtomicLong loginCount = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+    private final AtomicLong tokenRefreshCount = new AtomicLong();
+    private final AtomicLong tokenRefreshTotalTimeMs = new AtomicLong();
+
+    /**
+     * @param org           the organization the clients are scoped to (only used as part of the session key)
+     * @param clientFactory creates clients on cache miss
+     */
+    public CfSessionManager(String org, ClientFactory clientFactory) {
+        this.org = org;
+        this.clientFactory = clientFactory;
+    }
+
+    /**
+     * Leases a logged in client for the given space, reusing an idle one when available.
+     *
+     * @param spaceName the space to scope the client to
+     * @return a logged in client, to be given back with {@link #release(CloudFoundryOperations)}
+     * @throws TechnicalException if no client could be leased within the acquire timeout
+     */
+    public CloudFoundryOperations acquire(String spaceName) {
+        String key = org + "/" + spaceName;
+        SpacePool pool = acquirePermit(key);
+        try {
+            Session session = pollIdleSession(pool);
+            if (session != null && refreshTokenIfNeeded(session)) {
+                hitCount.incrementAndGet();
+            } else {
+                missCount.incrementAndGet();
+                session = newSession(key, pool, spaceName);
+            }
+            leasedSessions.put(session.client, session);
+            return session.client;
+        } catch (RuntimeException e) {
+            pool.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Gives back a client leased with {@link #acquire(String)}. Clients that were not leased by this manager are
+     * simply logged out.
+     *
+     * @param client the client to give back
+     */
+    public void release(CloudFoundryOperations client) {
+        release(client, false);
+    }
+
+    /**
+     * Gives back a client leased with {@link #acquire(String)}. A broken client (or one previously flagged with
+     * {@link #invalidate(CloudFoundryOperations)}) is logged out and dropped instead of being pooled.
+     *
+     * @param client the client to give back
+     * @param broken true if the client should not be reused
+     */
+    public void release(CloudFoundryOperations client, boolean broken) {
+        Session session = leasedSessions.remove(client);
+        if (session == null) {
+            logger.debug("Releasing a cloudfoundry client not managed by the session manager, logging it out");
+            logoutQuietly(client);
+            return;
+        }
+        if (broken || session.broken) {
+            logger.debug("Dropping broken cloudfoundry client of space <{}>", session.key);
+            invalidationCount.incrementAndGet();
+            session.pool.permits.release();
+            logoutQuietly(client);
+            return;
+        }
+        session.lastReleaseTime = System.currentTimeMillis();
+        SpacePool pool = session.pool;
+        synchronized (pool) {
+            pool.idleSessions.addFirst(session);
+        }
+        pool.permits.release();
+        evictIdleSessionsIfDue();
+    }
+
+    /**
+     * Flags a leased client as unusable (e.g. its token was rejected by the cloud controller): it will be logged out
+     * and dropped when given back with {@link #release(CloudFoundryOperations)}, so that no other caller gets it.
+     *
+     * @param client a client leased with {@link #acquire(String)}
+     */
+    public void invalidate(CloudFoundryOperations client) {
+        Session session = leasedSessions.get(client);
+        if (session != null) {
+            session.broken = true;
+        }
+    }
+
+    /**
+     * Logs out and forgets clients that were not used for more than {@link #setMaxIdleTimeMs(long)}
+     */
+    public void evictIdleSessions() {
+        long now = System.currentTimeMillis();
+        lastEvictionTime.set(now);
+        List<Session> evicted = new ArrayList<>();
+        for (Map.Entry<String, SpacePool> entry : pools.entrySet()) {
+            SpacePool pool = entry.getValue();
+            synchronized (pool) {
+                Iterator<Session> it = pool.idleSessions.iterator();
+                while (it.hasNext()) {
+                    Session session = it.next();
+                    if (now - session.lastReleaseTime >= maxIdleTimeMs) {
+                        it.remove();
+                        evicted.add(session);
+                    }
+                }
+                if (pool.idleSessions.isEmpty() && pool.permits.availablePermits() == maxClientsPerSpace) {
+                    pools.remove(entry.getKey(), pool);
+                }
+            }
+        }
+        for (Session session : evicted) {
+            logger.debug("Evicting idle cloudfoundry client of space <{}>", session.key);
+            evictionCount.incrementAndGet();
+            logoutQuietly(session.client);
+        }
+    }
+
+    /**
+     * Logs out all idle clients. Meant to be invoked on shutdown.
+     */
+    public void destroy() {
+        logger.info("Closing cloudfoundry sessions, statistics: {}", getStatistics());
+        for (SpacePool pool : pools.values()) {
+            List<Session> idle;
+            synchronized (pool) {
+                idle = new ArrayList<>(pool.idleSessions);
+                pool.idleSessions.clear();
+            }
+            for (Session session : idle) {
+                logoutQuietly(session.client);
+            }
+        }
+        pools.clear();
+    }
+
+    private SpacePool acquirePermit(String key) {
+        while (true) {
+            SpacePool pool = getPool(key);
+            try {
+                if (!pool.permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new TechnicalException("Timed out after " + acquireTimeoutMs + " ms waiting for a cloudfoundry client on space <" + key
+                            + ">: " + maxClientsPerSpace + " clients are already in use");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TechnicalException("Interrupted while waiting for a cloudfoundry client on space <" + key + ">", e);
+            }
+            if (pools.get(key) == pool) {
+                // an unused pool can not be evicted anymore once we hold one of its permits
+                return pool;
+            }
+            pool.permits.release();
+        }
+    }
+
+    private SpacePool getPool(String key) {
+        SpacePool pool = pools.get(key);
+        if (pool == null) {
+            SpacePool newPool = new SpacePool(maxClientsPerSpace);
+            pool = pools.putIfAbsent(key, newPool);
+            if (pool == null) {
+                pool = newPool;
+            }
+        }
+        return pool;
+    }
+
+    private Session pollIdleSession(SpacePool pool) {
+        synchronized (pool) {
+            return pool.idleSessions.pollFirst();
+        }
+    }
+
+    private Session newSession(String key, SpacePool pool, String spaceName) {
+        CloudFoundryOperations client = clientFactory.newClient(spaceName);
+        Session session = new Session(key, pool, client);
+        session.tokenExpiration = expirationOf(client.login());
+        long logins = loginCount.incrementAndGet();
+        logger.debug("Logged in cloudfoundry client for space <{}> (login #{})", key, logins);
+        return session;
+    }
+
+    /**
+     * @return true if the session can be used, false if it had to be discarded
+     */
+    private boolean refreshTokenIfNeeded(Session session) {
+        if (session.tokenExpiration == null || session.tokenExpiration.getTime() - System.currentTimeMillis() > tokenRefreshMarginMs) {
+            return true;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            session.tokenExpiration = expirationOf(session.client.login());
+            loginCount.incrementAndGet();
+            return true;
+        } catch (RuntimeException e) {
+            logger.info("Unable to refresh token of cloudfoundry client for space <" + session.key + ">, discarding it. Caught:" + e);
+            logoutQuietly(session.client);
+            return false;
+        } finally {
+            tokenRefreshCount.incrementAndGet();
+            tokenRefreshTotalTimeMs.addAndGet(System.currentTimeMillis() - start);
+        }
+    }
+
+    private void evictIdleSessionsIfDue() {
+        long last = lastEvictionTime.get();
+        if (System.currentTimeMillis() - last >= maxIdleTimeMs / 2 && lastEvictionTime.compareAndSet(last, System.currentTimeMillis())) {
+            evictIdleSessions();
+        }
+    }
+
+    private static Date expirationOf(OAuth2AccessToken token) {
+        return token != null ? token.getExpiration() : null;
+    }
+
+    private static void logoutQuietly(CloudFoundryOperations client) {
+        try {
+            client.logout();
+        } catch (RuntimeException e) {
+            logger.debug("Unable to logout cloudfoundry client, caught:" + e);
+        }
+    }
+
+    public long getLoginCount() {
+        return loginCount.get();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    public long getTokenRefreshCount() {
+        return tokenRefreshCount.get();
+    }
+
+    /**
+     * @return ratio of {@link #acquire(String)} calls served by an already logged in client, between 0 and 1
+     */
+    public double getHitRatio() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * @return average duration of token refreshes in ms
+     */
+    public long getAverageTokenRefreshTimeMs() {
+        long refreshes = tokenRefreshCount.get();
+        return refreshes == 0 ? 0 : tokenRefreshTotalTimeMs.get() / refreshes;
+    }
+
+    public String getStatistics() {
+        return "logins=" + getLoginCount() + " hits=" + getHitCount() + " misses=" + getMissCount() + " hitRatio=" + getHitRatio()
+                + " evictions=" + getEvictionCount() + " invalidations=" + getInvalidationCount() + " tokenRefreshes=" + getTokenRefreshCount() + " avgTokenRefreshTimeMs="
+                + getAverageTokenRefreshTimeMs();
+    }
+
+    public void setMaxClientsPerSpace(int maxClientsPerSpace) {
+        this.maxClientsPerSpace = maxClientsPerSpace;
+    }
+
+    public void setMaxIdleTimeMs(long maxIdleTimeMs) {
+        this.maxIdleTimeMs = maxIdleTimeMs;
+    }
+
+    public void setAcquireTimeoutMs(long acquireTimeoutMs) {
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    public void setTokenRefreshMarginMs(long tokenRefreshMarginMs) {
+        this.tokenRefreshMarginMs = tokenRefreshMarginMs;
+    }
+}
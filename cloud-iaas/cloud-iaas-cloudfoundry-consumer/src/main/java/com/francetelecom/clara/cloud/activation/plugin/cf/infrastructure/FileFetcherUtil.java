@@ -44,6 +44,11 @@ public class FileFetcherUtil {
 
     }
 
+    /**
+     * optional cache of artifacts fetched from maven references
+     */
+    private ArtifactCache artifactCache;
+
     public FileFetcherUtil() {
     }
 
@@ -76,7 +81,8 @@ public class FileFetcherUtil {
     }
 
     /**
-     * Typically invoked by CfPlugin for initial app push.
+     * Typically invoked by CfPlugin for initial app push. When an {@link ArtifactCache} is configured, the cached
+     * file is processed in place instead of being downloaded into a temp file.
      * @param ref
      * @param fileProcessor
      */
@@ -90,6 +96,16 @@ public class FileFetcherUtil {
                 throw new TechnicalException("File (" + filename + ") is not a (" + fileType + ") file type");
             }
 
+            if (artifactCache != null) {
+                ArtifactCache.Entry cached = artifactCache.acquire(ref.getAccessUrl(), filename);
+                try {
+                    fileProcessor.process(filename, fileType, cached.getFile());
+                } finally {
+                    artifactCache.release(cached);
+                }
+                return;
+            }
+
             fileStream = ref.getAccessUrl().openStream();
             fetchInputStreamAndApplyProcessing(filename, fileType, fileStream, fileProcessor);
         } catch (IOException e) {
@@ -150,6 +166,10 @@ public class FileFetcherUtil {
         return (temp);
     }
 
+    public void setArtifactCache(ArtifactCache artifactCache) {
+        this.artifactCache = artifactCache;
+    }
+
     public String getDeployableType(String filename) {
         String filetype;
         try {
@@ -13,6 +13,8 @@
 package com.francetelecom.clara.cloud.activation.plugin.cf.infrastructure;
 
 import com.francetelecom.clara.cloud.activation.plugin.cf.domain.AppActivationService;
+import com.francetelecom.clara.cloud.activation.plugin.cf.domain.AppStartStatus;
+import com.francetelecom.clara.cloud.activation.plugin.cf.domain.CfTaskStatus;
 import com.francetelecom.clara.cloud.commons.MavenReference;
 import com.francetelecom.clara.cloud.commons.tasks.TaskStatus;
 import com.francetelecom.clara.cloud.techmodel.cf.App;
@@ -149,6 +151,40 @@ public class AppActivationServiceDefaultImplTest {
         Mockito.verify(cfAdapter).deleteApp(joyn, "joynspace");
     }
 
+    @Test
+    public void app_start_status_is_probed_once_per_poll() {
+        AppActivationServiceDefaultImpl appActivationService = new AppActivationServiceDefaultImpl(cfAdapter);
+        appActivationService.setAppStartTimeout(600);
+
+        // given application joyn with 2 instances, one of them is running
+        TaskStatus taskStatus = new TaskStatus();
+        CfTaskStatus appStatus = new CfTaskStatus(System.currentTimeMillis(), "joyn", 2, "joynspace");
+        taskStatus.addSubtask(appStatus);
+        Mockito.when(cfAdapter.getAppStartStatus(2, "joyn", "joynspace")).thenReturn(AppStartStatus.instances("joyn", 2, 2, 1, 1, 0));
+
+        appActivationService.getAppStatus(taskStatus);
+
+        Assertions.assertThat(appStatus.getPercent()).isEqualTo(50);
+        Assertions.assertThat(appStatus.isComplete()).isFalse();
+        Mockito.verify(cfAdapter, Mockito.times(1)).getAppStartStatus(2, "joyn", "joynspace");
+        Mockito.verify(cfAdapter, Mockito.never()).peekAppStartStatus(Mockito.anyInt(), Mockito.anyString(), Mockito.anyString());
+    }
+
+    @Test
+    public void app_is_started_once_all_its_instances_are_running() {
+        AppActivationService appActivationService = new AppActivationServiceDefaultImpl(cfAdapter);
+
+        // given application joyn with 2 running instances
+        TaskStatus taskStatus = new TaskStatus();
+        CfTaskStatus appStatus = new CfTaskStatus(System.currentTimeMillis(), "joyn", 2, "joynspace");
+        taskStatus.addSubtask(appStatus);
+        Mockito.when(cfAdapter.getAppStartStatus(2, "joyn", "joynspace")).thenReturn(AppStartStatus.instances("joyn", 2, 2, 2, 0, 0));
+
+        appActivationService.getAppStatus(taskStatus);
+
+        Assertions.assertThat(appStatus.hasSucceed()).isTrue();
+    }
+
     @Test
     public void app_should_be_ACTIVATED_after_activation() {
 
@@ -0,0 +1,189 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.activation.plugin.cf.infrastructure;
+
+import com.francetelecom.clara.cloud.commons.TechnicalException;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class ArtifactCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ArtifactCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        cache = new ArtifactCache(folder.newFolder("cache"), 10);
+    }
+
+    @Test
+    public void downloads_an_artifact_only_once() throws IOException {
+        // given
+        URL url = artifact("app.war", "12345");
+
+        // when
+        ArtifactCache.Entry first = cache.acquire(url, "app.war");
+        cache.release(first);
+        ArtifactCache.Entry second = cache.acquire(url, "app.war");
+        cache.release(second);
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(second.getFile().getName()).isEqualTo("app.war");
+        assertThat(FileUtils.readFileToString(second.getFile())).isEqualTo("12345");
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void rejects_an_artifact_not_matching_its_published_checksum() throws IOException {
+        // given
+        URL url = artifact("app.war", "12345");
+        FileUtils.writeStringToFile(new File(folder.getRoot(), "app.war.sha1"), "0123456789012345678901234567890123456789");
+
+        try {
+            // when
+            cache.acquire(url, "app.war");
+            fail("expected checksum verification to fail");
+        } catch (TechnicalException e) {
+            // then
+            assertThat(cache.getSizeBytes()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void accepts_an_artifact_matching_its_published_checksum() throws IOException {
+        // given
+        URL url = artifact("app.war", "12345");
+        // sha1 of 12345
+        FileUtils.writeStringToFile(new File(folder.getRoot(), "app.war.sha1"), "8cb2237d0679ca88db6464eac60da96345513964  app.war");
+
+        // when
+        ArtifactCache.Entry entry = cache.acquire(url, "app.war");
+
+        // then
+        assertThat(entry.getChecksum()).isEqualTo("8cb2237d0679ca88db6464eac60da96345513964");
+    }
+
+    @Test
+    public void evicts_least_recently_used_artifacts_not_in_use() throws IOException {
+        // given a cache of 10 bytes holding app1 (in use) and app2
+        ArtifactCache.Entry app1 = cache.acquire(artifact("app1.war", "12345"), "app1.war");
+        ArtifactCache.Entry app2 = cache.acquire(artifact("app2.war", "12345"), "app2.war");
+        cache.release(app2);
+
+        // when
+        ArtifactCache.Entry app3 = cache.acquire(artifact("app3.war", "12345"), "app3.war");
+
+        // then
+        assertThat(app1.getFile().exists()).isTrue();
+        assertThat(app2.getFile().exists()).isFalse();
+        assertThat(app3.getFile().exists()).isTrue();
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void does_not_check_the_repository_again_before_revalidation_period() throws IOException {
+        // given
+        URL url = artifact("app.war", "12345");
+        FileUtils.writeStringToFile(new File(folder.getRoot(), "app.war.sha1"), "8cb2237d0679ca88db6464eac60da96345513964");
+        ArtifactCache.Entry first = cache.acquire(url, "app.war");
+        cache.release(first);
+        // would be rejected if fetched again
+        FileUtils.writeStringToFile(new File(folder.getRoot(), "app.war.sha1"), "0123456789012345678901234567890123456789");
+
+        // when
+        ArtifactCache.Entry second = cache.acquire(url, "app.war");
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(cache.getRevalidationCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void reuses_an_unchanged_artifact_once_revalidated() throws IOException {
+        // given
+        cache = new ArtifactCache(folder.newFolder("revalidated"), 10, 0);
+        URL url = artifact("app.war", "12345");
+        FileUtils.writeStringToFile(new File(folder.getRoot(), "app.war.sha1"), "8cb2237d0679ca88db6464eac60da96345513964");
+        ArtifactCache.Entry first = cache.acquire(url, "app.war");
+        cache.release(first);
+
+        // when
+        ArtifactCache.Entry second = cache.acquire(url, "app.war");
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(cache.getRevalidationCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void downloads_again_an_artifact_republished_without_checksum() throws IOException {
+        // given
+        cache = new ArtifactCache(folder.newFolder("revalidated"), 10, 0);
+        URL url = artifact("app.war", "12345");
+        new File(folder.getRoot(), "app.war").setLastModified(1000000000000L);
+        ArtifactCache.Entry first = cache.acquire(url, "app.war");
+        cache.release(first);
+        artifact("app.war", "67890");
+        new File(folder.getRoot(), "app.war").setLastModified(2000000000000L);
+
+        // when
+        ArtifactCache.Entry second = cache.acquire(url, "app.war");
+
+        // then
+        assertThat(second).isNotSameAs(first);
+        assertThat(FileUtils.readFileToString(second.getFile())).isEqualTo("67890");
+        assertThat(first.getFile().exists()).isFalse();
+        assertThat(cache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void reuses_artifacts_cached_before_a_restart() throws IOException {
+        // given
+        URL url = artifact("app.war", "12345");
+        ArtifactCache.Entry cached = cache.acquire(url, "app.war");
+        cache.release(cached);
+        cache.destroy();
+
+        // when
+        ArtifactCache restarted = new ArtifactCache(cache.getDirectory(), 10);
+        ArtifactCache.Entry entry = restarted.acquire(url, "app.war");
+
+        // then
+        assertThat(entry.getFile()).isEqualTo(cached.getFile());
+        assertThat(FileUtils.readFileToString(entry.getFile())).isEqualTo("12345");
+        assertThat(restarted.getMissCount()).isEqualTo(0);
+        assertThat(restarted.getRevalidationCount()).isEqualTo(1);
+        assertThat(restarted.getSizeBytes()).isEqualTo(5);
+    }
+
+    private URL artifact(String name, String content) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        FileUtils.writeStringToFile(file, content);
+        return file.toURI().toURL();
+    }
+}
@@ -15,6 +15,7 @@ package com.francetelecom.clara.cloud.activation.plugin.cf.infrastructure;
 import com.francetelecom.clara.cloud.commons.MavenReference;
 import com.francetelecom.clara.cloud.techmodel.cf.*;
 import com.google.common.net.InternetDomainName;
+import org.cloudfoundry.client.lib.CloudFoundryException;
 import org.cloudfoundry.client.lib.CloudFoundryOperations;
 import org.junit.Before;
 import org.junit.Test;
@@ -22,6 +23,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
 
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -31,6 +33,7 @@ import java.util.GregorianCalendar;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeThat;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
@@ -94,6 +97,34 @@ public class CfAdapterImplIT {
 		assertThat(jonasLogFileName).isEqualTo("singleServerName-2013-08-28.3.log");
 	}
 
+	@Test
+	public void drops_client_whose_session_broke() throws MalformedURLException {
+		// given
+		final CloudFoundryOperations pooledClient = mock(CloudFoundryOperations.class);
+		OAuth2AccessToken token = mock(OAuth2AccessToken.class);
+		when(token.getExpiration()).thenReturn(new Date(System.currentTimeMillis() + 3600 * 1000));
+		when(pooledClient.login()).thenReturn(token);
+		doThrow(new CloudFoundryException(HttpStatus.UNAUTHORIZED)).when(pooledClient).deleteAllServices();
+		CfAdapterImpl adapter = new CfAdapterImpl("proxy", 3128, new URL("http://localhost"), "email", "pwd", "org", SPACE, "cfapps.redacted-domain.org", true) {
+
+			@Override
+			protected CloudFoundryOperations newClient(String spaceName) {
+				return pooledClient;
+			}
+
+		};
+
+		// when
+		try {
+			adapter.deleteAllServices(SPACE);
+			fail("expected session failure to be propagated");
+		} catch (CloudFoundryException e) {
+			// then
+			verify(pooledClient).logout();
+			assertThat(adapter.getSessionManager().getInvalidationCount()).isEqualTo(1);
+		}
+	}
+
 	@Test
 	public void registersUriAndTheirParentDomain() {
 		// given
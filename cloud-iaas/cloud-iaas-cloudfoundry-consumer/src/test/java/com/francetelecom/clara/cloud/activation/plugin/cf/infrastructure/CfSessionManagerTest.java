@@ -0,0 +1,245 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.activation.plugin.cf.infrastructure;
+
+import com.francetelecom.clara.cloud.commons.TechnicalException;
+import org.cloudfoundry.client.lib.CloudFoundryOperations;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CfSessionManagerTest {
+
+    private CfSessionManager.ClientFactory clientFactory;
+
+    private CfSessionManager sessionManager;
+
+    @Before
+    public void setUp() {
+        clientFactory = mock(CfSessionManager.ClientFactory.class);
+        when(clientFactory.newClient(anyString())).thenAnswer(new Answer<CloudFoundryOperations>() {
+            @Override
+            public CloudFoundryOperations answer(InvocationOnMock invocation) throws Throwable {
+                return clientWithTokenExpiringIn(3600 * 1000);
+            }
+        });
+        sessionManager = new CfSessionManager("org", clientFactory);
+    }
+
+    @Test
+    public void reuses_logged_in_client_of_a_space() {
+        // when
+        CloudFoundryOperations first = sessionManager.acquire("space");
+        sessionManager.release(first);
+        CloudFoundryOperations second = sessionManager.acquire("space");
+        sessionManager.release(second);
+
+        // then
+        assertThat(second).isSameAs(first);
+        verify(first, times(1)).login();
+        verify(first, never()).logout();
+        verify(clientFactory, times(1)).newClient("space");
+        assertThat(sessionManager.getLoginCount()).isEqualTo(1);
+        assertThat(sessionManager.getHitCount()).isEqualTo(1);
+        assertThat(sessionManager.getMissCount()).isEqualTo(1);
+        assertThat(sessionManager.getHitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void does_not_share_clients_across_spaces() {
+        // when
+        CloudFoundryOperations client1 = sessionManager.acquire("space1");
+        sessionManager.release(client1);
+        CloudFoundryOperations client2 = sessionManager.acquire("space2");
+        sessionManager.release(client2);
+
+        // then
+        assertThat(client2).isNotSameAs(client1);
+        verify(clientFactory).newClient("space1");
+        verify(clientFactory).newClient("space2");
+    }
+
+    @Test
+    public void does_not_lease_a_client_to_two_callers_at_the_same_time() {
+        // when
+        CloudFoundryOperations client1 = sessionManager.acquire("space");
+        CloudFoundryOperations client2 = sessionManager.acquire("space");
+
+        // then
+        assertThat(client2).isNotSameAs(client1);
+        assertThat(sessionManager.getLoginCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void refreshes_token_about_to_expire() {
+        // given
+        final CloudFoundryOperations client = clientWithTokenExpiringIn(10 * 1000);
+        doReturn(client).when(clientFactory).newClient("space");
+        sessionManager.setTokenRefreshMarginMs(60 * 1000);
+        sessionManager.release(sessionManager.acquire("space"));
+
+        // when
+        CloudFoundryOperations reused = sessionManager.acquire("space");
+
+        // then
+        assertThat(reused).isSameAs(client);
+        verify(client, times(2)).login();
+        assertThat(sessionManager.getTokenRefreshCount()).isEqualTo(1);
+        assertThat(sessionManager.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void replaces_client_whose_token_can_not_be_refreshed() {
+        // given
+        final CloudFoundryOperations client = clientWithTokenExpiringIn(10 * 1000);
+        doReturn(client).doReturn(clientWithTokenExpiringIn(3600 * 1000)).when(clientFactory).newClient("space");
+        sessionManager.release(sessionManager.acquire("space"));
+        doThrow(new IllegalStateException("uaa is down")).when(client).login();
+
+        // when
+        CloudFoundryOperations other = sessionManager.acquire("space");
+
+        // then
+        assertThat(other).isNotSameAs(client);
+        verify(client).logout();
+        assertThat(sessionManager.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void logs_out_idle_clients() {
+        // given
+        sessionManager.setMaxIdleTimeMs(0);
+        CloudFoundryOperations client = sessionManager.acquire("space");
+        sessionManager.release(client);
+
+        // when
+        sessionManager.evictIdleSessions();
+
+        // then
+        verify(client).logout();
+        assertThat(sessionManager.getEvictionCount()).isEqualTo(1);
+        assertThat(sessionManager.acquire("space")).isNotSameAs(client);
+    }
+
+    @Test
+    public void limits_concurrent_clients_per_space() throws Exception {
+        // given
+        sessionManager.setMaxClientsPerSpace(1);
+        sessionManager.setAcquireTimeoutMs(100);
+        sessionManager.acquire("space");
+
+        // when
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<CloudFoundryOperations> future = executor.submit(new Callable<CloudFoundryOperations>() {
+                @Override
+                public CloudFoundryOperations call() throws Exception {
+                    return sessionManager.acquire("space");
+                }
+            });
+            future.get();
+            fail("expected acquire to time out");
+        } catch (ExecutionException e) {
+            // then
+            assertThat(e.getCause()).isInstanceOf(TechnicalException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+        // other spaces are not impacted
+        assertThat(sessionManager.acquire("otherSpace")).isNotNull();
+    }
+
+    @Test
+    public void drops_broken_client_instead_of_pooling_it() {
+        // given
+        sessionManager.setMaxClientsPerSpace(1);
+        sessionManager.setAcquireTimeoutMs(100);
+        CloudFoundryOperations broken = sessionManager.acquire("space");
+
+        // when
+        sessionManager.release(broken, true);
+
+        // then
+        verify(broken).logout();
+        assertThat(sessionManager.getInvalidationCount()).isEqualTo(1);
+        // permit was given back and a fresh client is logged in
+        CloudFoundryOperations other = sessionManager.acquire("space");
+        assertThat(other).isNotSameAs(broken);
+        verify(clientFactory, times(2)).newClient("space");
+    }
+
+    @Test
+    public void drops_invalidated_client_when_released() {
+        // given
+        CloudFoundryOperations broken = sessionManager.acquire("space");
+
+        // when
+        sessionManager.invalidate(broken);
+        sessionManager.release(broken);
+
+        // then
+        verify(broken).logout();
+        assertThat(sessionManager.acquire("space")).isNotSameAs(broken);
+        assertThat(sessionManager.getHitCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void logs_out_clients_it_does_not_manage() {
+        // given
+        CloudFoundryOperations client = mock(CloudFoundryOperations.class);
+
+        // when
+        sessionManager.release(client);
+
+        // then
+        verify(client).logout();
+    }
+
+    @Test
+    public void logs_out_idle_clients_on_destroy() {
+        // given
+        CloudFoundryOperations client = sessionManager.acquire("space");
+        sessionManager.release(client);
+
+        // when
+        sessionManager.destroy();
+
+        // then
+        verify(client).logout();
+    }
+
+    private static CloudFoundryOperations clientWithTokenExpiringIn(long delayMs) {
+        OAuth2AccessToken token = mock(OAuth2AccessToken.class);
+        when(token.getExpiration()).thenReturn(new Date(System.currentTimeMillis() + delayMs));
+        CloudFoundryOperations client = mock(CloudFoundryOperations.class);
+        when(client.login()).thenReturn(token);
+        return client;
+    }
+}
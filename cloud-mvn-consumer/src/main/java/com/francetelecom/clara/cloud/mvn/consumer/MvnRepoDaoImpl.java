@@ -39,6 +39,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 //import org.eclipse.aether.util.layout.MavenDefaultLayout;
@@ -81,6 +82,35 @@ public class MvnRepoDaoImpl implements MvnRepoDao {
     private ProxySelector mvnProxySelector;
     private final RepositoryPolicy disabledRepoPolicy = new RepositoryPolicy(false, null, null);
 
+    /**
+     * Aether repository system, thread safe and created once, by {@link #init()} or on first use
+     */
+    private volatile RepositorySystem aetherRepoSystem;
+
+    /**
+     * Read only session shared by resolutions. It is renewed every {@link #sessionMaxAgeMs} as aether only checks
+     * once per session whether SNAPSHOTs were updated.
+     */
+    private volatile AetherSession aetherSession;
+
+    private long sessionMaxAgeMs = 60 * 1000;
+
+    /**
+     * Remote repositories, with their proxy, created once by {@link #init()} or on first use
+     */
+    private volatile List<RemoteRepository> remoteRepositories;
+
+    private ResolvedUrlCache resolvedUrlCache = new ResolvedUrlCache();
+
+    private static class AetherSession {
+        final RepositorySystemSession session;
+        final long creationTime = System.currentTimeMillis();
+
+        AetherSession(RepositorySystemSession session) {
+            this.session = session;
+        }
+    }
+
     @Autowired
     private ProxyManager proxyManager;
 
@@ -99,6 +129,59 @@ public class MvnRepoDaoImpl implements MvnRepoDao {
 
         mvnProxySelector = proxyManager.selectProxies();
         logger.debug("creating settings.xml end");
+
+        aetherRepoSystem = aetherConfigurer.newRepositorySystem();
+        remoteRepositories = Collections.unmodifiableList(initRemoteRepositories());
+    }
+
+    /**
+     * Logs resolution statistics. Meant to be invoked on shutdown.
+     */
+    public void destroy() {
+        logger.info("Maven resolution cache statistics: {}", resolvedUrlCache.getStatistics());
+    }
+
+    private RepositorySystem getRepositorySystem() {
+        RepositorySystem repositorySystem = aetherRepoSystem;
+        if (repositorySystem == null) {
+            synchronized (this) {
+                repositorySystem = aetherRepoSystem;
+                if (repositorySystem == null) {
+                    repositorySystem = aetherConfigurer.newRepositorySystem();
+                    aetherRepoSystem = repositorySystem;
+                }
+            }
+        }
+        return repositorySystem;
+    }
+
+    private RepositorySystemSession getSession() {
+        AetherSession current = aetherSession;
+        if (current == null || System.currentTimeMillis() - current.creationTime >= sessionMaxAgeMs) {
+            synchronized (this) {
+                current = aetherSession;
+                if (current == null || System.currentTimeMillis() - current.creationTime >= sessionMaxAgeMs) {
+                    logger.debug("Creating a new aether session");
+                    current = new AetherSession(aetherConfigurer.newSession(getRepositorySystem(), this.mvnConsumerConfigurer.getLocalM2Repo()));
+                    aetherSession = current;
+                }
+            }
+        }
+        return current.session;
+    }
+
+    private List<RemoteRepository> getRemoteRepositories() {
+        List<RemoteRepository> repositories = remoteRepositories;
+        if (repositories == null) {
+            synchronized (this) {
+                repositories = remoteRepositories;
+                if (repositories == null) {
+                    repositories = Collections.unmodifiableList(initRemoteRepositories());
+                    remoteRepositories = repositories;
+                }
+            }
+        }
+        return repositories;
     }
 
     private List<RemoteRepository> initRemoteRepositories() {
@@ -141,10 +224,17 @@ public class MvnRepoDaoImpl implements MvnRepoDao {
     @Override
     public MavenReference resolveUrl(MavenReference mavenReference) {
         MavenReference mavenRef = new MavenReference(mavenReference);
-        updateUrl(mavenRef);
-        if (!isArtifactAvailable(mavenRef)) {
-            throw new MavenReferenceResolutionException(mavenRef, "artifact is not available at " + mavenRef.getAccessUrl());
-        }
+        URL url = resolvedUrlCache.get(mavenRef, new ResolvedUrlCache.Resolver() {
+            @Override
+            public URL resolve(MavenReference reference) {
+                updateUrl(reference);
+                if (!isArtifactAvailable(reference)) {
+                    throw new MavenReferenceResolutionException(reference, "artifact is not available at " + reference.getAccessUrl());
+                }
+                return reference.getAccessUrl();
+            }
+        });
+        mavenRef.setAccessUrl(url);
         return mavenRef;
 
     }
@@ -153,10 +243,9 @@ public class MvnRepoDaoImpl implements MvnRepoDao {
         logger.debug("Resolving maven reference using all repositories for " + mavenRef);
         Artifact artifactToFind = convertToArtifact(mavenRef);
         try {
-            RepositorySystem aetherRepoSystem = aetherConfigurer.newRepositorySystem();
-            RepositorySystemSession aetherRepoSession = aetherConfigurer.newSession(aetherRepoSystem, this.mvnConsumerConfigurer.getLocalM2Repo());
-            ArtifactRequest resolveArtifactRequest = new ArtifactRequest(artifactToFind, initRemoteRepositories(), null);
-            ArtifactResult artifactResultFound = aetherRepoSystem.resolveArtifact(aetherRepoSession, resolveArtifactRequest);
+            RepositorySystemSession aetherRepoSession = getSession();
+            ArtifactRequest resolveArtifactRequest = new ArtifactRequest(artifactToFind, getRemoteRepositories(), null);
+            ArtifactResult artifactResultFound = getRepositorySystem().resolveArtifact(aetherRepoSession, resolveArtifactRequest);
 
             ArtifactRepository artifactDeploymentRepository = artifactResultFound.getRepository();
             URI artifactResolvedUri;
@@ -228,10 +317,8 @@ public class MvnRepoDaoImpl implements MvnRepoDao {
      * @throws ArtifactResolutionException
      */
     protected ArtifactResult resolveArtifact(Artifact artifactToFind) throws ArtifactResolutionException {
-        RepositorySystem aetherRepoSystem = aetherConfigurer.newRepositorySystem();
-        RepositorySystemSession aetherRepoSession = aetherConfigurer.newSession(aetherRepoSystem, this.mvnConsumerConfigurer.getLocalM2Repo());
-        ArtifactRequest resolveArtifactRequest = new ArtifactRequest(artifactToFind, initRemoteRepositories(), null);
-        ArtifactResult artifactResultFound = aetherRepoSystem.resolveArtifact(aetherRepoSession, resolveArtifactRequest);
+        ArtifactRequest resolveArtifactRequest = new ArtifactRequest(artifactToFind, getRemoteRepositories(), null);
+        ArtifactResult artifactResultFound = getRepositorySystem().resolveArtifact(getSession(), resolveArtifactRequest);
         return artifactResultFound;
     }
 
@@ -270,6 +357,22 @@ public class MvnRepoDaoImpl implements MvnRepoDao {
         this.aetherConfigurer = aetherConfigurer;
     }
 
+    public void setResolvedUrlCache(ResolvedUrlCache resolvedUrlCache) {
+        this.resolvedUrlCache = resolvedUrlCache;
+    }
+
+    public ResolvedUrlCache getResolvedUrlCache() {
+        return resolvedUrlCache;
+    }
+
+    /**
+     * @param sessionMaxAgeMs delay after which the shared aether session is renewed, bounding how long an updated
+     *                        SNAPSHOT may go unnoticed
+     */
+    public void setSessionMaxAgeMs(long sessionMaxAgeMs) {
+        this.sessionMaxAgeMs = sessionMaxAgeMs;
+    }
+
     /**
      * Verify that artifact referenced by a given {@link MavenReference} is
      * available
@@ -324,6 +427,7 @@ public class MvnRepoDaoImpl implements MvnRepoDao {
     @Override
     public void deployFileset(MavenReference gav, ArrayList<FileRef> fileSet) {
         this.mavenDeployer.deployFileset(gav, fileSet);
+        resolvedUrlCache.invalidate(gav);
         updateUrl(gav);
 
     }
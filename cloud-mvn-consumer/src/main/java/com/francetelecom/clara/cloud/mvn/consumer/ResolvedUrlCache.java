@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.mvn.consumer;
+
+import com.francetelecom.clara.cloud.commons.MavenReference;
+import com.francetelecom.clara.cloud.commons.TechnicalException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URL;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches urls of resolved maven references, by GAV.
+ * <p>
+ * Releases are immutable once deployed and are therefore kept until the cache is full, while SNAPSHOTs (and
+ * version ranges or LATEST / RELEASE meta versions) are resolved again once {@link #setSnapshotTtlMs(long)} is
+ * elapsed. Failed resolutions are not cached. Concurrent requests for the same GAV share a single resolution.
+ */
+public class ResolvedUrlCache {
+
+    private static Logger logger = LoggerFactory.getLogger(ResolvedUrlCache.class);
+
+    private static final String SNAPSHOT_SUFFIX = "-SNAPSHOT";
+
+    /**
+     * Resolves the url of a maven reference on cache miss
+     */
+    public interface Resolver {
+
+        URL resolve(MavenReference mavenReference);
+
+    }
+
+    private static class Entry {
+        final URL url;
+        final long expirationTime;
+
+        Entry(URL url, long expirationTime) {
+            this.url = url;
+            this.expirationTime = expirationTime;
+        }
+    }
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, FutureTask<URL>> inFlightResolutions = new ConcurrentHashMap<>();
+
+    private long snapshotTtlMs = 60 * 1000;
+
+    private int maxEntries = 10000;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong sharedResolutionCount = new AtomicLong();
+
+    /**
+     * @param mavenReference reference to resolve
+     * @param resolver       invoked on cache miss, at most once at a time for a given GAV
+     * @return resolved url
+     */
+    public URL get(final MavenReference mavenReference, final Resolver resolver) {
+        final String key = mavenReference.toGavString();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expirationTime > System.currentTimeMillis()) {
+            hitCount.incrementAndGet();
+            return entry.url;
+        }
+        FutureTask<URL> resolution = new FutureTask<>(new Callable<URL>() {
+            @Override
+            public URL call() throws Exception {
+                URL url = resolver.resolve(mavenReference);
+                put(key, mavenReference, url);
+                return url;
+            }
+        });
+        FutureTask<URL> inFlightResolution = inFlightResolutions.putIfAbsent(key, resolution);
+        if (inFlightResolution == null) {
+            missCount.incrementAndGet();
+            try {
+                resolution.run();
+            } finally {
+                inFlightResolutions.remove(key, resolution);
+            }
+            return getResult(resolution, key);
+        }
+        sharedResolutionCount.incrementAndGet();
+        logger.debug("Waiting for in flight resolution of {}", key);
+        return getResult(inFlightResolution, key);
+    }
+
+    /**
+     * Forgets the url of a maven reference, e.g. after it has been (re)deployed
+     */
+    public void invalidate(MavenReference mavenReference) {
+        entries.remove(mavenReference.toGavString());
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private void put(String key, MavenReference mavenReference, URL url) {
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxEntries) {
+            removeExpiredEntries(now);
+            if (entries.size() >= maxEntries) {
+                logger.info("Maven resolution cache is full ({} entries), not caching {}", maxEntries, key);
+                return;
+            }
+        }
+        long expirationTime = isMutableVersion(mavenReference.getVersion()) ? now + snapshotTtlMs : Long.MAX_VALUE;
+        entries.put(key, new Entry(url, expirationTime));
+    }
+
+    private void removeExpiredEntries(long now) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().expirationTime <= now) {
+                it.remove();
+            }
+        }
+    }
+
+    private static URL getResult(FutureTask<URL> resolution, String key) {
+        try {
+            return resolution.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TechnicalException("Interrupted while resolving " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new TechnicalException("Unable to resolve " + key, cause);
+        }
+    }
+
+    /**
+     * @return true for versions whose resolved artifact may change over time
+     */
+    static boolean isMutableVersion(String version) {
+        return version == null || version.endsWith(SNAPSHOT_SUFFIX) || "LATEST".equals(version) || "RELEASE".equals(version)
+                || version.startsWith("[") || version.startsWith("(");
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return number of requests that waited for the resolution of the same GAV by another thread
+     */
+    public long getSharedResolutionCount() {
+        return sharedResolutionCount.get();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * @return ratio of requests served from the cache, between 0 and 1
+     */
+    public double getHitRatio() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get() + sharedResolutionCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public String getStatistics() {
+        return "size=" + getSize() + " hits=" + getHitCount() + " misses=" + getMissCount() + " sharedResolutions=" + getSharedResolutionCount()
+                + " hitRatio=" + getHitRatio();
+    }
+
+    public void setSnapshotTtlMs(long snapshotTtlMs) {
+        this.snapshotTtlMs = snapshotTtlMs;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+}
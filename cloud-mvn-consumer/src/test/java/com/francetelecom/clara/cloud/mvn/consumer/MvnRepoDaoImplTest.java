@@ -21,6 +21,7 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
@@ -83,6 +84,18 @@ public class MvnRepoDaoImplTest {
 	}
 
 
+	@Test
+	public void should_not_resolve_again_an_already_resolved_release() {
+		// test data
+		MavenReference mavenRef = new MavenReference("com.francetelecom.clara.cloud", "cloud-paas-webapp-war", "0.0.5", "war");
+		// exercise sut
+		mvnRepoDao.resolveUrl(mavenRef);
+		mvnRepoDao.resolveUrl(mavenRef);
+		// check method call
+		verify(mvnRepoDao, times(1)).updateUrl(mavenRef);
+		verify(mvnRepoDao, times(1)).isArtifactAvailable(mavenRef);
+	}
+
 	@Test
 	public void testResolveUrl_always_checks_that_resolved_url_points_to_an_available_artifact() {
 		// test data
@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.mvn.consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.francetelecom.clara.cloud.commons.MavenReference;
+
+public class ResolvedUrlCacheTest {
+
+	// SUT
+	ResolvedUrlCache cache;
+
+	CountingResolver resolver;
+
+	@Before
+	public void setup() {
+		cache = new ResolvedUrlCache();
+		resolver = new CountingResolver();
+	}
+
+	@Test
+	public void resolves_a_release_only_once() {
+		MavenReference mavenRef = new MavenReference("groupId", "artifactId", "1.0", "ear");
+
+		URL first = cache.get(mavenRef, resolver);
+		URL second = cache.get(new MavenReference(mavenRef), resolver);
+
+		assertSame(first, second);
+		assertEquals(1, resolver.count.get());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void resolves_a_snapshot_again_once_expired() {
+		cache.setSnapshotTtlMs(0);
+		MavenReference mavenRef = new MavenReference("groupId", "artifactId", "1.0-SNAPSHOT", "ear");
+
+		cache.get(mavenRef, resolver);
+		cache.get(mavenRef, resolver);
+
+		assertEquals(2, resolver.count.get());
+	}
+
+	@Test
+	public void does_not_cache_failed_resolutions() {
+		MavenReference mavenRef = new MavenReference("groupId", "artifactId", "1.0", "ear");
+		resolver.failure = new MavenReferenceResolutionException(mavenRef, "not found");
+
+		try {
+			cache.get(mavenRef, resolver);
+			fail("expected resolution to fail");
+		} catch (MavenReferenceResolutionException e) {
+			assertSame(resolver.failure, e);
+		}
+		resolver.failure = null;
+		cache.get(mavenRef, resolver);
+
+		assertEquals(2, resolver.count.get());
+	}
+
+	@Test
+	public void resolves_again_an_invalidated_reference() {
+		MavenReference mavenRef = new MavenReference("groupId", "artifactId", "1.0", "ear");
+
+		cache.get(mavenRef, resolver);
+		cache.invalidate(mavenRef);
+		cache.get(mavenRef, resolver);
+
+		assertEquals(2, resolver.count.get());
+	}
+
+	@Test
+	public void does_not_exceed_max_entries() {
+		cache.setMaxEntries(1);
+
+		cache.get(new MavenReference("groupId", "artifactId", "1.0", "ear"), resolver);
+		cache.get(new MavenReference("groupId", "artifactId", "2.0", "ear"), resolver);
+
+		assertEquals(1, cache.getSize());
+	}
+
+	@Test
+	public void shares_in_flight_resolution_of_a_reference() throws Exception {
+		final MavenReference mavenRef = new MavenReference("groupId", "artifactId", "1.0", "ear");
+		final CountDownLatch resolutionStarted = new CountDownLatch(1);
+		final CountDownLatch resolutionAllowed = new CountDownLatch(1);
+		final CountingResolver slowResolver = new CountingResolver() {
+			@Override
+			public URL resolve(MavenReference mavenReference) {
+				resolutionStarted.countDown();
+				try {
+					resolutionAllowed.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return super.resolve(mavenReference);
+			}
+		};
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Callable<URL> get = new Callable<URL>() {
+				@Override
+				public URL call() {
+					return cache.get(mavenRef, slowResolver);
+				}
+			};
+			Future<URL> first = executor.submit(get);
+			assertTrue(resolutionStarted.await(10, TimeUnit.SECONDS));
+			Future<URL> second = executor.submit(get);
+			while (cache.getSharedResolutionCount() == 0 && !second.isDone()) {
+				Thread.sleep(10);
+			}
+			resolutionAllowed.countDown();
+
+			assertSame(first.get(), second.get());
+			assertEquals(1, slowResolver.count.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void considers_snapshots_ranges_and_meta_versions_as_mutable() {
+		assertTrue(ResolvedUrlCache.isMutableVersion("1.0-SNAPSHOT"));
+		assertTrue(ResolvedUrlCache.isMutableVersion("LATEST"));
+		assertTrue(ResolvedUrlCache.isMutableVersion("[1.0,2.0)"));
+		assertFalse(ResolvedUrlCache.isMutableVersion("1.0"));
+	}
+
+	static class CountingResolver implements ResolvedUrlCache.Resolver {
+
+		final AtomicInteger count = new AtomicInteger();
+
+		RuntimeException failure;
+
+		@Override
+		public URL resolve(MavenReference mavenReference) {
+			count.incrementAndGet();
+			if (failure != null) {
+				throw failure;
+			}
+			try {
+				return new URL("http://myrepo/" + mavenReference.getArtifactId() + "/" + count.get());
+			} catch (MalformedURLException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
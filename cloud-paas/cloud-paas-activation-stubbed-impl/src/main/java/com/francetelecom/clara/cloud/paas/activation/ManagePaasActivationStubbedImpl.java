@@ -300,4 +300,11 @@ public class ManagePaasActivationStubbedImpl implements ManagePaasActivation {
 	public void setEnvironmentRepository(EnvironmentRepository environmentRepository) {
 		this.environmentRepository = environmentRepository;
 	}
+
+	@Override
+	public int getQueuePosition(TaskStatusActivation taskStatus) {
+		// activations are not queued
+		return 0;
+	}
+
 }
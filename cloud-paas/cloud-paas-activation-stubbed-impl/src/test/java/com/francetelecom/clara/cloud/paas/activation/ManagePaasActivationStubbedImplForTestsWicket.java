@@ -253,4 +253,11 @@ public class ManagePaasActivationStubbedImplForTestsWicket implements ManagePaas
 	public void setEnvironmentRepository(EnvironmentRepository environmentRepository) {
 		this.environmentRepository = environmentRepository;
 	}
+
+	@Override
+	public int getQueuePosition(TaskStatusActivation taskStatus) {
+		// activations are not queued
+		return 0;
+	}
+
 }
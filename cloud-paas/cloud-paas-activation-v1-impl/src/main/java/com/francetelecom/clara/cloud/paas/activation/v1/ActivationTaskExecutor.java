@@ -0,0 +1,361 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.paas.activation.v1;
+
+import com.francetelecom.clara.cloud.paas.activation.ActivationStepEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs activation processes on a bounded pool of worker threads.
+ * <p>
+ * Waiting activations are dequeued by priority (deletes, then stops, then starts, then creations) and, within a same
+ * priority, in round robin between tenants so that a tenant submitting many activations does not delay the others.
+ * When {@link #setMaxQueueSize(int)} activations are already waiting, new ones are rejected with a
+ * {@link TaskRejectedException}.
+ */
+public class ActivationTaskExecutor implements TaskExecutor {
+
+    private static Logger logger = LoggerFactory.getLogger(ActivationTaskExecutor.class.getName());
+
+    /**
+     * An activation which can be prioritized and attributed to a tenant. Other {@link Runnable}s are run with the
+     * lowest priority, on behalf of an anonymous tenant.
+     */
+    public interface ActivationJob extends Runnable {
+
+        ActivationStepEnum getActivationStep();
+
+        /**
+         * @return the tenant on behalf of which the activation is run, or null if unknown
+         */
+        String getTenant();
+
+    }
+
+    private class QueuedJob implements Runnable {
+        final Runnable runnable;
+        final int priority;
+        final String tenant;
+        /**
+         * round robin turn of the job among jobs of its tenant with the same priority
+         */
+        final long round;
+        final long sequence;
+        final long queuedTime = System.currentTimeMillis();
+
+        QueuedJob(Runnable runnable, int priority, String tenant, long round, long sequence) {
+            this.runnable = runnable;
+            this.priority = priority;
+            this.tenant = tenant;
+            this.round = round;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            String workerName = Thread.currentThread().getName();
+            long start = System.currentTimeMillis();
+            long waitTime = start - queuedTime;
+            totalWaitTimeMs.addAndGet(waitTime);
+            updateMax(maxWaitTimeMs, waitTime);
+            activeCount.incrementAndGet();
+            try {
+                runnable.run();
+            } catch (Throwable e) {
+                logger.error("Unexpected error while running activation: " + e.getMessage(), e);
+            } finally {
+                activeCount.decrementAndGet();
+                completedCount.incrementAndGet();
+                long runTime = System.currentTimeMillis() - start;
+                totalRunTimeMs.addAndGet(runTime);
+                // activations may rename the thread
+                Thread.currentThread().setName(workerName);
+                logger.debug("Activation of tenant <{}> waited {} ms and ran {} ms, executor statistics: {}", tenant, waitTime, runTime,
+                        getStatistics());
+            }
+        }
+    }
+
+    /**
+     * highest priority first, then lowest round (round robin between tenants), then first submitted
+     */
+    private static final Comparator<Runnable> FAIR_ORDER = new Comparator<Runnable>() {
+        @Override
+        public int compare(Runnable r1, Runnable r2) {
+            QueuedJob job1 = (QueuedJob) r1;
+            QueuedJob job2 = (QueuedJob) r2;
+            if (job1.priority != job2.priority) {
+                return job1.priority > job2.priority ? -1 : 1;
+            }
+            if (job1.round != job2.round) {
+                return job1.round < job2.round ? -1 : 1;
+            }
+            return job1.sequence < job2.sequence ? -1 : (job1.sequence == job2.sequence ? 0 : 1);
+        }
+    };
+
+    private static final int LOWEST_PRIORITY = 0;
+
+    private static final String ANONYMOUS_TENANT = "";
+
+    private int maxQueueSize = 500;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * round of the last job started, per priority
+     */
+    private final Map<Integer, Long> startedRounds = new HashMap<>();
+
+    /**
+     * round of the last job queued, per priority and tenant
+     */
+    private final Map<Integer, Map<String, Long>> queuedRounds = new HashMap<>();
+
+    private long sequence;
+
+    private final AtomicLong activeCount = new AtomicLong();
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong totalWaitTimeMs = new AtomicLong();
+    private final AtomicLong maxWaitTimeMs = new AtomicLong();
+    private final AtomicLong totalRunTimeMs = new AtomicLong();
+
+    public ActivationTaskExecutor() {
+        executor = new ThreadPoolExecutor(10, 10, 60, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(11, FAIR_ORDER), new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "activation-" + threadCount.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }) {
+            @Override
+            protected void beforeExecute(Thread thread, Runnable runnable) {
+                jobStarted((QueuedJob) runnable);
+            }
+        };
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        int priority = LOWEST_PRIORITY;
+        String tenant = ANONYMOUS_TENANT;
+        if (task instanceof ActivationJob) {
+            ActivationJob job = (ActivationJob) task;
+            priority = priorityOf(job.getActivationStep());
+            if (job.getTenant() != null) {
+                tenant = job.getTenant();
+            }
+        }
+        synchronized (this) {
+            if (executor.isShutdown()) {
+                throw new TaskRejectedException("Activation executor has been shut down");
+            }
+            int queueSize = executor.getQueue().size();
+            if (queueSize >= maxQueueSize) {
+                rejectedCount.incrementAndGet();
+                throw new TaskRejectedException("Too many pending activations (" + queueSize + "), please retry later");
+            }
+            try {
+                executor.execute(new QueuedJob(task, priority, tenant, nextRound(priority, tenant), sequence++));
+            } catch (RejectedExecutionException e) {
+                throw new TaskRejectedException("Activation executor has been shut down", e);
+            }
+            submittedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * A tenant's next job takes the turn after its previous one, but never a turn already served: a tenant which
+     * was idle does not get precedence over tenants which kept on submitting.
+     */
+    private long nextRound(int priority, String tenant) {
+        Map<String, Long> tenantRounds = queuedRounds.get(priority);
+        if (tenantRounds == null) {
+            tenantRounds = new HashMap<>();
+            queuedRounds.put(priority, tenantRounds);
+        }
+        Long startedRound = startedRounds.get(priority);
+        Long previousRound = tenantRounds.get(tenant);
+        long round = Math.max(previousRound == null ? 1 : previousRound + 1, startedRound == null ? 0 : startedRound);
+        tenantRounds.put(tenant, round);
+        return round;
+    }
+
+    private synchronized void jobStarted(QueuedJob job) {
+        Long startedRound = startedRounds.get(job.priority);
+        if (startedRound != null && startedRound >= job.round) {
+            return;
+        }
+        startedRounds.put(job.priority, job.round);
+        // rounds of tenants lagging behind will be caught up anyway
+        Iterator<Long> tenantRounds = queuedRounds.get(job.priority).values().iterator();
+        while (tenantRounds.hasNext()) {
+            if (tenantRounds.next() < job.round) {
+                tenantRounds.remove();
+            }
+        }
+    }
+
+    /**
+     * @param task a task given to {@link #execute(Runnable)}
+     * @return number of waiting tasks that will be run before the given one, or -1 if the task is not waiting
+     *         anymore
+     */
+    public int getQueuePosition(Runnable task) {
+        List<Runnable> waiting = new ArrayList<>(executor.getQueue());
+        Collections.sort(waiting, FAIR_ORDER);
+        for (int position = 0; position < waiting.size(); position++) {
+            if (((QueuedJob) waiting.get(position)).runnable == task) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stops accepting activations, and interrupts the activations being run. Waiting activations are discarded.
+     */
+    public void shutdown() {
+        List<Runnable> discarded;
+        synchronized (this) {
+            discarded = executor.shutdownNow();
+        }
+        if (!discarded.isEmpty()) {
+            logger.warn("Discarding " + discarded.size() + " pending activations on shutdown");
+        }
+        logger.info("Activation executor shut down, statistics: {}", getStatistics());
+    }
+
+    /**
+     * Deletions release resources, they go first. Creations consume them, they go last.
+     */
+    static int priorityOf(ActivationStepEnum step) {
+        if (step == null) {
+            return LOWEST_PRIORITY;
+        }
+        switch (step) {
+            case DELETE:
+                return 4;
+            case STOP:
+                return 3;
+            case START:
+            case FIRSTSTART:
+                return 2;
+            case ACTIVATE:
+                return 1;
+            default:
+                return LOWEST_PRIORITY;
+        }
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * @return number of activations waiting for a worker
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public long getActiveCount() {
+        return activeCount.get();
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    /**
+     * @return average time in ms activations waited for a worker
+     */
+    public long getAverageWaitTimeMs() {
+        long completed = completedCount.get() + activeCount.get();
+        return completed == 0 ? 0 : totalWaitTimeMs.get() / completed;
+    }
+
+    public long getMaxWaitTimeMs() {
+        return maxWaitTimeMs.get();
+    }
+
+    /**
+     * @return average time in ms activations ran
+     */
+    public long getAverageRunTimeMs() {
+        long completed = completedCount.get();
+        return completed == 0 ? 0 : totalRunTimeMs.get() / completed;
+    }
+
+    public String getStatistics() {
+        return "queued=" + getQueueSize() + " active=" + getActiveCount() + " submitted=" + getSubmittedCount() + " rejected=" + getRejectedCount()
+                + " completed=" + getCompletedCount() + " avgWaitTimeMs=" + getAverageWaitTimeMs() + " maxWaitTimeMs=" + getMaxWaitTimeMs()
+                + " avgRunTimeMs=" + getAverageRunTimeMs();
+    }
+
+    /**
+     * @param poolSize max number of activations run concurrently
+     */
+    public void setPoolSize(int poolSize) {
+        if (poolSize > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(poolSize);
+            executor.setCorePoolSize(poolSize);
+        } else {
+            executor.setCorePoolSize(poolSize);
+            executor.setMaximumPoolSize(poolSize);
+        }
+    }
+
+    /**
+     * @param maxQueueSize max number of activations waiting for a worker
+     */
+    public void setMaxQueueSize(int maxQueueSize) {
+        this.maxQueueSize = maxQueueSize;
+    }
+
+}
@@ -31,11 +31,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Handle ActivationTask, e.g. forward task (from activiti) to the correct
@@ -83,8 +94,33 @@ public class ActivationTaskHandlerCallback implements TaskHandlerCallback<Activa
      */
     private static final long TASK_DEFAULT_TIMEOUT = 60 * 60 * 4;
 
-    //FIXME
-    private static Map<String, Set<Integer>> progressMap = new HashMap<String, Set<Integer>>();
+    /**
+     * Number of locks shared by process instances when signaling task completion
+     */
+    private static final int PROCESS_INSTANCE_LOCK_STRIPES = 256;
+
+    /**
+     * Tasks of a same process instance are signaled one at a time, tasks of distinct process instances concurrently
+     */
+    private final Striped<Lock> processInstanceLocks = Striped.lazyWeakLock(PROCESS_INSTANCE_LOCK_STRIPES);
+
+    /**
+     * Looks again for executions not found on task completion, while activiti flushes its session
+     */
+    private final ScheduledExecutorService executionLookupRetryScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("activation-execution-lookup-%d").setDaemon(true).build());
+
+    /**
+     * Delay in ms before looking again for the execution of a completed task
+     */
+    private long executionLookupRetryDelayMs = 5000;
+
+    /**
+     * Indexes of started tasks per process instance, to compute a progress percentage. Entries of processes which
+     * did not complete normally are dropped after the task default timeout.
+     */
+    private final Cache<String, Set<Integer>> progressMap = CacheBuilder.newBuilder().expireAfterAccess(TASK_DEFAULT_TIMEOUT, TimeUnit.SECONDS)
+            .build();
 
     @Override
     public TaskStatus handleRequest(ActivationTask request) {
@@ -130,10 +166,13 @@ public class ActivationTaskHandlerCallback implements TaskHandlerCallback<Activa
             status.setErrorMessage(msg);
         } else {
             // Store executed task id so we can set a progress percentage
-            Set<Integer> startedTasks = progressMap.get(request.getProcessInstanceId());
+            Set<Integer> startedTasks = progressMap.asMap().get(request.getProcessInstanceId());
             if (startedTasks == null) {
-                startedTasks = new HashSet<Integer>(request.getTaskCount());
-                progressMap.put(request.getProcessInstanceId(), startedTasks);
+                Set<Integer> newStartedTasks = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+                startedTasks = progressMap.asMap().putIfAbsent(request.getProcessInstanceId(), newStartedTasks);
+                if (startedTasks == null) {
+                    startedTasks = newStartedTasks;
+                }
             }
             startedTasks.add(request.getTaskIndex());
 
@@ -202,7 +241,7 @@ public class ActivationTaskHandlerCallback implements TaskHandlerCallback<Activa
 
             // Update title and percentage of the status
             int percent = -1;
-            startedTasks = progressMap.get(request.getProcessInstanceId());
+            startedTasks = progressMap.getIfPresent(request.getProcessInstanceId());
             if (startedTasks != null && request.getTaskCount() > 0) {
                 percent = (startedTasks.size() - 1) * 100 / request.getTaskCount();
             }
@@ -282,7 +321,7 @@ public class ActivationTaskHandlerCallback implements TaskHandlerCallback<Activa
                         if (pluginStatus != null) {
                             newStatus.setStatus(pluginStatus);
                             int percent = -1;
-                            Set<Integer> startedTasks = progressMap.get(request.getProcessInstanceId());
+                            Set<Integer> startedTasks = progressMap.getIfPresent(request.getProcessInstanceId());
                             if (startedTasks != null && request.getTaskCount() > 0) {
                                 percent = (startedTasks.size() - 1) * 100 / request.getTaskCount();
                             }
@@ -340,67 +379,13 @@ public class ActivationTaskHandlerCallback implements TaskHandlerCallback<Activa
                     + activationTask.getActivationStep() + "\t" + status.getTaskStatus() + "\t" + (status.getEndTime() - status.getStartTime()));
 
             // Clean progress map
-            Set<Integer> startedTasks = progressMap.get(activationTask.getProcessInstanceId());
+            Set<Integer> startedTasks = progressMap.getIfPresent(activationTask.getProcessInstanceId());
             if (startedTasks != null && startedTasks.size() == activationTask.getTaskCount() || TASK_FAILURE.equals(activationTask.getActivitiTaskId())) {
-                progressMap.remove(activationTask.getProcessInstanceId());
+                progressMap.invalidate(activationTask.getProcessInstanceId());
             }
 
             if (!TASK_SUCCESS.equals(activationTask.getActivitiTaskId()) && !TASK_FAILURE.equals(activationTask.getActivitiTaskId())) {
-                try {
-                    // Protect this critic section so that execution will not be
-                    // stopped by an other task failure
-                    synchronized (processEngine) {
-
-                        Execution execution = findExecutionByEndTask(activationTask);
-
-                        if (execution == null) {
-                            logger.debug("Waiting 5s to be sure that activiti has flushed its session for " + activationTask.getActivitiTaskId() + " ("
-                                    + activationTask.getEntityClass().getSimpleName() + "#" + activationTask.getEntityId() + ")");
-                            Thread.sleep(5000);
-                            execution = findExecutionByEndTask(activationTask);
-
-                        }
-                        if (execution != null) {
-                            // Execution can be null if process failed in
-                            // another task
-                            status.setExecutionId(execution.getId());
-                            if (status.getTaskStatus() == TaskStatusEnum.FINISHED_OK) {
-                                onTaskCompleteHandleFinishedOk(status);
-                            } else {
-                                onTaskCompleteHandleFinishedNotOk(status);
-                            }
-                        } else {
-                            logger.warn("* Signal *NOT* sent to task " + activationTask.getActivitiTaskId() + " because there is no execution running");
-                            for (Execution exec : createActivitiRuntimeQuery().list()) {
-                                logger.debug("   - pi=" + exec.getProcessInstanceId() + " exec=" + exec.getId());
-                                for (String id : processEngine.getRuntimeService().getActiveActivityIds(exec.getProcessInstanceId())) {
-                                    logger.debug("      - active activiti: " + id);
-                                }
-                            }
-                        }
-                    }
-                } catch (Throwable e) {
-                    logger.error(e.getMessage(), e);
-                    // to get more details onto javax validation, add the
-                    // following trace level :
-                    // <logger
-                    // name="org.hibernate.cfg.beanvalidation.BeanValidationEventListener"
-                    // level="TRACE"/>
-                    // Signal activiti that the task has failed
-                    if (status.getExecutionId() != null) {
-                        processEngine.getRuntimeService().setVariableLocal(status.getExecutionId(), "errCode", "1");
-                        processEngine.getRuntimeService().setVariable(status.getExecutionId(), "errMessage",
-                                e.getMessage() != null ? e.getMessage().substring(0, Math.min(4000, e.getMessage().length())) : "null");
-                        processEngine.getRuntimeService().setVariable(status.getExecutionId(), "entityId", activationTask.getEntityId());
-                        processEngine.getRuntimeService().setVariable(status.getExecutionId(), "entityClass", activationTask.getEntityClass().getName());
-                        processEngine.getRuntimeService().setVariable(status.getExecutionId(), "activationStep", activationTask.getActivationStep().getName());
-                        processEngine.getRuntimeService().signal(status.getExecutionId());
-                    } else {
-                        // task execution id is null => task has not been
-                        // executed (activiti error)
-                    }
-
-                }
+                signalTaskCompletion(status, true);
             }
         } finally {
             MDC.remove(LOG_KEY_PROCESSID);
@@ -409,6 +394,108 @@ public class ActivationTaskHandlerCallback implements TaskHandlerCallback<Activa
         }
     }
 
+    /**
+     * Signal the execution waiting for the end of the task
+     *
+     * @param retryIfNotFlushed true to look again later for the execution if it is not found yet
+     */
+    private void signalTaskCompletion(final TaskStatusActivitiTask status, boolean retryIfNotFlushed) {
+        ActivationTask activationTask = status.getActivationTask();
+        // Protect this critic section so that execution will not be stopped by
+        // an other task failure of the same process
+        Lock lock = processInstanceLocks.get(activationTask.getProcessInstanceId());
+        lock.lock();
+        try {
+            Execution execution = findExecutionByEndTask(activationTask);
+
+            if (execution == null && retryIfNotFlushed) {
+                // activiti may not have flushed its session yet: look again later rather than holding the
+                // current thread
+                logger.debug("Looking again in " + executionLookupRetryDelayMs + "ms for execution of " + activationTask.getActivitiTaskId()
+                        + " (" + activationTask.getEntityClass().getSimpleName() + "#" + activationTask.getEntityId()
+                        + ") to be sure that activiti has flushed its session");
+                scheduleSignalTaskCompletion(status);
+                return;
+            }
+            if (execution != null) {
+                // Execution can be null if process failed in
+                // another task
+                status.setExecutionId(execution.getId());
+                if (status.getTaskStatus() == TaskStatusEnum.FINISHED_OK) {
+                    onTaskCompleteHandleFinishedOk(status);
+                } else {
+                    onTaskCompleteHandleFinishedNotOk(status);
+                }
+            } else {
+                logger.warn("* Signal *NOT* sent to task " + activationTask.getActivitiTaskId() + " because there is no execution running");
+                for (Execution exec : createActivitiRuntimeQuery().list()) {
+                    logger.debug("   - pi=" + exec.getProcessInstanceId() + " exec=" + exec.getId());
+                    for (String id : processEngine.getRuntimeService().getActiveActivityIds(exec.getProcessInstanceId())) {
+                        logger.debug("      - active activiti: " + id);
+                    }
+                }
+            }
+        } catch (Throwable e) {
+            logger.error(e.getMessage(), e);
+            // to get more details onto javax validation, add the
+            // following trace level :
+            // <logger
+            // name="org.hibernate.cfg.beanvalidation.BeanValidationEventListener"
+            // level="TRACE"/>
+            // Signal activiti that the task has failed
+            if (status.getExecutionId() != null) {
+                processEngine.getRuntimeService().setVariableLocal(status.getExecutionId(), "errCode", "1");
+                processEngine.getRuntimeService().setVariable(status.getExecutionId(), "errMessage",
+                        e.getMessage() != null ? e.getMessage().substring(0, Math.min(4000, e.getMessage().length())) : "null");
+                processEngine.getRuntimeService().setVariable(status.getExecutionId(), "entityId", activationTask.getEntityId());
+                processEngine.getRuntimeService().setVariable(status.getExecutionId(), "entityClass", activationTask.getEntityClass().getName());
+                processEngine.getRuntimeService().setVariable(status.getExecutionId(), "activationStep", activationTask.getActivationStep().getName());
+                processEngine.getRuntimeService().signal(status.getExecutionId());
+            } else {
+                // task execution id is null => task has not been
+                // executed (activiti error)
+            }
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Looks again later for the execution of a completed task, outside of the caller thread and transaction. This is
+     * safe as the signal does not rely on the caller transaction: the lookup and the signal run in their own activiti
+     * command transactions, under the process instance lock, and an execution that was already signaled is simply not
+     * found anymore. When the caller runs within a transaction, the lookup is only scheduled once it commits, so that
+     * a rolled back (hence redelivered) completion is not signaled twice.
+     */
+    private void scheduleSignalTaskCompletion(final TaskStatusActivitiTask status) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    doScheduleSignalTaskCompletion(status);
+                }
+            });
+        } else {
+            doScheduleSignalTaskCompletion(status);
+        }
+    }
+
+    private void doScheduleSignalTaskCompletion(final TaskStatusActivitiTask status) {
+        final String processInstanceId = status.getActivationTask().getProcessInstanceId();
+        executionLookupRetryScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                MDC.put(LOG_KEY_PROCESSID, processInstanceId);
+                try {
+                    signalTaskCompletion(status, false);
+                } finally {
+                    MDC.remove(LOG_KEY_PROCESSID);
+                }
+            }
+        }, executionLookupRetryDelayMs, TimeUnit.MILLISECONDS);
+    }
+
     protected Execution findExecutionByEndTask(ActivationTask task) {
         ExecutionQuery query = createActivitiRuntimeQuery();
         return query.processInstanceId(task.getProcessInstanceId()).activityId(task.getActivitiTaskId() + "-end").singleResult();
@@ -521,4 +608,13 @@ public class ActivationTaskHandlerCallback implements TaskHandlerCallback<Activa
         return processEngine.getRuntimeService().createExecutionQuery();
     }
 
+    public void setExecutionLookupRetryDelayMs(long executionLookupRetryDelayMs) {
+        this.executionLookupRetryDelayMs = executionLookupRetryDelayMs;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executionLookupRetryScheduler.shutdown();
+    }
+
 }
@@ -0,0 +1,261 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.paas.activation.v1;
+
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.activiti.bpmn.converter.BpmnXMLConverter;
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.bpmn.model.Process;
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.ProcessEngine;
+import org.activiti.engine.RepositoryService;
+import org.activiti.engine.repository.Deployment;
+import org.activiti.engine.repository.ProcessDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deploys generated activation processes once per shape instead of once per activation.
+ * <p>
+ * Generated processes do not contain any TDI or entity id (these are given as process variables), so processes
+ * generated for TDIs whose dependency graphs have the same structure are identical. Such processes are deployed
+ * once, under a key made of the process id and of a digest of its BPMN content, and then started by key.
+ * <p>
+ * {@link #purgeOrphanDeployments()} deletes the deployments made per activation before processes were shared,
+ * as well as superseded versions of shared ones, once no process instance runs on them anymore.
+ */
+public class ActivitiProcessDefinitionCache {
+
+    private static Logger logger = LoggerFactory.getLogger(ActivitiProcessDefinitionCache.class.getName());
+
+    /**
+     * Category of deployments of shared process definitions
+     */
+    static final String DEPLOYMENT_CATEGORY = "activation-template";
+
+    /**
+     * Name prefix of deployments made per activation, before process definitions were shared
+     */
+    static final String LEGACY_DEPLOYMENT_NAME_PREFIX = "Activate ";
+
+    @Autowired
+    private ProcessEngine processEngine;
+
+    /**
+     * Deployment id by process definition key
+     */
+    private final ConcurrentMap<String, String> deployedDefinitions = new ConcurrentHashMap<>();
+
+    private long purgePeriodMs = 60 * 60 * 1000L;
+
+    private int purgeBatchSize = 100;
+
+    private ScheduledExecutorService purgeScheduler;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong deploymentCount = new AtomicLong();
+    private final AtomicLong purgedDeploymentCount = new AtomicLong();
+
+    /**
+     * Returns the key of the deployed process definition matching the given process, deploying it if needed.
+     *
+     * @param process a process generated by {@link ActivitiProcessFactory}
+     * @return the key to start the process with
+     */
+    public String getProcessDefinitionKey(Process process) {
+        String key = process.getId() + "-" + digest(process);
+        if (deployedDefinitions.containsKey(key)) {
+            hitCount.incrementAndGet();
+            return key;
+        }
+        missCount.incrementAndGet();
+        deploy(key, process);
+        return key;
+    }
+
+    private synchronized void deploy(String key, Process process) {
+        if (deployedDefinitions.containsKey(key)) {
+            return;
+        }
+        RepositoryService repositoryService = processEngine.getRepositoryService();
+        // may have been deployed by another node, or before a restart
+        ProcessDefinition existing = repositoryService.createProcessDefinitionQuery().processDefinitionKey(key).latestVersion().singleResult();
+        if (existing != null) {
+            deployedDefinitions.put(key, existing.getDeploymentId());
+            return;
+        }
+        process.setId(key);
+        BpmnModel model = new BpmnModel();
+        model.addProcess(process);
+        long start = System.currentTimeMillis();
+        Deployment deployment = repositoryService.createDeployment()
+                .addBpmnModel(key + ".bpmn", model)
+                .name(key)
+                .category(DEPLOYMENT_CATEGORY)
+                .enableDuplicateFiltering()
+                .deploy();
+        deploymentCount.incrementAndGet();
+        deployedDefinitions.put(key, deployment.getId());
+        logger.info("Deployed process definition {} in {} ms ({} definitions deployed)", key, System.currentTimeMillis() - start, deployedDefinitions.size());
+    }
+
+    private static String digest(Process process) {
+        BpmnModel model = new BpmnModel();
+        model.addProcess(process);
+        return Hashing.sha1().hashBytes(new BpmnXMLConverter().convertToXML(model)).toString();
+    }
+
+    /**
+     * Deletes, when no process instance runs on them anymore, deployments made per activation and
+     * superseded versions of shared process definitions.
+     *
+     * @return number of deleted deployments
+     */
+    public int purgeOrphanDeployments() {
+        int purged = purge(LEGACY_DEPLOYMENT_NAME_PREFIX + "%", false);
+        purged += purge(ActivitiProcessFactory.PROCESS_ID_PREFIX + "%", true);
+        if (purged > 0) {
+            logger.info("Purged {} orphan activation process deployments", purged);
+        }
+        return purged;
+    }
+
+    private int purge(String deploymentNameLike, boolean keepLatestVersions) {
+        RepositoryService repositoryService = processEngine.getRepositoryService();
+        int purged = 0;
+        int kept = 0;
+        List<Deployment> deployments;
+        do {
+            deployments = repositoryService.createDeploymentQuery().deploymentNameLike(deploymentNameLike).orderByDeploymenTime().asc()
+                    .listPage(kept, purgeBatchSize);
+            for (Deployment deployment : deployments) {
+                if (isOrphan(deployment, keepLatestVersions) && delete(deployment)) {
+                    purged++;
+                } else {
+                    kept++;
+                }
+            }
+        } while (deployments.size() == purgeBatchSize);
+        purgedDeploymentCount.addAndGet(purged);
+        return purged;
+    }
+
+    private boolean isOrphan(Deployment deployment, boolean keepLatestVersions) {
+        List<ProcessDefinition> definitions = processEngine.getRepositoryService().createProcessDefinitionQuery().deploymentId(deployment.getId()).list();
+        for (ProcessDefinition definition : definitions) {
+            if (keepLatestVersions && deployment.getId().equals(deployedDefinitions.get(definition.getKey()))) {
+                return false;
+            }
+            if (keepLatestVersions && isLatestVersion(definition)) {
+                return false;
+            }
+            if (processEngine.getRuntimeService().createProcessInstanceQuery().processDefinitionId(definition.getId()).count() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isLatestVersion(ProcessDefinition definition) {
+        ProcessDefinition latest = processEngine.getRepositoryService().createProcessDefinitionQuery().processDefinitionKey(definition.getKey()).latestVersion()
+                .singleResult();
+        return latest == null || latest.getId().equals(definition.getId());
+    }
+
+    private boolean delete(Deployment deployment) {
+        try {
+            // history of process instances is kept
+            processEngine.getRepositoryService().deleteDeployment(deployment.getId(), false);
+            return true;
+        } catch (ActivitiException e) {
+            logger.warn("Unable to purge deployment {} ({}): {}", deployment.getId(), deployment.getName(), e.toString());
+            return false;
+        }
+    }
+
+    @PostConstruct
+    public void startPurgeScheduler() {
+        if (purgePeriodMs <= 0) {
+            return;
+        }
+        purgeScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("activiti-deployment-purge-%d").setDaemon(true)
+                .build());
+        purgeScheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    purgeOrphanDeployments();
+                } catch (RuntimeException e) {
+                    logger.error("Unable to purge orphan activation process deployments", e);
+                }
+            }
+        }, purgePeriodMs, purgePeriodMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (purgeScheduler != null) {
+            purgeScheduler.shutdownNow();
+        }
+        logger.info("Activation process definition cache statistics: {}", getStatistics());
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getDeploymentCount() {
+        return deploymentCount.get();
+    }
+
+    public long getPurgedDeploymentCount() {
+        return purgedDeploymentCount.get();
+    }
+
+    public String getStatistics() {
+        return "definitions=" + deployedDefinitions.size() + " hits=" + getHitCount() + " misses=" + getMissCount() + " deployments="
+                + getDeploymentCount() + " purgedDeployments=" + getPurgedDeploymentCount();
+    }
+
+    public void setProcessEngine(ProcessEngine processEngine) {
+        this.processEngine = processEngine;
+    }
+
+    /**
+     * @param purgePeriodMs period of the purge of orphan deployments, 0 or less to disable it
+     */
+    public void setPurgePeriodMs(long purgePeriodMs) {
+        this.purgePeriodMs = purgePeriodMs;
+    }
+
+    public void setPurgeBatchSize(int purgeBatchSize) {
+        this.purgeBatchSize = purgeBatchSize;
+    }
+}
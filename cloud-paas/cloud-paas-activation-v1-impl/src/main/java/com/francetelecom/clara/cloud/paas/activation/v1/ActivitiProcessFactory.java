@@ -12,8 +12,8 @@
  */
 package com.francetelecom.clara.cloud.paas.activation.v1;
 
+import com.francetelecom.clara.cloud.model.DependantModelItem;
 import com.francetelecom.clara.cloud.model.TechnicalDeploymentInstance;
-import com.francetelecom.clara.cloud.model.XaasSubscription;
 import com.francetelecom.clara.cloud.paas.activation.ActivationStepEnum;
 import com.francetelecom.clara.cloud.paas.activation.v1.ActivitiProcessUtils.NodeTask;
 import org.activiti.bpmn.model.*;
@@ -24,7 +24,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.xml.bind.JAXBException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -38,17 +41,35 @@ public class ActivitiProcessFactory {
     static final String TASK_COUNT_KEY = "[TCK]";
     static final String NODE_SUFFIX_CONDITIONNAL = "-okornot";
 
+    /**
+     * Name of the process variable holding the id of the TDI. Generated processes do not contain any
+     * TDI or entity id so that they can be shared by all TDIs of a same shape,
+     * see {@link #generateProcessVariables(TechnicalDeploymentInstance)}
+     */
+    static final String TDI_ID_VARIABLE = "tdiId";
+
+    /**
+     * Prefix of the id of generated processes, followed by the activation step
+     */
+    static final String PROCESS_ID_PREFIX = "activation-";
+
     @Autowired
     private ActivationPluginStrategy pluginStrategy;
 
     private boolean canParrallel = false;
 
+    /**
+     * Max number of tasks of a process that may run concurrently when tasks can be
+     * parallelized (0 or less means no limit)
+     */
+    private int maxParallelBranches = 0;
+
     protected Process createActivateProcess(final TechnicalDeploymentInstance tdi) throws JAXBException {
 
         // Creates the root element
         Process process = new Process();
-        process.setId("TDI-" + tdi.getId() + "-" + System.currentTimeMillis());
-        process.setName("Activate virtual applicance " + tdi.getTechnicalDeployment().getName());
+        process.setId(PROCESS_ID_PREFIX + ActivationStepEnum.ACTIVATE.getName());
+        process.setName("Activate virtual applicance");
         process.setExecutable(Boolean.TRUE);
 
         // Start node
@@ -96,8 +117,8 @@ public class ActivitiProcessFactory {
         //ProcessDefinition definitions = new ProcessDefinitionEntity();
         //definitions.setTargetNamespace("Activation");
         Process process = new Process();
-        process.setId("TDI-" + tdi.getId() + "-" + System.currentTimeMillis());
-        process.setName("Start virtual applicance " + tdi.getName());
+        process.setId(PROCESS_ID_PREFIX + processType.getName());
+        process.setName("Start virtual applicance");
         //definitions.getRootElement().add(factory.createProcess(process));
 
         // Start node
@@ -164,6 +185,20 @@ public class ActivitiProcessFactory {
         return process;
     }
 
+    /**
+     * @param tdi the TDI a process was generated for
+     * @return variables to start the process with: id of the TDI and of each entity it refers to by position
+     */
+    Map<String, Object> generateProcessVariables(TechnicalDeploymentInstance tdi) {
+        Map<String, Object> variables = new HashMap<String, Object>();
+        variables.put(TDI_ID_VARIABLE, tdi.getId());
+        int position = 0;
+        for (DependantModelItem item : ActivitiProcessUtils.sortedItems(tdi.getTechnicalDeployment())) {
+            variables.put(ActivitiProcessUtils.entityVariable(position++), item.getId());
+        }
+        return variables;
+    }
+
     /**
      * Generate BPMN 2.0 XML
      * @param definitions Java representation of process
@@ -225,7 +260,7 @@ public class ActivitiProcessFactory {
         failureTask.setId("failureTask");
         failureTask.setName("Process failure");
         //failureTask.setExpression("#{wrapper.execute(activationStep, '"+failureTask.getId()+"', entityId, entityClass, errMessage)}");
-        failureTask.setImplementation("#{wrapper.failed(execution.processInstanceId, '" + processType.getName() + "', '" + tdi.getId() + "', errMessage)}");
+        failureTask.setImplementation("#{wrapper.failed(execution.processInstanceId, '" + processType.getName() + "', " + TDI_ID_VARIABLE + ", errMessage)}");
         failureTask.setImplementationType(ImplementationType.IMPLEMENTATION_TYPE_EXPRESSION);
         process.addFlowElement(failureTask);
 
@@ -233,7 +268,7 @@ public class ActivitiProcessFactory {
         ServiceTask successTask = new ServiceTask();
         successTask.setId("successTask");
         successTask.setName("Process success");
-        successTask.setImplementation("#{wrapper.success(execution.processInstanceId, '" + processType.getName() + "', '" + tdi.getId() + "')}");
+        successTask.setImplementation("#{wrapper.success(execution.processInstanceId, '" + processType.getName() + "', " + TDI_ID_VARIABLE + ")}");
         successTask.setImplementationType(ImplementationType.IMPLEMENTATION_TYPE_EXPRESSION);
         process.addFlowElement(successTask);
 
@@ -278,15 +313,22 @@ public class ActivitiProcessFactory {
         // Compute Server dependancies
         Map<String, NodeTask> nodes = new HashMap<String, NodeTask>();
         Map<String, Set<NodeTask>> cache = new HashMap<String, Set<NodeTask>>();
-        for (XaasSubscription subs : tdi.getTechnicalDeployment().listXaasSubscriptionTemplates()) {
+        for (DependantModelItem subs : sortedSubscriptions(tdi)) {
             ActivitiProcessUtils.addService(nodes, cache, subs, canParrallel, activationStep, pluginStrategy);
         }
+        if (canParrallel) {
+            ActivitiProcessUtils.limitParallelBranches(nodes, maxParallelBranches);
+            ActivitiProcessUtils.removeTransitiveDependencies(nodes);
+        }
 
         ActivitiProcessUtils.logSequence(nodes, activationStep);
 
+        // nodes are processed in a stable order so that TDIs of a same shape get the same process
+        List<NodeTask> sortedNodes = ActivitiProcessUtils.sortNodes(nodes.values());
+        Map<String, Integer> entityPositions = ActivitiProcessUtils.entityPositions(tdi.getTechnicalDeployment());
         int index = taskStartIndex;
-        for (NodeTask node : nodes.values()) {
-            generateTask(tdi, serviceName, process, node, false, index);
+        for (NodeTask node : sortedNodes) {
+            generateTask(serviceName, process, node, entityPositions.get(node.item.getName()), false, index);
             index++;
         }
 
@@ -295,8 +337,8 @@ public class ActivitiProcessFactory {
             elements.put(flowElement.getId(), flowElement);
         }
 
-        for (NodeTask node : nodes.values()) {
-            for (NodeTask nextNode : node.dependOnMe) {
+        for (NodeTask node : sortedNodes) {
+            for (NodeTask nextNode : ActivitiProcessUtils.sortNodes(node.dependOnMe)) {
                 SequenceFlow link = new SequenceFlow();
                 link.setId(node.outputId + "-to-" + nextNode.inputId);
                 link.setSourceRef(elements.get(node.outputId).getId());
@@ -323,20 +365,26 @@ public class ActivitiProcessFactory {
         // Compute Server dependancies
         HashMap<String, NodeTask> nodes = new HashMap<String, NodeTask>();
         Map<String, Set<NodeTask>> cache = new HashMap<String, Set<NodeTask>>();
-        for (XaasSubscription subs : tdi.getTechnicalDeployment().listXaasSubscriptionTemplates()) {
+        for (DependantModelItem subs : sortedSubscriptions(tdi)) {
             ActivitiProcessUtils.addService(nodes, cache, subs, canParrallel, activationStep, pluginStrategy);
         }
+        if (canParrallel) {
+            ActivitiProcessUtils.limitParallelBranches(nodes, maxParallelBranches);
+            ActivitiProcessUtils.removeTransitiveDependencies(nodes);
+        }
 
         ActivitiProcessUtils.logSequence(nodes, activationStep);
 
+        List<NodeTask> sortedNodes = ActivitiProcessUtils.sortNodes(nodes.values());
+        Map<String, Integer> entityPositions = ActivitiProcessUtils.entityPositions(tdi.getTechnicalDeployment());
         int index = taskStartIndex;
-        for (NodeTask node : nodes.values()) {
-            generateTask(tdi, serviceName, process, node, true, index);
+        for (NodeTask node : sortedNodes) {
+            generateTask(serviceName, process, node, entityPositions.get(node.item.getName()), true, index);
             index++;
         }
 
-        for (NodeTask node : nodes.values()) {
-            for (NodeTask nextNode : node.dependOn) {
+        for (NodeTask node : sortedNodes) {
+            for (NodeTask nextNode : ActivitiProcessUtils.sortNodes(node.dependOn)) {
                 SequenceFlow link = new SequenceFlow();
                 link.setId(node.outputId + "-to-" + nextNode.inputId);
                 link.setSourceRef(node.outputId);
@@ -358,16 +406,22 @@ public class ActivitiProcessFactory {
         return nodes.size();
     }
 
-    private void generateTask(final TechnicalDeploymentInstance tdi, String serviceName, Process process, NodeTask node, boolean reverse, int indexTask) {
+    private List<DependantModelItem> sortedSubscriptions(TechnicalDeploymentInstance tdi) {
+        List<DependantModelItem> subscriptions = new ArrayList<DependantModelItem>(tdi.getTechnicalDeployment().listXaasSubscriptionTemplates());
+        Collections.sort(subscriptions, ActivitiProcessUtils.ITEM_ORDER);
+        return subscriptions;
+    }
+
+    private void generateTask(String serviceName, Process process, NodeTask node, int entityPosition, boolean reverse, int indexTask) {
         logger.debug("Generating task " + serviceName + " for node " + node.item.getClass().getSimpleName() + "#" + node.item.getId() + " in=" + node.dependOn.size() + "out=" + node.dependOnMe.size());
 
         // Create the service task
         ServiceTask task = new ServiceTask();
-        task.setId(ActivitiProcessUtils.generateId(serviceName, node));
+        task.setId(ActivitiProcessUtils.generateId(serviceName, entityPosition));
         task.setName(serviceName);
         // Item task
         task.setName(serviceName + " " + node.item.getClass().getSimpleName());
-        task.setImplementation("${wrapper.execute(execution.processInstanceId, '" + serviceName + "', '" + task.getId() + "', " + tdi.getId() + ", " + node.item.getId() + ", '" + node.item.getClass().getName() + "', " + indexTask + ", " + TASK_COUNT_KEY + ")}");
+        task.setImplementation("${wrapper.execute(execution.processInstanceId, '" + serviceName + "', '" + task.getId() + "', " + TDI_ID_VARIABLE + ", " + ActivitiProcessUtils.entityVariable(entityPosition) + ", '" + node.item.getClass().getName() + "', " + indexTask + ", " + TASK_COUNT_KEY + ")}");
         task.setImplementationType(ImplementationType.IMPLEMENTATION_TYPE_EXPRESSION);
 
         process.addFlowElement(task);
@@ -459,4 +513,8 @@ public class ActivitiProcessFactory {
         this.canParrallel = canParrallel;
     }
 
+    public void setMaxParallelBranches(int maxParallelBranches) {
+        this.maxParallelBranches = maxParallelBranches;
+    }
+
 }
@@ -12,9 +12,13 @@
  */
 package com.francetelecom.clara.cloud.paas.activation.v1;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -31,6 +35,7 @@ import org.springframework.util.Assert;
 
 import com.francetelecom.clara.cloud.commons.TechnicalException;
 import com.francetelecom.clara.cloud.model.DependantModelItem;
+import com.francetelecom.clara.cloud.model.TechnicalDeployment;
 import com.francetelecom.clara.cloud.paas.activation.ActivationStepEnum;
 import com.google.common.base.Objects;
 
@@ -62,8 +67,77 @@ final class ActivitiProcessUtils {
         }
     }
 
-	static String generateId(String serviceName, NodeTask node) {
-		return serviceName+"-"+node.item.hashCode()+"-si";
+	/**
+	 * Orders model items by type, then logical model item, then name, so that items of technical deployments
+	 * created from a same release come in the same order
+	 */
+	static final Comparator<DependantModelItem> ITEM_ORDER = new Comparator<DependantModelItem>() {
+		@Override
+		public int compare(DependantModelItem o1, DependantModelItem o2) {
+			int result = o1.getClass().getName().compareTo(o2.getClass().getName());
+			if (result == 0) {
+				result = compareNullFirst(o1.getLogicalModelId(), o2.getLogicalModelId());
+			}
+			if (result == 0) {
+				result = compareNullFirst(o1.getName(), o2.getName());
+			}
+			return result;
+		}
+	};
+
+	private static int compareNullFirst(String s1, String s2) {
+		if (s1 == null) {
+			return s2 == null ? 0 : -1;
+		}
+		return s2 == null ? 1 : s1.compareTo(s2);
+	}
+
+	static String generateId(String serviceName, int entityPosition) {
+		return serviceName+"-"+entityPosition+"-si";
+	}
+
+	/**
+	 * Name of the process variable holding the id of the entity at the given position
+	 * @see #entityPositions(TechnicalDeployment)
+	 */
+	static String entityVariable(int entityPosition) {
+		return "entity" + entityPosition;
+	}
+
+	/**
+	 * List model items of a technical deployment (subscriptions and their dependencies) in {@link #ITEM_ORDER}
+	 * @param td The technical deployment
+	 * @return sorted model items
+	 */
+	static List<DependantModelItem> sortedItems(TechnicalDeployment td) {
+		Map<String, DependantModelItem> itemsByName = new HashMap<String, DependantModelItem>();
+		LinkedList<DependantModelItem> toVisit = new LinkedList<DependantModelItem>(td.listXaasSubscriptionTemplates());
+		while (!toVisit.isEmpty()) {
+			DependantModelItem item = toVisit.removeFirst();
+			if (item != null && !itemsByName.containsKey(item.getName())) {
+				itemsByName.put(item.getName(), item);
+				toVisit.addAll(item.listDepedencies());
+			}
+		}
+		List<DependantModelItem> items = new ArrayList<DependantModelItem>(itemsByName.values());
+		Collections.sort(items, ITEM_ORDER);
+		return items;
+	}
+
+	/**
+	 * Gives each model item of a technical deployment its position in {@link #sortedItems(TechnicalDeployment)}.
+	 * Generated processes refer to entities by position only, actual entity ids being given as process
+	 * variables, so that technical deployments of a same shape share the same process definition.
+	 * @param td The technical deployment
+	 * @return position of items, by item name
+	 */
+	static Map<String, Integer> entityPositions(TechnicalDeployment td) {
+		Map<String, Integer> positions = new HashMap<String, Integer>();
+		int position = 0;
+		for (DependantModelItem item : sortedItems(td)) {
+			positions.put(item.getName(), position++);
+		}
+		return positions;
 	}
 
 	/**
@@ -196,24 +270,149 @@ final class ActivitiProcessUtils {
         if (!logger.isDebugEnabled()) {
             return;
         }
-		NodeTask first = findFirst(nodes);
-		logger.debug("nodes sequence for step {} : {}", step, displayDependOnMe(first));
+		logger.debug("nodes sequence for step {} : {}", step, displayLevels(sortByLevel(nodes)));
 	}
 
-	private static String displayDependOnMe(NodeTask node) {
-        if (node == null) {
-            return "";
-        }
-        String ret;
-        if (node.item != null) {
-		   ret = " -> " + node.item.getClass().getSimpleName() + "#" + node.item.getId();
-        } else {
-           ret = " -> (no item) ";
-        }
-		if (node.dependOnMe != null && node.dependOnMe.iterator().hasNext()) {
-			ret += displayDependOnMe(node.dependOnMe.iterator().next());
+	private static String displayLevels(List<List<NodeTask>> levels) {
+		StringBuilder ret = new StringBuilder();
+		for (List<NodeTask> level : levels) {
+			ret.append(" -> [");
+			for (int i = 0; i < level.size(); i++) {
+				NodeTask node = level.get(i);
+				if (i > 0) {
+					ret.append(", ");
+				}
+				if (node.item != null) {
+					ret.append(node.item.getClass().getSimpleName()).append("#").append(node.item.getId());
+				} else {
+					ret.append("(no item)");
+				}
+			}
+			ret.append("]");
+		}
+		return ret.toString();
+	}
+
+	/**
+	 * Group nodes by dependency level: a node level is the length of the longest
+	 * dependOn path leading to it, so nodes of a same level never depend on each other.
+	 * @param nodes List of nodes (no cycle expected)
+	 * @return nodes grouped by level, each level being sorted in {@link #ITEM_ORDER} so that result is stable
+	 */
+	static List<List<NodeTask>> sortByLevel(Map<String, NodeTask> nodes) {
+		Map<NodeTask, Integer> pendingDependencies = new HashMap<NodeTask, Integer>();
+		Map<NodeTask, Integer> levelByNode = new HashMap<NodeTask, Integer>();
+		LinkedList<NodeTask> ready = new LinkedList<NodeTask>();
+		for (NodeTask node : nodes.values()) {
+			pendingDependencies.put(node, node.dependOn.size());
+			levelByNode.put(node, 0);
+			if (node.dependOn.isEmpty()) {
+				ready.add(node);
+			}
+		}
+		List<List<NodeTask>> levels = new ArrayList<List<NodeTask>>();
+		while (!ready.isEmpty()) {
+			NodeTask node = ready.removeFirst();
+			int level = levelByNode.get(node);
+			while (levels.size() <= level) {
+				levels.add(new ArrayList<NodeTask>());
+			}
+			levels.get(level).add(node);
+			for (NodeTask next : node.dependOnMe) {
+				levelByNode.put(next, Math.max(levelByNode.get(next), level + 1));
+				int pending = pendingDependencies.get(next) - 1;
+				pendingDependencies.put(next, pending);
+				if (pending == 0) {
+					ready.add(next);
+				}
+			}
+		}
+		for (List<NodeTask> level : levels) {
+			Collections.sort(level, BY_ITEM);
+		}
+		return levels;
+	}
+
+	static final Comparator<NodeTask> BY_ITEM = new Comparator<NodeTask>() {
+		@Override
+		public int compare(NodeTask o1, NodeTask o2) {
+			return ITEM_ORDER.compare(o1.item, o2.item);
+		}
+	};
+
+	/**
+	 * @param nodes nodes to sort
+	 * @return a copy of nodes, sorted in {@link #ITEM_ORDER}
+	 */
+	static List<NodeTask> sortNodes(Collection<NodeTask> nodes) {
+		List<NodeTask> sorted = new ArrayList<NodeTask>(nodes);
+		Collections.sort(sorted, BY_ITEM);
+		return sorted;
+	}
+
+	/**
+	 * Limit the number of branches that may run concurrently in a parallel tree: nodes are sorted by
+	 * dependency level, then each node beyond the first <code>maxBranches</code> ones is chained after
+	 * the node <code>maxBranches</code> positions before it. Nodes are thus spread over
+	 * <code>maxBranches</code> sequential lanes, so that at most <code>maxBranches</code> tasks of the
+	 * whole process run at the same time. As a node is only chained after a node of the same or of a
+	 * lower level, this can not introduce any cycle.
+	 * @param nodes List of nodes
+	 * @param maxBranches Max concurrent branches in the process (0 or less means no limit)
+	 */
+	static void limitParallelBranches(Map<String, NodeTask> nodes, int maxBranches) {
+		if (maxBranches <= 0) {
+			return;
+		}
+		List<NodeTask> sorted = new ArrayList<NodeTask>();
+		for (List<NodeTask> level : sortByLevel(nodes)) {
+			sorted.addAll(level);
+		}
+		for (int i = maxBranches; i < sorted.size(); i++) {
+			NodeTask node = sorted.get(i);
+			NodeTask previous = sorted.get(i - maxBranches);
+			logger.debug("Limiting parallelism: chaining " + node.item.getClass().getSimpleName() + "#" + node.item.getId() + " after "
+					+ previous.item.getClass().getSimpleName() + "#" + previous.item.getId());
+			previous.dependOnMe.add(node);
+			node.dependOn.add(previous);
+		}
+	}
+
+	/**
+	 * Remove dependencies that are already implied by another dependency (i.e. A -> B -> C and A -> C
+	 * become A -> B -> C), so that each task only waits for its closest predecessors.
+	 * @param nodes List of nodes (no cycle expected)
+	 */
+	static void removeTransitiveDependencies(Map<String, NodeTask> nodes) {
+		Map<NodeTask, Set<NodeTask>> ancestorsCache = new HashMap<NodeTask, Set<NodeTask>>();
+		for (NodeTask node : nodes.values()) {
+			Set<NodeTask> redundant = new HashSet<NodeTask>();
+			for (NodeTask dependNode : node.dependOn) {
+				for (NodeTask other : node.dependOn) {
+					if (other != dependNode && findAncestors(other, ancestorsCache).contains(dependNode)) {
+						redundant.add(dependNode);
+						break;
+					}
+				}
+			}
+			for (NodeTask dependNode : redundant) {
+				node.dependOn.remove(dependNode);
+				dependNode.dependOnMe.remove(node);
+			}
+		}
+	}
+
+	private static Set<NodeTask> findAncestors(NodeTask node, Map<NodeTask, Set<NodeTask>> ancestorsCache) {
+		Set<NodeTask> ancestors = ancestorsCache.get(node);
+		if (ancestors == null) {
+			ancestors = new HashSet<NodeTask>();
+			for (NodeTask dependNode : node.dependOn) {
+				ancestors.add(dependNode);
+				ancestors.addAll(findAncestors(dependNode, ancestorsCache));
+			}
+			ancestorsCache.put(node, ancestors);
 		}
-		return ret;
+		return ancestors;
 	}
 
 	static String generateGatewayId(Collection<NodeTask> nodes) {
@@ -265,19 +464,19 @@ final class ActivitiProcessUtils {
 					it.set(tParallelGateway);
 					for (SequenceFlow in : gw.getIncomingFlows()) {
 						SequenceFlow flow = new SequenceFlow();
-						flow.setId("gw-"+in.toString()+"-"+gw.getId());
-						flow.setSourceRef(in.getId());
+						flow.setId("gw-"+in.getSourceRef()+"-"+gw.getId());
+						flow.setSourceRef(in.getSourceRef());
 						flow.setTargetRef(tParallelGateway.getId());
-						if (in.toString().endsWith(ActivitiProcessFactory.NODE_SUFFIX_CONDITIONNAL)) {
+						if (in.getSourceRef().endsWith(ActivitiProcessFactory.NODE_SUFFIX_CONDITIONNAL)) {
 							flow.setConditionExpression("${errCode == 0}");
 						}
 						it.add(flow);
 					}
 					for (SequenceFlow out : gw.getOutgoingFlows()) {
 						SequenceFlow flow = new SequenceFlow();
-						flow.setId("gw-"+gw.getId()+"-"+out.toString());
+						flow.setId("gw-"+gw.getId()+"-"+out.getTargetRef());
 						flow.setSourceRef(tParallelGateway.getId());
-						flow.setTargetRef(out.getId());
+						flow.setTargetRef(out.getTargetRef());
 						it.add(flow);
 					}
 				}
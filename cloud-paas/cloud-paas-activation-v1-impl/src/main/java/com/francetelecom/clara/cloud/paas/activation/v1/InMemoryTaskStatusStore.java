@@ -0,0 +1,188 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.paas.activation.v1;
+
+import com.francetelecom.clara.cloud.paas.activation.TaskStatusActivation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Task status store local to the node, bounded in size and time.
+ * <p>
+ * Finished tasks are evicted {@link #setFinishedTaskTtlMs(long)} after their
+ * end, other tasks when not read nor updated for {@link #setTtlMs(long)}. When
+ * more than {@link #setMaxSize(int)} statuses are stored, finished tasks then
+ * least recently used ones are evicted first.
+ */
+public class InMemoryTaskStatusStore implements TaskStatusStore {
+
+	private static Logger logger = LoggerFactory.getLogger(InMemoryTaskStatusStore.class.getName());
+
+	private static class Entry {
+		final TaskStatusActivation status;
+		volatile long lastAccessTime = System.currentTimeMillis();
+
+		Entry(TaskStatusActivation status) {
+			this.status = status;
+		}
+	}
+
+	/**
+	 * Eviction candidate: sort keys are read once, as statuses may complete and
+	 * entries be accessed while candidates are sorted
+	 */
+	private static class EvictionCandidate {
+		final Long taskId;
+		final Entry entry;
+		final boolean complete;
+		final long lastAccessTime;
+
+		EvictionCandidate(Long taskId, Entry entry) {
+			this.taskId = taskId;
+			this.entry = entry;
+			this.complete = entry.status.isComplete();
+			this.lastAccessTime = entry.lastAccessTime;
+		}
+	}
+
+	private static final Comparator<EvictionCandidate> FINISHED_THEN_LEAST_RECENTLY_USED_FIRST = new Comparator<EvictionCandidate>() {
+		@Override
+		public int compare(EvictionCandidate c1, EvictionCandidate c2) {
+			if (c1.complete != c2.complete) {
+				return c1.complete ? -1 : 1;
+			}
+			return Long.compare(c1.lastAccessTime, c2.lastAccessTime);
+		}
+	};
+
+	private final ConcurrentMap<Long, Entry> statuses = new ConcurrentHashMap<Long, Entry>();
+
+	private int maxSize = 10000;
+
+	private long ttlMs = 24 * 60 * 60 * 1000L;
+
+	private long finishedTaskTtlMs = 60 * 60 * 1000L;
+
+	/**
+	 * Expired statuses are looked for at most once per period
+	 */
+	private long evictionPeriodMs = 60 * 1000L;
+
+	private final AtomicLong lastEvictionTime = new AtomicLong(System.currentTimeMillis());
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	@Override
+	public void save(TaskStatusActivation status) {
+		Entry previous = statuses.put(status.getTaskId(), new Entry(status));
+		if (previous == null) {
+			evictIfNeeded();
+		}
+	}
+
+	@Override
+	public TaskStatusActivation get(long taskId) {
+		Entry entry = statuses.get(taskId);
+		if (entry == null) {
+			return null;
+		}
+		entry.lastAccessTime = System.currentTimeMillis();
+		return entry.status;
+	}
+
+	@Override
+	public void remove(long taskId) {
+		statuses.remove(taskId);
+	}
+
+	public int size() {
+		return statuses.size();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	private void evictIfNeeded() {
+		long now = System.currentTimeMillis();
+		long last = lastEvictionTime.get();
+		if (now - last >= evictionPeriodMs && lastEvictionTime.compareAndSet(last, now)) {
+			evictExpired(now);
+		}
+		if (statuses.size() > maxSize) {
+			evictOverflow();
+		}
+	}
+
+	/**
+	 * Evicts statuses that expired
+	 */
+	void evictExpired(long now) {
+		for (Map.Entry<Long, Entry> mapEntry : statuses.entrySet()) {
+			Entry entry = mapEntry.getValue();
+			TaskStatusActivation status = entry.status;
+			boolean finishedExpired = status.isComplete() && status.getEndTime() > 0 && now - status.getEndTime() >= finishedTaskTtlMs;
+			if (finishedExpired || now - entry.lastAccessTime >= ttlMs) {
+				if (statuses.remove(mapEntry.getKey(), entry)) {
+					evictionCount.incrementAndGet();
+					logger.debug("Evicting status of task #{} ({})", mapEntry.getKey(), status.getTaskStatus());
+				}
+			}
+		}
+	}
+
+	private synchronized void evictOverflow() {
+		int overflow = statuses.size() - maxSize;
+		if (overflow <= 0) {
+			return;
+		}
+		List<EvictionCandidate> candidates = new ArrayList<EvictionCandidate>(statuses.size());
+		for (Map.Entry<Long, Entry> mapEntry : statuses.entrySet()) {
+			candidates.add(new EvictionCandidate(mapEntry.getKey(), mapEntry.getValue()));
+		}
+		Collections.sort(candidates, FINISHED_THEN_LEAST_RECENTLY_USED_FIRST);
+		for (int i = 0; i < overflow && i < candidates.size(); i++) {
+			EvictionCandidate candidate = candidates.get(i);
+			if (statuses.remove(candidate.taskId, candidate.entry)) {
+				evictionCount.incrementAndGet();
+			}
+		}
+		logger.warn("More than " + maxSize + " task statuses stored, evicted " + overflow + " of them");
+	}
+
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public void setTtlMs(long ttlMs) {
+		this.ttlMs = ttlMs;
+	}
+
+	public void setFinishedTaskTtlMs(long finishedTaskTtlMs) {
+		this.finishedTaskTtlMs = finishedTaskTtlMs;
+	}
+
+	public void setEvictionPeriodMs(long evictionPeriodMs) {
+		this.evictionPeriodMs = evictionPeriodMs;
+	}
+
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.paas.activation.v1;
+
+import com.francetelecom.clara.cloud.paas.activation.TaskStatusActivation;
+import org.apache.commons.lang3.SerializationUtils;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Task status store shared by all nodes through the database, so that the
+ * status of an activation can be read from any node.
+ * <p>
+ * Statuses are stored serialized in a table created by the paas-db liquibase
+ * changelog:
+ * 
+ * <pre>
+ * create table activation_task_status (
+ *     task_id bigint primary key,
+ *     last_update bigint not null,
+ *     status varbinary(65536) not null -- bytea on PostgreSQL
+ * );
+ * </pre>
+ * 
+ * Statuses not updated for {@link #setTtlMs(long)} are deleted.
+ */
+public class JdbcTaskStatusStore implements TaskStatusStore {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private String tableName = "activation_task_status";
+
+	private long ttlMs = 24 * 60 * 60 * 1000L;
+
+	public JdbcTaskStatusStore(DataSource dataSource) {
+		this(new JdbcTemplate(dataSource));
+	}
+
+	JdbcTaskStatusStore(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public void save(TaskStatusActivation status) {
+		long now = System.currentTimeMillis();
+		byte[] serialized = SerializationUtils.serialize(status);
+		if (update(status.getTaskId(), now, serialized) > 0) {
+			return;
+		}
+		jdbcTemplate.update("delete from " + tableName + " where last_update < ?", now - ttlMs);
+		try {
+			jdbcTemplate.update("insert into " + tableName + " (task_id, last_update, status) values (?, ?, ?)", status.getTaskId(), now,
+					serialized);
+		} catch (DuplicateKeyException e) {
+			// inserted by another node meanwhile
+			update(status.getTaskId(), now, serialized);
+		}
+	}
+
+	private int update(long taskId, long now, byte[] serialized) {
+		return jdbcTemplate.update("update " + tableName + " set last_update = ?, status = ? where task_id = ?", now, serialized, taskId);
+	}
+
+	@Override
+	public TaskStatusActivation get(long taskId) {
+		List<byte[]> statuses = jdbcTemplate.queryForList("select status from " + tableName + " where task_id = ?", byte[].class, taskId);
+		if (statuses.isEmpty()) {
+			return null;
+		}
+		return (TaskStatusActivation) SerializationUtils.deserialize(statuses.get(0));
+	}
+
+	@Override
+	public void remove(long taskId) {
+		jdbcTemplate.update("delete from " + tableName + " where task_id = ?", taskId);
+	}
+
+	public void setTableName(String tableName) {
+		this.tableName = tableName;
+	}
+
+	public void setTtlMs(long ttlMs) {
+		this.ttlMs = ttlMs;
+	}
+
+}
@@ -33,16 +33,18 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.jms.connection.SynchedLocalTransactionFailedException;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class ManagePaasActivationActivitiImpl implements ManagePaasActivation {
 
 	private static Logger logger = LoggerFactory.getLogger(ManagePaasActivationActivitiImpl.class.getName());
 
-	private Map<Long, TaskStatusActivation> taskStatusMap = new HashMap<Long, TaskStatusActivation>();
+	private TaskStatusStore taskStatusStore = new InMemoryTaskStatusStore();
 
 	@Autowired
 	private TaskExecutor taskExecutor;
@@ -56,16 +58,17 @@ public class ManagePaasActivationActivitiImpl implements ManagePaasActivation {
 	@Autowired
 	protected ProcessEngine processEngine;
 
+	/**
+	 * Activations queued by the {@link ActivationTaskExecutor} and not started yet, per task id
+	 */
+	private final ConcurrentMap<Long, ActivitiRunnableThread> waitingJobs = new ConcurrentHashMap<>();
+
 	@Override
 	public TaskStatusActivation activate(final int tdiId) {
 
 		logger.info("Starting TechnicalDeploymentInstance#" + tdiId + " activation");
 
-		final TaskStatusActivitiProcess status;
-		synchronized (taskStatusMap) {
-			status = new TaskStatusActivitiProcess(System.currentTimeMillis());
-			taskStatusMap.put(status.getTaskId(), status);
-		}
+		final TaskStatusActivitiProcess status = new TaskStatusActivitiProcess(System.currentTimeMillis());
 		status.setTechnicalDeploymentInstanceId(tdiId);
 		status.setTitle("Starting activate appliance TDI : TechnicalDeploymentInstance#" + tdiId);
 		status.setStartTime(System.currentTimeMillis());
@@ -73,9 +76,8 @@ public class ManagePaasActivationActivitiImpl implements ManagePaasActivation {
 		status.setFinalState(DeploymentStateEnum.STARTED);
 		status.setPercent(0);
 
-        final Map<String, String> mdcContext = MDC.getCopyOfContextMap();
-
-        this.taskExecutor.execute(new ActivitiRunnableThread(ActivationStepEnum.ACTIVATE, tdiId, mdcContext, status));
+        taskStatusStore.save(status);
+        submit(ActivationStepEnum.ACTIVATE, tdiId, status);
 		
 		return giveCurrentTaskStatus(status);
 	}
@@ -83,11 +85,7 @@ public class ManagePaasActivationActivitiImpl implements ManagePaasActivation {
 	@Override
 	public TaskStatusActivation start(final int tdiId) {
 
-		final TaskStatusActivitiProcess status;
-		synchronized (taskStatusMap) {
-			status = new TaskStatusActivitiProcess(System.currentTimeMillis());
-			taskStatusMap.put(status.getTaskId(), status);
-		}
+		final TaskStatusActivitiProcess status = new TaskStatusActivitiProcess(System.currentTimeMillis());
 		status.setTechnicalDeploymentInstanceId(tdiId);
 		status.setTitle("Starting TechnicalDeploymentInstance#" + tdiId);
 		status.setStartTime(System.currentTimeMillis());
@@ -95,9 +93,8 @@ public class ManagePaasActivationActivitiImpl implements ManagePaasActivation {
 		status.setFinalState(DeploymentStateEnum.STARTED);
 		status.setPercent(0);
 
-        final Map<String, String> mdcContext = MDC.getCopyOfContextMap();
-
-        this.taskExecutor.execute(new ActivitiRunnableThread(ActivationStepEnum.START, tdiId, mdcContext, status));
+        taskStatusStore.save(status);
+        submit(ActivationStepEnum.START, tdiId, status);
 
 		return giveCurrentTaskStatus(status);
 	}
@@ -105,11 +102,7 @@ public class ManagePaasActivationActivitiImpl implements ManagePaasActivation {
 	@Override
 	public TaskStatusActivation stop(final int tdiId) {
 
-		final TaskStatusActivitiProcess status;
-		synchronized (taskStatusMap) {
-			status = new TaskStatusActivitiProcess(System.currentTimeMillis());
-			taskStatusMap.put(status.getTaskId(), status);
-		}
+		final TaskStatusActivitiProcess status = new TaskStatusActivitiProcess(System.currentTimeMillis());
 		status.setTechnicalDeploymentInstanceId(tdiId);
 		status.setTitle("Stopping TechnicalDeploymentInstance#" + tdiId);
 		status.setStartTime(System.currentTimeMillis());
@@ -117,9 +110,8 @@ public class ManagePaasActivationActivitiImpl implements ManagePaasActivation {
 		status.setFinalState(DeploymentStateEnum.STOPPED);
 		status.setPercent(0);
 
-        final Map<String, String> mdcContext = MDC.getCopyOfContextMap();
-
-        this.taskExecutor.execute(new ActivitiRunnableThread(ActivationStepEnum.STOP, tdiId, mdcContext, status));
+        taskStatusStore.save(status);
+        submit(ActivationStepEnum.STOP, tdiId, status);
 
 		return giveCurrentTaskStatus(status);
 	}
@@ -127,11 +119,7 @@ public class ManagePaasActivationActivitiImpl implements ManagePaasActivation {
 	@Override
 	public TaskStatusActivation delete(final int tdiId) {
 
-		final TaskStatusActivitiProcess status;
-		synchronized (taskStatusMap) {
-			status = new TaskStatusActivitiProcess(System.currentTimeMillis());
-			taskStatusMap.put(status.getTaskId(), status);
-		}
+		final TaskStatusActivitiProcess status = new TaskStatusActivitiProcess(System.currentTimeMillis());
 		status.setTechnicalDeploymentInstanceId(tdiId);
 		status.setTitle("Deleting TechnicalDeploymentInstance#" + tdiId);
 		status.setStartTime(System.currentTimeMillis());
@@ -139,20 +127,53 @@ public class ManagePaasActivationActivitiImpl implements ManagePaasActivation {
 		status.setFinalState(DeploymentStateEnum.REMOVED);
 		status.setPercent(0);
 
-        final Map<String, String> mdcContext = MDC.getCopyOfContextMap();
-
-        this.taskExecutor.execute(new ActivitiRunnableThread(ActivationStepEnum.DELETE, tdiId, mdcContext, status));
+        taskStatusStore.save(status);
+        submit(ActivationStepEnum.DELETE, tdiId, status);
 
 		return giveCurrentTaskStatus(status);
 	}
 
+	/**
+	 * Queue the activation process
+	 *
+	 * @throws TechnicalException if too many activations are already pending
+	 */
+	private void submit(ActivationStepEnum step, int tdiId, TaskStatusActivitiProcess status) {
+		final Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+		ActivitiRunnableThread job = new ActivitiRunnableThread(step, tdiId, mdcContext, status);
+		try {
+			this.taskExecutor.execute(job);
+		} catch (TaskRejectedException e) {
+			taskStatusStore.remove(status.getTaskId());
+			throw new TechnicalException("Unable to " + step.getName() + " TechnicalDeploymentInstance#" + tdiId + ": " + e.getMessage(), e);
+		}
+		if (taskExecutor instanceof ActivationTaskExecutor) {
+			waitingJobs.put(status.getTaskId(), job);
+		}
+	}
+
+	@Override
+	public int getQueuePosition(TaskStatusActivation taskStatus) {
+		ActivitiRunnableThread job = waitingJobs.get(taskStatus.getTaskId());
+		if (job == null) {
+			return 0;
+		}
+		int position = ((ActivationTaskExecutor) taskExecutor).getQueuePosition(job);
+		if (position < 0) {
+			// not waiting anymore (running, or discarded on shutdown)
+			waitingJobs.remove(taskStatus.getTaskId(), job);
+			return 0;
+		}
+		return position;
+	}
+
 	@Override
 	public TaskStatusActivation giveCurrentTaskStatus(TaskStatusActivation taskStatus) {
 
 		TaskStatusActivation newStatus = null;
 
 		if (taskStatus.getClass().equals(TaskStatusActivation.class)) {
-			TaskStatusActivation currentStatus = taskStatusMap.get(taskStatus.getTaskId());
+			TaskStatusActivation currentStatus = getStoredStatus(taskStatus);
 			newStatus = new TaskStatusActivation(taskStatus.getTaskId());
 			newStatus.setTechnicalDeploymentInstanceId(currentStatus.getTechnicalDeploymentInstanceId());
 			newStatus.setStartTime(currentStatus.getStartTime());
@@ -177,7 +198,7 @@ public class ManagePaasActivationActivitiImpl implements ManagePaasActivation {
 		} else if (taskStatus.getClass().equals(TaskStatusActivitiProcess.class)) {
 
 			// Copy it
-			TaskStatusActivation currentStatus = taskStatusMap.get(taskStatus.getTaskId());
+			TaskStatusActivation currentStatus = getStoredStatus(taskStatus);
 			newStatus = new TaskStatusActivitiProcess((TaskStatusActivitiProcess) currentStatus);
 			// If ProcessInstanceId is null, the process activity hasn't started yet
 			// Return the copy of task
@@ -232,6 +253,8 @@ public class ManagePaasActivationActivitiImpl implements ManagePaasActivation {
 							logger.debug("End of HistoricDetailQuery:");
 						}
 						logger.debug("End of process for TechnicalDeploymentInstance#" + newStatus.getTechnicalDeploymentInstanceId() + " => " + newStatus.getTaskStatus().name());
+						// final status is kept so that the store can evict it
+						taskStatusStore.save(newStatus);
 					} catch (NotFoundException e) {
 						newStatus.setErrorMessage("Cannot find TDI id=" + newStatus.getTechnicalDeploymentInstanceId());
 						newStatus.setTaskStatus(TaskStatusEnum.FINISHED_FAILED);
@@ -258,10 +281,34 @@ public class ManagePaasActivationActivitiImpl implements ManagePaasActivation {
 			}
 
 		}
+		if (newStatus != null) {
+			newStatus.setQueuePosition(getQueuePosition(taskStatus));
+		}
 		return newStatus;
 	}
 
-	private class ActivitiRunnableThread implements Runnable {
+	/**
+	 * @return last known state of the given status, or the given status itself if it is not stored anymore
+	 */
+	private TaskStatusActivation getStoredStatus(TaskStatusActivation taskStatus) {
+		TaskStatusActivation currentStatus = taskStatusStore.get(taskStatus.getTaskId());
+		if (currentStatus == null) {
+			logger.debug("Status of task #" + taskStatus.getTaskId() + " is not stored anymore, using the one given");
+			return taskStatus;
+		}
+		return currentStatus;
+	}
+
+	public void setTaskStatusStore(TaskStatusStore taskStatusStore) {
+		this.taskStatusStore = taskStatusStore;
+	}
+
+	/**
+	 * Key in logback context for the user requesting the activation, used as tenant by the activation executor
+	 */
+	private static final String LOG_KEY_USER = "user_ssoid";
+
+	private class ActivitiRunnableThread implements ActivationTaskExecutor.ActivationJob {
         private final ActivationStepEnum step;
         private int tdiId;
         private Map<String, String> mdcContext;
@@ -274,8 +321,19 @@ public class ManagePaasActivationActivitiImpl implements ManagePaasActivation {
             this.status = status;
         }
 
+        @Override
+        public ActivationStepEnum getActivationStep() {
+            return step;
+        }
+
+        @Override
+        public String getTenant() {
+            return mdcContext != null ? mdcContext.get(LOG_KEY_USER) : null;
+        }
+
         @Override
         public void run() {
+            waitingJobs.remove(status.getTaskId(), this);
             String action = "process "+step.name()+" on TDI#"+tdiId;
             String curAction = action;
             try {
@@ -289,8 +347,9 @@ public class ManagePaasActivationActivitiImpl implements ManagePaasActivation {
 				String processId = managePaasActivationActivitiUtilsImpl.createProcess(tdi, step);
 				try {
 					curAction = action + " runProcess";
-                    ProcessInstance processInstance = managePaasActivationActivitiUtilsImpl.runProcess(tdiId, step, processId);
+                    ProcessInstance processInstance = managePaasActivationActivitiUtilsImpl.runProcess(tdi, step, processId);
                     status.setProcessInstanceId(processInstance.getId());
+                    taskStatusStore.save(status);
                 } catch (SynchedLocalTransactionFailedException synchedLocalTransactionFailedException) {
                     // we do not update environment in this case because activiti workflow continue
                     // cf. anomalie #103144  &&  [ anomalie #103832 ] ElPaaso transactionnal aspect : local or global
@@ -309,6 +368,10 @@ public class ManagePaasActivationActivitiImpl implements ManagePaasActivation {
             } catch (Throwable exc) {
                 managePaasActivationActivitiUtilsImpl.handleError(curAction, exc, status, tdiId);
             } finally {
+                if (status.isComplete()) {
+                    // failed before or while starting the process
+                    taskStatusStore.save(status);
+                }
                 // Clear all context informations so the thread can be re-used
                 MDC.clear();
             }
@@ -24,7 +24,6 @@ import com.francetelecom.clara.cloud.model.TechnicalDeploymentInstanceRepository
 import com.francetelecom.clara.cloud.model.XaasSubscription;
 import com.francetelecom.clara.cloud.paas.activation.ActivationStepEnum;
 import com.francetelecom.clara.cloud.paas.activation.ManagePaasActivation;
-import org.activiti.bpmn.model.BpmnModel;
 import org.activiti.bpmn.model.Process;
 import org.activiti.engine.ProcessEngine;
 import org.activiti.engine.runtime.ProcessInstance;
@@ -35,6 +34,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.xml.bind.JAXBException;
 import java.io.IOException;
+import java.util.Map;
 
 /**
  * Implementation of {@link ManagePaasActivation} for vCloud API
@@ -58,28 +58,30 @@ public class ManagePaasActivationActivitiUtilsImpl {
     @Autowired
 	protected ProcessEngine processEngine;
 
+	/** Deployed process definitions, shared by TDIs of a same shape */
+    @Autowired
+	ActivitiProcessDefinitionCache activitiProcessDefinitionCache;
+
     public void setEnvironmentRepository(EnvironmentRepository environmentdao) {
 		this.environmentRepository = environmentdao;
 	}
 
+    /**
+     * @return key of the process definition to run for the TDI, deployed only if no TDI of the same shape was processed before
+     */
     public String createProcess(TechnicalDeploymentInstance tdi, ActivationStepEnum processType) {
-        String processName = "activate-" + tdi.getName() + "-" + processType.getName() + "-" + System.currentTimeMillis();
         Process process;
         try {
             process = activitiProcessFactory.generateProcessFromTDI(processType, tdi);
         } catch (JAXBException | IOException e) {
             throw new TechnicalException("unable to generate process from TDI", e);
         }
- 		
-    	BpmnModel model = new BpmnModel();
-    	model.addProcess(process);
-        processEngine.getRepositoryService().createDeployment().addBpmnModel(processName +".bpmn", model).name("Activate " + tdi.getName()).deploy();
-        return process.getId();
+        return activitiProcessDefinitionCache.getProcessDefinitionKey(process);
     }
 
     @Transactional
     public TechnicalDeploymentInstance getTDI(int tdiId) throws NotFoundException {
-        TechnicalDeploymentInstance tdi = technicalDeploymentInstanceRepository.findOne(tdiId);
+        TechnicalDeploymentInstance tdi = technicalDeploymentInstanceRepository.findOneWithSubscriptions(tdiId);
         if (tdi ==null) throw new NotFoundException("tdi <"+tdiId+"> not found");
         // parse mandatory lazy attributes
         for (XaasSubscription subs : tdi.getTechnicalDeployment().listXaasSubscriptionTemplates()) {
@@ -103,9 +105,11 @@ public class ManagePaasActivationActivitiUtilsImpl {
         environment.updateStatus(EnvironmentStatus.FAILED, endUserErrorMessage, -1);
     }
 
-    public ProcessInstance runProcess(int tdiId, ActivationStepEnum processType, String processId) {
+    public ProcessInstance runProcess(TechnicalDeploymentInstance tdi, ActivationStepEnum processType, String processId) {
+        int tdiId = tdi.getId();
         logger.debug("Starting process "+processType.getName()+" for TechnicalDeploymentInstance#" + tdiId);
-        ProcessInstance processInstance = processEngine.getRuntimeService().startProcessInstanceByKey(processId);
+        Map<String, Object> variables = activitiProcessFactory.generateProcessVariables(tdi);
+        ProcessInstance processInstance = processEngine.getRuntimeService().startProcessInstanceByKey(processId, variables);
         logger.info("Process "+processType.getName()+" for TechnicalDeploymentInstance#" + tdiId + " is started with id=" + processInstance.getId());
         return processInstance;
     }
@@ -0,0 +1,35 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.paas.activation.v1;
+
+import com.francetelecom.clara.cloud.paas.activation.TaskStatusActivation;
+
+/**
+ * Keeps track of activation task statuses between their submission and the
+ * time their final status has been read.
+ */
+public interface TaskStatusStore {
+
+	/**
+	 * Stores a new status, or the last state of a stored one
+	 */
+	void save(TaskStatusActivation status);
+
+	/**
+	 * @return the status with the given id, or null if unknown or evicted
+	 */
+	TaskStatusActivation get(long taskId);
+
+	void remove(long taskId);
+
+}
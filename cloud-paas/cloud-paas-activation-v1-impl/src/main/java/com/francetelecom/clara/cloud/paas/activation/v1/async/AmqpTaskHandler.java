@@ -25,6 +25,8 @@ import org.springframework.amqp.core.MessagePropertiesBuilder;
 
 import com.francetelecom.clara.cloud.commons.tasks.TaskStatus;
 import com.francetelecom.clara.cloud.paas.activation.v1.async.exception.MaxRetryCountExceededException;
+import com.francetelecom.clara.cloud.paas.activation.v1.async.policy.BackOffPolicy;
+import com.francetelecom.clara.cloud.paas.activation.v1.async.policy.FixedBackOffPolicy;
 import com.francetelecom.clara.cloud.paas.activation.v1.async.policy.RetryPolicy;
 import com.francetelecom.clara.cloud.paas.activation.v1.async.policy.SimpleRetryPolicy;
 
@@ -45,6 +47,13 @@ public class AmqpTaskHandler<R, C extends TaskHandlerCallback<R>> implements Tas
 	 */
 	private AmqpTemplate amqpErrorTemplate;
 
+	/**
+	 * helper that simplifies synchronous AMQP access code to 'delay' queue,
+	 * whose expired messages are dead lettered to 'request' queue. When not
+	 * set, polls are sent to 'request' queue without delay.
+	 */
+	private AmqpTemplate amqpDelayTemplate;
+
 	/**
 	 * injected callback implementation
 	 */
@@ -55,6 +64,11 @@ public class AmqpTaskHandler<R, C extends TaskHandlerCallback<R>> implements Tas
 	 */
 	private RetryPolicy retryPolicy = new SimpleRetryPolicy();
 
+	/**
+	 * back off policy between two polls
+	 */
+	private BackOffPolicy backOffPolicy = new FixedBackOffPolicy();
+
 	private static final Logger log = LoggerFactory.getLogger(AmqpTaskHandler.class);
 
 	@Override
@@ -112,17 +126,22 @@ public class AmqpTaskHandler<R, C extends TaskHandlerCallback<R>> implements Tas
 						.andProperties(props).build();
 				amqpErrorTemplate.send(message);
 			} else {
-				try {
-					Thread.sleep(2000);
-				} catch (InterruptedException e) {
-					log.warn("Thread sleeping before sending message back to Request queue has been interrupted.");
-				}
-				log.trace("task is not complete. Must keep polling. Sends task Status to request queue");
+				long delay = Math.max(0, backOffPolicy.getNextSheduleDate(retryContext) - System.currentTimeMillis());
 				MessageProperties props = MessagePropertiesBuilder.newInstance().setContentType(MessageProperties.CONTENT_TYPE_SERIALIZED_OBJECT)
 						.setMessageId(UUID.randomUUID().toString()).setCorrelationId(communicationId.getBytes()).setHeader("retryCount", retryContext.getRetryCount() + 1).build();
-				Message message = MessageBuilder.withBody(SerializationUtils.serialize(t)).andProperties(props).build();
-				amqpRequestTemplate.send(message);
-
+				if (amqpDelayTemplate != null && delay > 0) {
+					// the message expires in the delay queue, then is dead
+					// lettered to the request queue: no listener thread is
+					// parked until next poll
+					log.trace("task is not complete. Must keep polling. Sends task Status to delay queue, to be delivered in {} ms", delay);
+					props.setExpiration(String.valueOf(delay));
+					Message message = MessageBuilder.withBody(SerializationUtils.serialize(t)).andProperties(props).build();
+					amqpDelayTemplate.send(message);
+				} else {
+					log.trace("task is not complete. Must keep polling. Sends task Status to request queue");
+					Message message = MessageBuilder.withBody(SerializationUtils.serialize(t)).andProperties(props).build();
+					amqpRequestTemplate.send(message);
+				}
 			}
 		}
 	}
@@ -153,6 +172,14 @@ public class AmqpTaskHandler<R, C extends TaskHandlerCallback<R>> implements Tas
 		return retryPolicy;
 	}
 
+	public void setBackOffPolicy(BackOffPolicy backOffPolicy) {
+		this.backOffPolicy = backOffPolicy;
+	}
+
+	public BackOffPolicy getBackOffPolicy() {
+		return backOffPolicy;
+	}
+
 	public void setAmqpRequestTemplate(AmqpTemplate rabbitRequestTemplate) {
 		this.amqpRequestTemplate = rabbitRequestTemplate;
 	}
@@ -165,4 +192,8 @@ public class AmqpTaskHandler<R, C extends TaskHandlerCallback<R>> implements Tas
 		this.amqpErrorTemplate = rabbitErrorTemplate;
 	}
 
+	public void setAmqpDelayTemplate(AmqpTemplate rabbitDelayTemplate) {
+		this.amqpDelayTemplate = rabbitDelayTemplate;
+	}
+
 }
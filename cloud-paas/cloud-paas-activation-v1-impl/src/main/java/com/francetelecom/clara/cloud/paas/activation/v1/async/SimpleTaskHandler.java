@@ -17,6 +17,8 @@ import com.francetelecom.clara.cloud.paas.activation.v1.async.exception.MaxRetry
 import com.francetelecom.clara.cloud.paas.activation.v1.async.message.ErrorMessageBuilder;
 import com.francetelecom.clara.cloud.paas.activation.v1.async.message.ReplyMessageBuilder;
 import com.francetelecom.clara.cloud.paas.activation.v1.async.message.RetryableMessageBuilder;
+import com.francetelecom.clara.cloud.paas.activation.v1.async.policy.BackOffPolicy;
+import com.francetelecom.clara.cloud.paas.activation.v1.async.policy.FixedBackOffPolicy;
 import com.francetelecom.clara.cloud.paas.activation.v1.async.policy.RetryPolicy;
 import com.francetelecom.clara.cloud.paas.activation.v1.async.policy.SimpleRetryPolicy;
 import org.slf4j.Logger;
@@ -55,6 +57,11 @@ public class SimpleTaskHandler<R, C extends TaskHandlerCallback<R>> implements T
 	 */
 	private RetryPolicy retryPolicy = new SimpleRetryPolicy();
 
+	/**
+	 * back off policy between two polls
+	 */
+	private BackOffPolicy backOffPolicy = new FixedBackOffPolicy();
+
 	private static final Logger log = LoggerFactory.getLogger(SimpleTaskHandler.class);
 
 	@Override
@@ -128,21 +135,18 @@ public class SimpleTaskHandler<R, C extends TaskHandlerCallback<R>> implements T
 				});
 
 			} else {
-
-				try {
-					Thread.sleep(2000);
-				} catch (InterruptedException e) {
-					log.warn("Thread sleeping before sending message back to Request queue has been interrupted.");
-				}
-
-				log.trace("task is not complete. Must keep polling. Sends task Status to request queue");
+				// let the broker delay the delivery rather than parking the
+				// listener thread until next poll
+				final long delay = Math.max(0, backOffPolicy.getNextSheduleDate(retryContext) - System.currentTimeMillis());
+				log.trace("task is not complete. Must keep polling. Sends task Status to request queue, to be delivered in {} ms", delay);
 				jmsRequestTemplate.send(new MessageCreator() {
 
 					@Override
 					public Message createMessage(Session session) throws JMSException {
 						log.trace("taskPolled(requestTemplate) transacted={},acknowledgeMode={}", session.getTransacted(),
 								session.getAcknowledgeMode());
-						return new RetryableMessageBuilder(session, t, communicationId).withRetryContext(retryContext).build();
+						return new RetryableMessageBuilder(session, t, communicationId).withRetryContext(retryContext).withDeliveryDelay(delay)
+								.build();
 					}
 				});
 
@@ -188,4 +192,12 @@ public class SimpleTaskHandler<R, C extends TaskHandlerCallback<R>> implements T
 		return retryPolicy;
 	}
 
+	public void setBackOffPolicy(BackOffPolicy backOffPolicy) {
+		this.backOffPolicy = backOffPolicy;
+	}
+
+	public BackOffPolicy getBackOffPolicy() {
+		return backOffPolicy;
+	}
+
 }
@@ -17,6 +17,13 @@ import javax.jms.ObjectMessage;
 
 public class RetryableMessage extends SimpleBasicMessage {
 
+	/**
+	 * ActiveMQ property (see org.apache.activemq.ScheduledMessage) holding the
+	 * delay, in ms, before the broker delivers the message. Requires the
+	 * broker scheduler support to be enabled.
+	 */
+	public static final String AMQ_SCHEDULED_DELAY = "AMQ_SCHEDULED_DELAY";
+
 	public RetryableMessage(ObjectMessage message) {
 		super(message);
 	}
@@ -29,4 +36,8 @@ public class RetryableMessage extends SimpleBasicMessage {
 		return message.getIntProperty("retryCount");
 	}
 
+	public void setScheduledDelay(long delay) throws JMSException {
+		message.setLongProperty(AMQ_SCHEDULED_DELAY, delay);
+	}
+
 }
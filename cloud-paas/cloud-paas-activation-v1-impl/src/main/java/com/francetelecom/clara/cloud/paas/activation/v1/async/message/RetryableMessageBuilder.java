@@ -26,6 +26,7 @@ public class RetryableMessageBuilder {
 
 	private RetryableMessage message;
 	private RetryContext retryContext;
+	private long deliveryDelay;
 
 	private static int RETRY_COUNT_DEFAULT = 0;
 
@@ -46,8 +47,20 @@ public class RetryableMessageBuilder {
 		return this;
 	}
 
+	/**
+	 * @param deliveryDelay
+	 *            delay, in ms, before the broker delivers the message
+	 */
+	public RetryableMessageBuilder withDeliveryDelay(long deliveryDelay) {
+		this.deliveryDelay = deliveryDelay;
+		return this;
+	}
+
 	public Message build() throws JMSException {
 		this.message.setRetryCount(retryContext.getRetryCount() + 1);
+		if (deliveryDelay > 0) {
+			this.message.setScheduledDelay(deliveryDelay);
+		}
 		return this.message;
 	}
 
@@ -24,6 +24,9 @@ public interface BackOffPolicy {
 	/**
 	 * Give the next scheduled delivery date in an implementation-specific
 	 * fashion.
+	 * 
+	 * @return the date, in ms since epoch, before which the next attempt
+	 *         should not be delivered
 	 */
 	public long getNextSheduleDate(RetryContext context);
 
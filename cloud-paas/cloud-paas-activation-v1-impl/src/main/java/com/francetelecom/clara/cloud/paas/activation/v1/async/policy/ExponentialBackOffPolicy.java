@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.paas.activation.v1.async.policy;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.francetelecom.clara.cloud.paas.activation.v1.async.RetryContext;
+
+/**
+ * Back off policy that increases the period between two attempts
+ * exponentially with the retry count, up to a maximum interval.
+ * <p>
+ * A jitter factor can be set so that tasks started at the same time (e.g. a
+ * burst of environment creations) do not keep polling in lock step: the
+ * computed interval is then randomly spread by +/- jitter.
+ * 
+ */
+public class ExponentialBackOffPolicy implements BackOffPolicy {
+
+	public final static long DEFAULT_INITIAL_INTERVAL = 2000;
+
+	public final static double DEFAULT_MULTIPLIER = 1.5;
+
+	public final static long DEFAULT_MAX_INTERVAL = 30000;
+
+	private volatile long initialInterval = DEFAULT_INITIAL_INTERVAL;
+
+	private volatile double multiplier = DEFAULT_MULTIPLIER;
+
+	private volatile long maxInterval = DEFAULT_MAX_INTERVAL;
+
+	private volatile double jitter = 0;
+
+	@Override
+	public long getNextSheduleDate(RetryContext context) {
+		return System.currentTimeMillis() + getInterval(context.getRetryCount());
+	}
+
+	/**
+	 * @param retryCount
+	 *            number of attempts so far, the first retry being 1
+	 * @return the period to wait before the next attempt, in ms
+	 */
+	protected long getInterval(int retryCount) {
+		double interval = initialInterval * Math.pow(multiplier, Math.max(0, retryCount - 1));
+		interval = Math.min(interval, maxInterval);
+		if (jitter > 0) {
+			interval = interval * (1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1));
+		}
+		return Math.max(0, Math.round(interval));
+	}
+
+	public void setInitialInterval(long initialInterval) {
+		this.initialInterval = initialInterval > 1 ? initialInterval : 1;
+	}
+
+	public long getInitialInterval() {
+		return initialInterval;
+	}
+
+	public void setMultiplier(double multiplier) {
+		this.multiplier = multiplier > 1.0 ? multiplier : 1.0;
+	}
+
+	public double getMultiplier() {
+		return multiplier;
+	}
+
+	public void setMaxInterval(long maxInterval) {
+		this.maxInterval = maxInterval > 0 ? maxInterval : 1;
+	}
+
+	public long getMaxInterval() {
+		return maxInterval;
+	}
+
+	/**
+	 * @param jitter
+	 *            ratio, between 0 and 1, by which intervals are randomly
+	 *            spread
+	 */
+	public void setJitter(double jitter) {
+		this.jitter = Math.min(Math.max(jitter, 0), 1);
+	}
+
+	public double getJitter() {
+		return jitter;
+	}
+
+}
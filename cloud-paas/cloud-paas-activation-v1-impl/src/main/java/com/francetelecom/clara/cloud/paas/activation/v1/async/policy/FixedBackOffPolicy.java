@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.paas.activation.v1.async.policy;
+
+import com.francetelecom.clara.cloud.paas.activation.v1.async.RetryContext;
+
+/**
+ * Back off policy that waits for a fixed period between two attempts.
+ * 
+ */
+public class FixedBackOffPolicy implements BackOffPolicy {
+
+	/**
+	 * The default back off period in ms.
+	 */
+	public final static long DEFAULT_BACK_OFF_PERIOD = 2000;
+
+	private volatile long backOffPeriod = DEFAULT_BACK_OFF_PERIOD;
+
+	@Override
+	public long getNextSheduleDate(RetryContext context) {
+		return System.currentTimeMillis() + backOffPeriod;
+	}
+
+	public void setBackOffPeriod(long backOffPeriod) {
+		this.backOffPeriod = backOffPeriod > 0 ? backOffPeriod : 0;
+	}
+
+	public long getBackOffPeriod() {
+		return backOffPeriod;
+	}
+
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.paas.activation.v1;
+
+import com.francetelecom.clara.cloud.paas.activation.ActivationStepEnum;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class ActivationTaskExecutorTest {
+
+    private ActivationTaskExecutor executor;
+
+    private final CountDownLatch workerReleased = new CountDownLatch(1);
+
+    private final List<String> runJobs = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        executor = new ActivationTaskExecutor();
+        executor.setPoolSize(1);
+        // keep the single worker busy while jobs are queued
+        final CountDownLatch workerBusy = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                workerBusy.countDown();
+                try {
+                    workerReleased.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertThat(workerBusy.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void runs_deletes_and_stops_before_starts_and_creations() throws Exception {
+        // given
+        executor.execute(job("create", ActivationStepEnum.ACTIVATE, "bob"));
+        executor.execute(job("start", ActivationStepEnum.START, "bob"));
+        executor.execute(job("stop", ActivationStepEnum.STOP, "bob"));
+        executor.execute(job("delete", ActivationStepEnum.DELETE, "bob"));
+
+        // when
+        runQueuedJobs(4);
+
+        // then
+        assertThat(runJobs).containsExactly("delete", "stop", "start", "create");
+    }
+
+    @Test
+    public void serves_tenants_in_round_robin() throws Exception {
+        // given
+        executor.execute(job("alice-1", ActivationStepEnum.START, "alice"));
+        executor.execute(job("alice-2", ActivationStepEnum.START, "alice"));
+        executor.execute(job("alice-3", ActivationStepEnum.START, "alice"));
+        executor.execute(job("bob-1", ActivationStepEnum.START, "bob"));
+        executor.execute(job("bob-2", ActivationStepEnum.START, "bob"));
+
+        // when
+        runQueuedJobs(5);
+
+        // then
+        assertThat(runJobs).containsExactly("alice-1", "bob-1", "alice-2", "bob-2", "alice-3");
+    }
+
+    @Test
+    public void gives_position_of_waiting_jobs() {
+        // given
+        Runnable create = job("create", ActivationStepEnum.ACTIVATE, "alice");
+        Runnable start = job("start", ActivationStepEnum.START, "alice");
+        Runnable otherTenantStart = job("start", ActivationStepEnum.START, "bob");
+        executor.execute(create);
+        executor.execute(start);
+        executor.execute(otherTenantStart);
+
+        // then
+        assertThat(executor.getQueueSize()).isEqualTo(3);
+        assertThat(executor.getQueuePosition(start)).isEqualTo(0);
+        assertThat(executor.getQueuePosition(otherTenantStart)).isEqualTo(1);
+        assertThat(executor.getQueuePosition(create)).isEqualTo(2);
+        assertThat(executor.getQueuePosition(job("unknown", ActivationStepEnum.START, "alice"))).isEqualTo(-1);
+    }
+
+    @Test
+    public void rejects_jobs_when_queue_is_full() {
+        // given
+        executor.setMaxQueueSize(2);
+        executor.execute(job("start-1", ActivationStepEnum.START, "alice"));
+        executor.execute(job("start-2", ActivationStepEnum.START, "alice"));
+
+        // when
+        try {
+            executor.execute(job("start-3", ActivationStepEnum.START, "alice"));
+            fail("expected job to be rejected");
+        } catch (TaskRejectedException e) {
+            // then
+            assertThat(executor.getRejectedCount()).isEqualTo(1);
+            assertThat(executor.getQueueSize()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void measures_wait_and_run_times() throws Exception {
+        // given
+        executor.execute(job("start", ActivationStepEnum.START, "alice"));
+
+        // when
+        runQueuedJobs(1);
+
+        // then
+        assertThat(executor.getSubmittedCount()).isEqualTo(2);
+        assertThat(executor.getMaxWaitTimeMs()).isGreaterThanOrEqualTo(0);
+        assertThat(executor.getStatistics()).contains("avgWaitTimeMs=").contains("avgRunTimeMs=");
+    }
+
+    private void runQueuedJobs(int count) throws InterruptedException {
+        workerReleased.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (runJobs.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(runJobs).hasSize(count);
+    }
+
+    private ActivationTaskExecutor.ActivationJob job(final String name, final ActivationStepEnum step, final String tenant) {
+        return new ActivationTaskExecutor.ActivationJob() {
+            @Override
+            public ActivationStepEnum getActivationStep() {
+                return step;
+            }
+
+            @Override
+            public String getTenant() {
+                return tenant;
+            }
+
+            @Override
+            public void run() {
+                runJobs.add(name);
+            }
+        };
+    }
+
+}
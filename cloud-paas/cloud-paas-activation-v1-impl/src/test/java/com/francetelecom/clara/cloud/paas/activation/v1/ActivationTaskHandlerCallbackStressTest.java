@@ -0,0 +1,248 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.paas.activation.v1;
+
+import com.francetelecom.clara.cloud.commons.tasks.TaskStatusEnum;
+import com.francetelecom.clara.cloud.coremodel.EnvironmentRepository;
+import com.francetelecom.clara.cloud.model.ModelItemRepository;
+import com.francetelecom.clara.cloud.paas.activation.ActivationStepEnum;
+import com.francetelecom.clara.cloud.techmodel.cf.Space;
+import org.activiti.engine.ProcessEngine;
+import org.activiti.engine.RuntimeService;
+import org.activiti.engine.runtime.Execution;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Completes tasks of several process instances concurrently, and checks that tasks of distinct process instances are
+ * signaled concurrently while tasks of a same process instance are signaled one at a time.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ActivationTaskHandlerCallbackStressTest {
+
+    private static final int PROCESS_INSTANCES = 200;
+
+    private static final int TASKS_PER_PROCESS_INSTANCE = 10;
+
+    private static final int THREADS = 16;
+
+    /**
+     * How long a signal waits for another one to overlap it
+     */
+    private static final long OVERLAP_TIMEOUT_MS = 5000;
+
+    @Mock
+    private RuntimeService activitiRuntimeService;
+    @Mock
+    private ProcessEngine processEngineMock;
+    @SuppressWarnings("unused")
+    @Mock
+    private ActivationPluginStrategy pluginStrategyMock;
+    @Mock
+    private ModelItemRepository modelItemRepository;
+    @SuppressWarnings("unused")
+    @Mock
+    private EnvironmentRepository environmentRepositoryMock;
+
+    @Spy @InjectMocks
+    private ActivationTaskHandlerCallback taskHandlerCallback = new ActivationTaskHandlerCallback();
+
+    private final Set<String> executionsBeingSignaled = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final AtomicInteger signalCount = new AtomicInteger();
+
+    private final AtomicInteger concurrentSignalsOfSameProcess = new AtomicInteger();
+
+    /**
+     * Invoked while an execution is signaled, process instance lock held
+     */
+    private volatile Callable<Void> onSignal;
+
+    @Before
+    public void init() {
+        final Map<String, Execution> executionsByProcessInstance = new HashMap<>();
+        for (int i = 0; i < PROCESS_INSTANCES; i++) {
+            Execution execution = mock(Execution.class);
+            when(execution.getId()).thenReturn("execution-" + i);
+            executionsByProcessInstance.put("pid-" + i, execution);
+        }
+        doAnswer(new Answer<Execution>() {
+            @Override
+            public Execution answer(InvocationOnMock invocation) throws Throwable {
+                ActivationTask task = (ActivationTask) invocation.getArguments()[0];
+                return executionsByProcessInstance.get(task.getProcessInstanceId());
+            }
+        }).when(taskHandlerCallback).findExecutionByEndTask(any(ActivationTask.class));
+        doReturn(activitiRuntimeService).when(processEngineMock).getRuntimeService();
+        doReturn(new Space()).when(modelItemRepository).find(anyInt(), any());
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                String executionId = (String) invocation.getArguments()[0];
+                if (!executionsBeingSignaled.add(executionId)) {
+                    concurrentSignalsOfSameProcess.incrementAndGet();
+                }
+                try {
+                    if (onSignal != null) {
+                        onSignal.call();
+                    }
+                } finally {
+                    executionsBeingSignaled.remove(executionId);
+                    signalCount.incrementAndGet();
+                }
+                return null;
+            }
+        }).when(activitiRuntimeService).signal(anyString());
+    }
+
+    @Test
+    public void signals_tasks_of_distinct_process_instances_concurrently() throws Exception {
+        // GIVEN each signal waits for another signal to be in progress at the same time: with a single lock, the
+        // first one would time out
+        final int processInstances = 8;
+        final CountDownLatch signalsInProgress = new CountDownLatch(2);
+        final AtomicInteger overlappingSignals = new AtomicInteger();
+        onSignal = new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                signalsInProgress.countDown();
+                if (signalsInProgress.await(OVERLAP_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    overlappingSignals.incrementAndGet();
+                }
+                return null;
+            }
+        };
+        List<Callable<Void>> completions = new ArrayList<>();
+        for (int pid = 0; pid < processInstances; pid++) {
+            completions.add(completion(pid, 0));
+        }
+
+        // WHEN
+        completeAll(completions, processInstances);
+
+        // THEN
+        assertThat(signalCount.get()).isEqualTo(processInstances);
+        assertThat(overlappingSignals.get()).as("signals which overlapped another one").isEqualTo(processInstances);
+    }
+
+    @Test
+    public void signals_tasks_of_a_same_process_instance_one_at_a_time() throws Exception {
+        // GIVEN the first signal waits for the second task to be completing, then gives it a chance to be signaled
+        final CountDownLatch secondCompletionStarted = new CountDownLatch(1);
+        final CountDownLatch secondSignalStarted = new CountDownLatch(1);
+        final AtomicInteger signals = new AtomicInteger();
+        final AtomicInteger overlappingSignals = new AtomicInteger();
+        onSignal = new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                if (signals.incrementAndGet() == 1) {
+                    secondCompletionStarted.await(OVERLAP_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    if (secondSignalStarted.await(200, TimeUnit.MILLISECONDS)) {
+                        overlappingSignals.incrementAndGet();
+                    }
+                } else {
+                    secondSignalStarted.countDown();
+                }
+                return null;
+            }
+        };
+        final Callable<Void> secondCompletion = completion(0, 1);
+        List<Callable<Void>> completions = new ArrayList<>();
+        completions.add(completion(0, 0));
+        completions.add(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                secondCompletionStarted.countDown();
+                return secondCompletion.call();
+            }
+        });
+
+        // WHEN
+        completeAll(completions, 2);
+
+        // THEN
+        assertThat(secondCompletionStarted.getCount()).isEqualTo(0);
+        assertThat(signalCount.get()).isEqualTo(2);
+        assertThat(overlappingSignals.get()).as("tasks of a same process instance signaled concurrently").isEqualTo(0);
+        assertThat(concurrentSignalsOfSameProcess.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void completes_thousands_of_tasks_without_signaling_a_process_instance_concurrently() throws Exception {
+        // GIVEN
+        List<Callable<Void>> completions = new ArrayList<>();
+        for (int task = 0; task < TASKS_PER_PROCESS_INSTANCE; task++) {
+            for (int pid = 0; pid < PROCESS_INSTANCES; pid++) {
+                completions.add(completion(pid, task));
+            }
+        }
+
+        // WHEN
+        completeAll(completions, THREADS);
+
+        // THEN
+        assertThat(signalCount.get()).isEqualTo(PROCESS_INSTANCES * TASKS_PER_PROCESS_INSTANCE);
+        assertThat(concurrentSignalsOfSameProcess.get()).as("tasks of a same process instance signaled concurrently").isEqualTo(0);
+    }
+
+    private Callable<Void> completion(int pid, int task) {
+        final TaskStatusActivitiTask status = new TaskStatusActivitiTask();
+        status.setActivationTask(new ActivationTask("pid-" + pid, ActivationStepEnum.ACTIVATE.getName(), "activity" + task, 1, pid,
+                Space.class.getName(), null, task, TASKS_PER_PROCESS_INSTANCE));
+        status.setTaskStatus(TaskStatusEnum.FINISHED_OK);
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                taskHandlerCallback.onTaskComplete(status, "communicationId");
+                return null;
+            }
+        };
+    }
+
+    private void completeAll(List<Callable<Void>> completions, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> future : executor.invokeAll(completions)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -124,6 +124,34 @@ public class ActivationTaskHandlerCallbackTest {
                 Space.class, activationStep);
     }
     
+    @Test
+    public void onTaskComplete_looks_again_later_for_execution_not_flushed_yet() throws Exception {
+        // GIVEN
+        ActivationTask activationTask = new ActivationTask("taskPid", ActivationStepEnum.STOP.getName(), "activity1234", 111, 1111,
+                Space.class.getName(), null, 0, 1);
+        TaskStatusActivitiTask currentTask = new TaskStatusActivitiTask();
+        currentTask.setActivationTask(activationTask);
+        currentTask.setTaskStatus(TaskStatusEnum.FINISHED_FAILED);
+
+        when(executionActiviti.getId()).thenReturn("124");
+        // activiti has not flushed its session on first lookup
+        doReturn(null).doReturn(executionActiviti).when(taskHandlerCallback).findExecutionByEndTask(any(ActivationTask.class));
+        doReturn(new Space()).when(modelItemRepository).find(anyInt(), any());
+        doNothing().when(taskHandlerCallback).signalFailedTaskToActivitiEngine(anyString(), anyString(), anyString(), anyInt(),
+                eq(Space.class), anyString());
+        taskHandlerCallback.setExecutionLookupRetryDelayMs(100);
+
+        // WHEN
+        taskHandlerCallback.onTaskComplete(currentTask, "1234");
+
+        // THEN calling thread is not held while waiting
+        verify(taskHandlerCallback, never()).signalFailedTaskToActivitiEngine(anyString(), anyString(), anyString(), anyInt(),
+                eq(Space.class), anyString());
+        // and execution is signaled later on
+        verify(taskHandlerCallback, timeout(5000)).signalFailedTaskToActivitiEngine(eq("124"), eq("1"), anyString(), eq(1111),
+                eq(Space.class), eq(ActivationStepEnum.STOP.getName()));
+    }
+
     @Test
 	public void finding_execution_should_use_process_and_task_id() throws Exception {
 		//Given
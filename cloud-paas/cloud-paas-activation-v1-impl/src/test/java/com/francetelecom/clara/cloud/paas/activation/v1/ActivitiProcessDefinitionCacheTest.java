@@ -0,0 +1,258 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.paas.activation.v1;
+
+import com.francetelecom.clara.cloud.commons.MavenReference;
+import com.francetelecom.clara.cloud.model.ModelItem;
+import com.francetelecom.clara.cloud.model.TechnicalDeployment;
+import com.francetelecom.clara.cloud.model.TechnicalDeploymentInstance;
+import com.francetelecom.clara.cloud.paas.activation.ActivationPlugin;
+import com.francetelecom.clara.cloud.paas.activation.ActivationStepEnum;
+import com.francetelecom.clara.cloud.techmodel.cf.App;
+import com.francetelecom.clara.cloud.techmodel.cf.Organization;
+import com.francetelecom.clara.cloud.techmodel.cf.Route;
+import com.francetelecom.clara.cloud.techmodel.cf.RouteUri;
+import com.francetelecom.clara.cloud.techmodel.cf.Space;
+import com.francetelecom.clara.cloud.techmodel.cf.services.managed.ManagedService;
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.bpmn.model.EndEvent;
+import org.activiti.bpmn.model.Process;
+import org.activiti.bpmn.model.ReceiveTask;
+import org.activiti.bpmn.model.SequenceFlow;
+import org.activiti.bpmn.model.StartEvent;
+import org.activiti.engine.ProcessEngine;
+import org.activiti.engine.RepositoryService;
+import org.activiti.engine.RuntimeService;
+import org.activiti.engine.repository.Deployment;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ContextConfiguration
+@RunWith(SpringJUnit4ClassRunner.class)
+public class ActivitiProcessDefinitionCacheTest {
+
+    private static final int ACTIVATIONS = 20;
+
+    private static final int SERVICES = 10;
+
+    @Autowired
+    private RepositoryService repositoryService;
+
+    @Autowired
+    private RuntimeService runtimeService;
+
+    @Autowired
+    private ActivitiProcessFactory activitiProcessFactory;
+
+    @Autowired
+    private ProcessEngine processEngine;
+
+    private ActivitiProcessDefinitionCache processDefinitionCache;
+
+    @Autowired
+    private ActivationPluginStrategy pluginStrategy;
+
+    @Autowired
+    private WrapperActivitiToActivation wrapper;
+
+    @Before
+    public void setUp() {
+        reset(pluginStrategy, wrapper);
+        when(pluginStrategy.getPlugin(any(Class.class), any(ActivationStepEnum.class))).thenReturn(mock(ActivationPlugin.class));
+        processDefinitionCache = newCache();
+    }
+
+    @After
+    public void tearDown() {
+        for (Deployment deployment : repositoryService.createDeploymentQuery().list()) {
+            repositoryService.deleteDeployment(deployment.getId(), true);
+        }
+    }
+
+    @Test
+    public void shares_definition_between_tdis_of_same_shape() throws Exception {
+        // GIVEN
+        TechnicalDeploymentInstance tdi1 = tdi(1, 3);
+        TechnicalDeploymentInstance tdi2 = tdi(2, 3);
+
+        // WHEN
+        String key1 = processDefinitionKey(tdi1, ActivationStepEnum.START);
+        String key2 = processDefinitionKey(tdi2, ActivationStepEnum.START);
+
+        // THEN
+        assertThat(key2).isEqualTo(key1);
+        assertThat(processDefinitionCache.getDeploymentCount()).isEqualTo(1);
+        assertThat(repositoryService.createProcessDefinitionQuery().processDefinitionKey(key1).count()).isEqualTo(1);
+    }
+
+    @Test
+    public void deploys_a_definition_per_shape() throws Exception {
+        // WHEN
+        String key1 = processDefinitionKey(tdi(1, 2), ActivationStepEnum.START);
+        String key2 = processDefinitionKey(tdi(2, 3), ActivationStepEnum.START);
+        String key3 = processDefinitionKey(tdi(3, 3), ActivationStepEnum.STOP);
+
+        // THEN
+        assertThat(key2).isNotEqualTo(key1);
+        assertThat(key3).isNotEqualTo(key2);
+    }
+
+    @Test
+    public void reuses_definition_deployed_before_restart() throws Exception {
+        // GIVEN
+        String key = processDefinitionKey(tdi(1, 3), ActivationStepEnum.START);
+        ActivitiProcessDefinitionCache restartedCache = newCache();
+
+        // WHEN
+        String keyAfterRestart = restartedCache.getProcessDefinitionKey(activitiProcessFactory.generateProcessFromTDI(ActivationStepEnum.START, tdi(2, 3)));
+
+        // THEN
+        assertThat(keyAfterRestart).isEqualTo(key);
+        assertThat(restartedCache.getDeploymentCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void started_process_gets_entity_ids_from_variables() throws Exception {
+        // GIVEN
+        TechnicalDeploymentInstance tdi = tdi(42, 1);
+        String key = processDefinitionKey(tdi, ActivationStepEnum.START);
+
+        // WHEN
+        ProcessInstance processInstance = runtimeService.startProcessInstanceByKey(key, activitiProcessFactory.generateProcessVariables(tdi));
+
+        // THEN the organization, which depends on nothing, is started first
+        verify(wrapper).execute(eq(processInstance.getId()), eq(ActivationStepEnum.START.getName()), anyString(), eq(42), eq(4200),
+                eq(Organization.class.getName()), anyInt(), anyInt());
+    }
+
+    @Test
+    public void purges_legacy_deployments_without_running_instances() {
+        // GIVEN
+        deployLegacyProcess("legacy-done", false);
+        deployLegacyProcess("legacy-running", true);
+        runtimeService.startProcessInstanceByKey("legacy-done");
+        runtimeService.startProcessInstanceByKey("legacy-running");
+
+        // WHEN
+        int purged = processDefinitionCache.purgeOrphanDeployments();
+
+        // THEN
+        assertThat(purged).isEqualTo(1);
+        assertThat(repositoryService.createProcessDefinitionQuery().processDefinitionKey("legacy-done").count()).isEqualTo(0);
+        assertThat(repositoryService.createProcessDefinitionQuery().processDefinitionKey("legacy-running").count()).isEqualTo(1);
+    }
+
+    /**
+     * Activations of TDIs of the same shape (process generation, deployment if needed and start until the first wait
+     * state) deploy the process definition only once.
+     */
+    @Test
+    public void activations_of_same_shape_deploy_the_definition_once() throws Exception {
+        // WHEN
+        for (int i = 0; i < ACTIVATIONS; i++) {
+            activate(tdi(i + 1, SERVICES), processDefinitionCache);
+        }
+
+        // THEN
+        assertThat(processDefinitionCache.getDeploymentCount()).isEqualTo(1);
+        assertThat(repositoryService.createDeploymentQuery().count()).isEqualTo(1);
+        assertThat(runtimeService.createProcessInstanceQuery().count()).isEqualTo(ACTIVATIONS);
+    }
+
+    private void activate(TechnicalDeploymentInstance tdi, ActivitiProcessDefinitionCache cache) throws Exception {
+        String key = cache.getProcessDefinitionKey(activitiProcessFactory.generateProcessFromTDI(ActivationStepEnum.ACTIVATE, tdi));
+        runtimeService.startProcessInstanceByKey(key, activitiProcessFactory.generateProcessVariables(tdi));
+    }
+
+    private String processDefinitionKey(TechnicalDeploymentInstance tdi, ActivationStepEnum step) throws Exception {
+        return processDefinitionCache.getProcessDefinitionKey(activitiProcessFactory.generateProcessFromTDI(step, tdi));
+    }
+
+    private ActivitiProcessDefinitionCache newCache() {
+        ActivitiProcessDefinitionCache cache = new ActivitiProcessDefinitionCache();
+        cache.setProcessEngine(processEngine);
+        return cache;
+    }
+
+    /**
+     * @return a TDI of an app bound to a route and to the given number of services; entity ids are derived from the TDI id
+     */
+    private static TechnicalDeploymentInstance tdi(int id, int services) {
+        TechnicalDeployment td = new TechnicalDeployment("td" + id);
+        Organization organization = new Organization();
+        Space space = new Space(organization);
+        Route route = new Route(new RouteUri("uri" + id), null, space);
+        App app = new App(space, mock(MavenReference.class), "app" + id);
+        app.mapRoute(route);
+        setId(organization, id * 100);
+        td.add(organization);
+        td.add(space);
+        td.add(route);
+        for (int i = 0; i < services; i++) {
+            ManagedService service = new ManagedService("o-dbaas", "MYSQL_1G", "db" + id + "-" + i, space);
+            app.bindService(service);
+            td.add(service);
+        }
+        td.add(app);
+        TechnicalDeploymentInstance tdi = mock(TechnicalDeploymentInstance.class);
+        doReturn(id).when(tdi).getId();
+        doReturn(td).when(tdi).getTechnicalDeployment();
+        return tdi;
+    }
+
+    private static void setId(ModelItem item, int id) {
+        ReflectionTestUtils.setField(item, "id", id);
+    }
+
+    private void deployLegacyProcess(String key, boolean waiting) {
+        Process process = new Process();
+        process.setId(key);
+        StartEvent start = new StartEvent();
+        start.setId("start");
+        process.addFlowElement(start);
+        String last = start.getId();
+        if (waiting) {
+            ReceiveTask wait = new ReceiveTask();
+            wait.setId("wait");
+            process.addFlowElement(wait);
+            process.addFlowElement(new SequenceFlow(last, wait.getId()));
+            last = wait.getId();
+        }
+        EndEvent end = new EndEvent();
+        end.setId("end");
+        process.addFlowElement(end);
+        process.addFlowElement(new SequenceFlow(last, end.getId()));
+        BpmnModel model = new BpmnModel();
+        model.addProcess(process);
+        repositoryService.createDeployment().addBpmnModel(key + ".bpmn", model).name(ActivitiProcessDefinitionCache.LEGACY_DEPLOYMENT_NAME_PREFIX + key)
+                .deploy();
+    }
+}
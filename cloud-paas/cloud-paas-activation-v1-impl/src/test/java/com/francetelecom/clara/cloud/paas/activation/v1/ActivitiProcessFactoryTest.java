@@ -19,25 +19,51 @@ import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.xml.bind.JAXBException;
 
+import org.activiti.bpmn.model.FlowElement;
+import org.activiti.bpmn.model.ParallelGateway;
+import org.activiti.bpmn.model.SequenceFlow;
+import org.activiti.bpmn.model.SubProcess;
 import org.fest.assertions.Assertions;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import com.francetelecom.clara.cloud.commons.MavenReference;
+import com.francetelecom.clara.cloud.model.ModelItem;
 import com.francetelecom.clara.cloud.model.TechnicalDeployment;
 import com.francetelecom.clara.cloud.model.TechnicalDeploymentInstance;
+import com.francetelecom.clara.cloud.paas.activation.ActivationPlugin;
 import com.francetelecom.clara.cloud.paas.activation.ActivationStepEnum;
+import com.francetelecom.clara.cloud.techmodel.cf.App;
+import com.francetelecom.clara.cloud.techmodel.cf.Organization;
+import com.francetelecom.clara.cloud.techmodel.cf.Route;
+import com.francetelecom.clara.cloud.techmodel.cf.RouteUri;
+import com.francetelecom.clara.cloud.techmodel.cf.Space;
+import com.francetelecom.clara.cloud.techmodel.cf.services.managed.ManagedService;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ActivitiProcessFactoryTest {
 
+	@Mock
+	ActivationPluginStrategy pluginStrategy;
+
 	@Spy
 	@InjectMocks
 	ActivitiProcessFactory activitiProcessFactory;
@@ -73,4 +99,117 @@ public class ActivitiProcessFactoryTest {
 		// THEN
 		Assertions.assertThat(process.isExecutable()).isTrue();
 	}
+
+	@Test
+	public void parallel_process_should_fork_and_join_around_independent_subscriptions() throws JAXBException, IOException {
+		// GIVEN
+		TechnicalDeployment td = new TechnicalDeployment("name");
+		Organization organization = new Organization();
+		Space space = new Space(organization);
+		Route route = new Route(new RouteUri("uri1"), null, space);
+		ManagedService service = new ManagedService("o-dbaas", "MYSQL_1G", "appName-db", space);
+		App app = new App(space, mock(MavenReference.class), "appName");
+		app.mapRoute(route);
+		app.bindService(service);
+		td.add(organization);
+		td.add(space);
+		td.add(route);
+		td.add(service);
+		td.add(app);
+		TechnicalDeploymentInstance tdi = mock(TechnicalDeploymentInstance.class);
+		doReturn(td).when(tdi).getTechnicalDeployment();
+		when(pluginStrategy.getPlugin(any(Class.class), any(ActivationStepEnum.class))).thenReturn(mock(ActivationPlugin.class));
+
+		reset(activitiProcessFactory);
+		activitiProcessFactory.setCanParrallel(true);
+		// WHEN
+		org.activiti.bpmn.model.Process process = activitiProcessFactory.generateProcessFromTDI(ActivationStepEnum.START, tdi);
+		// THEN
+		Map<String, Set<String>> targets = targetsBySource(process);
+		// space forks to route and service
+		Assertions.assertThat(targets.get(taskId(td, space) + "-ok")).containsOnly(taskId(td, route), taskId(td, service));
+		// app joins route and service
+		Assertions.assertThat(targets.get(taskId(td, route) + ActivitiProcessFactory.NODE_SUFFIX_CONDITIONNAL)).containsOnly(taskId(td, app) + "-in");
+		Assertions.assertThat(targets.get(taskId(td, service) + ActivitiProcessFactory.NODE_SUFFIX_CONDITIONNAL)).containsOnly(taskId(td, app) + "-in");
+		Assertions.assertThat(targets.get(taskId(td, app) + "-in")).containsOnly(taskId(td, app));
+		Assertions.assertThat(subProcessElement(process, taskId(td, space) + "-ok")).isInstanceOf(ParallelGateway.class);
+		Assertions.assertThat(subProcessElement(process, taskId(td, app) + "-in")).isInstanceOf(ParallelGateway.class);
+		// organization and space stay sequential
+		Assertions.assertThat(targets.get(taskId(td, organization) + ActivitiProcessFactory.NODE_SUFFIX_CONDITIONNAL)).containsOnly(taskId(td, space));
+	}
+
+	@Test
+	public void parallel_process_should_cap_branches_of_wide_dependency_levels() throws JAXBException, IOException {
+		// GIVEN
+		TechnicalDeployment td = new TechnicalDeployment("name");
+		Organization organization = new Organization();
+		Space space = new Space(organization);
+		td.add(organization);
+		td.add(space);
+		List<ManagedService> services = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			ManagedService service = new ManagedService("o-dbaas", "MYSQL_1G", "appName-db" + i, space);
+			services.add(service);
+			td.add(service);
+		}
+		TechnicalDeploymentInstance tdi = mock(TechnicalDeploymentInstance.class);
+		doReturn(td).when(tdi).getTechnicalDeployment();
+		when(pluginStrategy.getPlugin(any(Class.class), any(ActivationStepEnum.class))).thenReturn(mock(ActivationPlugin.class));
+
+		reset(activitiProcessFactory);
+		activitiProcessFactory.setCanParrallel(true);
+		activitiProcessFactory.setMaxParallelBranches(3);
+		// WHEN
+		org.activiti.bpmn.model.Process process = activitiProcessFactory.generateProcessFromTDI(ActivationStepEnum.START, tdi);
+		// THEN
+		Map<String, Set<String>> targets = targetsBySource(process);
+		Assertions.assertThat(targets.get(taskId(td, space) + "-ok")).hasSize(3);
+		// all services are activated, the last ones joining the end of the process
+		Set<String> servicesToEnd = new HashSet<>();
+		for (ManagedService service : services) {
+			Assertions.assertThat(subProcessElement(process, taskId(td, service))).isNotNull();
+			Set<String> serviceTargets = targets.get(taskId(td, service) + ActivitiProcessFactory.NODE_SUFFIX_CONDITIONNAL);
+			if (serviceTargets != null && serviceTargets.contains("beforeEndGw")) {
+				servicesToEnd.add(taskId(td, service));
+			}
+		}
+		Assertions.assertThat(servicesToEnd).hasSize(3);
+		Assertions.assertThat(subProcessElement(process, "beforeEndGw")).isInstanceOf(ParallelGateway.class);
+	}
+
+	private static String taskId(TechnicalDeployment td, ModelItem item) {
+		return ActivationStepEnum.START.getName() + "-" + ActivitiProcessUtils.entityPositions(td).get(item.getName()) + "-si";
+	}
+
+	private static SubProcess subProcess(org.activiti.bpmn.model.Process process) {
+		for (FlowElement element : process.getFlowElements()) {
+			if (element instanceof SubProcess) {
+				return (SubProcess) element;
+			}
+		}
+		throw new AssertionError("no subprocess in " + process.getId());
+	}
+
+	private static FlowElement subProcessElement(org.activiti.bpmn.model.Process process, String id) {
+		for (FlowElement element : subProcess(process).getFlowElements()) {
+			if (id.equals(element.getId())) {
+				return element;
+			}
+		}
+		return null;
+	}
+
+	private static Map<String, Set<String>> targetsBySource(org.activiti.bpmn.model.Process process) {
+		Map<String, Set<String>> targets = new HashMap<>();
+		for (FlowElement element : subProcess(process).getFlowElements()) {
+			if (element instanceof SequenceFlow) {
+				SequenceFlow flow = (SequenceFlow) element;
+				if (!targets.containsKey(flow.getSourceRef())) {
+					targets.put(flow.getSourceRef(), new HashSet<String>());
+				}
+				targets.get(flow.getSourceRef()).add(flow.getTargetRef());
+			}
+		}
+		return targets;
+	}
 }
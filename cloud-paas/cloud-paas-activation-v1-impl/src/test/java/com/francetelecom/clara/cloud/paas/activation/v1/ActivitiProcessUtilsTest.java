@@ -92,4 +92,137 @@ public class ActivitiProcessUtilsTest {
         // for debug purpose
         ActivitiProcessUtils.logSequence(nodes, activateStep);
     }
+
+    @Test
+    public void add_service_in_parallel_mode_should_construct_diamond_dependencies_tree() {
+        //Given
+        Map<String, ActivitiProcessUtils.NodeTask> nodes = new HashMap<>();
+        Map<String, Set<ActivitiProcessUtils.NodeTask>> cache = new HashMap<>();
+
+        final Organization organization = new Organization();
+        final Space space = new Space(organization);
+        final Route route = new Route(new RouteUri("uri1"), null, space);
+        final ManagedService mysql_service = new ManagedService("o-dbaas", "MYSQL_1G", "appName-db", space);
+        final App app = new App(space, mock(MavenReference.class), "appName");
+        app.mapRoute(route);
+        app.bindService(mysql_service);
+        List<DependantModelItem> tdItems = Arrays.<DependantModelItem>asList(app, route, mysql_service, space, organization);
+
+        //When
+        for (DependantModelItem item : tdItems) {
+            ActivitiProcessUtils.addService(nodes, cache, item, true, ActivationStepEnum.ACTIVATE, pluginStrategyWithPlugins());
+        }
+        ActivitiProcessUtils.removeTransitiveDependencies(nodes);
+
+        //Then
+        assertThat(items(nodes.get(space.getName()).dependOn)).containsOnly(organization);
+        assertThat(items(nodes.get(space.getName()).dependOnMe)).containsOnly(route, mysql_service);
+        assertThat(items(nodes.get(route.getName()).dependOn)).containsOnly(space);
+        assertThat(items(nodes.get(mysql_service.getName()).dependOn)).containsOnly(space);
+        // app directly depends on space through its field, but only waits for route and service once transitive dependencies are removed
+        assertThat(items(nodes.get(app.getName()).dependOn)).containsOnly(route, mysql_service);
+
+        List<List<ActivitiProcessUtils.NodeTask>> levels = ActivitiProcessUtils.sortByLevel(nodes);
+        assertThat(levels).hasSize(4);
+        assertThat(items(levels.get(2))).containsOnly(route, mysql_service);
+        assertThat(items(levels.get(3))).containsOnly(app);
+    }
+
+    @Test
+    public void limit_parallel_branches_should_cap_the_width_of_each_dependency_level() {
+        //Given
+        Map<String, ActivitiProcessUtils.NodeTask> nodes = new HashMap<>();
+        Map<String, Set<ActivitiProcessUtils.NodeTask>> cache = new HashMap<>();
+
+        final Organization organization = new Organization();
+        final Space space = new Space(organization);
+        List<DependantModelItem> tdItems = new ArrayList<>();
+        tdItems.add(organization);
+        tdItems.add(space);
+        for (int i = 0; i < 8; i++) {
+            tdItems.add(new ManagedService("o-dbaas", "MYSQL_1G", "appName-db" + i, space));
+        }
+        for (DependantModelItem item : tdItems) {
+            ActivitiProcessUtils.addService(nodes, cache, item, true, ActivationStepEnum.ACTIVATE, pluginStrategyWithPlugins());
+        }
+        assertThat(ActivitiProcessUtils.sortByLevel(nodes).get(2)).hasSize(8);
+
+        //When
+        ActivitiProcessUtils.limitParallelBranches(nodes, 3);
+        ActivitiProcessUtils.removeTransitiveDependencies(nodes);
+
+        //Then
+        List<List<ActivitiProcessUtils.NodeTask>> levels = ActivitiProcessUtils.sortByLevel(nodes);
+        assertThat(levels).hasSize(5);
+        for (List<ActivitiProcessUtils.NodeTask> level : levels) {
+            assertThat(level.size()).isLessThanOrEqualTo(3);
+        }
+        assertThat(nodes.get(space.getName()).dependOnMe).hasSize(3);
+        for (ActivitiProcessUtils.NodeTask node : nodes.values()) {
+            assertThat(node.dependOn.size()).isLessThanOrEqualTo(1);
+        }
+    }
+
+    @Test
+    public void limit_parallel_branches_should_cap_concurrent_branches_across_dependency_levels() {
+        //Given two organizations, and two spaces of the first one
+        Map<String, ActivitiProcessUtils.NodeTask> nodes = new HashMap<>();
+        Map<String, Set<ActivitiProcessUtils.NodeTask>> cache = new HashMap<>();
+
+        final Organization organization = new Organization();
+        final Organization otherOrganization = new Organization();
+        List<DependantModelItem> tdItems = new ArrayList<>();
+        tdItems.add(organization);
+        tdItems.add(otherOrganization);
+        tdItems.add(new Space(organization));
+        tdItems.add(new Space(organization));
+        for (DependantModelItem item : tdItems) {
+            ActivitiProcessUtils.addService(nodes, cache, item, true, ActivationStepEnum.ACTIVATE, pluginStrategyWithPlugins());
+        }
+
+        //When
+        ActivitiProcessUtils.limitParallelBranches(nodes, 2);
+
+        //Then no three tasks are independent from each other, even from different levels
+        List<ActivitiProcessUtils.NodeTask> all = new ArrayList<>(nodes.values());
+        for (int i = 0; i < all.size(); i++) {
+            for (int j = i + 1; j < all.size(); j++) {
+                for (int k = j + 1; k < all.size(); k++) {
+                    boolean ijOrdered = isOrdered(all.get(i), all.get(j));
+                    boolean ikOrdered = isOrdered(all.get(i), all.get(k));
+                    boolean jkOrdered = isOrdered(all.get(j), all.get(k));
+                    assertThat(ijOrdered || ikOrdered || jkOrdered).isTrue();
+                }
+            }
+        }
+    }
+
+    private static boolean isOrdered(ActivitiProcessUtils.NodeTask node, ActivitiProcessUtils.NodeTask other) {
+        return dependsOn(node, other) || dependsOn(other, node);
+    }
+
+    private static boolean dependsOn(ActivitiProcessUtils.NodeTask node, ActivitiProcessUtils.NodeTask other) {
+        for (ActivitiProcessUtils.NodeTask dependNode : node.dependOn) {
+            if (dependNode == other || dependsOn(dependNode, other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ActivationPluginStrategy pluginStrategyWithPlugins() {
+        ActivationPluginStrategy pluginStrategy = mock(ActivationPluginStrategy.class);
+        ActivationPlugin mockPlugin = mock(ActivationPlugin.class);
+        when(pluginStrategy.getPlugin(any(Class.class), any(ActivationStepEnum.class)))
+                .thenReturn(mockPlugin);
+        return pluginStrategy;
+    }
+
+    private static Set<DependantModelItem> items(Collection<ActivitiProcessUtils.NodeTask> nodes) {
+        Set<DependantModelItem> items = new HashSet<>();
+        for (ActivitiProcessUtils.NodeTask node : nodes) {
+            items.add(node.item);
+        }
+        return items;
+    }
 }
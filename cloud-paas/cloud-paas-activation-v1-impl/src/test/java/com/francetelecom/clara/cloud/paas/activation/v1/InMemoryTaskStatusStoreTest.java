@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.paas.activation.v1;
+
+import com.francetelecom.clara.cloud.commons.tasks.TaskStatusEnum;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class InMemoryTaskStatusStoreTest {
+
+    private final InMemoryTaskStatusStore store = new InMemoryTaskStatusStore();
+
+    @Test
+    public void evicts_finished_tasks_after_their_ttl() {
+        // given
+        store.setFinishedTaskTtlMs(1000);
+        TaskStatusActivitiProcess finished = status(1, TaskStatusEnum.FINISHED_OK);
+        finished.setEndTime(System.currentTimeMillis() - 2000);
+        TaskStatusActivitiProcess running = status(2, TaskStatusEnum.STARTED);
+        store.save(finished);
+        store.save(running);
+
+        // when
+        store.evictExpired(System.currentTimeMillis());
+
+        // then
+        assertThat(store.get(1)).isNull();
+        assertThat(store.get(2)).isSameAs(running);
+        assertThat(store.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void evicts_tasks_not_accessed_for_ttl() {
+        // given
+        store.setTtlMs(1000);
+        store.save(status(1, TaskStatusEnum.STARTED));
+
+        // when
+        store.evictExpired(System.currentTimeMillis() + 2000);
+
+        // then
+        assertThat(store.get(1)).isNull();
+    }
+
+    @Test
+    public void evicts_finished_tasks_first_when_full() {
+        // given
+        store.setMaxSize(2);
+        store.save(status(1, TaskStatusEnum.STARTED));
+        store.save(status(2, TaskStatusEnum.FINISHED_FAILED));
+
+        // when
+        store.save(status(3, TaskStatusEnum.STARTED));
+
+        // then
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.get(2)).isNull();
+        assertThat(store.get(1)).isNotNull();
+        assertThat(store.get(3)).isNotNull();
+    }
+
+    @Test
+    public void replaces_status_of_a_task_on_save() {
+        // given
+        store.save(status(1, TaskStatusEnum.STARTED));
+        TaskStatusActivitiProcess finished = status(1, TaskStatusEnum.FINISHED_OK);
+
+        // when
+        store.save(finished);
+
+        // then
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.get(1)).isSameAs(finished);
+    }
+
+    private TaskStatusActivitiProcess status(long taskId, TaskStatusEnum taskStatus) {
+        TaskStatusActivitiProcess status = new TaskStatusActivitiProcess(taskId);
+        status.setTaskStatus(taskStatus);
+        return status;
+    }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.paas.activation.v1;
+
+import com.francetelecom.clara.cloud.commons.tasks.TaskStatusEnum;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+public class JdbcTaskStatusStoreTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private JdbcTaskStatusStore store;
+
+    @Before
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:jdbc-task-status-store", "sa", "");
+        dataSource.setDriverClassName("org.hsqldb.jdbcDriver");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table activation_task_status (task_id bigint primary key, last_update bigint not null, status varbinary(65536) not null)");
+        store = new JdbcTaskStatusStore(dataSource);
+    }
+
+    @After
+    public void tearDown() {
+        jdbcTemplate.execute("drop table activation_task_status");
+    }
+
+    @Test
+    public void reads_saved_status() {
+        // when
+        store.save(status(1, TaskStatusEnum.STARTED));
+
+        // then
+        assertThat(store.get(1).getTaskStatus()).isEqualTo(TaskStatusEnum.STARTED);
+        assertThat(store.get(2)).isNull();
+    }
+
+    @Test
+    public void replaces_status_of_a_task_on_save() {
+        // given
+        store.save(status(1, TaskStatusEnum.STARTED));
+
+        // when
+        store.save(status(1, TaskStatusEnum.FINISHED_OK));
+
+        // then
+        assertThat(store.get(1).getTaskStatus()).isEqualTo(TaskStatusEnum.FINISHED_OK);
+        assertThat(rowCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void removes_status() {
+        // given
+        store.save(status(1, TaskStatusEnum.STARTED));
+
+        // when
+        store.remove(1);
+
+        // then
+        assertThat(store.get(1)).isNull();
+    }
+
+    @Test
+    public void deletes_statuses_not_updated_for_ttl_when_saving_a_new_one() {
+        // given
+        store.save(status(1, TaskStatusEnum.STARTED));
+        jdbcTemplate.update("update activation_task_status set last_update = ? where task_id = 1", System.currentTimeMillis() - 2000);
+        store.setTtlMs(1000);
+
+        // when
+        store.save(status(2, TaskStatusEnum.STARTED));
+
+        // then
+        assertThat(store.get(1)).isNull();
+        assertThat(store.get(2)).isNotNull();
+    }
+
+    @Test
+    public void updates_status_inserted_by_another_node_meanwhile() {
+        // given another node inserts the same task right after this node found no row to update
+        final JdbcTaskStatusStore otherNode = new JdbcTaskStatusStore(jdbcTemplate);
+        JdbcTemplate racingTemplate = spy(jdbcTemplate);
+        doAnswer(new Answer<Integer>() {
+            private boolean raced;
+
+            @Override
+            public Integer answer(InvocationOnMock invocation) throws Throwable {
+                Integer updated = (Integer) invocation.callRealMethod();
+                if (!raced) {
+                    raced = true;
+                    otherNode.save(status(1, TaskStatusEnum.STARTED));
+                }
+                return updated;
+            }
+        }).when(racingTemplate).update(startsWith("update"), Matchers.<Object>anyVararg());
+        JdbcTaskStatusStore racingStore = new JdbcTaskStatusStore(racingTemplate);
+
+        // when
+        racingStore.save(status(1, TaskStatusEnum.FINISHED_OK));
+
+        // then
+        assertThat(store.get(1).getTaskStatus()).isEqualTo(TaskStatusEnum.FINISHED_OK);
+        assertThat(rowCount()).isEqualTo(1);
+    }
+
+    private int rowCount() {
+        return jdbcTemplate.queryForObject("select count(*) from activation_task_status", Integer.class);
+    }
+
+    private TaskStatusActivitiProcess status(long taskId, TaskStatusEnum taskStatus) {
+        TaskStatusActivitiProcess status = new TaskStatusActivitiProcess(taskId);
+        status.setTaskStatus(taskStatus);
+        return status;
+    }
+
+}
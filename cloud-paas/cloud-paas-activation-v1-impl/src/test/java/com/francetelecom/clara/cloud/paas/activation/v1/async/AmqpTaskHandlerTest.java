@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.paas.activation.v1.async;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Message;
+
+import com.francetelecom.clara.cloud.commons.tasks.TaskStatus;
+import com.francetelecom.clara.cloud.paas.activation.v1.async.policy.FixedBackOffPolicy;
+import com.francetelecom.clara.cloud.paas.activation.v1.async.policy.SimpleRetryPolicy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AmqpTaskHandlerTest {
+
+	@Mock
+	private AmqpTemplate amqpRequestTemplate;
+
+	@Mock
+	private AmqpTemplate amqpReplyTemplate;
+
+	@Mock
+	private AmqpTemplate amqpErrorTemplate;
+
+	@Mock
+	private AmqpTemplate amqpDelayTemplate;
+
+	@Mock
+	private TaskHandlerCallback<String> callback;
+
+	private AmqpTaskHandler<String, TaskHandlerCallback<String>> taskHandler;
+
+	@Before
+	public void setUp() {
+		taskHandler = new AmqpTaskHandler<String, TaskHandlerCallback<String>>();
+		taskHandler.setAmqpRequestTemplate(amqpRequestTemplate);
+		taskHandler.setAmqpReplyTemplate(amqpReplyTemplate);
+		taskHandler.setAmqpErrorTemplate(amqpErrorTemplate);
+		taskHandler.setTaskHandlerCallback(callback);
+		SimpleRetryPolicy retryPolicy = new SimpleRetryPolicy();
+		retryPolicy.setMaxAttempts(10);
+		taskHandler.setRetryPolicy(retryPolicy);
+		FixedBackOffPolicy backOffPolicy = new FixedBackOffPolicy();
+		backOffPolicy.setBackOffPeriod(5000);
+		taskHandler.setBackOffPolicy(backOffPolicy);
+	}
+
+	@Test
+	public void pending_task_is_resent_to_delay_queue_with_expiration() {
+		// given
+		taskHandler.setAmqpDelayTemplate(amqpDelayTemplate);
+		TaskStatus pending = new TaskStatus();
+		when(callback.onTaskPolled(pending)).thenReturn(pending);
+
+		// when
+		taskHandler.onTaskPolled(pending, new RetryContext(3), "communicationId");
+
+		// then
+		ArgumentCaptor<Message> message = ArgumentCaptor.forClass(Message.class);
+		verify(amqpDelayTemplate).send(message.capture());
+		verify(amqpRequestTemplate, never()).send(any(Message.class));
+		long expiration = Long.parseLong(message.getValue().getMessageProperties().getExpiration());
+		assertThat(expiration).isGreaterThan(4000L).isLessThanOrEqualTo(5000L);
+		assertThat(message.getValue().getMessageProperties().getHeaders().get("retryCount")).isEqualTo(4);
+	}
+
+	@Test
+	public void pending_task_is_resent_to_request_queue_without_delay_queue() {
+		// given
+		TaskStatus pending = new TaskStatus();
+		when(callback.onTaskPolled(pending)).thenReturn(pending);
+
+		// when
+		taskHandler.onTaskPolled(pending, new RetryContext(3), "communicationId");
+
+		// then
+		ArgumentCaptor<Message> message = ArgumentCaptor.forClass(Message.class);
+		verify(amqpRequestTemplate).send(message.capture());
+		assertThat(message.getValue().getMessageProperties().getExpiration()).isNull();
+	}
+
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.paas.activation.v1.async;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.Serializable;
+
+import javax.jms.JMSException;
+import javax.jms.ObjectMessage;
+import javax.jms.Session;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
+
+import com.francetelecom.clara.cloud.commons.tasks.TaskStatus;
+import com.francetelecom.clara.cloud.paas.activation.v1.async.message.RetryableMessage;
+import com.francetelecom.clara.cloud.paas.activation.v1.async.policy.FixedBackOffPolicy;
+import com.francetelecom.clara.cloud.paas.activation.v1.async.policy.SimpleRetryPolicy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SimpleTaskHandlerTest {
+
+	@Mock
+	private JmsTemplate jmsRequestTemplate;
+
+	@Mock
+	private JmsTemplate jmsReplyTemplate;
+
+	@Mock
+	private JmsTemplate jmsErrorTemplate;
+
+	@Mock
+	private TaskHandlerCallback<String> callback;
+
+	@Mock
+	private Session session;
+
+	@Mock
+	private ObjectMessage message;
+
+	private SimpleTaskHandler<String, TaskHandlerCallback<String>> taskHandler;
+
+	@Before
+	public void setUp() throws JMSException {
+		taskHandler = new SimpleTaskHandler<String, TaskHandlerCallback<String>>();
+		taskHandler.setJmsRequestTemplate(jmsRequestTemplate);
+		taskHandler.setJmsReplyTemplate(jmsReplyTemplate);
+		taskHandler.setJmsErrorTemplate(jmsErrorTemplate);
+		taskHandler.setTaskHandlerCallback(callback);
+		SimpleRetryPolicy retryPolicy = new SimpleRetryPolicy();
+		retryPolicy.setMaxAttempts(10);
+		taskHandler.setRetryPolicy(retryPolicy);
+		FixedBackOffPolicy backOffPolicy = new FixedBackOffPolicy();
+		backOffPolicy.setBackOffPeriod(5000);
+		taskHandler.setBackOffPolicy(backOffPolicy);
+		when(session.createObjectMessage(any(Serializable.class))).thenReturn(message);
+	}
+
+	@Test
+	public void pending_task_is_resent_with_broker_scheduled_delay() throws JMSException {
+		// given
+		TaskStatus pending = new TaskStatus();
+		when(callback.onTaskPolled(pending)).thenReturn(pending);
+
+		// when
+		taskHandler.onTaskPolled(pending, new RetryContext(3), "communicationId");
+
+		// then
+		ArgumentCaptor<MessageCreator> messageCreator = ArgumentCaptor.forClass(MessageCreator.class);
+		verify(jmsRequestTemplate).send(messageCreator.capture());
+		messageCreator.getValue().createMessage(session);
+		ArgumentCaptor<Long> delay = ArgumentCaptor.forClass(Long.class);
+		verify(message).setLongProperty(eq(RetryableMessage.AMQ_SCHEDULED_DELAY), delay.capture());
+		assertThat(delay.getValue()).isGreaterThan(4000L).isLessThanOrEqualTo(5000L);
+		verify(message).setIntProperty("retryCount", 4);
+	}
+
+	@Test
+	public void first_request_of_a_pending_task_is_not_delayed() throws JMSException {
+		// given
+		TaskStatus pending = new TaskStatus();
+		when(callback.handleRequest("request")).thenReturn(pending);
+
+		// when
+		taskHandler.handleRequest("request", "communicationId");
+
+		// then
+		ArgumentCaptor<MessageCreator> messageCreator = ArgumentCaptor.forClass(MessageCreator.class);
+		verify(jmsRequestTemplate).send(messageCreator.capture());
+		messageCreator.getValue().createMessage(session);
+		verify(message, never()).setLongProperty(anyString(), anyLong());
+	}
+
+	@Test
+	public void pending_task_is_not_resent_once_max_attempts_is_reached() {
+		// given
+		TaskStatus pending = new TaskStatus();
+		when(callback.onTaskPolled(pending)).thenReturn(pending);
+
+		// when
+		taskHandler.onTaskPolled(pending, new RetryContext(10), "communicationId");
+
+		// then
+		verify(jmsErrorTemplate).send(any(MessageCreator.class));
+		verify(jmsRequestTemplate, never()).send(any(MessageCreator.class));
+	}
+
+}
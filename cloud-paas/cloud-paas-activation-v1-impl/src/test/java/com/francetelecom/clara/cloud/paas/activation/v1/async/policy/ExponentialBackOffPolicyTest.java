@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.paas.activation.v1.async.policy;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.junit.Test;
+
+import com.francetelecom.clara.cloud.paas.activation.v1.async.RetryContext;
+
+public class ExponentialBackOffPolicyTest {
+
+	@Test
+	public void interval_grows_exponentially_up_to_max_interval() {
+		ExponentialBackOffPolicy policy = new ExponentialBackOffPolicy();
+		policy.setInitialInterval(1000);
+		policy.setMultiplier(2);
+		policy.setMaxInterval(5000);
+
+		assertThat(policy.getInterval(1)).isEqualTo(1000);
+		assertThat(policy.getInterval(2)).isEqualTo(2000);
+		assertThat(policy.getInterval(3)).isEqualTo(4000);
+		assertThat(policy.getInterval(4)).isEqualTo(5000);
+		assertThat(policy.getInterval(3000)).isEqualTo(5000);
+	}
+
+	@Test
+	public void jitter_spreads_interval() {
+		ExponentialBackOffPolicy policy = new ExponentialBackOffPolicy();
+		policy.setInitialInterval(1000);
+		policy.setJitter(0.2);
+
+		for (int i = 0; i < 100; i++) {
+			assertThat(policy.getInterval(1)).isGreaterThanOrEqualTo(800).isLessThanOrEqualTo(1200);
+		}
+	}
+
+	@Test
+	public void next_schedule_date_is_in_the_future() {
+		ExponentialBackOffPolicy policy = new ExponentialBackOffPolicy();
+		long now = System.currentTimeMillis();
+
+		long nextScheduleDate = policy.getNextSheduleDate(new RetryContext(1));
+
+		assertThat(nextScheduleDate).isGreaterThanOrEqualTo(now + ExponentialBackOffPolicy.DEFAULT_INITIAL_INTERVAL);
+	}
+
+}
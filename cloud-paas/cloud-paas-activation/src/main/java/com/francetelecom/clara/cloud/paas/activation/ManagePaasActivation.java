@@ -54,4 +54,11 @@ public interface ManagePaasActivation extends PollTaskStateInterface<TaskStatusA
 	 * @return A task status
 	 */
 	public TaskStatusActivation delete(int tdiId);
+
+	/**
+	 * Gives the number of activations that will be run before the given one, while it waits for an available worker
+	 * @param taskStatus A task status returned by activate, start, stop or delete
+	 * @return number of activations ahead, 0 once the activation is running (or if activations are not queued)
+	 */
+	public int getQueuePosition(TaskStatusActivation taskStatus);
 }
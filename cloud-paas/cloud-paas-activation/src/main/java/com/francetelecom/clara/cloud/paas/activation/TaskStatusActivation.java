@@ -25,6 +25,9 @@ public class TaskStatusActivation extends TaskStatus {
 
 	private int technicalDeploymentInstanceId = -1;
 
+	/** Number of activations that will be run before this one, 0 once it is running */
+	private int queuePosition = 0;
+
 	public TaskStatusActivation() {
 		super();
 	}
@@ -37,6 +40,7 @@ public class TaskStatusActivation extends TaskStatus {
 		// Copy
 		super(status);
 		this.technicalDeploymentInstanceId = status.technicalDeploymentInstanceId;
+		this.queuePosition = status.queuePosition;
 	}
 
 	public int getTechnicalDeploymentInstanceId() {
@@ -47,6 +51,14 @@ public class TaskStatusActivation extends TaskStatus {
 		this.technicalDeploymentInstanceId = technicalDeploymentInstanceId;
 	}
 	
+	public int getQueuePosition() {
+		return queuePosition;
+	}
+
+	public void setQueuePosition(int queuePosition) {
+		this.queuePosition = queuePosition;
+	}
+
 	public static void displayTaskStatus(TaskStatusActivation status) {
 		logger.debug("TDI Id : " + status.getTechnicalDeploymentInstanceId());
 		displayTaskStatus(status, 0);
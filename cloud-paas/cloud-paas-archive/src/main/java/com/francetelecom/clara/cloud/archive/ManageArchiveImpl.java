@@ -13,22 +13,25 @@
 package com.francetelecom.clara.cloud.archive;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URI;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Calendar;
+import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ui.freemarker.FreeMarkerTemplateUtils;
+import org.springframework.util.StreamUtils;
 
 import com.francetelecom.clara.cloud.commons.MavenReference;
 import com.francetelecom.clara.cloud.commons.TechnicalException;
@@ -37,7 +40,7 @@ import freemarker.template.Configuration;
 import freemarker.template.TemplateException;
 
 /**
- * Manage ear files or other archives using java 7 nio library
+ * Manage ear files or other archives, built in memory with java.util.zip
  * 
  * @author BEAL6226
  * 
@@ -61,6 +64,17 @@ public class ManageArchiveImpl implements ManageArchive {
 	 */
 	protected Configuration configuration;
 
+	/**
+	 * generated archives, least recently used first
+	 */
+	private final LinkedHashMap<String, byte[]> archiveCache = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long archiveCacheSizeBytes;
+
+	private int archiveCacheMaxEntries = 32;
+
+	private long archiveCacheMaxSizeBytes = 16 * 1024 * 1024;
+
 	public ManageArchiveImpl() {
 		super();
 	}
@@ -83,41 +97,21 @@ public class ManageArchiveImpl implements ManageArchive {
 		}
 		String warFilename = earFilename.replaceFirst(".ear$", ".war");
 
-		// Prepare temp directory to store war and ear
-		Path tempDir;
-		try {
-			tempDir = Files.createTempDirectory("ear");
-		} catch (IOException e) {
-			throw new TechnicalException("cannot create empty directory", e);
-		}
-
-		URI earUri = generateJarUri(tempDir, earFilename);
-        logger.info("URI of ear to be generated : {}", earUri.toString());
-
-
-        // Prepare map for Freemarker (the same map is used for all templates)
-        Map<String, Object> freemarkerModel = createFreemarkerModel(mavenReference, contextRoot);
-
-        Path warFile = generateWar(warFilename, tempDir, freemarkerModel);
-
-		// build ear file with war file and files in TEMPLATE_EAR_DIR
-		try (FileSystem earFileSystem = FileSystems.newFileSystem(earUri, getFileSystemEnv())) { // earFileSystem is automatically closed
-			addAbsoluteFileToJarFile(warFile.getParent(), warFile, earFileSystem);
-			// addSourceFilesToJarFile(TEMPLATE_EAR_DIR, freemarkerModel, earFileSystem);
-			createDirectoryInJarFile("META-INF", earFileSystem);
-			addClasspathTemplateToJarFile(TEMPLATE_EAR_DIR, "META-INF/application.xml.flt", freemarkerModel, earFileSystem);
-
-		} catch (IOException e) {
-			throw new TechnicalException("cannot create jar filesystem", e);
-		}
-
-		// delete war file as it is no more useful
-		try {
-			Files.delete(warFile);
-		} catch (IOException e) {
-			logger.debug("cannot delete war file {}", warFile, e);
+		String cacheKey = archiveCacheKey(earFilename, mavenReference, contextRoot);
+		byte[] ear = getCachedArchive(cacheKey);
+		if (ear == null) {
+			// Prepare map for Freemarker (the same map is used for all templates)
+			Map<String, Object> freemarkerModel = createFreemarkerModel(mavenReference, contextRoot);
+
+			// build ear file with war file and files in TEMPLATE_EAR_DIR
+			ArchiveBuilder earBuilder = new ArchiveBuilder();
+			earBuilder.addFile(warFilename, buildWar(freemarkerModel));
+			earBuilder.addDirectory("META-INF");
+			earBuilder.addFile("META-INF/application.xml", renderClasspathTemplate("META-INF/application.xml.flt", freemarkerModel));
+			ear = earBuilder.build();
+			cacheArchive(cacheKey, ear);
 		}
-		return new File(tempDir.toString(), earFilename);
+		return writeArchiveToTempDirectory("ear", earFilename, ear);
 	}
 
     @Override
@@ -130,58 +124,171 @@ public class ManageArchiveImpl implements ManageArchive {
             logger.warn("renamed {} to {} for maven reference {}", mavenReferenceForWarGeneration.getArtifactName(),warFilename, mavenReferenceForWarGeneration);
         }
 
-        // Prepare temp directory to store war and ear
-        Path tempDir;
+        String cacheKey = archiveCacheKey(warFilename, mavenReferenceForWarGeneration, contextRoot);
+        byte[] war = getCachedArchive(cacheKey);
+        if (war == null) {
+            // Prepare map for Freemarker (the same map is used for all templates)
+            Map<String, Object> freemarkerModel = createFreemarkerModel(mavenReferenceForWarGeneration, contextRoot);
+            war = buildWar(freemarkerModel);
+            cacheArchive(cacheKey, war);
+        }
+        return writeArchiveToTempDirectory("war", warFilename, war);
+    }
+
+    private byte[] buildWar(Map<String, Object> freemarkerModel) {
+        // build war file with files in TEMPLATE_WAR_DIR
+        // Not so easy to list all files in TEMPLATE_WAR_DIR, because on production environment we're inside a jar,
+        // thus we cannot use NIO Files.walkFileTree() nor File.listFiles()
+        // So for the moment we just add all files in war manually
+        ArchiveBuilder warBuilder = new ArchiveBuilder();
+        warBuilder.addFile("index.html", renderClasspathTemplate("index.html.flt", freemarkerModel));
+        warBuilder.addDirectory("WEB-INF");
+        warBuilder.addFile("WEB-INF/web.xml", readClasspathFile(TEMPLATE_WAR_DIR, "WEB-INF/web.xml"));
+        warBuilder.addDirectory("styles");
+        warBuilder.addFile("styles/application.css", readClasspathFile(TEMPLATE_WAR_DIR, "styles/application.css"));
+        warBuilder.addFile("styles/footer.css", readClasspathFile(TEMPLATE_WAR_DIR, "styles/footer.css"));
+        warBuilder.addFile("styles/gabarits.css", readClasspathFile(TEMPLATE_WAR_DIR, "styles/gabarits.css"));
+        warBuilder.addFile("styles/orange-main.css", readClasspathFile(TEMPLATE_WAR_DIR, "styles/orange-main.css"));
+        warBuilder.addFile("styles/signin.css", readClasspathFile(TEMPLATE_WAR_DIR, "styles/signin.css"));
+        warBuilder.addDirectory("images");
+        warBuilder.addFile("images/favicon.ico", readClasspathFile(TEMPLATE_WAR_DIR, "images/favicon.ico"));
+        warBuilder.addFile("images/orange_logo.jpg", readClasspathFile(TEMPLATE_WAR_DIR, "images/orange_logo.jpg"));
+        return warBuilder.build();
+    }
+
+    private byte[] readClasspathFile(String templateDir, String filename) {
+        InputStream inputStream = getClass().getResourceAsStream(templateDir + filename);
+        if (inputStream == null) {
+            logger.debug("file : {}{} not found in classpath", templateDir, filename);
+            throw new TechnicalException("file " + templateDir + filename + " not found in classpath");
+        }
         try {
-            tempDir = Files.createTempDirectory("war");
+            return StreamUtils.copyToByteArray(inputStream);
         } catch (IOException e) {
-            throw new TechnicalException("cannot create empty directory", e);
+            throw new TechnicalException("cannot read file " + templateDir + filename, e);
+        } finally {
+            closeQuietly(inputStream);
         }
+    }
 
-        URI warUri = generateJarUri(tempDir, warFilename);
-        logger.info("URI of ear to be generated : {}", warUri.toString());
+    private byte[] renderClasspathTemplate(String templateFile, Map<String, Object> freemarkerModel) {
+        logger.debug("generating {} content with freemarker", templateFile);
+        try {
+            return StreamUtils.copyToByteArray(generateFreemarkerContent(templateFile, freemarkerModel));
+        } catch (IOException e) {
+            throw new TechnicalException("cannot generate template file " + templateFile, e);
+        }
+    }
 
+    /**
+     * Write an archive into a new temporary directory, to be deleted by caller after use
+     */
+    private File writeArchiveToTempDirectory(String prefix, String filename, byte[] archive) {
+        try {
+            Path tempDir = Files.createTempDirectory(prefix);
+            Path archiveFile = tempDir.resolve(filename);
+            Files.write(archiveFile, archive);
+            logger.info("{} generated in {}", filename, archiveFile);
+            return archiveFile.toFile();
+        } catch (IOException e) {
+            throw new TechnicalException("cannot write " + filename + " into a temp directory", e);
+        }
+    }
 
-        // Prepare map for Freemarker (the same map is used for all templates)
-        Map<String, Object> freemarkerModel = createFreemarkerModel(mavenReferenceForWarGeneration, contextRoot);
+    /**
+     * Generated archives only depend on the maven reference, the context root and the templates found in classpath,
+     * which do not change while running
+     */
+    private String archiveCacheKey(String filename, MavenReference mavenReference, String contextRoot) {
+        return filename + "|" + mavenReference.getGroupId() + "|" + mavenReference.getArtifactId() + "|" + mavenReference.getVersion() + "|"
+                + mavenReference.getClassifier() + "|" + mavenReference.getExtension() + "|" + contextRoot;
+    }
 
-        Path warFile = generateWar(warFilename, tempDir, freemarkerModel);
+    private synchronized byte[] getCachedArchive(String cacheKey) {
+        byte[] archive = archiveCache.get(cacheKey);
+        if (archive != null) {
+            logger.debug("reusing archive generated for {}", cacheKey);
+        }
+        return archive;
+    }
 
-        return new File(warFile.toString());
+    private synchronized void cacheArchive(String cacheKey, byte[] archive) {
+        if (archive.length > archiveCacheMaxSizeBytes) {
+            return;
+        }
+        byte[] previous = archiveCache.put(cacheKey, archive);
+        if (previous != null) {
+            archiveCacheSizeBytes -= previous.length;
+        }
+        archiveCacheSizeBytes += archive.length;
+        Iterator<byte[]> leastRecentlyUsed = archiveCache.values().iterator();
+        while (archiveCache.size() > archiveCacheMaxEntries || archiveCacheSizeBytes > archiveCacheMaxSizeBytes) {
+            archiveCacheSizeBytes -= leastRecentlyUsed.next().length;
+            leastRecentlyUsed.remove();
+        }
     }
 
-    private Path generateWar(String warFilename, Path tempDir, Map<String, Object> freemarkerModel) {
-        URI warUri = generateJarUri(tempDir, warFilename);
-        // build war file with files in TEMPLATE_WAR_DIR
-        try (FileSystem warFileSystem = FileSystems.newFileSystem(warUri, getFileSystemEnv())) { // warFileSystem is automatically closed
-            // Not so easy to list all files in TEMPLATE_WAR_DIR, because on production environment we're inside a jar,
-            // thus we cannot use NIO Files.walkFileTree() nor File.listFiles()
-            // So for the moment we just add all files in war manually
-            addClasspathTemplateToJarFile(TEMPLATE_WAR_DIR, "index.html.flt", freemarkerModel, warFileSystem);
-            createDirectoryInJarFile("WEB-INF", warFileSystem);
-            addClasspathFileToJarFile(TEMPLATE_WAR_DIR, "WEB-INF/web.xml", warFileSystem);
-            createDirectoryInJarFile("styles", warFileSystem);
-            addClasspathFileToJarFile(TEMPLATE_WAR_DIR, "styles/application.css", warFileSystem);
-            addClasspathFileToJarFile(TEMPLATE_WAR_DIR, "styles/footer.css", warFileSystem);
-            addClasspathFileToJarFile(TEMPLATE_WAR_DIR, "styles/gabarits.css", warFileSystem);
-            addClasspathFileToJarFile(TEMPLATE_WAR_DIR, "styles/orange-main.css", warFileSystem);
-            addClasspathFileToJarFile(TEMPLATE_WAR_DIR, "styles/signin.css", warFileSystem);
-            createDirectoryInJarFile("images", warFileSystem);
-            addClasspathFileToJarFile(TEMPLATE_WAR_DIR, "images/favicon.ico", warFileSystem);
-            addClasspathFileToJarFile(TEMPLATE_WAR_DIR, "images/orange_logo.jpg", warFileSystem);
+    private static void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
         } catch (IOException e) {
-            throw new TechnicalException("cannot create war filesystem", e);
+            logger.debug("cannot close stream", e);
         }
-        return Paths.get(tempDir.toString(), warFilename);
     }
 
-    private Map<String, String> getFileSystemEnv() {
-        // Prepare map for FileSystem creation
-        Map<String, String> env = new HashMap<>();
-        env.put("create", "true");
-        return env;
+    /**
+     * Builds zip archives whose content only depends on the added entries: entries are written in the order they are
+     * added, all with the same timestamp.
+     */
+    static class ArchiveBuilder {
+
+        /**
+         * 1980-01-01, the earliest date a zip entry can hold. Zip entries store local time, hence the default time zone.
+         */
+        static final long ENTRY_TIME = new GregorianCalendar(1980, Calendar.JANUARY, 1).getTimeInMillis();
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private final ZipOutputStream zip = new ZipOutputStream(bytes);
+
+        ArchiveBuilder addDirectory(String name) {
+            return addEntry(name + "/", new byte[0]);
+        }
+
+        ArchiveBuilder addFile(String name, byte[] content) {
+            return addEntry(name, content);
+        }
+
+        private ArchiveBuilder addEntry(String name, byte[] content) {
+            ZipEntry entry = new ZipEntry(name);
+            entry.setTime(ENTRY_TIME);
+            try {
+                zip.putNextEntry(entry);
+                zip.write(content);
+                zip.closeEntry();
+            } catch (IOException e) {
+                throw new TechnicalException("cannot add " + name + " to archive", e);
+            }
+            return this;
+        }
+
+        byte[] build() {
+            try {
+                zip.close();
+            } catch (IOException e) {
+                throw new TechnicalException("cannot build archive", e);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    public void setArchiveCacheMaxEntries(int archiveCacheMaxEntries) {
+        this.archiveCacheMaxEntries = archiveCacheMaxEntries;
     }
 
+    public void setArchiveCacheMaxSizeBytes(long archiveCacheMaxSizeBytes) {
+        this.archiveCacheMaxSizeBytes = archiveCacheMaxSizeBytes;
+    }
 
     /**
 	 * create the freemarker model with all ${} variables and values
@@ -201,57 +308,9 @@ public class ManageArchiveImpl implements ManageArchive {
 		model.put("version", mavenReference.getVersion());
 		model.put("classifier", mavenReference.getClassifier());
 		model.put("extension", mavenReference.getExtension());
-		model.put("buildDate", Calendar.getInstance().getTime());
 		return model;
 	}
 
-	/**
-	 * generate a jar URI by using the syntax defined in java.net.JarURLConnection for example
-	 * jar:file:/tmp/ear11111111/myappli-1.0.0-SNAPSHOT.ear
-	 */
-	protected URI generateJarUri(Path directory, String jarFile) {
-		StringBuilder uriString = new StringBuilder("jar:");
-		uriString.append(directory.toUri().toString());
-		uriString.append(jarFile);
-		return URI.create(uriString.toString());
-	}
-
-	/**
-	 * Add a file from classpath to a jar filesystem
-	 * @param templateDir the directory containing file
-	 * @param filename the relative path to the file to be added
-	 * @param jarFileSystem the jar file system (war/ear)
-	 */
-	protected void addClasspathFileToJarFile(String templateDir, String filename, FileSystem jarFileSystem) {
-		InputStream inputStream = getClass().getResourceAsStream(templateDir + filename);
-		if (inputStream == null) {
-			logger.debug("file : {}{} not found in classpath", templateDir, filename);
-			throw new TechnicalException("file " + templateDir + filename + " not found in classpath");
-		}
-		addInputStreamToJarFile(inputStream, filename, jarFileSystem);
-	}
-
-	/**
-	 * Add a generated freemarker template to a jar filesystem
-	 * @param templateDir the directory containing template file
-	 * @param templateFile the relative path to the template (*.flt) to be added
-	 * @param freemarkerModel the freemarker model to be used
-	 * @param jarFileSystem the jar file system (war/ear)
-	 */
-	protected void addClasspathTemplateToJarFile(String templateDir, String templateFile, Map<String, Object> freemarkerModel, FileSystem jarFileSystem) {
-		String sourceFile;
-		if (templateFile.endsWith(".flt")) {
-			sourceFile = templateFile.replaceFirst(".flt$", "");
-		} else {
-			throw new TechnicalException("template file " + templateFile + " do not end with .flt");
-		}
-		
-		logger.debug("generating {} content with freemarker", templateFile);
-		InputStream inputStream = generateFreemarkerContent(templateFile, freemarkerModel);
-		addInputStreamToJarFile(inputStream, sourceFile, jarFileSystem);
-
-	}
-
 	/**
 	 * Generate a freemarker content based on a template and a model
 	 * @param templateFile the template file
@@ -269,63 +328,6 @@ public class ManageArchiveImpl implements ManageArchive {
 		}
 	}
 
-	/**
-	 * add some content to jar file system
-	 * @param inputStream the content to be added
-	 * @param filename the filename (relative path) within jar file system
-	 * @param jarFileSystem the jar file system (war/ear)
-	 */
-	private void addInputStreamToJarFile(InputStream inputStream, String filename, FileSystem jarFileSystem) {
-		Path internalFile = jarFileSystem.getPath(filename);
-		logger.debug("Adding file {} to {}", internalFile, jarFileSystem);
-		try {
-			Files.copy(inputStream, internalFile);
-		} catch (IOException e) {
-			throw new TechnicalException("cannot copy file " + filename + " in jar file " + jarFileSystem, e);
-		}
-	}
-
-
-	/**
-	 * Copy a file in jarFileSystem. Path must be valid in filesystem
-	 * 
-	 * @param dir
-	 *            the directory containing file
-	 * @param sourceFile
-	 *            the file to be copied in jarFileSystem
-	 * @param jarFileSystem
-	 *            the jar file system
-	 */
-	protected void addAbsoluteFileToJarFile(Path dir, Path sourceFile, FileSystem jarFileSystem) {
-		if (!sourceFile.startsWith(dir)) {
-			throw new TechnicalException("source file " + sourceFile + " is not in directory " + dir);
-		}
-		Path internalFile = jarFileSystem.getPath(dir.relativize(sourceFile).toString());
-		logger.debug("Adding file {} to {}", internalFile, jarFileSystem);
-		try {
-			Files.copy(sourceFile, internalFile);
-		} catch (IOException e) {
-			throw new TechnicalException("cannot copy file " + sourceFile + " in jar file " + jarFileSystem, e);
-		}
-	}
-
-	/**
-	 * Create a directory in jarFileSystem. Path must be valid in fileSystem
-	 * 
-	 * @param sourceDir
-	 *            the directory to be created in jarFileSystem
-	 * @param jarFileSystem
-	 *            the jar file system
-	 */
-	protected void createDirectoryInJarFile(String sourceDir, FileSystem jarFileSystem) {
-		Path internalDir = jarFileSystem.getPath(sourceDir);
-		try {
-			Files.createDirectory(internalDir);
-		} catch (IOException e) {
-			throw new TechnicalException("cannot create directory " + internalDir + " in jar file " + jarFileSystem, e);
-		}
-	}
-
 	/**
 	 * IOC
 	 * 
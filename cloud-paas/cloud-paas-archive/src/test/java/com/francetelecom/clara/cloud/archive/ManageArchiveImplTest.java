@@ -15,7 +15,6 @@ package com.francetelecom.clara.cloud.archive;
 import com.francetelecom.clara.cloud.commons.MavenReference;
 import com.francetelecom.clara.cloud.commons.TechnicalException;
 import org.junit.*;
-import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
@@ -24,111 +23,18 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URI;
 import java.nio.file.*;
 import java.util.*;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 @RunWith(SpringJUnit4ClassRunner.class)
-@ContextConfiguration(locations = "classpath:/META-INF/spring/cloud-archive-context.xml")
+@ContextConfiguration
 public class ManageArchiveImplTest {
 
     @Autowired
     private ManageArchiveImpl manageArchive;
 
-    @Rule
-    public TemporaryFolder temporaryFolder = new TemporaryFolder();
-
-    private Path tempDir;
-
-    private FileSystem jarFs;
-
-    private URI jarUri;
-
-    @Before
-    public void generateJarFileSystem() {
-        jarUri = manageArchive.generateJarUri(Paths.get(temporaryFolder.getRoot().toURI()), "test.jar");
-        Map<String, String> env = new HashMap<>();
-        env.put("create", "true");
-        try {
-            jarFs = FileSystems.newFileSystem(jarUri, env);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    @Before
-    public void setTempDir() {
-        tempDir = Paths.get(temporaryFolder.getRoot().toURI());
-    }
-
-
-    @After
-    public void closeJarFileSystem() {
-        try {
-            jarFs.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    @Test
-    public void check_jar_uri_is_valid() {
-        Assert.assertEquals("bad scheme for a jar uri", "jar", jarUri.getScheme());
-    }
-
-    @Test
-    public void add_existing_file_in_archive() {
-        manageArchive.createDirectoryInJarFile("WEB-INF", jarFs);
-        manageArchive.addClasspathFileToJarFile(ManageArchiveImpl.TEMPLATE_WAR_DIR, "WEB-INF/web.xml", jarFs);
-        Assert.assertTrue("WEB-INF/web.xml should exist in jar file system", Files.exists(jarFs.getPath("WEB-INF", "web.xml")));
-    }
-
-    @Test
-    public void add_valid_source_file_in_archive() throws IOException {
-        File file = temporaryFolder.newFile("empty.txt");
-        Path path = Paths.get(file.toURI());
-        manageArchive.addAbsoluteFileToJarFile(tempDir, path, jarFs);
-        Assert.assertTrue("empty.txt should exist in jar file system", Files.exists(jarFs.getPath("empty.txt")));
-    }
-
-    @Test(expected = TechnicalException.class)
-    public void add_invalid_source_file_in_archive() throws IOException {
-        Path path = Paths.get("dummy");
-        manageArchive.addAbsoluteFileToJarFile(tempDir, path, jarFs);
-    }
-
-    @Test
-    public void add_valid_directory_in_archive() throws IOException {
-        manageArchive.createDirectoryInJarFile("emptydir", jarFs);
-        Assert.assertTrue("emptydir should exist in jar file system", Files.exists(jarFs.getPath("emptydir")));
-    }
-
-    @Test(expected = TechnicalException.class)
-    public void add_invalid_directory_in_archive() throws IOException {
-        manageArchive.createDirectoryInJarFile("dir1/dir2", jarFs);
-    }
-
-    @Test
-    public void add_valid_directory_and_file_in_archive() throws IOException {
-        temporaryFolder.newFolder("dir");
-        File file = temporaryFolder.newFile("dir/file.txt");
-        Path dirFile = Paths.get(file.toURI());
-        manageArchive.createDirectoryInJarFile("dir", jarFs);
-        manageArchive.addAbsoluteFileToJarFile(tempDir, dirFile, jarFs);
-        Assert.assertTrue("dir/file.txt should exist in jar file system", Files.exists(jarFs.getPath("dir", "file.txt")));
-    }
-
-    @Test(expected = TechnicalException.class)
-    public void add_invalid_directory_and_file_archive() throws IOException {
-        temporaryFolder.newFolder("otherdir");
-        File file = temporaryFolder.newFile("otherdir/file.txt");
-        Path dirFile = Paths.get(file.toURI());
-        // cannot add a file if directory does not exist
-        manageArchive.addAbsoluteFileToJarFile(tempDir, dirFile, jarFs);
-    }
-
     @Test(expected = TechnicalException.class)
     public void generate_minimal_ear_with_invalid_maven_reference() {
         MavenReference mavenReference = new MavenReference("com.orange.demo", "demo", "1.0.0-SNAPSHOT", "xxx");
@@ -156,7 +62,6 @@ public class ManageArchiveImplTest {
         model.put("version", "myversion");
         model.put("classifier", null);
         model.put("extension", "ear");
-        model.put("buildDate", Calendar.getInstance().getTime());
         InputStream is = manageArchive.generateFreemarkerContent("index.html.flt", model);
         try (Scanner scanner = new Scanner(is)) {
             String result = scanner.useDelimiter("\\A").hasNext() ? scanner.next() : "";
@@ -189,6 +94,49 @@ public class ManageArchiveImplTest {
         assertArchiveIsFineAndCleanup(warFile, "WEB-INF/web.xml");
     }
 
+    @Test
+    public void should_reuse_ear_generated_for_the_same_maven_reference() throws IOException {
+        MavenReference mavenReference = new MavenReference("com.orange.demo", "demo-cached", "1.0.0-SNAPSHOT", "ear");
+        File earFile = manageArchive.generateMinimalEar(mavenReference, "demo");
+        File otherEarFile = manageArchive.generateMinimalEar(mavenReference, "demo");
+
+        Assert.assertFalse("each caller should get its own file", earFile.equals(otherEarFile));
+        Assert.assertArrayEquals("ear should not be generated again", Files.readAllBytes(earFile.toPath()), Files.readAllBytes(otherEarFile.toPath()));
+        assertArchiveIsFineAndCleanup(earFile, "META-INF/application.xml");
+        assertArchiveIsFineAndCleanup(otherEarFile, "META-INF/application.xml");
+    }
+
+    @Test
+    public void generated_ear_should_not_depend_on_generation_time() throws Exception {
+        // no cache, so that each ear is generated
+        ManageArchiveImpl uncachedManageArchive = new ManageArchiveImpl();
+        uncachedManageArchive.setConfiguration(manageArchive.configuration);
+        uncachedManageArchive.setArchiveCacheMaxEntries(0);
+        MavenReference mavenReference = new MavenReference("com.orange.demo", "demo-uncached", "1.0.0-SNAPSHOT", "ear");
+        File earFile = uncachedManageArchive.generateMinimalEar(mavenReference, "demo");
+        // a generation date rendered to the second would differ
+        Thread.sleep(1100);
+        File otherEarFile = uncachedManageArchive.generateMinimalEar(mavenReference, "demo");
+
+        Assert.assertArrayEquals("ear should be the same", Files.readAllBytes(earFile.toPath()), Files.readAllBytes(otherEarFile.toPath()));
+        assertArchiveIsFineAndCleanup(earFile, "META-INF/application.xml");
+        assertArchiveIsFineAndCleanup(otherEarFile, "META-INF/application.xml");
+    }
+
+    @Test
+    public void generated_war_entries_should_not_depend_on_generation_time() throws IOException {
+        MavenReference mavenReference = new MavenReference("com.orange.demo", "demo-time", "1.0.0-SNAPSHOT", "war");
+        File warFile = manageArchive.generateMinimalWar(mavenReference, "");
+        try (ZipFile zipFile = new ZipFile(warFile)) {
+            Enumeration<? extends ZipEntry> e = zipFile.entries();
+            Assert.assertEquals("entries should be in a stable order", "index.html", e.nextElement().getName());
+            for (ZipEntry entry : Collections.list(zipFile.entries())) {
+                Assert.assertEquals("bad time for entry " + entry.getName(), ManageArchiveImpl.ArchiveBuilder.ENTRY_TIME, entry.getTime());
+            }
+        }
+        assertArchiveIsFineAndCleanup(warFile, "WEB-INF/web.xml");
+    }
+
     private void assertArchiveIsFineAndCleanup(File archiveFile, String filenameThatShouldBeIncludedInArchive) {
         Assert.assertTrue("war file not found", archiveFile.isFile());
         // search application.xml with old java.util.zip package
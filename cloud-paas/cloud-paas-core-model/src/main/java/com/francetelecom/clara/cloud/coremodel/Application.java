@@ -36,6 +36,9 @@ import java.util.*;
 @XmlRootElement
 @Entity
 @Table(name = "CORE_APPLICATION")
+@EntityListeners(CoreItemChangeListener.class)
+@Cacheable
+@org.hibernate.annotations.Cache(usage = org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE)
 public class Application extends CoreItem {
 
 	private static final long serialVersionUID = 3258703452143929264L;
@@ -87,6 +90,7 @@ public class Application extends CoreItem {
 	@XmlElement(name = "members")
 	@ElementCollection(fetch=FetchType.EAGER)
     @CollectionTable(name = "CORE_APPLICATIONS_MEMBERS")
+	@org.hibernate.annotations.Cache(usage = org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE)
 	private final List<SSOId> members = new ArrayList<>();
 
 	/**
@@ -95,6 +99,7 @@ public class Application extends CoreItem {
 	@XmlElementWrapper
 	@XmlElement(name = "configRoles")
 	@OneToMany(cascade = { CascadeType.PERSIST, CascadeType.REFRESH, CascadeType.REMOVE },fetch = FetchType.EAGER)
+	@org.hibernate.annotations.Cache(usage = org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE)
 	private final Set<ConfigRole> configRoles = new HashSet<>();
 	
 	@GuiMapping(status = GuiMapping.StatusType.SKIPPED)
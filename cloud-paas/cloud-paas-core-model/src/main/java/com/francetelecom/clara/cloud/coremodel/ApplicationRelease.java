@@ -14,6 +14,7 @@ package com.francetelecom.clara.cloud.coremodel;
 
 import java.net.URL;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.ManyToOne;
@@ -35,6 +36,9 @@ import com.francetelecom.clara.cloud.logicalmodel.LogicalDeployment;
 @XmlRootElement
 @Entity
 @Table(name = "CORE_APPLICATION_RELEASE")
+@EntityListeners(CoreItemChangeListener.class)
+@Cacheable
+@org.hibernate.annotations.Cache(usage = org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE)
 /**
  * An Application Release is a version of an application
  */
@@ -96,6 +100,15 @@ public class ApplicationRelease extends CoreItem {
 	@GuiMapping(status = GuiMapping.StatusType.SKIPPED)
 	private ApplicationReleaseStateEnum state = ApplicationReleaseStateEnum.EDITING;
 
+	/**
+	 * Fingerprint of the logical deployment from which the technical
+	 * deployment templates of this release have been projected. Null while no
+	 * template is ready.
+	 */
+	@GuiMapping(status = GuiMapping.StatusType.SKIPPED)
+	@Size(max = 255)
+	private String templatesFingerprint;
+
 	/**
 	 * public constructor.
 	 */
@@ -265,4 +278,28 @@ public class ApplicationRelease extends CoreItem {
 	public boolean isDiscarded() {
 		return ApplicationReleaseStateEnum.DISCARDED.equals(this.state);
 	}
+
+	/**
+	 * @return true if technical deployment templates have been projected for
+	 *         this release
+	 */
+	public boolean isTemplatesReady() {
+		return templatesFingerprint != null;
+	}
+
+	public String getTemplatesFingerprint() {
+		return templatesFingerprint;
+	}
+
+	/**
+	 * Records that technical deployment templates have been projected for this
+	 * release
+	 * 
+	 * @param logicalDeploymentFingerprint
+	 *            fingerprint of the logical deployment the templates have been
+	 *            projected from, null once the templates are discarded
+	 */
+	public void setTemplatesFingerprint(String logicalDeploymentFingerprint) {
+		this.templatesFingerprint = logicalDeploymentFingerprint;
+	}
 }
\ No newline at end of file
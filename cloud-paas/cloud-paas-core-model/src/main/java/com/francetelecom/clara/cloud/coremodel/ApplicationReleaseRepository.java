@@ -12,16 +12,23 @@
  */
 package com.francetelecom.clara.cloud.coremodel;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Collection;
 import java.util.List;
 
 /**
  * DAO interface for ApplicationRelease Entity management
+ * <p>
+ * Releases are searched a page at a time with {@link ApplicationReleaseSpecifications} and {@link OffsetPageRequest}.
  */
-public interface ApplicationReleaseRepository extends JpaRepository<ApplicationRelease, Integer> {
+public interface ApplicationReleaseRepository extends JpaRepository<ApplicationRelease, Integer>, JpaSpecificationExecutor<ApplicationRelease> {
 
     /**
      * Retrieve an (not removed) application release from its uid.
@@ -29,9 +36,19 @@ public interface ApplicationReleaseRepository extends JpaRepository<ApplicationR
      * @param uid application release uid
      * @return an application release or null if no uid is matching.
      */
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     @Query("SELECT ar FROM ApplicationRelease ar WHERE ar.uid=?1")
     ApplicationRelease findByUID(String uid);
 
+    /**
+     * Retrieve the application release a logical deployment belongs to.
+     *
+     * @param logicalDeploymentId logical deployment id
+     * @return an application release or null if no release is matching.
+     */
+    @Query("SELECT ar FROM ApplicationRelease ar WHERE ar.logicalDeployment.id=?1")
+    ApplicationRelease findByLogicalDeploymentId(int logicalDeploymentId);
+
 
     /**
      * Counts ACTIVE application releases for a specific application
@@ -170,6 +187,16 @@ public interface ApplicationReleaseRepository extends JpaRepository<ApplicationR
     @Query("SELECT ar FROM ApplicationRelease ar WHERE ar.state = 4 AND (SELECT count(e) from Environment e where e.applicationRelease = ar) = 0 ")
     List<ApplicationRelease> findRemovedReleasesWithoutEnvironment();
 
+    /**
+     * Keyset paged variant of {@link #findRemovedReleasesWithoutEnvironment()} used by the database purge
+     *
+     * @param afterId  only releases with a greater id are returned
+     * @param pageable max number of ids to return
+     * @return ids of removed releases without environment, in ascending order
+     */
+    @Query("SELECT ar.id FROM ApplicationRelease ar WHERE ar.state = 4 AND ar.id > ?1 AND NOT EXISTS (SELECT e FROM Environment e WHERE e.applicationRelease = ar) ORDER BY ar.id ASC")
+    List<Integer> findRemovedIdsWithoutEnvironment(int afterId, Pageable pageable);
+
     /**
      * find all application releases of the given application if this application is active and public or
      * private and the given user is a member of
@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.coremodel;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Specifications used to search application releases a page at a time, see
+ * {@link ApplicationReleaseRepository#findAll(Specification, org.springframework.data.domain.Pageable)}
+ */
+public class ApplicationReleaseSpecifications {
+
+    private static final char LIKE_ESCAPE_CHAR = '\\';
+
+    public static Specification<ApplicationRelease> isActive() {
+        return new Specification<ApplicationRelease>() {
+            @Override
+            public Predicate toPredicate(Root<ApplicationRelease> releases, CriteriaQuery<?> criteriaQuery, CriteriaBuilder criteriaBuilder) {
+                return criteriaBuilder.notEqual(releases.get("state"), ApplicationReleaseStateEnum.REMOVED);
+            }
+        };
+    }
+
+    public static Specification<ApplicationRelease> belongsToApplication(String applicationUID) {
+        return new Specification<ApplicationRelease>() {
+            @Override
+            public Predicate toPredicate(Root<ApplicationRelease> releases, CriteriaQuery<?> criteriaQuery, CriteriaBuilder criteriaBuilder) {
+                return criteriaBuilder.equal(application(releases).get("uid"), applicationUID);
+            }
+        };
+    }
+
+    public static Specification<ApplicationRelease> hasForMember(SSOId ssoId) {
+        return new Specification<ApplicationRelease>() {
+            @Override
+            public Predicate toPredicate(Root<ApplicationRelease> releases, CriteriaQuery<?> criteriaQuery, CriteriaBuilder criteriaBuilder) {
+                return isMember(application(releases), ssoId, criteriaQuery, criteriaBuilder);
+            }
+        };
+    }
+
+    public static Specification<ApplicationRelease> isPublicOrHasForMember(SSOId ssoId) {
+        return new Specification<ApplicationRelease>() {
+            @Override
+            public Predicate toPredicate(Root<ApplicationRelease> releases, CriteriaQuery<?> criteriaQuery, CriteriaBuilder criteriaBuilder) {
+                Join<ApplicationRelease, Application> application = application(releases);
+                final Predicate isPublic = criteriaBuilder.equal(application.get("isPublic"), Boolean.TRUE);
+                return criteriaBuilder.or(isPublic, isMember(application, ssoId, criteriaQuery, criteriaBuilder));
+            }
+        };
+    }
+
+    /**
+     * Case insensitive search of a text in release label (application label - release version), description or
+     * state
+     */
+    public static Specification<ApplicationRelease> matches(String searchCriteria) {
+        return new Specification<ApplicationRelease>() {
+            @Override
+            public Predicate toPredicate(Root<ApplicationRelease> releases, CriteriaQuery<?> criteriaQuery, CriteriaBuilder criteriaBuilder) {
+                String upperCriteria = searchCriteria.toUpperCase();
+                String pattern = "%" + escapeLikePattern(upperCriteria) + "%";
+                Join<ApplicationRelease, Application> application = application(releases);
+                Expression<String> label = criteriaBuilder.concat(criteriaBuilder.concat(application.<String>get("label"), " - "),
+                        releases.<String>get("releaseVersion"));
+                List<Predicate> predicates = new ArrayList<>();
+                predicates.add(criteriaBuilder.like(criteriaBuilder.upper(label), pattern, LIKE_ESCAPE_CHAR));
+                predicates.add(criteriaBuilder.like(criteriaBuilder.upper(releases.<String>get("description")), pattern, LIKE_ESCAPE_CHAR));
+                List<ApplicationReleaseStateEnum> matchingStates = new ArrayList<>();
+                for (ApplicationReleaseStateEnum state : ApplicationReleaseStateEnum.values()) {
+                    if (state.name().contains(upperCriteria)) {
+                        matchingStates.add(state);
+                    }
+                }
+                if (!matchingStates.isEmpty()) {
+                    predicates.add(releases.get("state").in(matchingStates));
+                }
+                return criteriaBuilder.or(predicates.toArray(new Predicate[predicates.size()]));
+            }
+        };
+    }
+
+    /**
+     * Membership is checked through a sub query so that releases are not duplicated by applications having several
+     * members
+     */
+    private static Predicate isMember(Join<ApplicationRelease, Application> application, SSOId ssoId, CriteriaQuery<?> criteriaQuery,
+            CriteriaBuilder criteriaBuilder) {
+        Subquery<Application> members = criteriaQuery.subquery(Application.class);
+        Root<Application> memberApplication = members.from(Application.class);
+        members.select(memberApplication).where(criteriaBuilder.equal(memberApplication, application),
+                criteriaBuilder.equal(memberApplication.join("members").get("value"), ssoId.getValue()));
+        return criteriaBuilder.exists(members);
+    }
+
+    /**
+     * @return the join to release application, shared by specifications
+     */
+    @SuppressWarnings("unchecked")
+    private static Join<ApplicationRelease, Application> application(Root<ApplicationRelease> releases) {
+        for (Join<ApplicationRelease, ?> join : releases.getJoins()) {
+            if ("application".equals(join.getAttribute().getName())) {
+                return (Join<ApplicationRelease, Application>) join;
+            }
+        }
+        return releases.join("application");
+    }
+
+    private static String escapeLikePattern(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE_CHAR) {
+                escaped.append(LIKE_ESCAPE_CHAR);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+}
@@ -12,8 +12,15 @@
  */
 package com.francetelecom.clara.cloud.coremodel;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 /**
  * Repository interface for Application Entity management
@@ -30,7 +37,28 @@ public interface ApplicationRepository extends JpaRepository<Application, Intege
 	 *            application UID
 	 * @return Application if found, null otherwise.
 	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
 	Application findByUid(String uid);
 
+	/**
+	 * @param member
+	 *            ssoid of a user
+	 * @return UIDs of the applications a user is member of
+	 */
+	@Query("SELECT a.uid FROM Application a JOIN a.members m WHERE m.value = ?1")
+	List<String> findUIDsByMember(String member);
+
+	/**
+	 * Keyset paged lookup of removed applications without release used by the database purge
+	 *
+	 * @param afterId
+	 *            only applications with a greater id are returned
+	 * @param pageable
+	 *            max number of ids to return
+	 * @return ids of removed applications without release, in ascending order
+	 */
+	@Query("SELECT a.id FROM Application a WHERE a.state = 'REMOVED' AND a.id > ?1 AND NOT EXISTS (SELECT ar FROM ApplicationRelease ar WHERE ar.application = a) ORDER BY a.id ASC")
+	List<Integer> findRemovedIdsWithoutRelease(int afterId, Pageable pageable);
+
 
 }
@@ -19,6 +19,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CollectionTable;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
@@ -44,6 +45,8 @@ import org.apache.commons.lang3.StringUtils;
 @XmlRootElement
 @Entity
 @Table(name = "CONFIG_ROLE")
+@Cacheable
+@org.hibernate.annotations.Cache(usage = org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE)
 public class ConfigRole extends CoreItem {
 
 	private static final long serialVersionUID = 2354695605078990373L;
@@ -62,6 +65,7 @@ public class ConfigRole extends CoreItem {
 	@XmlElement(name = "configValues")
 	@ElementCollection(fetch=FetchType.EAGER)
 	@CollectionTable(name = "CONFIG_ROLE_VALUES")
+	@org.hibernate.annotations.Cache(usage = org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE)
 	private Set<ConfigValue> values = new HashSet<>();
 
 	protected ConfigRole() {
@@ -14,7 +14,10 @@ package com.francetelecom.clara.cloud.coremodel;
 
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.francetelecom.clara.cloud.coremodel.ConfigRole;
 
@@ -22,6 +25,7 @@ public interface ConfigRoleRepository extends JpaRepository<ConfigRole, Integer>
 
 	List<ConfigRole> findByApplicationUID(String applicationUid);
 
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
 	ConfigRole findByUid(String uid);
 
 	List<ConfigRole> findByUidIn(List<String> uids);
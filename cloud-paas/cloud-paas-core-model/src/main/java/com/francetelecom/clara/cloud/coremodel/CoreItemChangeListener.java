@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.coremodel;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA entity listener recording {@link CoreItem} changes into the {@link EntityChangeTracker}. Changes made within a
+ * transaction are recorded once it is committed, so that views refreshed on change see committed data.
+ */
+public class CoreItemChangeListener {
+
+    @PostUpdate
+    public void onUpdate(final CoreItem item) {
+        final Class<?> type = item.getClass();
+        final String uid = item.getUID();
+        afterCommit(new Runnable() {
+            @Override
+            public void run() {
+                EntityChangeTracker.getInstance().itemUpdated(type, uid);
+            }
+        });
+    }
+
+    @PostPersist
+    @PostRemove
+    public void onPersistOrRemove(final CoreItem item) {
+        final Class<?> type = item.getClass();
+        afterCommit(new Runnable() {
+            @Override
+            public void run() {
+                EntityChangeTracker.getInstance().itemAddedOrRemoved(type);
+            }
+        });
+    }
+
+    private static void afterCommit(final Runnable record) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    record.run();
+                }
+            });
+        } else {
+            record.run();
+        }
+    }
+}
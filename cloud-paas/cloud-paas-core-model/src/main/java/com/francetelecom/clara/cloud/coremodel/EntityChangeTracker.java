@@ -0,0 +1,186 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.coremodel;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In memory record of recent {@link CoreItem} changes, fed by {@link CoreItemChangeListener}. Views use it to
+ * know, without querying the database, whether what they display changed since they were rendered and which items
+ * changed.
+ * <p>
+ * Each change is stamped with an increasing version. Only the last changed items are remembered: a view asking
+ * for changes older than the oldest remembered one is told to refresh everything. Changes are only recorded for
+ * the current JVM, views of other nodes of a cluster are not notified.
+ */
+public class EntityChangeTracker {
+
+    public static final int DEFAULT_MAX_TRACKED_ITEMS = 10000;
+
+    private static final EntityChangeTracker INSTANCE = new EntityChangeTracker(DEFAULT_MAX_TRACKED_ITEMS);
+
+    /**
+     * Changes of items of a given type since a given version
+     */
+    public static class Changes {
+
+        private final long version;
+
+        private final boolean refreshAll;
+
+        private final Set<String> changedUIDs;
+
+        Changes(long version, boolean refreshAll, Set<String> changedUIDs) {
+            this.version = version;
+            this.refreshAll = refreshAll;
+            this.changedUIDs = changedUIDs;
+        }
+
+        /**
+         * @return version to ask next changes from
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return true if items were added or removed, or if changes are too old to be known: views should be
+         *         fully refreshed
+         */
+        public boolean isRefreshAll() {
+            return refreshAll;
+        }
+
+        /**
+         * @return UIDs of the changed items, meaningless when {@link #isRefreshAll()}
+         */
+        public Set<String> getChangedUIDs() {
+            return changedUIDs;
+        }
+
+        public boolean isEmpty() {
+            return !refreshAll && changedUIDs.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "Changes[version=" + version + ", refreshAll=" + refreshAll + ", changedUIDs=" + changedUIDs + "]";
+        }
+    }
+
+    private static class ItemChange {
+        final Class<?> type;
+        final String uid;
+        final long version;
+
+        ItemChange(Class<?> type, String uid, long version) {
+            this.type = type;
+            this.uid = uid;
+            this.version = version;
+        }
+    }
+
+    private final int maxTrackedItems;
+
+    private long version;
+
+    /**
+     * version of the oldest forgotten change
+     */
+    private long forgottenVersion;
+
+    private final Map<Class<?>, Long> lastChangeVersions = new HashMap<>();
+
+    private final Map<Class<?>, Long> lastAddOrRemoveVersions = new HashMap<>();
+
+    /**
+     * last change of each item, oldest first
+     */
+    private final LinkedHashMap<String, ItemChange> itemChanges = new LinkedHashMap<>();
+
+    public EntityChangeTracker(int maxTrackedItems) {
+        this.maxTrackedItems = maxTrackedItems;
+    }
+
+    /**
+     * @return the tracker fed by {@link CoreItemChangeListener}
+     */
+    public static EntityChangeTracker getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return version of the last recorded change, to ask next changes from
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Records that an item was updated
+     */
+    public synchronized void itemUpdated(Class<?> type, String uid) {
+        long changeVersion = ++version;
+        lastChangeVersions.put(type, changeVersion);
+        String key = type.getName() + ":" + uid;
+        // re-inserted so that iteration order stays the change order
+        itemChanges.remove(key);
+        itemChanges.put(key, new ItemChange(type, uid, changeVersion));
+        if (itemChanges.size() > maxTrackedItems) {
+            Iterator<ItemChange> oldest = itemChanges.values().iterator();
+            forgottenVersion = oldest.next().version;
+            oldest.remove();
+        }
+    }
+
+    /**
+     * Records that an item was added or removed
+     */
+    public synchronized void itemAddedOrRemoved(Class<?> type) {
+        long changeVersion = ++version;
+        lastChangeVersions.put(type, changeVersion);
+        lastAddOrRemoveVersions.put(type, changeVersion);
+    }
+
+    /**
+     * @param type
+     *            type of the items a view displays
+     * @param sinceVersion
+     *            version returned by {@link #getVersion()} or by previous {@link Changes#getVersion()}
+     * @return changes of items of the given type recorded after sinceVersion
+     */
+    public synchronized Changes changesSince(Class<?> type, long sinceVersion) {
+        Long lastChangeVersion = lastChangeVersions.get(type);
+        if (lastChangeVersion == null || lastChangeVersion <= sinceVersion) {
+            return new Changes(version, false, Collections.<String> emptySet());
+        }
+        Long lastAddOrRemoveVersion = lastAddOrRemoveVersions.get(type);
+        if ((lastAddOrRemoveVersion != null && lastAddOrRemoveVersion > sinceVersion) || forgottenVersion > sinceVersion) {
+            return new Changes(version, true, Collections.<String> emptySet());
+        }
+        Set<String> changedUIDs = new HashSet<>();
+        for (ItemChange change : itemChanges.values()) {
+            if (change.version > sinceVersion && change.type == type) {
+                changedUIDs.add(change.uid);
+            }
+        }
+        return new Changes(version, false, changedUIDs);
+    }
+
+}
@@ -33,6 +33,8 @@ import java.util.Set;
 @XmlRootElement
 @Entity
 @Table(name = "ENVIRONMENT")
+@EntityListeners(CoreItemChangeListener.class)
+@Cacheable
 @org.hibernate.annotations.Cache(usage = org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE)
 public class Environment extends CoreItem {
 
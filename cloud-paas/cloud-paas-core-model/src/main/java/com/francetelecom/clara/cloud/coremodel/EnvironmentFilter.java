@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.coremodel;
+
+import java.io.Serializable;
+
+/**
+ * Filter of active environments listed through {@link EnvironmentRepositoryCustom}. Unset (null) fields do not
+ * filter anything.
+ */
+public class EnvironmentFilter implements Serializable {
+
+    private static final long serialVersionUID = 5294183670413592251L;
+
+    private String applicationReleaseUID;
+
+    private String member;
+
+    private String visibleBy;
+
+    private String searchText;
+
+    /**
+     * @return uid of the release environments belong to
+     */
+    public String getApplicationReleaseUID() {
+        return applicationReleaseUID;
+    }
+
+    public void setApplicationReleaseUID(String applicationReleaseUID) {
+        this.applicationReleaseUID = applicationReleaseUID;
+    }
+
+    /**
+     * @return ssoid of a user environment applications must have for member
+     */
+    public String getMember() {
+        return member;
+    }
+
+    public void setMember(String member) {
+        this.member = member;
+    }
+
+    /**
+     * @return ssoid of a user environment applications must be visible by, i.e. either public or having this user
+     *         for member
+     */
+    public String getVisibleBy() {
+        return visibleBy;
+    }
+
+    public void setVisibleBy(String visibleBy) {
+        this.visibleBy = visibleBy;
+    }
+
+    /**
+     * @return text searched (case insensitive) in release label (application label - release version), environment
+     *         label, owner ssoid, type and status
+     */
+    public String getSearchText() {
+        return searchText;
+    }
+
+    public void setSearchText(String searchText) {
+        this.searchText = searchText;
+    }
+
+    @Override
+    public String toString() {
+        return "EnvironmentFilter[applicationReleaseUID=" + applicationReleaseUID + ", member=" + member + ", visibleBy=" + visibleBy
+                + ", searchText=" + searchText + "]";
+    }
+}
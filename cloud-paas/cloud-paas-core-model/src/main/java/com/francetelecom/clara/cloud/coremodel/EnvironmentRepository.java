@@ -12,8 +12,12 @@
  */
 package com.francetelecom.clara.cloud.coremodel;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Date;
 import java.util.List;
@@ -23,7 +27,7 @@ import java.util.List;
  * @author YSBU7453
  * 
  */
-public interface EnvironmentRepository extends JpaRepository<Environment, Integer> {
+public interface EnvironmentRepository extends JpaRepository<Environment, Integer>, EnvironmentRepositoryCustom {
 
 	/**
 	 * 
@@ -86,6 +90,7 @@ public interface EnvironmentRepository extends JpaRepository<Environment, Intege
 	/**
 	 * @return {@link Environment} with given uid
 	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
 	Environment findByUid(String uid);
 
 	/**
@@ -104,6 +109,17 @@ public interface EnvironmentRepository extends JpaRepository<Environment, Intege
 	@Query("SELECT e FROM Environment e WHERE e.status = 'REMOVED' AND e.deletionDate IS NOT NULL AND e.deletionDate < ?1 ORDER BY e.applicationRelease.application.label, e.applicationRelease.releaseVersion, e.label ASC")
 	List<Environment> findRemovedOlderThanNDays(Date nbDay);
 
+	/**
+	 * Keyset paged variant of {@link #findRemovedOlderThanNDays(Date)} used by the database purge
+	 *
+	 * @param deletedBefore environments removed before this date are returned
+	 * @param afterId       only environments with a greater id are returned
+	 * @param pageable      max number of ids to return
+	 * @return ids of removed environments, in ascending order
+	 */
+	@Query("SELECT e.id FROM Environment e WHERE e.status = 'REMOVED' AND e.deletionDate IS NOT NULL AND e.deletionDate < ?1 AND e.id > ?2 ORDER BY e.id ASC")
+	List<Integer> findRemovedIdsOlderThan(Date deletedBefore, int afterId, Pageable pageable);
+
 	/**
 	 * @return all active environments of public application or of private
 	 *         applications a user is a member of)
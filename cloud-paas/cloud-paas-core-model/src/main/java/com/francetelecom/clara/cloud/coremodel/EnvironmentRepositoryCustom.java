@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.coremodel;
+
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Environment queries that can not be expressed as derived or annotated queries, implemented by
+ * {@link EnvironmentRepositoryImpl}
+ */
+public interface EnvironmentRepositoryCustom {
+
+    /**
+     * Sort properties supported by {@link #findActiveSummaries(EnvironmentFilter, Pageable)}
+     */
+    String SORT_BY_RELEASE = "applicationReleaseLabel";
+    String SORT_BY_LABEL = "label";
+    String SORT_BY_TYPE = "type";
+    String SORT_BY_OWNER = "ownerName";
+    String SORT_BY_STATUS = "status";
+    String SORT_BY_CREATION_DATE = Environment.CREATION_DATE;
+
+    /**
+     * @param filter   environments to retrieve
+     * @param pageable page of environments to retrieve, sorted by any of the SORT_BY_* properties
+     * @return summaries of the active environments matching filter
+     */
+    List<EnvironmentSummary> findActiveSummaries(EnvironmentFilter filter, Pageable pageable);
+
+    /**
+     * @return number of active environments matching filter
+     */
+    long countActive(EnvironmentFilter filter);
+
+    /**
+     * Hard deletes environments with bulk deletes of environment and technical deployment instance rows. Technical
+     * deployments of these instances, unless shared with a template, are removed through the entity manager so that
+     * their polymorphic xaas subscriptions are cascaded. Must be invoked within a transaction.
+     *
+     * @param environmentIds ids of the environments to delete
+     * @return number of deleted environments
+     */
+    int purgeByIds(Collection<Integer> environmentIds);
+
+}
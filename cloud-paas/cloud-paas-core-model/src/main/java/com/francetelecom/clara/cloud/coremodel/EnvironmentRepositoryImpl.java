@@ -0,0 +1,203 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.coremodel;
+
+import com.francetelecom.clara.cloud.model.DeploymentProfileEnum;
+import com.francetelecom.clara.cloud.model.TechnicalDeployment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JPQL implementation of {@link EnvironmentRepositoryCustom}. Filtering, sorting and paging are performed by the
+ * database and rows are built with a constructor expression so that no entity gets loaded.
+ */
+public class EnvironmentRepositoryImpl implements EnvironmentRepositoryCustom {
+
+    private static final String SUMMARY_SELECT = "SELECT NEW " + EnvironmentSummary.class.getName()
+            + "(e.uid, e.label, a.uid, a.label, ar.uid, ar.releaseVersion, u.ssoId.value, u.firstName, e.creationDate, e.type, e.status,"
+            + " e.statusMessage, e.statusPercent, e.comment, td.name)";
+
+    private static final String SUMMARY_FROM = " FROM Environment e JOIN e.applicationRelease ar JOIN ar.application a LEFT JOIN e.paasUser u"
+            + " LEFT JOIN e.technicalDeploymentInstance tdi LEFT JOIN tdi.technicalDeployment td";
+
+    private static final String COUNT_FROM = " FROM Environment e JOIN e.applicationRelease ar JOIN ar.application a LEFT JOIN e.paasUser u";
+
+    private static final String IS_MEMBER = "EXISTS (SELECT ma FROM Application ma JOIN ma.members m WHERE ma = a AND m.value = :%s)";
+
+    private static final char LIKE_ESCAPE_CHAR = '\\';
+
+    private static final Map<String, String[]> SORT_EXPRESSIONS = new HashMap<>();
+
+    static {
+        SORT_EXPRESSIONS.put(SORT_BY_RELEASE, new String[] { "UPPER(a.label)", "UPPER(ar.releaseVersion)" });
+        SORT_EXPRESSIONS.put(SORT_BY_LABEL, new String[] { "UPPER(e.label)" });
+        SORT_EXPRESSIONS.put(SORT_BY_TYPE, new String[] { "e.type" });
+        SORT_EXPRESSIONS.put(SORT_BY_OWNER, new String[] { "u.ssoId.value" });
+        SORT_EXPRESSIONS.put(SORT_BY_STATUS, new String[] { "e.status" });
+        SORT_EXPRESSIONS.put(SORT_BY_CREATION_DATE, new String[] { "e.creationDate" });
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<EnvironmentSummary> findActiveSummaries(EnvironmentFilter filter, Pageable pageable) {
+        Map<String, Object> parameters = new HashMap<>();
+        String jpql = SUMMARY_SELECT + SUMMARY_FROM + where(filter, parameters) + orderBy(pageable.getSort());
+        TypedQuery<EnvironmentSummary> query = entityManager.createQuery(jpql, EnvironmentSummary.class);
+        setParameters(query, parameters);
+        query.setFirstResult(pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        return query.getResultList();
+    }
+
+    @Override
+    public long countActive(EnvironmentFilter filter) {
+        Map<String, Object> parameters = new HashMap<>();
+        String jpql = "SELECT COUNT(e)" + COUNT_FROM + where(filter, parameters);
+        TypedQuery<Long> query = entityManager.createQuery(jpql, Long.class);
+        setParameters(query, parameters);
+        return query.getSingleResult();
+    }
+
+    @Override
+    public int purgeByIds(Collection<Integer> environmentIds) {
+        if (environmentIds.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> technicalDeploymentIds = entityManager
+                .createQuery("SELECT tdi.id, td.id FROM Environment e JOIN e.technicalDeploymentInstance tdi LEFT JOIN tdi.technicalDeployment td"
+                        + " WHERE e.id IN :ids", Object[].class)
+                .setParameter("ids", environmentIds)
+                .getResultList();
+        List<Integer> tdiIds = new ArrayList<>();
+        List<Integer> tdIds = new ArrayList<>();
+        for (Object[] row : technicalDeploymentIds) {
+            tdiIds.add((Integer) row[0]);
+            if (row[1] != null) {
+                tdIds.add((Integer) row[1]);
+            }
+        }
+        int deleted = entityManager.createQuery("DELETE FROM Environment e WHERE e.id IN :ids").setParameter("ids", environmentIds).executeUpdate();
+        if (!tdiIds.isEmpty()) {
+            entityManager.createQuery("DELETE FROM TechnicalDeploymentInstance tdi WHERE tdi.id IN :ids").setParameter("ids", tdiIds).executeUpdate();
+        }
+        if (!tdIds.isEmpty()) {
+            // technical deployments are still referenced by a template when environment was created without cloning it
+            List<TechnicalDeployment> orphans = entityManager
+                    .createQuery("SELECT td FROM TechnicalDeployment td WHERE td.id IN :ids"
+                            + " AND NOT EXISTS (SELECT tdt FROM TechnicalDeploymentTemplate tdt WHERE tdt.technicalDeployment = td)", TechnicalDeployment.class)
+                    .setParameter("ids", tdIds)
+                    .getResultList();
+            for (TechnicalDeployment orphan : orphans) {
+                entityManager.remove(orphan);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return deleted;
+    }
+
+    private static String where(EnvironmentFilter filter, Map<String, Object> parameters) {
+        StringBuilder where = new StringBuilder(" WHERE e.status <> :removed");
+        parameters.put("removed", EnvironmentStatus.REMOVED);
+        if (filter.getApplicationReleaseUID() != null) {
+            where.append(" AND ar.uid = :releaseUID");
+            parameters.put("releaseUID", filter.getApplicationReleaseUID());
+        }
+        if (filter.getMember() != null) {
+            where.append(" AND ").append(String.format(IS_MEMBER, "member"));
+            parameters.put("member", filter.getMember());
+        }
+        if (filter.getVisibleBy() != null) {
+            where.append(" AND (a.isPublic = true OR ").append(String.format(IS_MEMBER, "visibleBy")).append(")");
+            parameters.put("visibleBy", filter.getVisibleBy());
+        }
+        String searchText = filter.getSearchText() != null ? filter.getSearchText().trim().toUpperCase() : "";
+        if (!searchText.isEmpty()) {
+            String like = " LIKE :pattern ESCAPE '" + LIKE_ESCAPE_CHAR + "'";
+            where.append(" AND (UPPER(CONCAT(a.label, ' - ', ar.releaseVersion))").append(like);
+            where.append(" OR UPPER(e.label)").append(like);
+            where.append(" OR UPPER(u.ssoId.value)").append(like);
+            parameters.put("pattern", "%" + escapeLikePattern(searchText) + "%");
+            List<DeploymentProfileEnum> types = new ArrayList<>();
+            for (DeploymentProfileEnum type : DeploymentProfileEnum.values()) {
+                if (type.name().contains(searchText)) {
+                    types.add(type);
+                }
+            }
+            if (!types.isEmpty()) {
+                where.append(" OR e.type IN :types");
+                parameters.put("types", types);
+            }
+            List<EnvironmentStatus> statuses = new ArrayList<>();
+            for (EnvironmentStatus status : EnvironmentStatus.values()) {
+                if (status.name().contains(searchText)) {
+                    statuses.add(status);
+                }
+            }
+            if (!statuses.isEmpty()) {
+                where.append(" OR e.status IN :statuses");
+                parameters.put("statuses", statuses);
+            }
+            where.append(")");
+        }
+        return where.toString();
+    }
+
+    private static String orderBy(Sort sort) {
+        StringBuilder orderBy = new StringBuilder(" ORDER BY ");
+        if (sort != null) {
+            for (Sort.Order order : sort) {
+                String[] expressions = SORT_EXPRESSIONS.get(order.getProperty());
+                if (expressions == null) {
+                    throw new IllegalArgumentException("Unsupported environment sort property <" + order.getProperty() + ">, expecting one of "
+                            + SORT_EXPRESSIONS.keySet());
+                }
+                for (String expression : expressions) {
+                    orderBy.append(expression).append(order.isAscending() ? " ASC, " : " DESC, ");
+                }
+            }
+        }
+        // environment id as a tie breaker keeps pages stable
+        return orderBy.append("e.id ASC").toString();
+    }
+
+    private static void setParameters(Query query, Map<String, Object> parameters) {
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            query.setParameter(parameter.getKey(), parameter.getValue());
+        }
+    }
+
+    private static String escapeLikePattern(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE_CHAR) {
+                escaped.append(LIKE_ESCAPE_CHAR);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.coremodel;
+
+import com.francetelecom.clara.cloud.model.DeploymentProfileEnum;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Read only projection of an {@link Environment}, holding what is needed to list environments without loading
+ * the environment, release, application, owner and technical deployment graphs. Built by JPQL constructor
+ * expressions, see {@link EnvironmentRepositoryCustom}.
+ */
+public class EnvironmentSummary implements Serializable {
+
+    private static final long serialVersionUID = -2871648251793043315L;
+
+    private final String uid;
+    private final String label;
+    private final String applicationUID;
+    private final String applicationLabel;
+    private final String releaseUID;
+    private final String releaseVersion;
+    private final String ownerSsoId;
+    private final String ownerFirstName;
+    private final Date creationDate;
+    private final DeploymentProfileEnum type;
+    private final EnvironmentStatus status;
+    private final String statusMessage;
+    private final int statusPercent;
+    private final String comment;
+    private final String technicalDeploymentName;
+
+    public EnvironmentSummary(String uid, String label, String applicationUID, String applicationLabel, String releaseUID, String releaseVersion,
+            String ownerSsoId, String ownerFirstName, Date creationDate, DeploymentProfileEnum type, EnvironmentStatus status, String statusMessage,
+            int statusPercent, String comment, String technicalDeploymentName) {
+        this.uid = uid;
+        this.label = label;
+        this.applicationUID = applicationUID;
+        this.applicationLabel = applicationLabel;
+        this.releaseUID = releaseUID;
+        this.releaseVersion = releaseVersion;
+        this.ownerSsoId = ownerSsoId;
+        this.ownerFirstName = ownerFirstName;
+        this.creationDate = creationDate;
+        this.type = type;
+        this.status = status;
+        this.statusMessage = statusMessage;
+        this.statusPercent = statusPercent;
+        this.comment = comment;
+        this.technicalDeploymentName = technicalDeploymentName;
+    }
+
+    public String getUID() {
+        return uid;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getApplicationUID() {
+        return applicationUID;
+    }
+
+    public String getApplicationLabel() {
+        return applicationLabel;
+    }
+
+    public String getReleaseUID() {
+        return releaseUID;
+    }
+
+    public String getReleaseVersion() {
+        return releaseVersion;
+    }
+
+    public String getOwnerSsoId() {
+        return ownerSsoId;
+    }
+
+    public String getOwnerFirstName() {
+        return ownerFirstName;
+    }
+
+    public Date getCreationDate() {
+        return creationDate;
+    }
+
+    public DeploymentProfileEnum getType() {
+        return type;
+    }
+
+    public EnvironmentStatus getStatus() {
+        return status;
+    }
+
+    public String getStatusMessage() {
+        return statusMessage;
+    }
+
+    public int getStatusPercent() {
+        return statusPercent;
+    }
+
+    public String getComment() {
+        return comment;
+    }
+
+    public String getTechnicalDeploymentName() {
+        return technicalDeploymentName;
+    }
+
+    @Override
+    public String toString() {
+        return "EnvironmentSummary[uid=" + uid + ", label=" + label + ", release=" + applicationLabel + " - " + releaseVersion + ", status=" + status + "]";
+    }
+}
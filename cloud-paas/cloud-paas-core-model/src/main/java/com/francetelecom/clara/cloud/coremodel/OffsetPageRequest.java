@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.coremodel;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.io.Serializable;
+
+/**
+ * {@link Pageable} starting at any offset, as required by table views which request rows from a first index that
+ * is not necessarily a multiple of the page size (e.g. the last page of a table)
+ */
+public class OffsetPageRequest implements Pageable, Serializable {
+
+    private static final long serialVersionUID = 8147062187263658364L;
+
+    private final int offset;
+
+    private final int size;
+
+    private final Sort sort;
+
+    /**
+     * @param offset index of the first row to retrieve (included)
+     * @param size   max number of rows to retrieve
+     * @param sort   rows order, may be null
+     */
+    public OffsetPageRequest(int offset, int size, Sort sort) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative: " + offset);
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("Size must be greater than 0: " + size);
+        }
+        this.offset = offset;
+        this.size = size;
+        this.sort = sort;
+    }
+
+    @Override
+    public int getPageNumber() {
+        return offset / size;
+    }
+
+    @Override
+    public int getPageSize() {
+        return size;
+    }
+
+    @Override
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public Sort getSort() {
+        return sort;
+    }
+
+    @Override
+    public Pageable next() {
+        return new OffsetPageRequest(offset + size, size, sort);
+    }
+
+    @Override
+    public Pageable previousOrFirst() {
+        return hasPrevious() ? new OffsetPageRequest(Math.max(0, offset - size), size, sort) : first();
+    }
+
+    @Override
+    public Pageable first() {
+        return new OffsetPageRequest(0, size, sort);
+    }
+
+    @Override
+    public boolean hasPrevious() {
+        return offset > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "OffsetPageRequest[offset=" + offset + ", size=" + size + ", sort=" + sort + "]";
+    }
+}
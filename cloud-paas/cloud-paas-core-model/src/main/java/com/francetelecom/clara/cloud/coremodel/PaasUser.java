@@ -12,6 +12,7 @@
  */
 package com.francetelecom.clara.cloud.coremodel;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
@@ -31,6 +32,8 @@ import com.francetelecom.clara.cloud.commons.UUIDUtils;
 @XmlRootElement
 @Entity
 @Table(name = "CORE_PAAS_USER")
+@Cacheable
+@org.hibernate.annotations.Cache(usage = org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE)
 public class PaasUser extends CoreItem {
 
 	/**
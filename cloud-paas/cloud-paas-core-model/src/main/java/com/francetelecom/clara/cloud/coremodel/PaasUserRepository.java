@@ -14,7 +14,11 @@ package com.francetelecom.clara.cloud.coremodel;
 
 import com.francetelecom.clara.cloud.coremodel.PaasUser;
 import com.francetelecom.clara.cloud.coremodel.SSOId;
+
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface PaasUserRepository extends JpaRepository<PaasUser, Integer> {
 
@@ -25,6 +29,7 @@ public interface PaasUserRepository extends JpaRepository<PaasUser, Integer> {
 	 *            paas user ssoid
 	 * @return a paas user
 	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
 	PaasUser findBySsoId(SSOId ssoId);
 
 }
@@ -18,6 +18,9 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
@@ -26,9 +29,13 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 
+import static com.francetelecom.clara.cloud.coremodel.ApplicationReleaseSpecifications.*;
+import static org.springframework.data.jpa.domain.Specifications.where;
+
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(locations = { "classpath:/com/francetelecom/clara/cloud/coremodel/application-context.xml" })
 @DirtiesContext(classMode= DirtiesContext.ClassMode.AFTER_CLASS)
@@ -391,6 +398,72 @@ public class ApplicationReleaseRepositoryTest {
 		Assert.assertTrue("entities should contain elpaaso_1_0", releases.contains(elpaaso_1_0));
 	}
 
+	@Test
+	@Transactional
+	public void should_find_a_page_of_public_releases_or_private_releases_for_given_member() throws Exception {
+		// given joyn private application with several members
+		Application joyn = new Application("joyn", "joyn");
+		HashSet<SSOId> joynMembers = new HashSet<>();
+		joynMembers.add(new SSOId("bob123"));
+		joynMembers.add(new SSOId("alice123"));
+		joynMembers.add(new SSOId("john123"));
+		joyn.setAsPrivate();
+		joyn.setMembers(joynMembers);
+		applicationRepository.save(joyn);
+		ApplicationRelease joyn_1_0 = new ApplicationRelease(joyn, "1.0");
+		ApplicationRelease joyn_2_0 = new ApplicationRelease(joyn, "2.0");
+		ApplicationRelease joyn_3_0 = new ApplicationRelease(joyn, "3.0");
+		applicationReleaseRepository.save(joyn_1_0);
+		applicationReleaseRepository.save(joyn_2_0);
+		applicationReleaseRepository.save(joyn_3_0);
+		// given myOrange private application alice is not member of
+		Application myOrange = new Application("myOrange", "myOrange");
+		HashSet<SSOId> myOrangeMembers = new HashSet<>();
+		myOrangeMembers.add(new SSOId("bob123"));
+		myOrange.setAsPrivate();
+		myOrange.setMembers(myOrangeMembers);
+		applicationRepository.save(myOrange);
+		applicationReleaseRepository.save(new ApplicationRelease(myOrange, "1.0"));
+		// given elpaaso public application
+		Application elpaaso = new Application("elpaaso", "elpaaso");
+		applicationRepository.save(elpaaso);
+		ApplicationRelease elpaaso_1_0 = new ApplicationRelease(elpaaso, "1.0");
+		applicationReleaseRepository.save(elpaaso_1_0);
+		applicationReleaseRepository.flush();
+
+		Specification<ApplicationRelease> visibleByAlice = where(isActive()).and(isPublicOrHasForMember(new SSOId("alice123")));
+		Sort byLabel = new Sort("application.label", "releaseVersion");
+
+		// when I request releases from the second one, two at a time
+		Page<ApplicationRelease> page = applicationReleaseRepository.findAll(visibleByAlice, new OffsetPageRequest(1, 2, byLabel));
+
+		// then releases are not duplicated by application members and the offset is honoured
+		Assert.assertEquals("there should be 4 releases", 4, applicationReleaseRepository.count(visibleByAlice));
+		Assert.assertEquals(4, page.getTotalElements());
+		Assert.assertEquals(Arrays.asList(joyn_1_0, joyn_2_0), page.getContent());
+	}
+
+	@Test
+	@Transactional
+	public void should_find_releases_matching_a_search_text() throws Exception {
+		// given joyn application
+		Application joyn = new Application("joyn", "joyn");
+		applicationRepository.save(joyn);
+		ApplicationRelease joyn_1_0 = new ApplicationRelease(joyn, "1.0");
+		ApplicationRelease joyn_2_0 = new ApplicationRelease(joyn, "2.0");
+		joyn_2_0.setDescription("100% compatible");
+		applicationReleaseRepository.save(joyn_1_0);
+		applicationReleaseRepository.save(joyn_2_0);
+		applicationReleaseRepository.flush();
+
+		// then search is case insensitive and performed on label and description
+		Assert.assertEquals(1, applicationReleaseRepository.count(where(isActive()).and(matches("JOYN - 1"))));
+		Assert.assertEquals(1, applicationReleaseRepository.count(where(isActive()).and(matches("0% COMP"))));
+		// then like wildcards are searched as is
+		Assert.assertEquals(0, applicationReleaseRepository.count(where(isActive()).and(matches("_oyn"))));
+		Assert.assertEquals(0, applicationReleaseRepository.count(where(isActive()).and(matches("unknown"))));
+	}
+
 	@Test
 	@Transactional
 	public void should_find_public_releases_or_private_releases_for_given_member_and_app() throws Exception {
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.coremodel;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class EntityChangeTrackerTest {
+
+	private EntityChangeTracker tracker = new EntityChangeTracker(2);
+
+	@Test
+	public void should_report_no_change_when_nothing_changed() {
+		long version = tracker.getVersion();
+		tracker.itemUpdated(Application.class, "app1");
+
+		EntityChangeTracker.Changes changes = tracker.changesSince(Environment.class, version);
+
+		assertThat(changes.isEmpty()).isTrue();
+	}
+
+	@Test
+	public void should_report_updated_items_since_version() {
+		tracker.itemUpdated(Environment.class, "env1");
+		long version = tracker.getVersion();
+		tracker.itemUpdated(Environment.class, "env2");
+		tracker.itemUpdated(Application.class, "app1");
+
+		EntityChangeTracker.Changes changes = tracker.changesSince(Environment.class, version);
+
+		assertThat(changes.isRefreshAll()).isFalse();
+		assertThat(changes.getChangedUIDs()).containsOnly("env2");
+		assertThat(tracker.changesSince(Environment.class, changes.getVersion()).isEmpty()).isTrue();
+	}
+
+	@Test
+	public void should_ask_for_a_full_refresh_when_items_were_added_or_removed() {
+		long version = tracker.getVersion();
+		tracker.itemAddedOrRemoved(Environment.class);
+
+		assertThat(tracker.changesSince(Environment.class, version).isRefreshAll()).isTrue();
+	}
+
+	@Test
+	public void should_ask_for_a_full_refresh_when_changes_were_forgotten() {
+		long version = tracker.getVersion();
+		tracker.itemUpdated(Environment.class, "env1");
+		tracker.itemUpdated(Environment.class, "env2");
+		tracker.itemUpdated(Environment.class, "env3");
+
+		assertThat(tracker.changesSince(Environment.class, version).isRefreshAll()).isTrue();
+		assertThat(tracker.changesSince(Environment.class, version + 1).getChangedUIDs()).containsOnly("env2", "env3");
+	}
+
+}
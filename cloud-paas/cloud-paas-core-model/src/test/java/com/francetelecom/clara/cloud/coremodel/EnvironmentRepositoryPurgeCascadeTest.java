@@ -56,6 +56,9 @@ public class EnvironmentRepositoryPurgeCascadeTest {
     @Autowired
     private PaasUserRepository paasUserRepository;
 
+    @Autowired
+    private TechnicalDeploymentRepository technicalDeploymentRepository;
+
     //@Autowired
     //private TechnicalDeploymentCloner tdCloner;
 
@@ -166,4 +169,43 @@ public class EnvironmentRepositoryPurgeCascadeTest {
         environmentRepository.flush();
     }
 
+    @Test
+    @Transactional
+    public void should_purge_environments_by_ids_with_bulk_deletes() {
+        // GIVEN
+        // removed environment which technical deployment is shared with its template
+        Environment sharedTdEnvironment = new Environment(DeploymentProfileEnum.PRODUCTION, "sharedTd", release, manager, technicalDeploymentInstance);
+        sharedTdEnvironment.setStatus(EnvironmentStatus.REMOVED);
+        environmentRepository.save(sharedTdEnvironment);
+        // removed environment with its own technical deployment
+        TechnicalDeploymentTemplate template = technicalDeploymentTemplateRepository.findAllByReleaseId("releaseId").get(0);
+        TechnicalDeployment ownTd = new TechnicalDeployment("ownTd");
+        TechnicalDeploymentInstance ownTdi = new TechnicalDeploymentInstance(template, ownTd);
+        technicalDeploymentInstanceRepository.save(ownTdi);
+        Environment ownTdEnvironment = new Environment(DeploymentProfileEnum.PRODUCTION, "ownTd", release, manager, ownTdi);
+        ownTdEnvironment.setStatus(EnvironmentStatus.REMOVED);
+        environmentRepository.save(ownTdEnvironment);
+        // active environment
+        TechnicalDeploymentInstance activeTdi = new TechnicalDeploymentInstance(template, new TechnicalDeployment("activeTd"));
+        technicalDeploymentInstanceRepository.save(activeTdi);
+        Environment activeEnvironment = new Environment(DeploymentProfileEnum.PRODUCTION, "active", release, manager, activeTdi);
+        environmentRepository.save(activeEnvironment);
+        environmentRepository.flush();
+
+        // WHEN
+        int purged = environmentRepository.purgeByIds(Arrays.asList(sharedTdEnvironment.getId(), ownTdEnvironment.getId()));
+
+        // THEN
+        assertThat(purged).isEqualTo(2);
+        assertThat(environmentRepository.findOne(sharedTdEnvironment.getId())).isNull();
+        assertThat(environmentRepository.findOne(ownTdEnvironment.getId())).isNull();
+        assertThat(technicalDeploymentInstanceRepository.findOne(technicalDeploymentInstance.getId())).isNull();
+        assertThat(technicalDeploymentInstanceRepository.findOne(ownTdi.getId())).isNull();
+        assertThat(technicalDeploymentRepository.findOne(ownTd.getId())).as("own technical deployment should have been purged").isNull();
+        assertThat(technicalDeploymentRepository.findOne(template.getTechnicalDeployment().getId())).as("template technical deployment should be kept")
+                .isNotNull();
+        assertThat(environmentRepository.findOne(activeEnvironment.getId())).isNotNull();
+        assertThat(technicalDeploymentInstanceRepository.findOne(activeTdi.getId())).isNotNull();
+    }
+
 }
@@ -18,12 +18,14 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.net.MalformedURLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -441,6 +443,78 @@ public class EnvironmentRepositoryTest {
 
 	}
 	
+	@Test
+	@Transactional
+	public void should_find_a_page_of_summaries_of_environments_visible_by_a_member() {
+		// given joyn private application alice is member of
+		Application joyn = new Application("joyn", "joyn");
+		HashSet<SSOId> joynMembers = new HashSet<>();
+		joynMembers.add(new SSOId("bob123"));
+		joynMembers.add(new SSOId("alice123"));
+		joyn.setAsPrivate();
+		joyn.setMembers(joynMembers);
+		applicationRepository.save(joyn);
+		ApplicationRelease joyn_1_0 = new ApplicationRelease(joyn, "1.0");
+		applicationReleaseRepository.save(joyn_1_0);
+		Environment joyn_env_a = new Environment(DeploymentProfileEnum.DEVELOPMENT, "a", joyn_1_0, manager, technicalDeploymentInstance);
+		Environment joyn_env_b = new Environment(DeploymentProfileEnum.PRODUCTION, "b", joyn_1_0, manager, technicalDeploymentInstance);
+		environmentRepository.save(joyn_env_a);
+		environmentRepository.save(joyn_env_b);
+		// given myOrange private application alice is not member of
+		Application myOrange = new Application("myOrange", "myOrange");
+		HashSet<SSOId> myOrangeMembers = new HashSet<>();
+		myOrangeMembers.add(new SSOId("bob123"));
+		myOrange.setAsPrivate();
+		myOrange.setMembers(myOrangeMembers);
+		applicationRepository.save(myOrange);
+		ApplicationRelease myOrange_1_0 = new ApplicationRelease(myOrange, "1.0");
+		applicationReleaseRepository.save(myOrange_1_0);
+		environmentRepository.save(new Environment(DeploymentProfileEnum.DEVELOPMENT, "c", myOrange_1_0, manager, technicalDeploymentInstance));
+		// given elpaaso public application without members
+		Application elpaaso = new Application("elpaaso", "elpaaso");
+		applicationRepository.save(elpaaso);
+		ApplicationRelease elpaaso_1_0 = new ApplicationRelease(elpaaso, "1.0");
+		applicationReleaseRepository.save(elpaaso_1_0);
+		Environment elpaaso_env_d = new Environment(DeploymentProfileEnum.DEVELOPMENT, "d", elpaaso_1_0, manager, technicalDeploymentInstance);
+		environmentRepository.save(elpaaso_env_d);
+		environmentRepository.flush();
+
+		EnvironmentFilter visibleByAlice = new EnvironmentFilter();
+		visibleByAlice.setVisibleBy("alice123");
+		Sort byLabel = new Sort(EnvironmentRepositoryCustom.SORT_BY_LABEL);
+
+		// when alice lists environments from the second one
+		List<EnvironmentSummary> page = environmentRepository.findActiveSummaries(visibleByAlice, new OffsetPageRequest(1, 10, byLabel));
+
+		// then she sees environments of public and of her private applications
+		Assert.assertEquals(3, environmentRepository.countActive(visibleByAlice));
+		Assert.assertEquals(2, page.size());
+		Assert.assertEquals(joyn_env_b.getUID(), page.get(0).getUID());
+		Assert.assertEquals("joyn", page.get(0).getApplicationLabel());
+		Assert.assertEquals(DeploymentProfileEnum.PRODUCTION, page.get(0).getType());
+		Assert.assertEquals("bob123", page.get(0).getOwnerSsoId());
+		Assert.assertEquals(elpaaso_env_d.getUID(), page.get(1).getUID());
+
+		// then she can search environments by release label or type
+		visibleByAlice.setSearchText("JOYN - 1");
+		Assert.assertEquals(2, environmentRepository.countActive(visibleByAlice));
+		visibleByAlice.setSearchText("product");
+		Assert.assertEquals(Arrays.asList(joyn_env_b.getUID()), uidsOf(environmentRepository.findActiveSummaries(visibleByAlice, new OffsetPageRequest(0, 10, byLabel))));
+
+		// then environments may be restricted to those of applications she is member of
+		EnvironmentFilter aliceApplications = new EnvironmentFilter();
+		aliceApplications.setMember("alice123");
+		Assert.assertEquals(2, environmentRepository.countActive(aliceApplications));
+	}
+
+	private static List<String> uidsOf(List<EnvironmentSummary> summaries) {
+		List<String> uids = new ArrayList<>();
+		for (EnvironmentSummary summary : summaries) {
+			uids.add(summary.getUID());
+		}
+		return uids;
+	}
+
 	@Test
 	@Transactional
 	public void should_count_active_environments_for_given_member() throws MalformedURLException {
@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.coremodel;
+
+import org.hibernate.jpa.HibernateEntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.UUID;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Checks that core model entities served by the second level and query caches stay consistent with the database.
+ * Each step runs in its own transaction so that the persistence context does not hide the caches.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = { "classpath:/com/francetelecom/clara/cloud/coremodel/second-level-cache-context.xml" })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class SecondLevelCacheTest {
+
+	@Autowired
+	private ApplicationRepository applicationRepository;
+
+	@Autowired
+	private PaasUserRepository paasUserRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate transactionTemplate;
+
+	private Statistics statistics;
+
+	@Before
+	public void setUp() {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		statistics = ((HibernateEntityManagerFactory) entityManagerFactory).getSessionFactory().getStatistics();
+		statistics.setStatisticsEnabled(true);
+	}
+
+	@Test
+	public void should_serve_application_lookup_by_uid_from_caches() {
+		// given
+		final String uid = createApplication("aLabel", new SSOId("bob123")).getUID();
+		findApplication(uid);
+		statistics.clear();
+
+		// when
+		Application application = findApplication(uid);
+
+		// then
+		assertThat(application.getLabel()).isEqualTo("aLabel");
+		assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+		assertThat(statistics.getQueryExecutionCount()).isEqualTo(0);
+		assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThan(0);
+	}
+
+	@Test
+	public void should_see_updated_application_members() {
+		// given
+		final String uid = createApplication("aLabel", new SSOId("bob123")).getUID();
+		assertThat(findApplication(uid).listMembers()).containsOnly(new SSOId("bob123"));
+
+		// when
+		transactionTemplate.execute(new TransactionCallback<Void>() {
+			@Override
+			public Void doInTransaction(TransactionStatus status) {
+				Application application = applicationRepository.findByUid(uid);
+				application.setMembers(new HashSet<>(Arrays.asList(new SSOId("alice123"), new SSOId("joe123"))));
+				return null;
+			}
+		});
+
+		// then
+		assertThat(findApplication(uid).listMembers()).containsOnly(new SSOId("alice123"), new SSOId("joe123"));
+	}
+
+	@Test
+	public void should_not_find_deleted_application() {
+		// given
+		final String uid = createApplication("aLabel", new SSOId("bob123")).getUID();
+		assertThat(findApplication(uid)).isNotNull();
+
+		// when
+		transactionTemplate.execute(new TransactionCallback<Void>() {
+			@Override
+			public Void doInTransaction(TransactionStatus status) {
+				applicationRepository.delete(applicationRepository.findByUid(uid));
+				return null;
+			}
+		});
+
+		// then
+		assertThat(findApplication(uid)).isNull();
+	}
+
+	@Test
+	public void should_see_updated_paas_user_when_looked_up_by_sso_id() {
+		// given
+		final SSOId ssoId = new SSOId("user" + UUID.randomUUID().toString().substring(0, 8));
+		transactionTemplate.execute(new TransactionCallback<Void>() {
+			@Override
+			public Void doInTransaction(TransactionStatus status) {
+				paasUserRepository.save(new PaasUser("bob", "Dylan", ssoId, "bob@orange.com"));
+				return null;
+			}
+		});
+		assertThat(findPaasUser(ssoId).getFirstName()).isEqualTo("bob");
+
+		// when
+		transactionTemplate.execute(new TransactionCallback<Void>() {
+			@Override
+			public Void doInTransaction(TransactionStatus status) {
+				paasUserRepository.findBySsoId(ssoId).setFirstName("robert");
+				return null;
+			}
+		});
+
+		// then
+		assertThat(findPaasUser(ssoId).getFirstName()).isEqualTo("robert");
+	}
+
+	private Application createApplication(final String label, final SSOId member) {
+		return transactionTemplate.execute(new TransactionCallback<Application>() {
+			@Override
+			public Application doInTransaction(TransactionStatus status) {
+				Application application = new Application(label, "code" + UUID.randomUUID());
+				application.setMembers(new HashSet<>(Arrays.asList(member)));
+				return applicationRepository.save(application);
+			}
+		});
+	}
+
+	private Application findApplication(final String uid) {
+		return transactionTemplate.execute(new TransactionCallback<Application>() {
+			@Override
+			public Application doInTransaction(TransactionStatus status) {
+				Application application = applicationRepository.findByUid(uid);
+				if (application != null) {
+					// members are read within the transaction
+					application.listMembers().size();
+				}
+				return application;
+			}
+		});
+	}
+
+	private PaasUser findPaasUser(final SSOId ssoId) {
+		return transactionTemplate.execute(new TransactionCallback<PaasUser>() {
+			@Override
+			public PaasUser doInTransaction(TransactionStatus status) {
+				return paasUserRepository.findBySsoId(ssoId);
+			}
+		});
+	}
+}
@@ -15,7 +15,9 @@ package com.francetelecom.clara.cloud.logicalmodel;
 import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -111,6 +113,14 @@ public class LogicalDeployment extends LogicalModelItem {
     @Valid
 	protected List<ProcessingNode> processingNodes = new ArrayList<ProcessingNode>();
 
+	/**
+	 * Lookup indexes over processingNodes and logicalServices. Not persisted:
+	 * built on first lookup and rebuilt once the lists have been replaced or
+	 * modified behind our back (JPA load, Jaxb unmarshalling, copies).
+	 */
+	private transient LogicalModelItemIndex<ProcessingNode> processingNodesIndex;
+	private transient LogicalModelItemIndex<LogicalService> logicalServicesIndex;
+
 	/**
 	 * Default constructor.
 	 */
@@ -153,12 +163,7 @@ public class LogicalDeployment extends LogicalModelItem {
     		Collections.sort(nodes);
 		    return (List<E>) Collections.unmodifiableList(nodes);
         } else {
-            List<E> matchingNodes = new ArrayList<E>();
-            for (ProcessingNode executionNode : processingNodes) {
-                if (filteredType.isInstance(executionNode)) {
-                    matchingNodes.add((E) executionNode);
-                }
-            }
+            List<E> matchingNodes = processingNodesIndex().listByType(filteredType);
     		Collections.sort(matchingNodes);
             return Collections.unmodifiableList(matchingNodes); //overkill ?
         }
@@ -171,9 +176,8 @@ public class LogicalDeployment extends LogicalModelItem {
      */
     public ProcessingNode findProcessingNodeByName(String name) {
         Validate.notEmpty(name, "unexpected empty or null name");
-        for (ProcessingNode node : processingNodes) {
-            if ( node.getName().equals( name ) ) return node;
-        }
+        ProcessingNode node = processingNodesIndex().findByName(name);
+        if (node != null) return node;
         throw new IllegalArgumentException( "Unknown execution node " + name );
     }
 
@@ -183,9 +187,8 @@ public class LogicalDeployment extends LogicalModelItem {
      */
     public ProcessingNode findProcessingNode(String label) {
         Validate.notEmpty(label, "unexpected empty or null label");
-        for (ProcessingNode node : processingNodes) {
-            if ( node.getLabel().equals( label ) ) return node;
-        }
+        ProcessingNode node = processingNodesIndex().findByLabel(label);
+        if (node != null) return node;
         throw new IllegalArgumentException( "Unknown execution node " + label );
     }
 
@@ -209,25 +212,23 @@ public class LogicalDeployment extends LogicalModelItem {
      */
     public <E extends LogicalService> Set<E> listLogicalServices(Class<E> filteredType, String name) {
 		Set<E> services = new TreeSet<E>();
-        for (LogicalService service : this.logicalServices) {
-            boolean includeService = false;
-
-            if (filteredType == null || filteredType.isInstance(service)) {
-                if (name == null || name.equals(service.getName()) || name.equals(service.getLabel())) {
-                    includeService = true;
-                }
-            }
-
-            if (includeService) {
-                services.add((E) service);
-            }
-
+        if (name == null) {
+            services.addAll(filteredType == null ? (List<E>) this.logicalServices : logicalServicesIndex().listByType(filteredType));
+        } else {
+            addIfInstance(services, filteredType, logicalServicesIndex().findByName(name));
+            addIfInstance(services, filteredType, logicalServicesIndex().findByLabel(name));
         }
 
-        logger.debug(services.size() + " services of type " + filteredType + "have been found");
+        logger.debug("{} services of type {} have been found", services.size(), filteredType);
         return services;
     }
 
+    private static <E extends LogicalService> void addIfInstance(Set<E> services, Class<E> filteredType, LogicalService service) {
+        if (service != null && (filteredType == null || filteredType.isInstance(service))) {
+            services.add((E) service);
+        }
+    }
+
     /**
      * List all logical services filtered by type, and deduplicated. (Read-only)
      * @param filteredType the class to filter logical services or null to return all services
@@ -251,14 +252,39 @@ public class LogicalDeployment extends LogicalModelItem {
         //help diagnosing orphan sercvies
 //        node.setName(UUID.randomUUID().toString());
 
-        for (ProcessingNode executionNode : this.processingNodes) {
-            Validate.isTrue(!executionNode.getName().equals(node.getName()), "ExecutionNode name expected to be unique, found duplicate:" + name);
-            Validate.isTrue(!executionNode.getLabel().equals(node.getLabel()), "ExecutionNode label expected to be unique, found duplicate:" + label);
-        }
+        Validate.isTrue(processingNodesIndex().findByName(node.getName()) == null, "ExecutionNode name expected to be unique, found duplicate:" + name);
+        Validate.isTrue(processingNodesIndex().findByLabel(node.getLabel()) == null, "ExecutionNode label expected to be unique, found duplicate:" + label);
 
         node.setLogicalDeployment(this);
+        attachProcessingNode(node);
+
+    }
+
+    /**
+     * Adds a node to processingNodes, keeping lookup indexes in sync
+     */
+    void attachProcessingNode(ProcessingNode node) {
+        LogicalModelItemIndex<ProcessingNode> index = processingNodesIndex;
+        boolean indexUpToDate = index != null && index.isBuiltFrom(this.processingNodes);
         this.processingNodes.add(node);
+        if (indexUpToDate) {
+            index.added(node);
+        }
+    }
 
+    /**
+     * Removes a node from processingNodes, keeping lookup indexes in sync
+     */
+    void detachProcessingNode(ProcessingNode node) {
+        LogicalModelItemIndex<ProcessingNode> index = processingNodesIndex;
+        boolean indexUpToDate = index != null && index.isBuiltFrom(this.processingNodes);
+        int position = this.processingNodes.indexOf(node);
+        if (position != -1) {
+            ProcessingNode removed = this.processingNodes.remove(position);
+            if (indexUpToDate) {
+                index.removed(removed);
+            }
+        }
     }
 
     public void removeProcessingNode(ProcessingNode jeeProcessing) {
@@ -268,7 +294,7 @@ public class LogicalDeployment extends LogicalModelItem {
 		// deleted entity passed to persist)
 		jeeProcessing.removeAllLogicalServiceUsage(jeeProcessing.listLogicalServicesAssociations());
 		// then we can remove the node
-		this.processingNodes.remove(jeeProcessing);
+		detachProcessingNode(jeeProcessing);
 	}
 
     public void removeProcessingNodes(
@@ -288,13 +314,13 @@ public class LogicalDeployment extends LogicalModelItem {
         //help diagnosing orphan sercvies
 //        service.setName(UUID.randomUUID().toString());
 
-        for (LogicalService logicalService : this.logicalServices) {
-            Validate.isTrue(!logicalService.getName().equals(service.getName()), "LogicalService name expected to be unique, found duplicate:" + name);
-            Validate.isTrue(!logicalService.getLabel().equals(service.getLabel()), "LogicalService label expected to be unique, found duplicate:" + label);
-        }
+        LogicalModelItemIndex<LogicalService> index = logicalServicesIndex();
+        Validate.isTrue(index.findByName(service.getName()) == null, "LogicalService name expected to be unique, found duplicate:" + name);
+        Validate.isTrue(index.findByLabel(service.getLabel()) == null, "LogicalService label expected to be unique, found duplicate:" + label);
 
         service.setLogicalDeployment(this);
         this.logicalServices.add(service);
+        index.added(service);
 
     }
 
@@ -329,7 +355,12 @@ public class LogicalDeployment extends LogicalModelItem {
         }
 
         if (serviceIndex != -1) {
-            this.logicalServices.remove(serviceIndex);
+            LogicalModelItemIndex<LogicalService> index = logicalServicesIndex;
+            boolean indexUpToDate = index != null && index.isBuiltFrom(this.logicalServices);
+            LogicalService removed = this.logicalServices.remove(serviceIndex);
+            if (indexUpToDate) {
+                index.removed(removed);
+            }
         }
         //TODO: uncomment when Matrix service deletion will be refactored
 //		this.logicalServices.remove(logicalService);
@@ -397,8 +428,12 @@ public class LogicalDeployment extends LogicalModelItem {
             }
         }
 
-		Set<LogicalMomService> logicalMomServices = listLogicalServices(LogicalMomService.class);
-		for (LogicalMomService logicalMomService : logicalMomServices) {
+		List<LogicalMomService> logicalMomServices = new ArrayList<LogicalMomService>(listLogicalServices(LogicalMomService.class));
+		// Group services by destination and dead letter queue names, rather than comparing each pair of services
+		Map<String, List<Integer>> servicesByDestinationName = groupPositionsByName(logicalMomServices, false);
+		Map<String, List<Integer>> servicesByDeadLetterQueueName = groupPositionsByName(logicalMomServices, true);
+		for (int i = 0; i < logicalMomServices.size(); i++) {
+			LogicalMomService logicalMomService = logicalMomServices.get(i);
 			// Check that the dead letter queue is defined when checked.
 			if (logicalMomService.hasDeadLetterQueue) {
 				if (logicalMomService.getDeadLetterQueueName() == null || logicalMomService.getDeadLetterQueueName().equals("")) {
@@ -409,23 +444,11 @@ public class LogicalDeployment extends LogicalModelItem {
 				}
 			}
 			// Check that we don't have duplicated JNDI names.
-			for (LogicalMomService logicalMomService2 : logicalMomServices) {
-				if (logicalMomService != logicalMomService2) {
-					if (logicalMomService.getDestinationName().equals(logicalMomService2.getDestinationName())) {
-						errors.add(new BusinessException("Destination name must be unique. Duplicate destination name: "
-								+ logicalMomService.getDestinationName()));
-					}
-					if (logicalMomService.getDestinationName().equals(logicalMomService2.getDeadLetterQueueName())) {
-						errors.add(new BusinessException("Destination name can't be the same as dead letter queue name: "
-								+ logicalMomService.getDestinationName()));
-					}
-				} else {
-					if (logicalMomService.getDestinationName().equals(logicalMomService.getDeadLetterQueueName())) {
-						errors.add(new BusinessException("Destination name can't be the same as dead letter queue name: "
-								+ logicalMomService.getDestinationName()));
-					}
-				}
+			String destinationName = logicalMomService.getDestinationName();
+			if (destinationName == null) {
+				continue;
 			}
+			addDestinationNameErrors(i, destinationName, servicesByDestinationName.get(destinationName), servicesByDeadLetterQueueName.get(destinationName), errors);
 		}
 
         try {
@@ -435,11 +458,58 @@ public class LogicalDeployment extends LogicalModelItem {
             errors.add(new BusinessException("Invalid architecture: fails javax.validation: " + e, e));
         }
         if (!errors.isEmpty()) {
-            logger.debug("Detected consistency errors in logical model:" + errors);
+            logger.debug("Detected consistency errors in logical model: {}", errors);
             throw new LogicalModelNotConsistentException(errors);
         }
     }
 
+    /**
+     * @return positions of the given services, grouped by destination name (or dead letter queue name)
+     */
+    private static Map<String, List<Integer>> groupPositionsByName(List<LogicalMomService> logicalMomServices, boolean deadLetterQueueName) {
+        Map<String, List<Integer>> positionsByName = new HashMap<String, List<Integer>>();
+        for (int i = 0; i < logicalMomServices.size(); i++) {
+            LogicalMomService logicalMomService = logicalMomServices.get(i);
+            String name = deadLetterQueueName ? logicalMomService.getDeadLetterQueueName() : logicalMomService.getDestinationName();
+            List<Integer> positions = positionsByName.get(name);
+            if (positions == null) {
+                positions = new ArrayList<Integer>();
+                positionsByName.put(name, positions);
+            }
+            positions.add(i);
+        }
+        return positionsByName;
+    }
+
+    /**
+     * Reports the services clashing with the destination name of the service at the given position, in services
+     * order, as comparing the service with every other one would.
+     *
+     * @param sameDestinationName ascending positions of services with this destination name, or null
+     * @param sameDeadLetterQueueName ascending positions of services with this dead letter queue name, or null
+     */
+    private static void addDestinationNameErrors(int position, String destinationName, List<Integer> sameDestinationName, List<Integer> sameDeadLetterQueueName, List<BusinessException> errors) {
+        List<Integer> destinations = sameDestinationName == null ? Collections.<Integer>emptyList() : sameDestinationName;
+        List<Integer> deadLetterQueues = sameDeadLetterQueueName == null ? Collections.<Integer>emptyList() : sameDeadLetterQueueName;
+        int d = 0;
+        int q = 0;
+        while (d < destinations.size() || q < deadLetterQueues.size()) {
+            int nextDestination = d < destinations.size() ? destinations.get(d) : Integer.MAX_VALUE;
+            int nextDeadLetterQueue = q < deadLetterQueues.size() ? deadLetterQueues.get(q) : Integer.MAX_VALUE;
+            int other = Math.min(nextDestination, nextDeadLetterQueue);
+            if (other == nextDestination) {
+                d++;
+                if (other != position) {
+                    errors.add(new BusinessException("Destination name must be unique. Duplicate destination name: " + destinationName));
+                }
+            }
+            if (other == nextDeadLetterQueue) {
+                q++;
+                errors.add(new BusinessException("Destination name can't be the same as dead letter queue name: " + destinationName));
+            }
+        }
+    }
+
 	/**
 	 * gets an XML representation of the model
 	 * @return
@@ -528,14 +598,27 @@ public class LogicalDeployment extends LogicalModelItem {
 	}
 
     public LogicalService findLogicalService(String label) {
-        for (LogicalService logicalService : logicalServices) {
-            if (logicalService.getLabel().equals(label)) {
-                return logicalService;
-            }
+        LogicalService logicalService = logicalServicesIndex().findByLabel(label);
+        if (logicalService != null) {
+            return logicalService;
         }
         throw new IllegalArgumentException( "Unknown execution node " + label );
     }
 
+    private LogicalModelItemIndex<ProcessingNode> processingNodesIndex() {
+        if (processingNodesIndex == null || !processingNodesIndex.isBuiltFrom(processingNodes)) {
+            processingNodesIndex = new LogicalModelItemIndex<ProcessingNode>(processingNodes);
+        }
+        return processingNodesIndex;
+    }
+
+    private LogicalModelItemIndex<LogicalService> logicalServicesIndex() {
+        if (logicalServicesIndex == null || !logicalServicesIndex.isBuiltFrom(logicalServices)) {
+            logicalServicesIndex = new LogicalModelItemIndex<LogicalService>(logicalServices);
+        }
+        return logicalServicesIndex;
+    }
+
 	public boolean noProcessingNodes() {
 		List<JeeProcessing> jeeProcessings = listProcessingNodes(JeeProcessing.class);
 		List<CFJavaProcessing> cfJavaProcessings = listProcessingNodes(CFJavaProcessing.class);
@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.logicalmodel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of the processing nodes or logical services of a
+ * {@link LogicalDeployment}, by concrete class, label and name.
+ * <p>
+ * Labels and names may be edited once an item belongs to the deployment: hits
+ * are checked against the item, and misses fall back to a scan of the indexed
+ * list, fixing the index on the way.
+ */
+class LogicalModelItemIndex<T extends LogicalModelItem> {
+
+    private final List<T> items;
+
+    private int indexedSize;
+
+    private final Map<Class<?>, List<T>> itemsByType = new HashMap<Class<?>, List<T>>();
+
+    private final Map<String, T> itemsByLabel = new HashMap<String, T>();
+
+    private final Map<String, T> itemsByName = new HashMap<String, T>();
+
+    /**
+     * Concrete classes already met for a requested filter type
+     */
+    private final Map<Class<?>, List<Class<?>>> matchingTypes = new HashMap<Class<?>, List<Class<?>>>();
+
+    LogicalModelItemIndex(List<T> items) {
+        this.items = items;
+        for (T item : items) {
+            index(item);
+        }
+        this.indexedSize = items.size();
+    }
+
+    /**
+     * @return true if this index reflects the given list, false if it was replaced (JPA load, Jaxb
+     * unmarshalling, copy) or modified without notifying this index
+     */
+    boolean isBuiltFrom(List<T> list) {
+        return items == list && indexedSize == list.size();
+    }
+
+    /**
+     * To be called once item has been added to the indexed list
+     */
+    void added(T item) {
+        index(item);
+        indexedSize = items.size();
+    }
+
+    /**
+     * To be called once item has been removed from the indexed list
+     */
+    void removed(T item) {
+        List<T> sameTypeItems = itemsByType.get(item.getClass());
+        if (sameTypeItems != null) {
+            for (int i = 0; i < sameTypeItems.size(); i++) {
+                if (sameTypeItems.get(i) == item) {
+                    sameTypeItems.remove(i);
+                    break;
+                }
+            }
+            if (sameTypeItems.isEmpty()) {
+                itemsByType.remove(item.getClass());
+                matchingTypes.clear();
+            }
+        }
+        unindex(itemsByLabel, item.getLabel(), item);
+        unindex(itemsByName, item.getName(), item);
+        indexedSize = items.size();
+    }
+
+    /**
+     * @return a new list of the items which are instances of filteredType, grouped by class
+     */
+    <E extends T> List<E> listByType(Class<E> filteredType) {
+        List<Class<?>> types = matchingTypes.get(filteredType);
+        if (types == null) {
+            types = new ArrayList<Class<?>>();
+            for (Class<?> type : itemsByType.keySet()) {
+                if (filteredType.isAssignableFrom(type)) {
+                    types.add(type);
+                }
+            }
+            matchingTypes.put(filteredType, types);
+        }
+        List<E> matchingItems = new ArrayList<E>();
+        for (Class<?> type : types) {
+            matchingItems.addAll((List<E>) itemsByType.get(type));
+        }
+        return matchingItems;
+    }
+
+    /**
+     * @return the item with the given label, or null if there is none
+     */
+    T findByLabel(String label) {
+        return find(itemsByLabel, label, true);
+    }
+
+    /**
+     * @return the item with the given name, or null if there is none
+     */
+    T findByName(String name) {
+        return find(itemsByName, name, false);
+    }
+
+    private T find(Map<String, T> itemsByKey, String key, boolean byLabel) {
+        if (key == null) {
+            return null;
+        }
+        T item = itemsByKey.get(key);
+        if (item != null && key.equals(keyOf(item, byLabel))) {
+            return item;
+        }
+        // key was edited since item was indexed
+        itemsByKey.remove(key);
+        for (T candidate : items) {
+            if (key.equals(keyOf(candidate, byLabel))) {
+                itemsByKey.put(key, candidate);
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void index(T item) {
+        List<T> sameTypeItems = itemsByType.get(item.getClass());
+        if (sameTypeItems == null) {
+            sameTypeItems = new ArrayList<T>();
+            itemsByType.put(item.getClass(), sameTypeItems);
+            // a new concrete class may match filters already resolved
+            matchingTypes.clear();
+        }
+        sameTypeItems.add(item);
+        // keep the first item on duplicates, as a scan of the list would
+        if (item.getLabel() != null && !itemsByLabel.containsKey(item.getLabel())) {
+            itemsByLabel.put(item.getLabel(), item);
+        }
+        if (item.getName() != null && !itemsByName.containsKey(item.getName())) {
+            itemsByName.put(item.getName(), item);
+        }
+    }
+
+    private void unindex(Map<String, T> itemsByKey, String key, T item) {
+        if (key != null && itemsByKey.get(key) == item) {
+            itemsByKey.remove(key);
+        }
+    }
+
+    private static String keyOf(LogicalModelItem item, boolean byLabel) {
+        return byLabel ? item.getLabel() : item.getName();
+    }
+}
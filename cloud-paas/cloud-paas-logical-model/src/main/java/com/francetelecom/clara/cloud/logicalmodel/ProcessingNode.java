@@ -130,7 +130,7 @@ public abstract class ProcessingNode extends LogicalModelItem {
         for (ProcessingNode executionNode : logicalDeployment.listProcessingNodes()) {
             Validate.isTrue(!executionNode.getLabel().equals(logicalDeployment), "ExecutionNode label expected to be unique, found duplicate:" + logicalDeployment);
         }
-        this.logicalDeployment.processingNodes.add(this);
+        this.logicalDeployment.attachProcessingNode(this);
     }
 
     /**
@@ -138,7 +138,7 @@ public abstract class ProcessingNode extends LogicalModelItem {
      * logical deployment list
      */
     public void discard() {
-        this.logicalDeployment.processingNodes.remove(this);
+        this.logicalDeployment.detachProcessingNode(this);
     }
 
     /**
@@ -13,13 +13,17 @@
 package com.francetelecom.clara.cloud.logicalmodel;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
 import org.junit.Test;
 
+import com.francetelecom.clara.cloud.commons.BusinessException;
+
 public class LogicalDeploymentTest {
 
 	LogicalDeployment ld = new LogicalDeployment();
@@ -102,6 +106,101 @@ public class LogicalDeploymentTest {
 		assertThat(services).isEqualTo(Arrays.asList(execNodeA1,execNodeA2, execNodeA3, execNodeB1, execNodeB2));
 	}
 
+	@Test
+	public void lookups_follow_labels_edited_after_add() {
+		LogicalService service = new LogicalServiceTestTypeA(ld, "service 1");
+		ProcessingNode node = new LogicalExecutionNodeTestTypeA(ld, "node 1");
+		assertThat(ld.findLogicalService("service 1")).isSameAs(service);
+		assertThat(ld.findProcessingNode("node 1")).isSameAs(node);
+
+		service.setLabel("renamed service");
+		node.setLabel("renamed node");
+
+		assertThat(ld.findLogicalService("renamed service")).isSameAs(service);
+		assertThat(ld.listLogicalServices(LogicalServiceTest.class, "renamed service")).containsOnly(service);
+		assertThat(ld.listLogicalServices(LogicalServiceTest.class, "service 1")).isEmpty();
+		assertThat(ld.findProcessingNode("renamed node")).isSameAs(node);
+		assertThat(ld.findProcessingNodeByName(node.getName())).isSameAs(node);
+		try {
+			ld.findProcessingNode("node 1");
+			fail("expected renamed node not to be found by its former label");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void lookups_reflect_removed_nodes_and_services() throws BusinessException {
+		LogicalService sa1 = new LogicalServiceTestTypeA(ld, "service 1");
+		LogicalService sb1 = new LogicalServiceTestTypeB(ld, "service 2");
+		ProcessingNode execNodeA1 = new LogicalExecutionNodeTestTypeA(ld, "node 1");
+		ProcessingNode execNodeB1 = new LogicalExecutionNodeTestTypeB(ld, "node 2");
+		assertThat(ld.listLogicalServices(LogicalServiceTestTypeB.class)).containsOnly(sb1);
+		assertThat(ld.listProcessingNodes(LogicalExecutionNodeTestTypeB.class)).containsOnly(execNodeB1);
+
+		ld.removeLogicalService(sb1);
+		ld.removeProcessingNode(execNodeB1);
+		execNodeA1.discard();
+
+		assertThat(ld.listLogicalServices(LogicalServiceTestTypeB.class)).isEmpty();
+		assertThat(ld.listLogicalServices(LogicalServiceTest.class)).containsOnly(sa1);
+		assertThat(ld.listLogicalServices(null, "service 2")).isEmpty();
+		assertThat(ld.listProcessingNodes(LogicalExecutionNodeTest.class)).isEmpty();
+		// removed labels can be reused
+		LogicalService sb2 = new LogicalServiceTestTypeB(ld, "service 2");
+		assertThat(ld.findLogicalService("service 2")).isSameAs(sb2);
+	}
+
+	@Test
+	public void lookups_reflect_lists_replaced_after_load() {
+		new LogicalServiceTestTypeA(ld, "service 1");
+		new LogicalExecutionNodeTestTypeA(ld, "node 1");
+		assertThat(ld.listLogicalServices(LogicalServiceTest.class)).hasSize(1);
+		assertThat(ld.listProcessingNodes(LogicalExecutionNodeTest.class)).hasSize(1);
+
+		// as JPA or Jaxb would do
+		LogicalDeployment other = new LogicalDeployment();
+		LogicalService loadedService = new LogicalServiceTestTypeB(other, "loaded service");
+		ProcessingNode loadedNode = new LogicalExecutionNodeTestTypeB(other, "loaded node");
+		ld.logicalServices = new ArrayList<LogicalService>(other.logicalServices);
+		ld.processingNodes = new ArrayList<ProcessingNode>(other.processingNodes);
+
+		assertThat(ld.listLogicalServices(LogicalServiceTest.class)).containsOnly(loadedService);
+		assertThat(ld.findLogicalService("loaded service")).isSameAs(loadedService);
+		assertThat(ld.listProcessingNodes(LogicalExecutionNodeTest.class)).containsOnly(loadedNode);
+		assertThat(ld.findProcessingNode("loaded node")).isSameAs(loadedNode);
+	}
+
+	@Test
+	public void clashing_mom_destination_names_are_reported_in_services_order() {
+		LogicalMomService mom1 = new LogicalMomService("mom 1", ld);
+		mom1.setDestinationName("a");
+		mom1.setDeadLetterQueueName("a");
+		LogicalMomService mom2 = new LogicalMomService("mom 2", ld);
+		mom2.setDestinationName("a");
+		mom2.setDeadLetterQueueName("b");
+		LogicalMomService mom3 = new LogicalMomService("mom 3", ld);
+		mom3.setDestinationName("b");
+		mom3.setDeadLetterQueueName("b");
+
+		List<String> destinationErrors = new ArrayList<String>();
+		try {
+			ld.checkOverallConsistency();
+			fail("expected clashing destination names to be reported");
+		} catch (LogicalModelNotConsistentException e) {
+			for (BusinessException error : e.getErrors()) {
+				if (error.getMessage().startsWith("Destination name")) {
+					destinationErrors.add(error.getMessage());
+				}
+			}
+		}
+
+		String duplicateA = "Destination name must be unique. Duplicate destination name: a";
+		String deadLetterQueueA = "Destination name can't be the same as dead letter queue name: a";
+		String deadLetterQueueB = "Destination name can't be the same as dead letter queue name: b";
+		assertThat(destinationErrors).isEqualTo(Arrays.asList(deadLetterQueueA, duplicateA, duplicateA, deadLetterQueueA, deadLetterQueueB, deadLetterQueueB));
+	}
+
 	// LogicalService test classes
 	
 	class LogicalServiceTest extends LogicalService {
@@ -24,13 +24,19 @@ import com.francetelecom.clara.cloud.paas.projection.ProjectionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specifications;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
 
+import static com.francetelecom.clara.cloud.coremodel.ApplicationReleaseSpecifications.*;
+import static org.springframework.data.jpa.domain.Specifications.where;
+
 /**
  * Business implementation for ApplicationRelease management
  * <p/>
@@ -66,11 +72,47 @@ public class ManageApplicationReleaseImpl implements ManageApplicationRelease {
 
     @Override
     public List<ApplicationRelease> findApplicationReleases(int firstIndex, int count) {
-        if (securityUtils.currentUserIsAdmin()) {
-            return applicationReleaseRepository.findAll();
-        } else {
-            return applicationReleaseRepository.findAllPublicOrPrivateByMember(securityUtils.currentUser().getValue());
+        return findApplicationReleases(new ApplicationReleaseSearchCriteria(), firstIndex, count);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.DEFAULT)
+    public List<ApplicationRelease> findApplicationReleases(ApplicationReleaseSearchCriteria criteria, int firstIndex, int count) {
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+        return applicationReleaseRepository.findAll(toSpecification(criteria), new OffsetPageRequest(firstIndex, count, toSort(criteria))).getContent();
+    }
+
+    @Override
+    public long countApplicationReleases(ApplicationReleaseSearchCriteria criteria) {
+        return applicationReleaseRepository.count(toSpecification(criteria));
+    }
+
+    private Specifications<ApplicationRelease> toSpecification(ApplicationReleaseSearchCriteria criteria) {
+        Specifications<ApplicationRelease> specification = where(isActive());
+        if (criteria.isMyReleasesOnly()) {
+            specification = specification.and(hasForMember(securityUtils.currentUser()));
+        } else if (!securityUtils.currentUserIsAdmin()) {
+            specification = specification.and(isPublicOrHasForMember(securityUtils.currentUser()));
+        }
+        if (criteria.getApplicationUID() != null) {
+            specification = specification.and(belongsToApplication(criteria.getApplicationUID()));
+        }
+        if (criteria.getSearchText() != null && !criteria.getSearchText().trim().isEmpty()) {
+            specification = specification.and(matches(criteria.getSearchText().trim()));
+        }
+        return specification;
+    }
+
+    private Sort toSort(ApplicationReleaseSearchCriteria criteria) {
+        Sort.Direction direction = criteria.isAscending() ? Sort.Direction.ASC : Sort.Direction.DESC;
+        if (ApplicationReleaseSearchCriteria.SORT_BY_DESCRIPTION.equals(criteria.getSortProperty())) {
+            return new Sort(direction, "description").and(new Sort(Sort.Direction.ASC, "application.label", "releaseVersion"));
+        } else if (ApplicationReleaseSearchCriteria.SORT_BY_STATE.equals(criteria.getSortProperty())) {
+            return new Sort(direction, "state").and(new Sort(Sort.Direction.ASC, "application.label", "releaseVersion"));
         }
+        return new Sort(direction, "application.label", "releaseVersion");
     }
 
     @Override
@@ -260,6 +302,8 @@ public class ManageApplicationReleaseImpl implements ManageApplicationRelease {
         }
         // cannot remove if not authorized
         assertHasWritePermissionFor(applicationRelease);
+        // templates fingerprint is not edited from UI, keep the persisted one
+        applicationRelease.setTemplatesFingerprint(existing.getTemplatesFingerprint());
 
         return applicationReleaseRepository.save(applicationRelease);
     }
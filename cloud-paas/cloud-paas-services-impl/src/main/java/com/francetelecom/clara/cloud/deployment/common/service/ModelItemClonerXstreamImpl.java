@@ -26,7 +26,9 @@ import java.util.regex.Pattern;
  * transient detached copy - adjsting name with a prefix (all ModelItemName) to
  * avoid unique constraint conflict - resetting id and version
  * 
- * Impl is based on xstream marshalling + regex pattern + xstream unmarshalling
+ * Copy is made in memory by {@link ModelItemGraphCopier}. The xstream
+ * marshalling + regex pattern + xstream unmarshalling of the former copy
+ * remains used to export and import models.
  * 
  * 
  * @author APOG7416
@@ -41,8 +43,17 @@ public class ModelItemClonerXstreamImpl<T> implements ModelItemCloner<T> {
 	// generated by init methods
 	private final XStream xStream = XStreamUtils.instanciateXstreamForHibernate();
 
+	private final ModelItemGraphCopier graphCopier = new ModelItemGraphCopier();
+
     @Override
     public T deepCopy(T original) {
+        return graphCopier.copy(original);
+    }
+
+    /**
+     * Former implementation of {@link #deepCopy(Object)}, through a xml dump
+     */
+    public T deepCopyThroughXml(T original) {
         String xmlDump = dumpToXml(original);
         return preprocessAndImportDump(xmlDump);
     }
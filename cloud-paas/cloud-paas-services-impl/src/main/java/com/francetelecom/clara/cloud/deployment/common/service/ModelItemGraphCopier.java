@@ -0,0 +1,328 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.deployment.common.service;
+
+import com.francetelecom.clara.cloud.commons.TechnicalException;
+import com.francetelecom.clara.cloud.commons.UUIDUtils;
+import com.thoughtworks.xstream.converters.reflection.ReflectionProvider;
+import com.thoughtworks.xstream.core.JVM;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URL;
+import java.text.Format;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Deep copies an object graph in memory, applying on the fly the same transformations as the former xstream
+ * dump / regex / import round trip of {@link ModelItemClonerXstreamImpl}:
+ * <ul>
+ * <li>every <code>name</code> String field gets a new UUID</li>
+ * <li>every <code>id</code> and <code>version</code> field is reset to 0</li>
+ * <li>hibernate proxies are replaced by a copy of their implementation, hibernate persistent collections by
+ * plain java.util collections</li>
+ * <li>cycles and shared references are preserved, transient fields are left to their default value and, as with
+ * xstream, constructors of copied objects are not run</li>
+ * </ul>
+ * Objects are copied iteratively (no recursion), and hashed collections are filled once every object of the graph
+ * has been copied, so that elements are hashed with their new names.
+ * <p>
+ * Thread safe.
+ */
+public class ModelItemGraphCopier {
+
+    private static final String NAME_FIELD = "name";
+    private static final String ID_FIELD = "id";
+    private static final String VERSION_FIELD = "version";
+
+    private static final Pattern DIGITS = Pattern.compile("[0-9]*");
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<Class<?>>();
+
+    static {
+        for (Class<?> type : new Class<?>[] { String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+                Float.class, Double.class, BigDecimal.class, BigInteger.class, UUID.class, URL.class, URI.class, Locale.class, Class.class }) {
+            IMMUTABLE_TYPES.add(type);
+        }
+    }
+
+    private final ReflectionProvider reflectionProvider = new JVM().bestReflectionProvider();
+
+    private final ConcurrentMap<Class<?>, List<Field>> fieldsByClass = new ConcurrentHashMap<Class<?>, List<Field>>();
+
+    /**
+     * @param original root of the graph to copy
+     * @return the copy
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T copy(T original) {
+        Copy copy = new Copy();
+        T result = (T) copy.copyOf(original);
+        copy.run();
+        return result;
+    }
+
+    /**
+     * State of a single copy
+     */
+    private class Copy {
+
+        final Map<Object, Object> copies = new IdentityHashMap<Object, Object>();
+
+        /**
+         * original objects whose fields still have to be copied
+         */
+        final Deque<Object> pendingObjects = new ArrayDeque<Object>();
+
+        /**
+         * collections and maps to fill, with their copied elements (or key/value pairs)
+         */
+        final List<Object[]> pendingFills = new ArrayList<Object[]>();
+
+        void run() {
+            while (!pendingObjects.isEmpty()) {
+                Object original = pendingObjects.removeFirst();
+                copyFields(original, copies.get(original));
+            }
+            for (Object[] fill : pendingFills) {
+                fill(fill[0], (Object[]) fill[1]);
+            }
+        }
+
+        /**
+         * Returns the copy of an object, creating it if needed. Fields of newly created copies are copied later on.
+         */
+        Object copyOf(Object original) {
+            if (original == null || isImmutable(original.getClass())) {
+                return original;
+            }
+            if (original instanceof HibernateProxy) {
+                Object implementation = ((HibernateProxy) original).getHibernateLazyInitializer().getImplementation();
+                Object copy = copyOf(implementation);
+                copies.put(original, copy);
+                return copy;
+            }
+            Object copy = copies.get(original);
+            if (copy != null) {
+                return copy;
+            }
+            Class<?> type = original.getClass();
+            if (type.isArray()) {
+                copy = copyArray(original);
+            } else if (original instanceof Date) {
+                copy = ((Date) original).clone();
+            } else if (original instanceof Calendar) {
+                copy = ((Calendar) original).clone();
+            } else if (original instanceof Format) {
+                copy = ((Format) original).clone();
+            } else if (original instanceof Collection && (original instanceof PersistentCollection || isPlainJdkType(type))) {
+                copy = newCollection((Collection<?>) original);
+                copies.put(original, copy);
+                List<Object> elements = new ArrayList<Object>(((Collection<?>) original).size());
+                for (Object element : (Collection<?>) original) {
+                    elements.add(copyOf(element));
+                }
+                pendingFills.add(new Object[] { copy, elements.toArray() });
+            } else if (original instanceof Map && (original instanceof PersistentCollection || isPlainJdkType(type))) {
+                copy = newMap((Map<?, ?>) original);
+                copies.put(original, copy);
+                Map<?, ?> map = (Map<?, ?>) original;
+                Object[] entries = new Object[map.size() * 2];
+                int i = 0;
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    entries[i++] = copyOf(entry.getKey());
+                    entries[i++] = copyOf(entry.getValue());
+                }
+                pendingFills.add(new Object[] { copy, entries });
+            } else {
+                copy = reflectionProvider.newInstance(type);
+                pendingObjects.addLast(original);
+            }
+            copies.put(original, copy);
+            return copy;
+        }
+
+        private Object copyArray(Object original) {
+            int length = Array.getLength(original);
+            Object copy = Array.newInstance(original.getClass().getComponentType(), length);
+            copies.put(original, copy);
+            if (original.getClass().getComponentType().isPrimitive()) {
+                System.arraycopy(original, 0, copy, 0, length);
+            } else {
+                Object[] originalElements = (Object[]) original;
+                Object[] copiedElements = (Object[]) copy;
+                for (int i = 0; i < length; i++) {
+                    copiedElements[i] = copyOf(originalElements[i]);
+                }
+            }
+            return copy;
+        }
+
+        private void copyFields(Object original, Object copy) {
+            try {
+                for (Field field : fieldsOf(original.getClass())) {
+                    Object value = field.get(original);
+                    String fieldName = field.getName();
+                    if (NAME_FIELD.equals(fieldName) && value instanceof String) {
+                        value = UUIDUtils.generateUUID();
+                    } else if (ID_FIELD.equals(fieldName) || VERSION_FIELD.equals(fieldName)) {
+                        value = resetIdentifier(value);
+                    } else if (!field.getType().isPrimitive()) {
+                        value = copyOf(value);
+                    }
+                    field.set(copy, value);
+                }
+            } catch (IllegalAccessException e) {
+                throw new TechnicalException("Unable to copy " + original.getClass().getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Same as the former <code>&lt;id&gt;[0-9]*&lt;/id&gt;</code> replacement: non negative numbers and digit only
+     * strings are reset to 0
+     */
+    private static Object resetIdentifier(Object value) {
+        if (value instanceof Integer && (Integer) value >= 0) {
+            return 0;
+        }
+        if (value instanceof Long && (Long) value >= 0) {
+            return 0L;
+        }
+        if (value instanceof Short && (Short) value >= 0) {
+            return (short) 0;
+        }
+        if (value instanceof Byte && (Byte) value >= 0) {
+            return (byte) 0;
+        }
+        if (value instanceof String && DIGITS.matcher((String) value).matches()) {
+            return "0";
+        }
+        return value;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static void fill(Object target, Object[] elements) {
+        if (target instanceof Collection) {
+            Collection collection = (Collection) target;
+            for (Object element : elements) {
+                collection.add(element);
+            }
+        } else {
+            Map map = (Map) target;
+            for (int i = 0; i < elements.length; i += 2) {
+                map.put(elements[i], elements[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Persistent collections are mapped to the same types as the xstream HibernateMapper
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Collection<?> newCollection(Collection<?> original) {
+        if (original instanceof SortedSet) {
+            return new TreeSet(((SortedSet) original).comparator());
+        }
+        if (original instanceof PersistentCollection) {
+            return original instanceof Set ? new HashSet() : new ArrayList();
+        }
+        return (Collection<?>) newPlainJdkInstance(original.getClass());
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Map<?, ?> newMap(Map<?, ?> original) {
+        if (original instanceof SortedMap) {
+            return new TreeMap(((SortedMap) original).comparator());
+        }
+        if (original instanceof PersistentCollection) {
+            return new HashMap();
+        }
+        return (Map<?, ?>) newPlainJdkInstance(original.getClass());
+    }
+
+    private static Object newPlainJdkInstance(Class<?> type) {
+        try {
+            return type.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new TechnicalException("Unable to instantiate " + type.getName(), e);
+        }
+    }
+
+    /**
+     * @return true for public java.util collections and maps having a public no arg constructor (ArrayList,
+     *         HashSet, LinkedHashMap...), which are copied element by element. Other collections (unmodifiable
+     *         wrappers...) are copied field by field.
+     */
+    private static boolean isPlainJdkType(Class<?> type) {
+        if (!type.getName().startsWith("java.util.") || !Modifier.isPublic(type.getModifiers())) {
+            return false;
+        }
+        try {
+            return Modifier.isPublic(type.getConstructor().getModifiers());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static boolean isImmutable(Class<?> type) {
+        return IMMUTABLE_TYPES.contains(type) || Enum.class.isAssignableFrom(type);
+    }
+
+    /**
+     * @return copied fields of a class: non static and non transient fields, including inherited ones
+     */
+    private List<Field> fieldsOf(Class<?> type) {
+        List<Field> fields = fieldsByClass.get(type);
+        if (fields == null) {
+            fields = new ArrayList<Field>();
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            fieldsByClass.putIfAbsent(type, fields);
+        }
+        return fields;
+    }
+}
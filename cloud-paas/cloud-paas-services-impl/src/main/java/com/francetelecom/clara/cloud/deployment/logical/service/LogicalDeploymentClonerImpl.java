@@ -16,8 +16,8 @@ import com.francetelecom.clara.cloud.deployment.common.service.ModelItemClonerXs
 import com.francetelecom.clara.cloud.logicalmodel.LogicalDeployment;
 
 /**
- * Clones a logical deployment using stream XML serialization and deserialization,
- * and inserting clearing of id and adding a name prefix.
+ * Clones a logical deployment in memory, clearing ids and renaming items. XML
+ * serialization and deserialization is used for import and export.
  */
 public class LogicalDeploymentClonerImpl extends ModelItemClonerXstreamImpl<LogicalDeployment> implements LogicalDeploymentCloner {
 }
@@ -15,12 +15,14 @@ package com.francetelecom.clara.cloud.deployment.logical.service;
 import com.francetelecom.clara.cloud.commons.BusinessException;
 import com.francetelecom.clara.cloud.commons.InvalidMavenReferenceException;
 import com.francetelecom.clara.cloud.commons.MavenReference;
+import com.francetelecom.clara.cloud.commons.TechnicalException;
 import com.francetelecom.clara.cloud.commons.ValidatorUtil;
 import com.francetelecom.clara.cloud.core.service.exception.InvalidReleaseException;
 import com.francetelecom.clara.cloud.core.service.exception.ObjectNotFoundException;
 import com.francetelecom.clara.cloud.coremodel.Application;
 import com.francetelecom.clara.cloud.coremodel.ApplicationRelease;
 import com.francetelecom.clara.cloud.coremodel.ApplicationReleaseRepository;
+import com.francetelecom.clara.cloud.environment.impl.DeploymentTemplatesProjector;
 import com.francetelecom.clara.cloud.logicalmodel.*;
 import com.francetelecom.clara.cloud.mvn.consumer.MavenReferenceResolutionException;
 import com.francetelecom.clara.cloud.mvn.consumer.MvnRepoDao;
@@ -31,9 +33,19 @@ import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PreDestroy;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Business implementation for LogicalDeployment component
@@ -63,6 +75,39 @@ public class ManageLogicalDeploymentImpl implements ManageLogicalDeployment {
 	@Autowired
 	private LogicalDeploymentCloner cloner;
 
+	/**
+	 * Projects releases in background once their logical deployment is found
+	 * consistent. Optional: when missing, releases are projected on first
+	 * environment creation.
+	 */
+	@Autowired(required = false)
+	private DeploymentTemplatesProjector deploymentTemplatesProjector;
+
+	/**
+	 * Checks maven references in parallel, each check being a maven resolution followed by a http HEAD
+	 */
+	private final ThreadPoolExecutor mavenReferenceCheckExecutor;
+
+	/**
+	 * Overall delay allowed to check all maven references of a logical deployment
+	 */
+	private long mavenReferenceCheckTimeoutMs = 5 * 60 * 1000;
+
+	public ManageLogicalDeploymentImpl() {
+		mavenReferenceCheckExecutor = new ThreadPoolExecutor(8, 8, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			private final AtomicInteger threadCount = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "maven-reference-check-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		// idle workers are not kept between consistency checks
+		mavenReferenceCheckExecutor.allowCoreThreadTimeOut(true);
+	}
+
 	@Override
 	public void checkLogicalSoapServiceConsistency(LogicalSoapService logSoapService, boolean fullValidation) throws BusinessException {
 		// check soap attachments maven reference
@@ -96,7 +141,16 @@ public class ManageLogicalDeploymentImpl implements ManageLogicalDeployment {
 		checkOverallConsistency(logicalDeployment, true);
 
 		// if no error, then persist our updates
-		return logicalDeploymentRepository.save(logicalDeployment);
+		LogicalDeployment updated = logicalDeploymentRepository.save(logicalDeployment);
+
+		// consistent logical deployment can be projected right now
+		if (deploymentTemplatesProjector != null) {
+			ApplicationRelease release = applicationReleaseRepository.findByLogicalDeploymentId(updated.getId());
+			if (release != null && release.isEditing()) {
+				deploymentTemplatesProjector.projectAfterCommit(release.getUID());
+			}
+		}
+		return updated;
 	}
 
 	@Override
@@ -150,15 +204,11 @@ public class ManageLogicalDeploymentImpl implements ManageLogicalDeployment {
 		}
 		// Check each maven references and update access URL if updateModelFlag
 		// is true
-		for (MavenReference mavenRef : mavenReferences) {
-			URL accessUrl = null;
-			try {
-				accessUrl = checkMavenReference(mavenRef);
-			} catch (InvalidMavenReferenceException e) {
-				errors.add(e);
+		List<URL> accessUrls = checkMavenReferences(mavenReferences, errors);
+		if (updateModelFlag) {
+			for (int i = 0; i < mavenReferences.size(); i++) {
+				mavenReferences.get(i).setAccessUrl(accessUrls.get(i));
 			}
-			if (updateModelFlag)
-				mavenRef.setAccessUrl(accessUrl);
 		}
 
 		try {
@@ -175,6 +225,60 @@ public class ManageLogicalDeploymentImpl implements ManageLogicalDeployment {
 		}
 	}
 
+	/**
+	 * Checks maven references in parallel, within {@link #mavenReferenceCheckTimeoutMs}
+	 * 
+	 * @param mavenReferences
+	 *            references to check
+	 * @param errors
+	 *            filled with an {@link InvalidMavenReferenceException} per
+	 *            invalid reference, in the order of the references
+	 * @return access urls of the references, in the same order (null for
+	 *         invalid references)
+	 */
+	private List<URL> checkMavenReferences(List<MavenReference> mavenReferences, List<BusinessException> errors) {
+		List<Future<URL>> checks = new ArrayList<Future<URL>>(mavenReferences.size());
+		for (final MavenReference mavenRef : mavenReferences) {
+			checks.add(mavenReferenceCheckExecutor.submit(new Callable<URL>() {
+				@Override
+				public URL call() throws InvalidMavenReferenceException {
+					return checkMavenReference(mavenRef);
+				}
+			}));
+		}
+		long deadline = System.currentTimeMillis() + mavenReferenceCheckTimeoutMs;
+		List<URL> accessUrls = new ArrayList<URL>(mavenReferences.size());
+		try {
+			for (int i = 0; i < checks.size(); i++) {
+				URL accessUrl = null;
+				try {
+					accessUrl = checks.get(i).get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof InvalidMavenReferenceException) {
+						errors.add((InvalidMavenReferenceException) cause);
+					} else if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					} else {
+						throw new TechnicalException("Unable to check maven reference " + mavenReferences.get(i), cause);
+					}
+				} catch (TimeoutException e) {
+					log.warn("Maven reference " + mavenReferences.get(i) + " could not be checked within " + mavenReferenceCheckTimeoutMs + " ms");
+					errors.add(new InvalidMavenReferenceException(mavenReferences.get(i), InvalidMavenReferenceException.ErrorType.UNKNOWN));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new TechnicalException("Interrupted while checking maven references", e);
+				}
+				accessUrls.add(accessUrl);
+			}
+		} finally {
+			for (Future<URL> check : checks) {
+				check.cancel(true);
+			}
+		}
+		return accessUrls;
+	}
+
 	@Override
 	@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.DEFAULT, rollbackForClassName = { "BusinessException" })
 	public LogicalDeployment updateLogicalDeployment(LogicalDeployment logicalDeployment) throws ObjectNotFoundException, InvalidMavenReferenceException {
@@ -272,10 +376,37 @@ public class ManageLogicalDeploymentImpl implements ManageLogicalDeployment {
 		this.logicalDeploymentRepository = logicalDeploymentRepository;
 	}
 
+	public void setDeploymentTemplatesProjector(DeploymentTemplatesProjector deploymentTemplatesProjector) {
+		this.deploymentTemplatesProjector = deploymentTemplatesProjector;
+	}
+
 	public void setMvnRepoDao(MvnRepoDao mvnRepoDao) {
 		this.mvnRepoDao = mvnRepoDao;
 	}
 
+	/**
+	 * @param poolSize
+	 *            maximum number of maven references checked at the same time
+	 */
+	public void setMavenReferenceCheckPoolSize(int poolSize) {
+		if (poolSize > mavenReferenceCheckExecutor.getMaximumPoolSize()) {
+			mavenReferenceCheckExecutor.setMaximumPoolSize(poolSize);
+			mavenReferenceCheckExecutor.setCorePoolSize(poolSize);
+		} else {
+			mavenReferenceCheckExecutor.setCorePoolSize(poolSize);
+			mavenReferenceCheckExecutor.setMaximumPoolSize(poolSize);
+		}
+	}
+
+	public void setMavenReferenceCheckTimeoutMs(long mavenReferenceCheckTimeoutMs) {
+		this.mavenReferenceCheckTimeoutMs = mavenReferenceCheckTimeoutMs;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		mavenReferenceCheckExecutor.shutdownNow();
+	}
+
 	@Override
 	public List<String> getQrsApplicationVersions(String domain, String appName) throws ObjectNotFoundException {
         List<String> lstApplicationVersions = new ArrayList<String>();
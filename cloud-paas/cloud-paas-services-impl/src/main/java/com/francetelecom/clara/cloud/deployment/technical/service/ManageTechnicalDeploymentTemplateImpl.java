@@ -25,6 +25,8 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 
+import java.util.List;
+
 /**
  * Business implementation for TechnicalDeploymentTemplate management
  * 
@@ -70,6 +72,15 @@ public class ManageTechnicalDeploymentTemplateImpl implements ManageTechnicalDep
 
 	}
 
+	@Override
+	@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.DEFAULT)
+	public void deleteTechnicalDeploymentTemplates(String releaseId) {
+		Assert.notNull(releaseId, "cannot delete technical deployment templates. no release id has been provided");
+		List<TechnicalDeploymentTemplate> tdts = technicalDeploymentTemplateRepository.findAllByReleaseId(releaseId);
+		log.debug("/******* deleting " + tdts.size() + " tdt(s) of release [" + releaseId + "] **********/");
+		technicalDeploymentTemplateRepository.delete(tdts);
+	}
+
 	@Override
 	public TechnicalDeploymentTemplate findTechnicalDeploymentTemplate(DeploymentProfileEnum profile, String releaseId) throws NotFoundException {
 		Assert.notNull(profile, "cannot find technical deployment template for release<" + releaseId + "> with profile <" + profile + ">. no profile has been provided");
@@ -20,7 +20,7 @@ import com.francetelecom.clara.cloud.model.TechnicalDeployment;
  * transient detached copy - adjsting name with a prefix (all ModelItemName) to
  * avoid unique constraint conflict - resetting id and version
  * 
- * Impl is based on xstream marshalling + regex pattern + xstream unmarshalling
+ * Impl is based on an in memory copy of the object graph, see ModelItemClonerXstreamImpl
  * 
  * 
  * @author APOG7416
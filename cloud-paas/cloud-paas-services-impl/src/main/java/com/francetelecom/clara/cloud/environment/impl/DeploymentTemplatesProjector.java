@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.environment.impl;
+
+import com.francetelecom.clara.cloud.paas.projection.UnsupportedProjectionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Projects technical deployment templates of a release in background as soon
+ * as its logical deployment is found consistent, so that the creation of its
+ * first environment does not pay for the projection.
+ * 
+ * Projection of a release holds the same lock as environment creation (see
+ * {@link ManageEnvironmentImpl#createEnvironment}): an environment creation
+ * only waits for a projection which is in flight, and then reuses its
+ * templates.
+ */
+public class DeploymentTemplatesProjector {
+
+	private static final Logger log = LoggerFactory.getLogger(DeploymentTemplatesProjector.class);
+
+	@Autowired
+	private ManageEnvironmentImplUtils utils;
+
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Releases whose projection is queued but not started yet
+	 */
+	private final Set<String> queuedReleases = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	public DeploymentTemplatesProjector() {
+		executor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			private final AtomicInteger threadCount = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "deployment-templates-projection-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Schedule projection of a release once current transaction (if any) is
+	 * committed, so that projection sees the logical deployment which has
+	 * just been checked.
+	 * 
+	 * @param releaseUID
+	 *            release uid
+	 */
+	public void projectAfterCommit(final String releaseUID) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					submit(releaseUID);
+				}
+			});
+		} else {
+			submit(releaseUID);
+		}
+	}
+
+	void submit(final String releaseUID) {
+		if (!queuedReleases.add(releaseUID)) {
+			// queued projection will read the latest logical deployment
+			return;
+		}
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					queuedReleases.remove(releaseUID);
+					project(releaseUID);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			queuedReleases.remove(releaseUID);
+			log.warn("Unable to schedule projection of release " + releaseUID + ", it will be projected when its first environment is created");
+		}
+	}
+
+	protected void project(String releaseUID) {
+		long start = System.currentTimeMillis();
+		try {
+			synchronized (releaseUID.intern()) {
+				utils.projectDeploymentTemplates(releaseUID);
+			}
+			log.info("[STATS] Duration : " + (System.currentTimeMillis() - start) + "ms for projectDeploymentTemplates(" + releaseUID + ")");
+		} catch (UnsupportedProjectionException e) {
+			log.info("Release " + releaseUID + " can not be projected: " + e.getMessage());
+		} catch (RuntimeException e) {
+			log.warn("Projection of release " + releaseUID + " failed, it will be projected when its first environment is created", e);
+		}
+	}
+
+	/**
+	 * @param poolSize
+	 *            maximum number of releases projected at the same time
+	 */
+	public void setPoolSize(int poolSize) {
+		if (poolSize > executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(poolSize);
+			executor.setCorePoolSize(poolSize);
+		} else {
+			executor.setCorePoolSize(poolSize);
+			executor.setMaximumPoolSize(poolSize);
+		}
+	}
+
+	public void setUtils(ManageEnvironmentImplUtils utils) {
+		this.utils = utils;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
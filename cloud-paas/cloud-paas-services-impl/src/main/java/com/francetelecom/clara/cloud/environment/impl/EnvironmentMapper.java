@@ -15,12 +15,14 @@ package com.francetelecom.clara.cloud.environment.impl;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.Assert;
 
 import com.francetelecom.clara.cloud.core.service.SecurityUtils;
 import com.francetelecom.clara.cloud.coremodel.Environment;
+import com.francetelecom.clara.cloud.coremodel.EnvironmentSummary;
 import com.francetelecom.clara.cloud.services.dto.EnvironmentDto;
 import com.francetelecom.clara.cloud.services.dto.EnvironmentDto.EnvironmentStatusEnum;
 import com.francetelecom.clara.cloud.services.dto.EnvironmentDto.EnvironmentTypeEnum;
@@ -71,6 +73,36 @@ public class EnvironmentMapper {
 		return dtos;
 	}
 
+	/**
+	 * Maps a projection of an environment. Its internal name is left unset as it
+	 * requires loading the technical deployment.
+	 */
+	public EnvironmentDto toEnvironmentDto(EnvironmentSummary summary, boolean writable) {
+		EnvironmentTypeEnum environmentType = EnvironmentTypeEnum.valueOf(summary.getType().name());
+		EnvironmentStatusEnum environmentStatus = EnvironmentStatusEnum.valueOf(summary.getStatus().name());
+
+		EnvironmentDto dto = new EnvironmentDto(summary.getUID(), null, summary.getLabel(), summary.getApplicationLabel(), summary.getReleaseUID(),
+				summary.getReleaseVersion(), summary.getOwnerSsoId(), summary.getOwnerFirstName(), summary.getCreationDate(), environmentType,
+				environmentStatus, summary.getStatusMessage(), summary.getStatusPercent(), summary.getComment(), summary.getTechnicalDeploymentName());
+
+		dto.setEditable(writable);
+
+		return dto;
+	}
+
+	/**
+	 * @param writableApplicationUIDs
+	 *            UIDs of the applications whose environments the connected user
+	 *            can update
+	 */
+	public List<EnvironmentDto> toEnvironmentDtoList(List<EnvironmentSummary> summaries, Set<String> writableApplicationUIDs) {
+		List<EnvironmentDto> dtos = new ArrayList<EnvironmentDto>();
+		for (EnvironmentSummary summary : summaries) {
+			dtos.add(toEnvironmentDto(summary, writableApplicationUIDs.contains(summary.getApplicationUID())));
+		}
+		return dtos;
+	}
+
 	public void setSecurityUtils(SecurityUtils securityUtils) {
 		this.securityUtils = securityUtils;
 	}
@@ -15,6 +15,7 @@ package com.francetelecom.clara.cloud.environment.impl;
 import com.francetelecom.clara.cloud.commons.BusinessException;
 import com.francetelecom.clara.cloud.commons.DateHelper;
 import com.francetelecom.clara.cloud.commons.TechnicalException;
+import com.francetelecom.clara.cloud.core.service.EnvironmentSearchCriteria;
 import com.francetelecom.clara.cloud.core.service.ManageEnvironment;
 import com.francetelecom.clara.cloud.core.service.SecurityUtils;
 import com.francetelecom.clara.cloud.core.service.exception.ApplicationReleaseNotFoundException;
@@ -25,6 +26,7 @@ import com.francetelecom.clara.cloud.model.DeploymentProfileEnum;
 import com.francetelecom.clara.cloud.model.TechnicalDeployment;
 import com.francetelecom.clara.cloud.model.TechnicalDeploymentInstance;
 import com.francetelecom.clara.cloud.paas.activation.ManagePaasActivation;
+import com.francetelecom.clara.cloud.paas.activation.TaskStatusActivation;
 import com.francetelecom.clara.cloud.services.dto.EnvironmentDetailsDto;
 import com.francetelecom.clara.cloud.services.dto.EnvironmentDto;
 import com.francetelecom.clara.cloud.services.dto.EnvironmentDto.EnvironmentStatusEnum;
@@ -39,6 +41,7 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
@@ -83,6 +86,9 @@ public class ManageEnvironmentImpl implements ManageEnvironment {
     @Autowired
     private ApplicationReleaseRepository applicationReleaseRepository;
 
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
     @Autowired
     private LogService logService;
 
@@ -104,7 +110,8 @@ public class ManageEnvironmentImpl implements ManageEnvironment {
             log.debug("createEnvironment: releaseUID={} type={} label={}", new Object[]{releaseUID, type.name(), label});
             synchronized (releaseUID.intern()) {
                 // Synchronized this part to avoid pultiple creation of the same
-                // environment
+                // environment. Also waits for the templates of the release
+                // when DeploymentTemplatesProjector is projecting them.
                 Validate.notNull(type, "cannot create TDI : environment type should not be null");
                 environmentUID = utils.createTDI(releaseUID, DeploymentProfileEnum.valueOf(type.name()), ownerSsoId, label, configRoleUIDs);
             }
@@ -119,7 +126,10 @@ public class ManageEnvironmentImpl implements ManageEnvironment {
             //
             // Start Activate Here
             //
-            managePaasActivation.activate(justCreatedEnvironment.getTechnicalDeploymentInstance().getId());
+            TaskStatusActivation activation = managePaasActivation.activate(justCreatedEnvironment.getTechnicalDeploymentInstance().getId());
+            if (showQueuePosition(justCreatedEnvironment, activation)) {
+                environmentRepository.save(justCreatedEnvironment);
+            }
             // this log is used by splunk dashboard
             log.info("[STATS] Duration : " + (System.currentTimeMillis() - start) + "ms for createEnvironment#2(" + releaseUID + ", " + type + ", " + ownerSsoId + ", " + label
                     + ")");
@@ -206,6 +216,52 @@ public class ManageEnvironmentImpl implements ManageEnvironment {
         return environmentMapper.toEnvironmentDtoList(environmentRepository.findAllActiveByApplicationMember(securityUtils.currentUser().getValue()));
     }
 
+    @Override
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.DEFAULT)
+    public List<EnvironmentDto> findEnvironments(EnvironmentSearchCriteria criteria, int firstIndex, int count) {
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+        List<EnvironmentSummary> summaries = environmentRepository.findActiveSummaries(toEnvironmentFilter(criteria),
+                new OffsetPageRequest(firstIndex, count, toSort(criteria)));
+        return environmentMapper.toEnvironmentDtoList(summaries, writableApplicationUIDs(summaries));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.DEFAULT)
+    public long countEnvironments(EnvironmentSearchCriteria criteria) {
+        return environmentRepository.countActive(toEnvironmentFilter(criteria));
+    }
+
+    private EnvironmentFilter toEnvironmentFilter(EnvironmentSearchCriteria criteria) {
+        EnvironmentFilter filter = new EnvironmentFilter();
+        filter.setApplicationReleaseUID(criteria.getReleaseUID());
+        if (criteria.isMyEnvironmentsOnly()) {
+            filter.setMember(securityUtils.currentUser().getValue());
+        } else if (!securityUtils.currentUserIsAdmin()) {
+            filter.setVisibleBy(securityUtils.currentUser().getValue());
+        }
+        filter.setSearchText(criteria.getSearchText());
+        return filter;
+    }
+
+    private Sort toSort(EnvironmentSearchCriteria criteria) {
+        String sortProperty = criteria.getSortProperty() != null ? criteria.getSortProperty() : EnvironmentSearchCriteria.SORT_BY_CREATION_DATE;
+        return new Sort(criteria.isAscending() ? Sort.Direction.ASC : Sort.Direction.DESC, sortProperty);
+    }
+
+    private Set<String> writableApplicationUIDs(List<EnvironmentSummary> summaries) {
+        Set<String> applicationUIDs = new HashSet<>();
+        if (securityUtils.currentUserIsAdmin()) {
+            for (EnvironmentSummary summary : summaries) {
+                applicationUIDs.add(summary.getApplicationUID());
+            }
+        } else if (!summaries.isEmpty()) {
+            applicationUIDs.addAll(applicationRepository.findUIDsByMember(securityUtils.currentUser().getValue()));
+        }
+        return applicationUIDs;
+    }
+
     @Override
     @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.DEFAULT)
     public List<EnvironmentDto> findEnvironmentsByAppRelease(String releaseUID)
@@ -232,14 +288,14 @@ public class ManageEnvironmentImpl implements ManageEnvironment {
             assertHasWritePermissionFor(environment);
             MDC.put(LOG_KEY_ENVNAME, environment.getLabel());
             if (environment.isStopped()) {
-                managePaasActivation.start(environment.getTechnicalDeploymentInstance().getId());
+                showQueuePosition(environment, managePaasActivation.start(environment.getTechnicalDeploymentInstance().getId()));
                 // TODO status should be set by managePaasActivation
                 environment.setStatus(EnvironmentStatus.STARTING);
             } else if (environment.isStarting() || environment.isRunning()) {
                 log.info("Environment '" + environment.getUID() + "' is already started or is starting (ignoring call)");
             } else if (environment.isFailed()) {
                 log.warn("Environment '" + environment.getUID() + "' is failed but (anyway) we try to start it...");
-                managePaasActivation.start(environment.getTechnicalDeploymentInstance().getId());
+                showQueuePosition(environment, managePaasActivation.start(environment.getTechnicalDeploymentInstance().getId()));
                 // TODO status should be set by managePaasActivation
                 environment.setStatus(EnvironmentStatus.STARTING);
             } else {
@@ -261,14 +317,14 @@ public class ManageEnvironmentImpl implements ManageEnvironment {
             assertHasWritePermissionFor(environment);
             MDC.put(LOG_KEY_ENVNAME, environment.getLabel());
             if (environment.isRunning()) {
-                managePaasActivation.stop(environment.getTechnicalDeploymentInstance().getId());
+                showQueuePosition(environment, managePaasActivation.stop(environment.getTechnicalDeploymentInstance().getId()));
                 // TODO status should be set by managePaasActivation
                 environment.setStatus(EnvironmentStatus.STOPPING);
             } else if (environment.isStopping() || environment.isStopped()) {
                 log.info("Environment '" + environment.getUID() + "' is already stopped or is stopping (ignoring call)");
             } else if (environment.isFailed()) {
                 log.warn("Environment '" + environment.getUID() + "' is failed but (anyway) we try to stop it...");
-                managePaasActivation.stop(environment.getTechnicalDeploymentInstance().getId());
+                showQueuePosition(environment, managePaasActivation.stop(environment.getTechnicalDeploymentInstance().getId()));
                 // TODO status should be set by managePaasActivation
                 environment.setStatus(EnvironmentStatus.STOPPING);
             } else {
@@ -292,7 +348,7 @@ public class ManageEnvironmentImpl implements ManageEnvironment {
             if (environment.isRemoved() || environment.isRemoving()) {
                 log.info("Environment '" + environment.getUID() + "' is already deleted or deletion is in progress (ignoring call)");
             } else {
-                managePaasActivation.delete(environment.getTechnicalDeploymentInstance().getId());
+                showQueuePosition(environment, managePaasActivation.delete(environment.getTechnicalDeploymentInstance().getId()));
                 // TODO status should be set by managePaasActivation
                 environment.setStatus(EnvironmentStatus.REMOVING);
             }
@@ -302,6 +358,20 @@ public class ManageEnvironmentImpl implements ManageEnvironment {
         }
     }
 
+    /**
+     * Tells the environment users how many activations are run before theirs, until the activation updates the
+     * environment status itself
+     *
+     * @return true if the environment status message was updated
+     */
+    private boolean showQueuePosition(Environment environment, TaskStatusActivation activation) {
+        if (activation == null || activation.getQueuePosition() <= 0) {
+            return false;
+        }
+        environment.updateStatus(null, "Waiting for " + activation.getQueuePosition() + " other activation(s) to complete", 0);
+        return true;
+    }
+
     @Override
     @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.DEFAULT)
     public void forceStatusForAndEnvironment(String uid, EnvironmentStatus newStatus) throws EnvironmentNotFoundException {
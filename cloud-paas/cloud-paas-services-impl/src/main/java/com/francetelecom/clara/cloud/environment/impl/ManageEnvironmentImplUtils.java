@@ -16,6 +16,7 @@ import com.francetelecom.clara.cloud.commons.BusinessException;
 import com.francetelecom.clara.cloud.commons.NotFoundException;
 import com.francetelecom.clara.cloud.commons.TechnicalException;
 import com.francetelecom.clara.cloud.commons.ValidatorUtil;
+import com.francetelecom.clara.cloud.commons.xstream.XStreamUtils;
 import com.francetelecom.clara.cloud.core.service.SecurityUtils;
 import com.francetelecom.clara.cloud.core.service.exception.ApplicationReleaseNotFoundException;
 import com.francetelecom.clara.cloud.core.service.exception.PaasUserNotFoundException;
@@ -28,12 +29,19 @@ import com.francetelecom.clara.cloud.model.TechnicalDeploymentInstance;
 import com.francetelecom.clara.cloud.model.TechnicalDeploymentTemplate;
 import com.francetelecom.clara.cloud.paas.projection.ProjectionService;
 import com.francetelecom.clara.cloud.paas.projection.UnsupportedProjectionException;
+import com.thoughtworks.xstream.XStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -43,6 +51,10 @@ import java.util.List;
 @Service
 public class ManageEnvironmentImplUtils {
 
+	private static final Logger log = LoggerFactory.getLogger(ManageEnvironmentImplUtils.class);
+
+	private final XStream xStream = XStreamUtils.instanciateXstreamForHibernate();
+
 	@Autowired
 	private SecurityUtils securityUtils;
 
@@ -67,6 +79,31 @@ public class ManageEnvironmentImplUtils {
 	@Autowired
 	private TechnicalDeploymentCloner tdCloner;
 
+	/**
+	 * Projects the technical deployment templates of a release which is still
+	 * being edited, so that they are ready when its first environment is
+	 * created. Templates are kept as is when the logical deployment did not
+	 * change since they were projected.
+	 * 
+	 * @param releaseUID
+	 *            release uid
+	 */
+	@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.DEFAULT, rollbackFor = BusinessException.class)
+	public void projectDeploymentTemplates(String releaseUID) throws UnsupportedProjectionException {
+		ApplicationRelease applicationRelease = applicationReleaseRepository.findByUID(releaseUID);
+		if (applicationRelease == null || !applicationRelease.isEditing()) {
+			// templates of a locked release are already in use
+			return;
+		}
+		String fingerprint = fingerprint(applicationRelease);
+		if (fingerprint.equals(applicationRelease.getTemplatesFingerprint())) {
+			log.debug("templates of release {} are up to date with its logical deployment", releaseUID);
+			return;
+		}
+		generateDeploymentTemplates(applicationRelease, profileToUseForProjection());
+		applicationRelease.setTemplatesFingerprint(fingerprint);
+	}
+
 	@Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.DEFAULT, rollbackFor = BusinessException.class)
 	public String createTDI(String releaseUID, DeploymentProfileEnum profile, String ownerSsoId, String label, List<String> configRolesUIDs) throws PaasUserNotFoundException,
 			ApplicationReleaseNotFoundException, UnsupportedProjectionException {
@@ -94,7 +131,14 @@ public class ManageEnvironmentImplUtils {
 		}
 
 		if (applicationRelease.isValidated()) {
-			generateDeploymentTemplates(applicationRelease,profileToUseForProjection());
+			// computed once per release, which is locked right below
+			String fingerprint = fingerprint(applicationRelease);
+			if (fingerprint.equals(applicationRelease.getTemplatesFingerprint())) {
+				log.debug("reusing deployment templates of release {} projected from the same logical deployment", releaseUID);
+			} else {
+				generateDeploymentTemplates(applicationRelease,profileToUseForProjection());
+				applicationRelease.setTemplatesFingerprint(fingerprint);
+			}
 			applicationRelease.lock();
 			
 		}
@@ -151,16 +195,35 @@ public class ManageEnvironmentImplUtils {
 	}
 
 	private void generateDeploymentTemplates(ApplicationRelease applicationRelease,List<DeploymentProfileEnum> profiles) throws UnsupportedProjectionException {
-		//FIXME  dplacer ds projectionService.generateNewDeploymentTemplate 
-		assert applicationRelease.isValidated();
+		// drop any outdated template, even if release fingerprint has been lost
+		manageTechnicalDeploymentTemplate.deleteTechnicalDeploymentTemplates(applicationRelease.getUID());
 
+		//FIXME  dplacer ds projectionService.generateNewDeploymentTemplate 
 		for (DeploymentProfileEnum profile : profiles) {
 			// FIXME: propagate the Tenant to the projection, or alternatively
 			// the SubTenantCatalog to use.
 			TechnicalDeploymentTemplate tdt = projectionService.generateNewDeploymentTemplate(applicationRelease, profile);
 			manageTechnicalDeploymentTemplate.createTechnicalDeploymentTemplate(tdt);
 		}
-		
+	}
+
+	/**
+	 * Fingerprint of everything projection depends on: the logical deployment
+	 * as well as application label, release version and middleware profile.
+	 */
+	protected String fingerprint(ApplicationRelease applicationRelease) {
+		StringBuilder projectionInputs = new StringBuilder();
+		projectionInputs.append(applicationRelease.getApplication().getLabel()).append('\n');
+		projectionInputs.append(applicationRelease.getReleaseVersion()).append('\n');
+		projectionInputs.append(applicationRelease.getMiddlewareProfileVersion()).append('\n');
+		projectionInputs.append(xStream.toXML(applicationRelease.getLogicalDeployment()));
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] hash = digest.digest(projectionInputs.toString().getBytes(StandardCharsets.UTF_8));
+			return String.format("%064x", new BigInteger(1, hash));
+		} catch (NoSuchAlgorithmException e) {
+			throw new TechnicalException(e);
+		}
 	}
 
 	public void setEnvironmentRepository(EnvironmentRepository repository) {
@@ -142,6 +142,11 @@ public class ManageStatisticsImpl implements ManageStatistics {
         // statistics.put("Successful transactions", stats.getSuccessfulTransactionCount());
         // statistics.put("Successful transactions", stats.getSuccessfulTransactionCount());
         statistics.put("Queries executed", stats.getQueryExecutionCount());
+        statistics.put(PaasStats.SECOND_LEVEL_CACHE_HITS, stats.getSecondLevelCacheHitCount());
+        statistics.put(PaasStats.SECOND_LEVEL_CACHE_MISSES, stats.getSecondLevelCacheMissCount());
+        statistics.put(PaasStats.SECOND_LEVEL_CACHE_PUTS, stats.getSecondLevelCachePutCount());
+        statistics.put(PaasStats.QUERY_CACHE_HITS, stats.getQueryCacheHitCount());
+        statistics.put(PaasStats.QUERY_CACHE_MISSES, stats.getQueryCacheMissCount());
         for(Class entity : entities) {
             EntityStatistics eStats = stats.getEntityStatistics(entity.getName());
             statistics.put(entity.getSimpleName() + " Fetched", eStats.getFetchCount());
@@ -0,0 +1,237 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.service;
+
+import com.francetelecom.clara.cloud.commons.DateHelper;
+import com.francetelecom.clara.cloud.coremodel.Application;
+import com.francetelecom.clara.cloud.coremodel.ApplicationRelease;
+import com.francetelecom.clara.cloud.coremodel.ApplicationReleaseRepository;
+import com.francetelecom.clara.cloud.coremodel.ApplicationRepository;
+import com.francetelecom.clara.cloud.coremodel.EntityChangeTracker;
+import com.francetelecom.clara.cloud.coremodel.Environment;
+import com.francetelecom.clara.cloud.coremodel.EnvironmentRepository;
+import com.francetelecom.clara.cloud.model.TechnicalDeploymentTemplate;
+import com.francetelecom.clara.cloud.model.TechnicalDeploymentTemplateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Hard deletes old removed environments, then removed releases without environment, then removed applications
+ * without release.
+ * <p>
+ * Items are purged in batches of {@link #setBatchSize(int)} items, each batch in its own transaction, so that a large
+ * backlog never ends up in a single session. A run stops once its {@link #setTimeBudgetMs(long)} is exhausted and the
+ * next run resumes where it stopped. When a batch fails, its items are purged one by one and the failing ones are
+ * skipped until the next full purge cycle.
+ */
+public class DatabasePurgeEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabasePurgeEngine.class.getName());
+
+    enum Phase {
+        ENVIRONMENTS, RELEASES, APPLICATIONS
+    }
+
+    @Autowired
+    private EnvironmentRepository environmentRepository;
+
+    @Autowired
+    private ApplicationReleaseRepository applicationReleaseRepository;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private TechnicalDeploymentTemplateRepository technicalDeploymentTemplateRepository;
+
+    private TransactionTemplate transactionTemplate;
+
+    private int batchSize = 50;
+
+    private long timeBudgetMs = 10 * 60 * 1000;
+
+    private int retentionDelayInDay = 5;
+
+    // resume point of an interrupted purge cycle
+    private Phase phase = Phase.ENVIRONMENTS;
+    private int lastPurgedId = 0;
+
+    private volatile PurgeReport lastReport;
+
+    /**
+     * Purges removed items until there is nothing left to purge or the time budget is exhausted
+     *
+     * @return counts and duration of this run
+     */
+    public synchronized PurgeReport purge() {
+        long deadline = System.currentTimeMillis() + timeBudgetMs;
+        Date deletedBefore = DateHelper.getDateDeltaDay(-retentionDelayInDay);
+        PurgeReport report = new PurgeReport();
+        logger.info("Starting database purge from {} with id > {} (batchSize={}, timeBudgetMs={})", phase, lastPurgedId, batchSize, timeBudgetMs);
+        boolean completed = false;
+        while (System.currentTimeMillis() < deadline) {
+            List<Integer> ids = nextBatch(deletedBefore);
+            if (ids.isEmpty()) {
+                if (phase == Phase.APPLICATIONS) {
+                    phase = Phase.ENVIRONMENTS;
+                    lastPurgedId = 0;
+                    completed = true;
+                    break;
+                }
+                phase = Phase.values()[phase.ordinal() + 1];
+                lastPurgedId = 0;
+                continue;
+            }
+            purgeBatch(ids, report);
+            lastPurgedId = ids.get(ids.size() - 1);
+        }
+        report.end(completed);
+        if (completed) {
+            logger.info("Database purge done: {}", report);
+        } else {
+            logger.info("Database purge stopped after its time budget, next run resumes from {} with id > {}: {}", phase, lastPurgedId, report);
+        }
+        lastReport = report;
+        return report;
+    }
+
+    private List<Integer> nextBatch(Date deletedBefore) {
+        PageRequest page = new PageRequest(0, batchSize);
+        switch (phase) {
+        case ENVIRONMENTS:
+            return environmentRepository.findRemovedIdsOlderThan(deletedBefore, lastPurgedId, page);
+        case RELEASES:
+            return applicationReleaseRepository.findRemovedIdsWithoutEnvironment(lastPurgedId, page);
+        default:
+            return applicationRepository.findRemovedIdsWithoutRelease(lastPurgedId, page);
+        }
+    }
+
+    private void purgeBatch(List<Integer> ids, PurgeReport report) {
+        report.batchProcessed();
+        try {
+            count(report, purgeInTransaction(ids));
+        } catch (RuntimeException e) {
+            logger.warn("Unable to purge {} batch {}, purging its items one by one. Caught: {}", phase, ids, e.toString());
+            for (Integer id : ids) {
+                try {
+                    count(report, purgeInTransaction(Collections.singletonList(id)));
+                } catch (RuntimeException e1) {
+                    logger.error("Unable to purge " + phase + " item with id " + id, e1);
+                    report.failed();
+                }
+            }
+        }
+        if (phase == Phase.ENVIRONMENTS) {
+            // bulk deletes bypass entity listeners
+            EntityChangeTracker.getInstance().itemAddedOrRemoved(Environment.class);
+        }
+    }
+
+    private void count(PurgeReport report, int purged) {
+        switch (phase) {
+        case ENVIRONMENTS:
+            report.environmentsPurged(purged);
+            break;
+        case RELEASES:
+            report.releasesPurged(purged);
+            break;
+        default:
+            report.applicationsPurged(purged);
+        }
+    }
+
+    private int purgeInTransaction(final List<Integer> ids) {
+        return transactionTemplate.execute(new TransactionCallback<Integer>() {
+            @Override
+            public Integer doInTransaction(TransactionStatus status) {
+                switch (phase) {
+                case ENVIRONMENTS:
+                    return environmentRepository.purgeByIds(ids);
+                case RELEASES:
+                    return purgeReleases(ids);
+                default:
+                    return purgeApplications(ids);
+                }
+            }
+        });
+    }
+
+    private int purgeReleases(List<Integer> ids) {
+        List<ApplicationRelease> releases = applicationReleaseRepository.findAll(ids);
+        for (ApplicationRelease release : releases) {
+            List<TechnicalDeploymentTemplate> templates = technicalDeploymentTemplateRepository.findAllByReleaseId(release.getUID());
+            technicalDeploymentTemplateRepository.delete(templates);
+        }
+        // logical deployments are cascaded by the entity manager
+        applicationReleaseRepository.delete(releases);
+        applicationReleaseRepository.flush();
+        return releases.size();
+    }
+
+    private int purgeApplications(List<Integer> ids) {
+        List<Application> applications = applicationRepository.findAll(ids);
+        applicationRepository.delete(applications);
+        applicationRepository.flush();
+        return applications.size();
+    }
+
+    /**
+     * @return report of the last run, or null if no purge ran yet
+     */
+    public PurgeReport getLastReport() {
+        return lastReport;
+    }
+
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void setEnvironmentRepository(EnvironmentRepository environmentRepository) {
+        this.environmentRepository = environmentRepository;
+    }
+
+    public void setApplicationReleaseRepository(ApplicationReleaseRepository applicationReleaseRepository) {
+        this.applicationReleaseRepository = applicationReleaseRepository;
+    }
+
+    public void setApplicationRepository(ApplicationRepository applicationRepository) {
+        this.applicationRepository = applicationRepository;
+    }
+
+    public void setTechnicalDeploymentTemplateRepository(TechnicalDeploymentTemplateRepository technicalDeploymentTemplateRepository) {
+        this.technicalDeploymentTemplateRepository = technicalDeploymentTemplateRepository;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setTimeBudgetMs(long timeBudgetMs) {
+        this.timeBudgetMs = timeBudgetMs;
+    }
+
+    public void setRetentionDelayInDay(int retentionDelayInDay) {
+        this.retentionDelayInDay = retentionDelayInDay;
+    }
+}
@@ -13,10 +13,6 @@
 package com.francetelecom.clara.cloud.service;
 
 import com.francetelecom.clara.cloud.commons.DateHelper;
-import com.francetelecom.clara.cloud.core.service.ManageApplication;
-import com.francetelecom.clara.cloud.core.service.ManageApplicationRelease;
-import com.francetelecom.clara.cloud.core.service.ManageEnvironment;
-import com.francetelecom.clara.cloud.coremodel.Environment;
 import com.francetelecom.clara.cloud.coremodel.PaasRoleEnum;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,7 +25,6 @@ import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
 
 /**
  * OpsServiceImpl
@@ -38,11 +33,7 @@ import java.util.List;
 public class OpsServiceImpl implements OpsService {
 	private final static Logger logger = LoggerFactory.getLogger(OpsServiceImpl.class.getName());
 	@Autowired
-	private ManageEnvironment manageEnvironment;
-	@Autowired
-	private ManageApplicationRelease manageRelease;
-	@Autowired
-	private ManageApplication manageApplication;
+	private DatabasePurgeEngine databasePurgeEngine;
 	private String buildVersion;
 	private String buildDate;
 	private String buildUser;
@@ -52,52 +43,18 @@ public class OpsServiceImpl implements OpsService {
 		//we must be authenticated as admin to run purge against applications, releases and environments
 		AuthenticationHelper authenticationHelper = new AuthenticationHelper();
 		authenticationHelper.loginAsAdmin();
-		String action = "purge database : old environments";
 		try {
-			purgeEnvironments();
-			action = "purge database : old releases";
-			purgeReleases();
-			action = "purge database : old applications";
-			purgeApplications();
+			databasePurgeEngine.purge();
 		} catch (Throwable throwable) {
-			logger.error("Exception while {} : {}", action, throwable.getMessage());
+			logger.error("Exception while purging database : {}", throwable.getMessage());
 			logger.error("Purge exception:", throwable);
-			throwable.printStackTrace();
 		} finally {
 			authenticationHelper.logout();
 		}
 	}
 
-	private void purgeApplications() {
-		manageApplication.purgeOldRemovedApplications();
-	}
-
-	private void purgeReleases() {
-		manageRelease.purgeOldRemovedReleases();
-	}
-
-	private void purgeEnvironments() {
-		List<Environment> oldRemovedEnvironments = manageEnvironment.findOldRemovedEnvironments();
-		for (Environment e : oldRemovedEnvironments) {
-			try {
-				manageEnvironment.purgeRemovedEnvironment(e.getUID());
-			} catch (Throwable e1) {
-				logger.error("Unable to purge environment {}", e.toString());
-				e1.printStackTrace();
-			}
-		}
-	}
-
-	public void setManageApplication(ManageApplication manageApplication) {
-		this.manageApplication = manageApplication;
-	}
-
-	public void setManageEnvironment(ManageEnvironment manageEnvironment) {
-		this.manageEnvironment = manageEnvironment;
-	}
-
-	public void setManageRelease(ManageApplicationRelease manageRelease) {
-		this.manageRelease = manageRelease;
+	public void setDatabasePurgeEngine(DatabasePurgeEngine databasePurgeEngine) {
+		this.databasePurgeEngine = databasePurgeEngine;
 	}
 
 	public String getServerDate() {
@@ -0,0 +1,98 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.service;
+
+/**
+ * Outcome of a {@link DatabasePurgeEngine} run
+ */
+public class PurgeReport {
+
+    private final long startTime = System.currentTimeMillis();
+    private long durationMs;
+    private int purgedEnvironments;
+    private int purgedReleases;
+    private int purgedApplications;
+    private int failures;
+    private int batches;
+    private boolean completed;
+
+    void environmentsPurged(int count) {
+        purgedEnvironments += count;
+    }
+
+    void releasesPurged(int count) {
+        purgedReleases += count;
+    }
+
+    void applicationsPurged(int count) {
+        purgedApplications += count;
+    }
+
+    void failed() {
+        failures++;
+    }
+
+    void batchProcessed() {
+        batches++;
+    }
+
+    void end(boolean completed) {
+        this.completed = completed;
+        this.durationMs = System.currentTimeMillis() - startTime;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public int getPurgedEnvironments() {
+        return purgedEnvironments;
+    }
+
+    public int getPurgedReleases() {
+        return purgedReleases;
+    }
+
+    public int getPurgedApplications() {
+        return purgedApplications;
+    }
+
+    /**
+     * @return number of items that could not be purged, they are retried on the next full purge cycle
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    /**
+     * @return true if all purgeable items were processed, false if the run stopped because of its time budget and
+     *         the next run resumes where this one stopped
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    @Override
+    public String toString() {
+        return "environments=" + purgedEnvironments + " releases=" + purgedReleases + " applications=" + purgedApplications + " failures="
+                + failures + " batches=" + batches + " durationMs=" + durationMs + " completed=" + completed;
+    }
+}
@@ -26,9 +26,13 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
@@ -293,6 +297,71 @@ public class ManageLogicalDeploymentImplTest {
 		}
 	}
 
+	@Test
+	public void testCheckOverallConsistency_ChecksMavenReferencesConcurrently() throws BusinessException {
+
+		LogicalDeployment logicalDeployment = new LogicalDeployment();
+
+		ProcessingNode jee1 = createJeeProcessing(logicalDeployment, "jee1");
+		ProcessingNode jee2 = createJeeProcessing(logicalDeployment, "jee2");
+		LogicalRelationalService rdb1 = createLogicalRelationnalService(logicalDeployment, "rdb1");
+		LogicalRelationalService rdb2 = createLogicalRelationnalService(logicalDeployment, "rdb2");
+		jee1.addLogicalServiceUsage(rdb1, LogicalServiceAccessTypeEnum.NOT_APPLICABLE);
+		jee2.addLogicalServiceUsage(rdb2, LogicalServiceAccessTypeEnum.NOT_APPLICABLE);
+
+		// mock setup: MvnRepoDao, each resolution waits for the other one to be started
+		final CountDownLatch resolutionsStarted = new CountDownLatch(2);
+		MvnRepoDao mvnRepoDaoMock = mock(MvnRepoDao.class);
+		manageLogicalDeployment.setMvnRepoDao(mvnRepoDaoMock);
+		when(mvnRepoDaoMock.resolveUrl(any(MavenReference.class))).thenAnswer(new Answer<MavenReference>() {
+			@Override
+			public MavenReference answer(InvocationOnMock invocation) throws Throwable {
+				resolutionsStarted.countDown();
+				Assert.assertTrue("maven references are not checked concurrently", resolutionsStarted.await(10, TimeUnit.SECONDS));
+				return createResolvedMavenReference((MavenReference) invocation.getArguments()[0]);
+			}
+		});
+
+		// exercise SUT
+		manageLogicalDeployment.checkOverallConsistency(logicalDeployment);
+
+		// assertions
+		verify(mvnRepoDaoMock, times(2)).resolveUrl(any(MavenReference.class));
+	}
+
+	@Test
+	public void testCheckOverallConsistency_MavenReferencesCheckTimeout() throws BusinessException {
+
+		LogicalDeployment logicalDeployment = new LogicalDeployment();
+
+		ProcessingNode jee1 = createJeeProcessing(logicalDeployment, "jee1");
+		LogicalRelationalService rdb1 = createLogicalRelationnalService(logicalDeployment, "rdb1");
+		jee1.addLogicalServiceUsage(rdb1, LogicalServiceAccessTypeEnum.NOT_APPLICABLE);
+
+		// mock setup: MvnRepoDao, resolution never ends
+		MvnRepoDao mvnRepoDaoMock = mock(MvnRepoDao.class);
+		manageLogicalDeployment.setMvnRepoDao(mvnRepoDaoMock);
+		manageLogicalDeployment.setMavenReferenceCheckTimeoutMs(100);
+		when(mvnRepoDaoMock.resolveUrl(any(MavenReference.class))).thenAnswer(new Answer<MavenReference>() {
+			@Override
+			public MavenReference answer(InvocationOnMock invocation) throws Throwable {
+				Thread.sleep(60000);
+				return null;
+			}
+		});
+
+		// exercise SUT
+		try {
+			manageLogicalDeployment.checkOverallConsistency(logicalDeployment);
+			Assert.fail("expected a LogicalModelNotConsistentException");
+		} catch (LogicalModelNotConsistentException e) {
+			// assertions
+			Assert.assertEquals("Incorrect number of errors", 1, e.getErrors().size());
+			InvalidMavenReferenceException error = (InvalidMavenReferenceException) e.getErrors().get(0);
+			Assert.assertEquals(jee1.getSoftwareReference(), error.getMavenReference());
+		}
+	}
+
 	@Test
 	public void testCheckOverallConsistencyAndUpdateLogicalDeployment_NoError() throws BusinessException, MalformedURLException {
 
@@ -30,13 +30,19 @@ import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -242,6 +248,25 @@ public class ManageApplicationReleaseImplTest {
         // then it should be authorized
     }
 
+    @Test
+    public void updating_a_release_keeps_its_templates_fingerprint() throws ApplicationReleaseNotFoundException {
+        TestHelper.loginAsAdmin();
+        // given release 1.0 of application elpaaso whose templates have been projected
+        Application elpaaso = new Application("elpaaso", "elpaaso");
+        ApplicationRelease persisted = new ApplicationRelease(elpaaso, "1.0");
+        persisted.setTemplatesFingerprint("fingerprint");
+        Mockito.when(applicationReleaseRepository.findByUID(persisted.getUID())).thenReturn(persisted);
+        // given a copy of that release edited from UI
+        ApplicationRelease edited = new ApplicationRelease(elpaaso, "1.0");
+        edited.setUID(persisted.getUID());
+        // when I update release
+        manageApplicationRelease.updateApplicationRelease(edited);
+        // then templates fingerprint is not lost
+        ArgumentCaptor<ApplicationRelease> saved = ArgumentCaptor.forClass(ApplicationRelease.class);
+        verify(applicationReleaseRepository).save(saved.capture());
+        assertThat(saved.getValue().getTemplatesFingerprint()).isEqualTo("fingerprint");
+    }
+
     @Test(expected = AuthorizationException.class)
     public void non_admin_user_fail_to_update_a_release_of_private_application_she_is_not_a_member_of() throws ApplicationReleaseNotFoundException {
         // given non admin performs following actions
@@ -463,10 +488,39 @@ public class ManageApplicationReleaseImplTest {
     @Test
     public void admin_users_see_all_releases() {
         TestHelper.loginAsAdmin();
+        when(applicationReleaseRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(new PageImpl<ApplicationRelease>(new ArrayList<ApplicationRelease>()));
 
         manageApplicationRelease.findApplicationReleases(0, 10);
 
-        Mockito.verify(applicationReleaseRepository).findAll();
+        Mockito.verify(applicationReleaseRepository).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    public void releases_are_retrieved_a_page_at_a_time() {
+        TestHelper.loginAsAdmin();
+        when(applicationReleaseRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(new PageImpl<ApplicationRelease>(new ArrayList<ApplicationRelease>()));
+        ApplicationReleaseSearchCriteria criteria = new ApplicationReleaseSearchCriteria();
+        criteria.setSortProperty(ApplicationReleaseSearchCriteria.SORT_BY_STATE);
+        criteria.setAscending(false);
+
+        manageApplicationRelease.findApplicationReleases(criteria, 23, 10);
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        Mockito.verify(applicationReleaseRepository).findAll(any(Specification.class), pageable.capture());
+        assertThat(pageable.getValue().getOffset()).isEqualTo(23);
+        assertThat(pageable.getValue().getPageSize()).isEqualTo(10);
+        assertThat(pageable.getValue().getSort().getOrderFor("state").getDirection()).isEqualTo(Sort.Direction.DESC);
+    }
+
+    @Test
+    public void releases_are_counted_with_the_same_criteria() {
+        TestHelper.loginAsUser();
+        ApplicationReleaseSearchCriteria criteria = new ApplicationReleaseSearchCriteria();
+        criteria.setSearchText("joyn");
+
+        manageApplicationRelease.countApplicationReleases(criteria);
+
+        Mockito.verify(applicationReleaseRepository).count(any(Specification.class));
     }
 
     @Test
@@ -503,10 +557,11 @@ public class ManageApplicationReleaseImplTest {
     public void non_admin_users_see_all_public_releases_and_private_application_they_are_member_of() {
         // given Alice is authenticated
         TestHelper.loginAsUser();
+        when(applicationReleaseRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(new PageImpl<ApplicationRelease>(new ArrayList<ApplicationRelease>()));
 
         manageApplicationRelease.findApplicationReleases(0, 10);
 
-        Mockito.verify(applicationReleaseRepository).findAllPublicOrPrivateByMember(TestHelper.USER_WITH_USER_ROLE_SSOID.getValue());
+        Mockito.verify(applicationReleaseRepository).findAll(any(Specification.class), any(Pageable.class));
     }
 
     @Test
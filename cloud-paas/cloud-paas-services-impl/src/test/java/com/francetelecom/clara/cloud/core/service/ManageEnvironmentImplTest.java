@@ -32,6 +32,7 @@ import com.francetelecom.clara.cloud.services.dto.EnvironmentDto.EnvironmentStat
 import com.francetelecom.clara.cloud.services.dto.EnvironmentDto.EnvironmentTypeEnum;
 import org.junit.*;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -39,9 +40,14 @@ import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
@@ -81,6 +87,8 @@ public class ManageEnvironmentImplTest {
     EnvironmentRepository environnementRepository;
     @Mock
     ApplicationReleaseRepository releaseRepository;
+    @Mock
+    ApplicationRepository applicationRepository;
 
     Environment environment;
     private final String generatedEnvUid = "generatedEnvUid";
@@ -200,6 +208,19 @@ public class ManageEnvironmentImplTest {
         Assert.assertEquals(updated.getComment(), "comment");
     }
 
+    @Test
+    public void queued_environment_deletion_shows_activations_ahead_in_environment_status() throws EnvironmentNotFoundException {
+        TestHelper.loginAsAdmin();
+        TaskStatusActivation queuedDeletion = new TaskStatusActivation();
+        queuedDeletion.setQueuePosition(3);
+        when(managePaasActivationMock.delete(anyInt())).thenReturn(queuedDeletion);
+
+        manageEnvironment.deleteEnvironment(environment.getUID());
+
+        Assert.assertEquals("Waiting for 3 other activation(s) to complete", environment.getStatusMessage());
+        Assert.assertEquals(EnvironmentStatus.REMOVING, environment.getStatus());
+    }
+
     private Environment createEnvMock() {
         TechnicalDeployment td = new TechnicalDeployment("tdTest");
         TechnicalDeploymentInstance envTdiStub = new TechnicalDeploymentInstance(new TechnicalDeploymentTemplate(td, DeploymentProfileEnum.DEVELOPMENT, "releaseId", MiddlewareProfile.DEFAULT_PROFILE), td);
@@ -341,6 +362,65 @@ public class ManageEnvironmentImplTest {
         Mockito.verify(environnementRepository).findAllActiveByApplicationMember(TestHelper.USER_WITH_USER_ROLE_SSOID.getValue());
     }
 
+    @Test
+    public void admin_users_see_a_page_of_all_environments() {
+        TestHelper.loginAsAdmin();
+        when(environnementRepository.findActiveSummaries(any(EnvironmentFilter.class), any(Pageable.class))).thenReturn(Arrays.asList(summaryOf(environment)));
+
+        List<EnvironmentDto> environments = manageEnvironment.findEnvironments(new EnvironmentSearchCriteria(), 20, 10);
+
+        ArgumentCaptor<EnvironmentFilter> filter = ArgumentCaptor.forClass(EnvironmentFilter.class);
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        Mockito.verify(environnementRepository).findActiveSummaries(filter.capture(), pageable.capture());
+        Assert.assertNull(filter.getValue().getVisibleBy());
+        Assert.assertNull(filter.getValue().getMember());
+        Assert.assertEquals(20, pageable.getValue().getOffset());
+        Assert.assertEquals(10, pageable.getValue().getPageSize());
+        Assert.assertEquals(Sort.Direction.DESC, pageable.getValue().getSort().getOrderFor(EnvironmentSearchCriteria.SORT_BY_CREATION_DATE).getDirection());
+        Assert.assertEquals(1, environments.size());
+        Assert.assertEquals(environment.getUID(), environments.get(0).getUid());
+        Assert.assertTrue(environments.get(0).isEditable());
+    }
+
+    @Test
+    public void non_admin_users_see_a_page_of_environments_they_can_see() {
+        TestHelper.loginAsUser();
+        when(environnementRepository.findActiveSummaries(any(EnvironmentFilter.class), any(Pageable.class))).thenReturn(Arrays.asList(summaryOf(environment)));
+        when(applicationRepository.findUIDsByMember(TestHelper.USER_WITH_USER_ROLE_SSOID.getValue())).thenReturn(new ArrayList<String>());
+        EnvironmentSearchCriteria criteria = new EnvironmentSearchCriteria();
+        criteria.setSearchText("running");
+
+        List<EnvironmentDto> environments = manageEnvironment.findEnvironments(criteria, 0, 10);
+
+        ArgumentCaptor<EnvironmentFilter> filter = ArgumentCaptor.forClass(EnvironmentFilter.class);
+        Mockito.verify(environnementRepository).findActiveSummaries(filter.capture(), any(Pageable.class));
+        Assert.assertEquals(TestHelper.USER_WITH_USER_ROLE_SSOID.getValue(), filter.getValue().getVisibleBy());
+        Assert.assertEquals("running", filter.getValue().getSearchText());
+        // user is not a member of environment application
+        Assert.assertFalse(environments.get(0).isEditable());
+    }
+
+    @Test
+    public void users_count_environments_of_applications_they_are_member_of() {
+        TestHelper.loginAsUser();
+        EnvironmentSearchCriteria criteria = new EnvironmentSearchCriteria();
+        criteria.setMyEnvironmentsOnly(true);
+
+        manageEnvironment.countEnvironments(criteria);
+
+        ArgumentCaptor<EnvironmentFilter> filter = ArgumentCaptor.forClass(EnvironmentFilter.class);
+        Mockito.verify(environnementRepository).countActive(filter.capture());
+        Assert.assertEquals(TestHelper.USER_WITH_USER_ROLE_SSOID.getValue(), filter.getValue().getMember());
+    }
+
+    private static EnvironmentSummary summaryOf(Environment environment) {
+        ApplicationRelease release = environment.getApplicationRelease();
+        return new EnvironmentSummary(environment.getUID(), environment.getLabel(), release.getApplication().getUID(), release.getApplication().getLabel(),
+                release.getUID(), release.getReleaseVersion(), environment.getPaasUser().getSsoId().getValue(), environment.getPaasUser().getFirstName(),
+                environment.getCreationDate(), environment.getType(), environment.getStatus(), environment.getStatusMessage(), environment.getStatusPercent(),
+                environment.getComment(), "td");
+    }
+
     @Test
     public void admin_users_count_all_environments() {
         TestHelper.loginAsAdmin();
@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.deployment.common.service;
+
+import com.francetelecom.clara.cloud.commons.MavenReference;
+import com.francetelecom.clara.cloud.model.TechnicalDeployment;
+import com.francetelecom.clara.cloud.techmodel.cf.App;
+import com.francetelecom.clara.cloud.techmodel.cf.Space;
+import com.francetelecom.clara.cloud.techmodel.cf.services.managed.ManagedService;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Checks in memory copies against the former xml round trip, on technical deployments of growing size
+ */
+public class ModelItemClonerXstreamImplTest {
+
+    private final ModelItemClonerXstreamImpl<TechnicalDeployment> cloner = new ModelItemClonerXstreamImpl<>();
+
+    @Test
+    public void graph_copy_is_equivalent_to_xml_round_trip() {
+        for (int size : new int[] { 10, 100, 1000 }) {
+            TechnicalDeployment td = createTechnicalDeployment(size);
+
+            TechnicalDeployment xmlCopy = cloner.deepCopyThroughXml(td);
+            TechnicalDeployment graphCopy = cloner.deepCopy(td);
+
+            assertThat(graphCopy.listXaasSubscriptionTemplates()).hasSize(xmlCopy.listXaasSubscriptionTemplates().size());
+            assertThat(graphCopy.listXaasSubscriptionTemplates(Space.class)).hasSize(xmlCopy.listXaasSubscriptionTemplates(Space.class).size());
+            assertThat(serviceInstances(graphCopy)).isEqualTo(serviceInstances(xmlCopy));
+            App graphApp = graphCopy.listXaasSubscriptionTemplates(App.class).iterator().next();
+            App xmlApp = xmlCopy.listXaasSubscriptionTemplates(App.class).iterator().next();
+            assertThat(graphApp.getAppName()).isEqualTo(xmlApp.getAppName());
+            assertThat(sorted(graphApp.getServiceNames())).isEqualTo(sorted(xmlApp.getServiceNames()));
+            assertThat(graphApp.listDepedencies()).hasSize(xmlApp.listDepedencies().size());
+            assertThat(graphCopy.getName()).isNotEqualTo(td.getName());
+            assertThat(graphCopy.getId()).isEqualTo(xmlCopy.getId());
+        }
+    }
+
+    private static List<String> serviceInstances(TechnicalDeployment td) {
+        List<String> serviceInstances = new ArrayList<>();
+        for (ManagedService service : td.listXaasSubscriptionTemplates(ManagedService.class)) {
+            serviceInstances.add(service.getServiceInstance());
+        }
+        return sorted(serviceInstances);
+    }
+
+    private static List<String> sorted(List<String> values) {
+        List<String> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static TechnicalDeployment createTechnicalDeployment(int serviceCount) {
+        TechnicalDeployment td = new TechnicalDeployment("td");
+        Space space = new Space();
+        App app = new App(space, MavenReference.fromGavString("foo.groupid:foo.artifactid:foo.version"), "foo");
+        td.add(space);
+        td.add(app);
+        for (int i = 0; i < serviceCount; i++) {
+            ManagedService service = new ManagedService("rabbitmq", "default", "service" + i, space);
+            app.bindService(service);
+            td.add(service);
+        }
+        return td;
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.deployment.common.service;
+
+import com.francetelecom.clara.cloud.commons.MavenReference;
+import com.francetelecom.clara.cloud.model.DependantModelItem;
+import com.francetelecom.clara.cloud.model.TechnicalDeployment;
+import com.francetelecom.clara.cloud.techmodel.cf.App;
+import com.francetelecom.clara.cloud.techmodel.cf.Space;
+import com.francetelecom.clara.cloud.techmodel.cf.services.managed.ManagedService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ModelItemGraphCopierTest {
+
+    private ModelItemGraphCopier copier;
+
+    private TechnicalDeployment td;
+
+    private Space space;
+
+    private App app;
+
+    private ManagedService service;
+
+    @Before
+    public void setUp() {
+        copier = new ModelItemGraphCopier();
+        td = new TechnicalDeployment("td");
+        space = new Space();
+        app = new App(space, MavenReference.fromGavString("foo.groupid:foo.artifactid:foo.version"), "foo");
+        service = new ManagedService("rabbitmq", "default", "myservice", space);
+        app.bindService(service);
+        td.add(space);
+        td.add(app);
+        td.add(service);
+    }
+
+    @Test
+    public void preserves_shared_references() {
+        // when
+        TechnicalDeployment copy = copier.copy(td);
+
+        // then
+        Space copiedSpace = copy.listXaasSubscriptionTemplates(Space.class).iterator().next();
+        App copiedApp = copy.listXaasSubscriptionTemplates(App.class).iterator().next();
+        ManagedService copiedService = copy.listXaasSubscriptionTemplates(ManagedService.class).iterator().next();
+        assertThat(copiedSpace).isNotSameAs(space);
+        assertThat(identityContains(copiedApp.listDepedencies(), copiedSpace)).isTrue();
+        assertThat(identityContains(copiedApp.listDepedencies(), copiedService)).isTrue();
+        assertThat(identityContains(copiedService.listDepedencies(), copiedSpace)).isTrue();
+        assertThat(copiedApp.getServiceNames()).containsOnly("myservice");
+    }
+
+    @Test
+    public void renames_items_and_resets_their_ids() {
+        // when
+        TechnicalDeployment copy = copier.copy(td);
+
+        // then
+        assertThat(copy.getName()).isNotEqualTo(td.getName()).hasSize(36);
+        assertThat(copy.getId()).isEqualTo(0);
+        App copiedApp = copy.listXaasSubscriptionTemplates(App.class).iterator().next();
+        assertThat(copiedApp.getName()).isNotEqualTo(app.getName()).hasSize(36);
+        assertThat(copiedApp.getId()).isEqualTo(0);
+        assertThat(copiedApp.getAppName()).isEqualTo("foo");
+    }
+
+    @Test
+    public void rehashes_copied_sets_with_new_names() {
+        // when
+        TechnicalDeployment copy = copier.copy(td);
+
+        // then
+        Set<App> apps = copy.listXaasSubscriptionTemplates(App.class);
+        App copiedApp = apps.iterator().next();
+        assertThat(copy.listXaasSubscriptionTemplates().contains(copiedApp)).isTrue();
+        assertThat(copy.listXaasSubscriptionTemplates().contains(app)).isFalse();
+        assertThat(copiedApp.listDepedencies()).hasSize(app.listDepedencies().size());
+    }
+
+    @Test
+    public void does_not_alter_original() {
+        // given
+        String originalName = app.getName();
+
+        // when
+        copier.copy(td);
+
+        // then
+        assertThat(app.getName()).isEqualTo(originalName);
+        assertThat(td.listXaasSubscriptionTemplates()).hasSize(3);
+    }
+
+    @Test
+    public void copies_mutable_values_and_keeps_immutable_ones() {
+        // given
+        Date date = new Date();
+        List<Object> graph = new ArrayList<>();
+        graph.add(date);
+        graph.add("value");
+        graph.add(graph);
+
+        // when
+        List<Object> copy = copier.copy(graph);
+
+        // then
+        assertThat(copy.get(0)).isEqualTo(date).isNotSameAs(date);
+        assertThat(copy.get(1)).isSameAs("value");
+        assertThat(copy.get(2)).isSameAs(copy);
+    }
+
+    private static boolean identityContains(Set<DependantModelItem> items, Object item) {
+        for (DependantModelItem candidate : items) {
+            if (candidate == item) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.environment.impl;
+
+import com.francetelecom.clara.cloud.paas.projection.UnsupportedProjectionException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DeploymentTemplatesProjectorTest {
+
+	@Mock
+	ManageEnvironmentImplUtils utils;
+
+	DeploymentTemplatesProjector projector = new DeploymentTemplatesProjector();
+
+	@Before
+	public void setup() {
+		projector.setUtils(utils);
+	}
+
+	@After
+	public void teardown() {
+		projector.shutdown();
+	}
+
+	@Test
+	public void projects_release_in_background() {
+		// when
+		projector.projectAfterCommit("releaseUID");
+
+		// then
+		verify(utils, timeout(5000)).projectDeploymentTemplates("releaseUID");
+	}
+
+	@Test
+	public void ignores_release_which_can_not_be_projected() {
+		// given
+		doThrow(new UnsupportedProjectionException("At least one processing service is required", true)).when(utils).projectDeploymentTemplates("releaseUID");
+
+		// when
+		projector.project("releaseUID");
+
+		// then no exception is raised, release will be projected on first environment creation
+		verify(utils).projectDeploymentTemplates("releaseUID");
+	}
+}
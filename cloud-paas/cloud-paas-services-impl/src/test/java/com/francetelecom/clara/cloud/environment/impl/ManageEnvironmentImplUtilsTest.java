@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.environment.impl;
+
+import com.francetelecom.clara.cloud.core.service.SecurityUtils;
+import com.francetelecom.clara.cloud.coremodel.*;
+import com.francetelecom.clara.cloud.deployment.technical.service.ManageTechnicalDeploymentTemplate;
+import com.francetelecom.clara.cloud.deployment.technical.service.TechnicalDeploymentCloner;
+import com.francetelecom.clara.cloud.model.DeploymentProfileEnum;
+import com.francetelecom.clara.cloud.model.TechnicalDeployment;
+import com.francetelecom.clara.cloud.model.TechnicalDeploymentTemplate;
+import com.francetelecom.clara.cloud.paas.projection.ProjectionService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ManageEnvironmentImplUtilsTest {
+
+	@Mock
+	ProjectionService projectionService;
+	@Mock
+	ManageTechnicalDeploymentTemplate manageTechnicalDeploymentTemplate;
+	@Mock
+	ApplicationReleaseRepository applicationReleaseRepository;
+	@Mock
+	PaasUserRepository paasUserRepository;
+	@Mock
+	EnvironmentRepository environmentRepository;
+	@Mock
+	TechnicalDeploymentCloner tdCloner;
+	@Mock
+	SecurityUtils securityUtils;
+
+	@InjectMocks
+	ManageEnvironmentImplUtils utils = new ManageEnvironmentImplUtils();
+
+	ApplicationRelease release;
+
+	@Before
+	public void setup() {
+		release = new ApplicationRelease(new Application("app", "basicat"), "1.0");
+		when(applicationReleaseRepository.findByUID(release.getUID())).thenReturn(release);
+		when(projectionService.generateNewDeploymentTemplate(any(ApplicationRelease.class), any(DeploymentProfileEnum.class))).thenAnswer(
+				new Answer<TechnicalDeploymentTemplate>() {
+					@Override
+					public TechnicalDeploymentTemplate answer(InvocationOnMock invocation) throws Throwable {
+						ApplicationRelease release = (ApplicationRelease) invocation.getArguments()[0];
+						DeploymentProfileEnum profile = (DeploymentProfileEnum) invocation.getArguments()[1];
+						return new TechnicalDeploymentTemplate(new TechnicalDeployment("td"), profile, release.getUID(), release.getMiddlewareProfileVersion());
+					}
+				});
+		utils.setProjectionService(projectionService);
+		utils.setManageTechnicalDeploymentTemplate(manageTechnicalDeploymentTemplate);
+		utils.setApplicationReleaseRepository(applicationReleaseRepository);
+	}
+
+	@Test
+	public void projects_templates_of_an_editing_release() {
+		// when
+		utils.projectDeploymentTemplates(release.getUID());
+
+		// then
+		verify(projectionService).generateNewDeploymentTemplate(release, DeploymentProfileEnum.DEVELOPMENT);
+		verify(projectionService).generateNewDeploymentTemplate(release, DeploymentProfileEnum.PRODUCTION);
+		verify(manageTechnicalDeploymentTemplate, times(2)).createTechnicalDeploymentTemplate(any(TechnicalDeploymentTemplate.class));
+		assertThat(release.isTemplatesReady()).isTrue();
+		assertThat(release.isEditing()).isTrue();
+	}
+
+	@Test
+	public void reuses_templates_projected_from_the_same_logical_deployment() {
+		// given
+		utils.projectDeploymentTemplates(release.getUID());
+
+		// when
+		utils.projectDeploymentTemplates(release.getUID());
+
+		// then
+		verify(projectionService, times(2)).generateNewDeploymentTemplate(any(ApplicationRelease.class), any(DeploymentProfileEnum.class));
+		verify(manageTechnicalDeploymentTemplate, times(1)).deleteTechnicalDeploymentTemplates(anyString());
+	}
+
+	@Test
+	public void replaces_templates_projected_from_an_outdated_model() {
+		// given
+		utils.projectDeploymentTemplates(release.getUID());
+		String fingerprint = release.getTemplatesFingerprint();
+		release.setReleaseVersion("1.1");
+
+		// when
+		utils.projectDeploymentTemplates(release.getUID());
+
+		// then
+		verify(manageTechnicalDeploymentTemplate, times(2)).deleteTechnicalDeploymentTemplates(release.getUID());
+		verify(projectionService, times(4)).generateNewDeploymentTemplate(any(ApplicationRelease.class), any(DeploymentProfileEnum.class));
+		assertThat(release.getTemplatesFingerprint()).isNotEqualTo(fingerprint);
+	}
+
+	@Test
+	public void replaces_templates_of_a_release_whose_fingerprint_was_lost() {
+		// given
+		utils.projectDeploymentTemplates(release.getUID());
+		release.setTemplatesFingerprint(null);
+
+		// when
+		utils.projectDeploymentTemplates(release.getUID());
+
+		// then
+		verify(manageTechnicalDeploymentTemplate, times(2)).deleteTechnicalDeploymentTemplates(release.getUID());
+		verify(manageTechnicalDeploymentTemplate, times(4)).createTechnicalDeploymentTemplate(any(TechnicalDeploymentTemplate.class));
+		assertThat(release.isTemplatesReady()).isTrue();
+	}
+
+	@Test
+	public void creating_first_environment_of_a_release_projects_its_templates_and_locks_it() throws Exception {
+		// given
+		givenEnvironmentCanBeCreated();
+
+		// when
+		utils.createTDI(release.getUID(), DeploymentProfileEnum.DEVELOPMENT, "jdalton", "env", null);
+
+		// then
+		verify(manageTechnicalDeploymentTemplate, times(2)).createTechnicalDeploymentTemplate(any(TechnicalDeploymentTemplate.class));
+		assertThat(release.isLocked()).isTrue();
+		assertThat(release.isTemplatesReady()).isTrue();
+		assertThat(release.getTemplatesFingerprint()).isEqualTo(utils.fingerprint(release));
+	}
+
+	@Test
+	public void creating_first_environment_of_a_release_reuses_templates_projected_in_background() throws Exception {
+		// given
+		givenEnvironmentCanBeCreated();
+		utils.projectDeploymentTemplates(release.getUID());
+
+		// when
+		utils.createTDI(release.getUID(), DeploymentProfileEnum.DEVELOPMENT, "jdalton", "env", null);
+
+		// then
+		verify(projectionService, times(2)).generateNewDeploymentTemplate(any(ApplicationRelease.class), any(DeploymentProfileEnum.class));
+		assertThat(release.isLocked()).isTrue();
+		assertThat(release.isTemplatesReady()).isTrue();
+	}
+
+	@Test
+	public void does_not_project_locked_release() {
+		// given
+		release.validate();
+		release.lock();
+
+		// when
+		utils.projectDeploymentTemplates(release.getUID());
+
+		// then
+		verifyZeroInteractions(projectionService, manageTechnicalDeploymentTemplate);
+	}
+
+	private void givenEnvironmentCanBeCreated() throws Exception {
+		when(paasUserRepository.findBySsoId(new SSOId("jdalton"))).thenReturn(new PaasUser("John", "Dalton", new SSOId("jdalton"), "john.dalton@orange.com"));
+		when(manageTechnicalDeploymentTemplate.findTechnicalDeploymentTemplate(any(DeploymentProfileEnum.class), anyString())).thenReturn(
+				new TechnicalDeploymentTemplate(new TechnicalDeployment("td"), DeploymentProfileEnum.DEVELOPMENT, release.getUID(), release.getMiddlewareProfileVersion()));
+		when(tdCloner.deepCopy(any(TechnicalDeployment.class))).thenReturn(new TechnicalDeployment("td-clone"));
+	}
+}
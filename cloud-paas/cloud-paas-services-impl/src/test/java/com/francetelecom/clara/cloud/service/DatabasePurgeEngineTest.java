@@ -0,0 +1,136 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.service;
+
+import com.francetelecom.clara.cloud.coremodel.ApplicationRelease;
+import com.francetelecom.clara.cloud.coremodel.ApplicationReleaseRepository;
+import com.francetelecom.clara.cloud.coremodel.ApplicationRepository;
+import com.francetelecom.clara.cloud.coremodel.EnvironmentRepository;
+import com.francetelecom.clara.cloud.model.TechnicalDeploymentTemplateRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DatabasePurgeEngineTest {
+
+    @Mock
+    private EnvironmentRepository environmentRepository;
+    @Mock
+    private ApplicationReleaseRepository applicationReleaseRepository;
+    @Mock
+    private ApplicationRepository applicationRepository;
+    @Mock
+    private TechnicalDeploymentTemplateRepository technicalDeploymentTemplateRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DatabasePurgeEngine purgeEngine;
+
+    @Before
+    public void setUp() {
+        purgeEngine = new DatabasePurgeEngine();
+        purgeEngine.setEnvironmentRepository(environmentRepository);
+        purgeEngine.setApplicationReleaseRepository(applicationReleaseRepository);
+        purgeEngine.setApplicationRepository(applicationRepository);
+        purgeEngine.setTechnicalDeploymentTemplateRepository(technicalDeploymentTemplateRepository);
+        purgeEngine.setTransactionManager(transactionManager);
+        purgeEngine.setBatchSize(2);
+    }
+
+    @Test
+    public void purges_environments_releases_and_applications_in_batches() {
+        // given
+        when(environmentRepository.findRemovedIdsOlderThan(any(Date.class), eq(0), any(Pageable.class))).thenReturn(Arrays.asList(1, 2));
+        when(environmentRepository.findRemovedIdsOlderThan(any(Date.class), eq(2), any(Pageable.class))).thenReturn(Arrays.asList(3));
+        when(environmentRepository.purgeByIds(Arrays.asList(1, 2))).thenReturn(2);
+        when(environmentRepository.purgeByIds(Arrays.asList(3))).thenReturn(1);
+        ApplicationRelease release = mock(ApplicationRelease.class);
+        when(applicationReleaseRepository.findRemovedIdsWithoutEnvironment(eq(0), any(Pageable.class))).thenReturn(Arrays.asList(10));
+        when(applicationReleaseRepository.findAll(Arrays.asList(10))).thenReturn(Arrays.asList(release));
+        when(applicationRepository.findRemovedIdsWithoutRelease(eq(0), any(Pageable.class))).thenReturn(Arrays.asList(20));
+
+        // when
+        PurgeReport report = purgeEngine.purge();
+
+        // then
+        assertThat(report.isCompleted()).isTrue();
+        assertThat(report.getPurgedEnvironments()).isEqualTo(3);
+        assertThat(report.getPurgedReleases()).isEqualTo(1);
+        assertThat(report.getBatches()).isEqualTo(4);
+        assertThat(report.getFailures()).isEqualTo(0);
+        verify(applicationReleaseRepository).delete(Arrays.asList(release));
+        verify(transactionManager, times(4)).commit(any(TransactionStatus.class));
+        assertThat(purgeEngine.getLastReport()).isSameAs(report);
+    }
+
+    @Test
+    public void resumes_where_previous_run_stopped_when_time_budget_is_exhausted() {
+        // given
+        purgeEngine.setTimeBudgetMs(50);
+        when(environmentRepository.findRemovedIdsOlderThan(any(Date.class), eq(0), any(Pageable.class))).thenReturn(Arrays.asList(1, 2));
+        when(environmentRepository.purgeByIds(Arrays.asList(1, 2))).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(100);
+                return 2;
+            }
+        });
+        PurgeReport firstRun = purgeEngine.purge();
+        assertThat(firstRun.isCompleted()).isFalse();
+        assertThat(firstRun.getPurgedEnvironments()).isEqualTo(2);
+
+        // when
+        PurgeReport secondRun = purgeEngine.purge();
+
+        // then
+        assertThat(secondRun.isCompleted()).isTrue();
+        verify(environmentRepository).findRemovedIdsOlderThan(any(Date.class), eq(2), any(Pageable.class));
+        verify(environmentRepository, times(1)).purgeByIds(Arrays.asList(1, 2));
+    }
+
+    @Test
+    public void purges_items_one_by_one_when_a_batch_fails() {
+        // given
+        when(environmentRepository.findRemovedIdsOlderThan(any(Date.class), eq(0), any(Pageable.class))).thenReturn(Arrays.asList(1, 2));
+        when(environmentRepository.purgeByIds(Arrays.asList(1, 2))).thenThrow(new IllegalStateException("constraint violation"));
+        when(environmentRepository.purgeByIds(Collections.singletonList(1))).thenReturn(1);
+        when(environmentRepository.purgeByIds(Collections.singletonList(2))).thenThrow(new IllegalStateException("constraint violation"));
+
+        // when
+        PurgeReport report = purgeEngine.purge();
+
+        // then
+        assertThat(report.isCompleted()).isTrue();
+        assertThat(report.getPurgedEnvironments()).isEqualTo(1);
+        assertThat(report.getFailures()).isEqualTo(1);
+        // failing item is skipped until next purge cycle
+        verify(environmentRepository).findRemovedIdsOlderThan(any(Date.class), eq(2), any(Pageable.class));
+    }
+}
@@ -12,22 +12,15 @@
  */
 package com.francetelecom.clara.cloud.service;
 
-import com.francetelecom.clara.cloud.core.service.ManageApplication;
-import com.francetelecom.clara.cloud.core.service.ManageApplicationRelease;
-import com.francetelecom.clara.cloud.core.service.ManageEnvironment;
-import com.francetelecom.clara.cloud.core.service.exception.ObjectNotFoundException;
-import com.francetelecom.clara.cloud.coremodel.Environment;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.core.context.SecurityContextHolder;
 
-import java.util.Arrays;
-import java.util.List;
-
-import static org.mockito.Matchers.anyString;
+import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 /**
@@ -38,49 +31,31 @@ public class OpsServiceImplTest {
 	@Spy
 	private OpsServiceImpl opsService = new OpsServiceImpl();
 	@Mock
-	private ManageEnvironment manageEnvironment;
-	@Mock
-	private ManageApplicationRelease manageAppRelease;
-	@Mock
-	private ManageApplication manageApp;
-
-	private List<Environment> olderEnvironments;
+	private DatabasePurgeEngine databasePurgeEngine;
 
 	@Before
 	public void setUp() throws Exception {
-		opsService.setManageApplication(manageApp);
-		opsService.setManageRelease(manageAppRelease);
-		opsService.setManageEnvironment(manageEnvironment);
-
-		Environment envA = mock(Environment.class);
-		Environment envB = mock(Environment.class);
-		doReturn("uidA").when(envA).getUID();
-		doReturn("uidB").when(envB).getUID();
-		olderEnvironments = Arrays.asList(envA, envB);
-		doReturn(olderEnvironments).when(manageEnvironment).findOldRemovedEnvironments();
+		opsService.setDatabasePurgeEngine(databasePurgeEngine);
 	}
 
 	@Test
-	public void purge_should_catch_any_exception() throws ObjectNotFoundException {
-		doThrow(new RuntimeException("Oo something was wrong here")).when(manageEnvironment).purgeRemovedEnvironment(anyString());
+	public void purge_should_catch_any_exception() {
+		doThrow(new RuntimeException("Oo something was wrong here")).when(databasePurgeEngine).purge();
 		// WHEN
 		opsService.purgeDatabase();
 		// THEN
-		verify(manageEnvironment).findOldRemovedEnvironments();
-		verify(manageEnvironment, times(olderEnvironments.size())).purgeRemovedEnvironment(anyString());
-		// we stop on the first exception
-		// but without rethrowing the exception (to avoid crashing the
+		verify(databasePurgeEngine).purge();
+		// without rethrowing the exception (to avoid crashing the
 		// scheduler)
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
 	}
 
 	@Test
-	public void should_purge_env_release_and_application() throws ObjectNotFoundException {
+	public void should_purge_using_purge_engine() {
 		// WHEN
 		opsService.purgeDatabase();
 		// THEN
-		verify(manageEnvironment).findOldRemovedEnvironments();
-		verify(manageEnvironment, times(olderEnvironments.size())).purgeRemovedEnvironment(anyString());
-		verify(manageAppRelease).purgeOldRemovedReleases();
-		verify(manageApp).purgeOldRemovedApplications();
+		verify(databasePurgeEngine).purge();
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
 	}
 }
@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.core.service;
+
+import java.io.Serializable;
+
+/**
+ * Criteria of a paged application releases search, see
+ * {@link ManageApplicationRelease#findApplicationReleases(ApplicationReleaseSearchCriteria, int, int)}
+ */
+public class ApplicationReleaseSearchCriteria implements Serializable {
+
+	private static final long serialVersionUID = -3562841716392384726L;
+
+	/**
+	 * sort by application label then release version
+	 */
+	public static final String SORT_BY_LABEL = "label";
+
+	public static final String SORT_BY_DESCRIPTION = "description";
+
+	public static final String SORT_BY_STATE = "state";
+
+	private String applicationUID;
+
+	private boolean myReleasesOnly;
+
+	private String searchText;
+
+	private String sortProperty = SORT_BY_LABEL;
+
+	private boolean ascending = true;
+
+	/**
+	 * @return uid of the application releases belong to, null for releases of
+	 *         any application
+	 */
+	public String getApplicationUID() {
+		return applicationUID;
+	}
+
+	public void setApplicationUID(String applicationUID) {
+		this.applicationUID = applicationUID;
+	}
+
+	/**
+	 * @return true to only search releases of applications the connected user
+	 *         is a member of
+	 */
+	public boolean isMyReleasesOnly() {
+		return myReleasesOnly;
+	}
+
+	public void setMyReleasesOnly(boolean myReleasesOnly) {
+		this.myReleasesOnly = myReleasesOnly;
+	}
+
+	/**
+	 * @return text searched (case insensitive) in release label, description
+	 *         and state, null or empty for no filtering
+	 */
+	public String getSearchText() {
+		return searchText;
+	}
+
+	public void setSearchText(String searchText) {
+		this.searchText = searchText;
+	}
+
+	/**
+	 * @return one of {@link #SORT_BY_LABEL}, {@link #SORT_BY_DESCRIPTION} or
+	 *         {@link #SORT_BY_STATE}
+	 */
+	public String getSortProperty() {
+		return sortProperty;
+	}
+
+	public void setSortProperty(String sortProperty) {
+		this.sortProperty = sortProperty;
+	}
+
+	public boolean isAscending() {
+		return ascending;
+	}
+
+	public void setAscending(boolean ascending) {
+		this.ascending = ascending;
+	}
+
+	@Override
+	public String toString() {
+		return "ApplicationReleaseSearchCriteria[applicationUID=" + applicationUID + ", myReleasesOnly=" + myReleasesOnly + ", searchText="
+				+ searchText + ", sortProperty=" + sortProperty + ", ascending=" + ascending + "]";
+	}
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.core.service;
+
+import java.io.Serializable;
+
+/**
+ * Criteria of a paged environments search, see
+ * {@link ManageEnvironment#findEnvironments(EnvironmentSearchCriteria, int, int)}
+ */
+public class EnvironmentSearchCriteria implements Serializable {
+
+	private static final long serialVersionUID = 7316275094185602547L;
+
+	/**
+	 * sort by application label then release version
+	 */
+	public static final String SORT_BY_RELEASE = "applicationReleaseLabel";
+
+	public static final String SORT_BY_LABEL = "label";
+
+	public static final String SORT_BY_TYPE = "type";
+
+	/**
+	 * sort by owner ssoid
+	 */
+	public static final String SORT_BY_OWNER = "ownerName";
+
+	public static final String SORT_BY_STATUS = "status";
+
+	public static final String SORT_BY_CREATION_DATE = "creationDate";
+
+	private String releaseUID;
+
+	private boolean myEnvironmentsOnly;
+
+	private String searchText;
+
+	private String sortProperty = SORT_BY_CREATION_DATE;
+
+	private boolean ascending = false;
+
+	/**
+	 * @return uid of the release environments belong to, null for environments
+	 *         of any release
+	 */
+	public String getReleaseUID() {
+		return releaseUID;
+	}
+
+	public void setReleaseUID(String releaseUID) {
+		this.releaseUID = releaseUID;
+	}
+
+	/**
+	 * @return true to only search environments of applications the connected
+	 *         user is a member of
+	 */
+	public boolean isMyEnvironmentsOnly() {
+		return myEnvironmentsOnly;
+	}
+
+	public void setMyEnvironmentsOnly(boolean myEnvironmentsOnly) {
+		this.myEnvironmentsOnly = myEnvironmentsOnly;
+	}
+
+	/**
+	 * @return text searched (case insensitive) in release label, environment
+	 *         label, owner, type and status, null or empty for no filtering
+	 */
+	public String getSearchText() {
+		return searchText;
+	}
+
+	public void setSearchText(String searchText) {
+		this.searchText = searchText;
+	}
+
+	/**
+	 * @return one of the SORT_BY_* constants
+	 */
+	public String getSortProperty() {
+		return sortProperty;
+	}
+
+	public void setSortProperty(String sortProperty) {
+		this.sortProperty = sortProperty;
+	}
+
+	public boolean isAscending() {
+		return ascending;
+	}
+
+	public void setAscending(boolean ascending) {
+		this.ascending = ascending;
+	}
+
+	@Override
+	public String toString() {
+		return "EnvironmentSearchCriteria[releaseUID=" + releaseUID + ", myEnvironmentsOnly=" + myEnvironmentsOnly + ", searchText=" + searchText
+				+ ", sortProperty=" + sortProperty + ", ascending=" + ascending + "]";
+	}
+}
@@ -165,6 +165,30 @@ public interface ManageApplicationRelease {
 	 */
 	public long countApplicationReleases();
 
+	/**
+	 * Find a page of the application releases matching some criteria, among
+	 * releases the connected user can see (all releases for admin users,
+	 * releases of public applications and of private applications the user is
+	 * a member of otherwise)
+	 * 
+	 * @param criteria
+	 *            search, filter and sort criteria
+	 * @param firstIndex
+	 *            index of the first application release to retrieve (included)
+	 * @param count
+	 *            number of application releases to retrieve
+	 * @return a List of ApplicationRelease
+	 */
+	public List<ApplicationRelease> findApplicationReleases(ApplicationReleaseSearchCriteria criteria, int firstIndex, int count);
+
+	/**
+	 * @param criteria
+	 *            search and filter criteria (sort criteria are ignored)
+	 * @return count of the application releases matching criteria, see
+	 *         {@link #findApplicationReleases(ApplicationReleaseSearchCriteria, int, int)}
+	 */
+	public long countApplicationReleases(ApplicationReleaseSearchCriteria criteria);
+
 	/**
 	 * @return releases count of private application the connected user is a member of
 	 */
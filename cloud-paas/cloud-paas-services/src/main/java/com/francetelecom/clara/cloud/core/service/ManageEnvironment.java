@@ -118,6 +118,31 @@ public interface ManageEnvironment {
 	 * @return a List of ApplicationRelease
 	 */
 	public List<EnvironmentDto> findMyEnvironments();
+
+	/**
+	 * Find a page of the environments matching criteria, among the
+	 * environments the connected user can see (all environments for admin
+	 * users, environments of public applications and of private applications
+	 * the user is a member of otherwise). Environments are retrieved as
+	 * lightweight projections: their internal name is not set.
+	 * 
+	 * @param criteria
+	 *            search, filter and sort criteria
+	 * @param firstIndex
+	 *            index of the first environment to retrieve (included)
+	 * @param count
+	 *            number of environments to retrieve
+	 * @return a List of EnvironmentDto
+	 */
+	List<EnvironmentDto> findEnvironments(EnvironmentSearchCriteria criteria, int firstIndex, int count);
+
+	/**
+	 * @param criteria
+	 *            search and filter criteria (sort criteria are ignored)
+	 * @return count of the environments matching criteria, see
+	 *         {@link #findEnvironments(EnvironmentSearchCriteria, int, int)}
+	 */
+	long countEnvironments(EnvironmentSearchCriteria criteria);
 	
 	/**
 	 * Counts all environments
@@ -47,4 +47,12 @@ public interface ManageTechnicalDeploymentTemplate {
 	void createTechnicalDeploymentTemplate(TechnicalDeploymentTemplate tdt);
 	
 
+	/**
+	 * Deletion of all TDTs of a release. Only templates which have not been
+	 * instantiated yet can be deleted.
+	 * 
+	 * @param releaseId
+	 *            release uid
+	 */
+	void deleteTechnicalDeploymentTemplates(String releaseId);
 }
@@ -42,6 +42,17 @@ public class PaasStats implements Serializable {
     private static final transient org.slf4j.Logger logger
        = LoggerFactory.getLogger(PaasStats.class);
 
+    /**
+     * Hibernate second level and query cache counters, hit ratios (in percent) are computed from their deltas
+     */
+    public static final String SECOND_LEVEL_CACHE_HITS = "Second level cache hits";
+    public static final String SECOND_LEVEL_CACHE_MISSES = "Second level cache misses";
+    public static final String SECOND_LEVEL_CACHE_PUTS = "Second level cache puts";
+    public static final String SECOND_LEVEL_CACHE_HIT_RATIO = "Second level cache hit ratio (%)";
+    public static final String QUERY_CACHE_HITS = "Query cache hits";
+    public static final String QUERY_CACHE_MISSES = "Query cache misses";
+    public static final String QUERY_CACHE_HIT_RATIO = "Query cache hit ratio (%)";
+
     enum SnapState {
         START,
         END
@@ -115,11 +126,21 @@ public class PaasStats implements Serializable {
                 logger.warn("unable to stat {} without starting value", curKey);
             }
         }
+        putHitRatio(SECOND_LEVEL_CACHE_HITS, SECOND_LEVEL_CACHE_MISSES, SECOND_LEVEL_CACHE_HIT_RATIO);
+        putHitRatio(QUERY_CACHE_HITS, QUERY_CACHE_MISSES, QUERY_CACHE_HIT_RATIO);
         this.deltaTime = (System.currentTimeMillis() - this.creationTime);
         this.state = SnapState.END;
         return deltaValues;
     }
 
+    private void putHitRatio(String hitsKey, String missesKey, String ratioKey) {
+        Long hits = deltaValues.get(hitsKey);
+        Long misses = deltaValues.get(missesKey);
+        if (hits != null && misses != null && hits + misses > 0) {
+            deltaValues.put(ratioKey, hits * 100 / (hits + misses));
+        }
+    }
+
     public String getDetails() {
         StringBuilder sb = new StringBuilder();
         if (state.equals(SnapState.END)) {
@@ -13,6 +13,7 @@
 package com.francetelecom.clara.cloud.mocks;
 
 import com.francetelecom.clara.cloud.commons.BusinessException;
+import com.francetelecom.clara.cloud.core.service.ApplicationReleaseSearchCriteria;
 import com.francetelecom.clara.cloud.core.service.ManageApplicationRelease;
 import com.francetelecom.clara.cloud.core.service.exception.*;
 import com.francetelecom.clara.cloud.coremodel.ApplicationRelease;
@@ -22,7 +23,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import static com.francetelecom.clara.cloud.mocks.SecurityUtils.currentUser;
@@ -140,6 +144,58 @@ public class ManageApplicationReleaseMock extends CoreItemServiceMock<Applicatio
 		return find(firstIndex, count);
 	}
 
+	@Override
+	public List<ApplicationRelease> findApplicationReleases(ApplicationReleaseSearchCriteria criteria, int firstIndex, int count) {
+		List<ApplicationRelease> releases = find(matching(criteria));
+		Collections.sort(releases, sortedBy(criteria));
+		int from = Math.min(firstIndex, releases.size());
+		int to = Math.min(firstIndex + count, releases.size());
+		return new ArrayList<ApplicationRelease>(releases.subList(from, to));
+	}
+
+	@Override
+	public long countApplicationReleases(ApplicationReleaseSearchCriteria criteria) {
+		return count(matching(criteria));
+	}
+
+	private Predicate<ApplicationRelease> matching(final ApplicationReleaseSearchCriteria criteria) {
+		return new Predicate<ApplicationRelease>() {
+			@Override
+			public boolean apply(ApplicationRelease release) {
+				if (criteria.isMyReleasesOnly() && !release.getApplication().hasForMember(currentUser())) {
+					return false;
+				}
+				if (criteria.getApplicationUID() != null && !release.getApplication().getUID().equals(criteria.getApplicationUID())) {
+					return false;
+				}
+				if (criteria.getSearchText() == null || criteria.getSearchText().trim().isEmpty()) {
+					return true;
+				}
+				String upper = criteria.getSearchText().trim().toUpperCase();
+				String label = release.getApplication().getLabel() + " - " + release.getReleaseVersion();
+				return label.toUpperCase().contains(upper) || release.getState().name().contains(upper)
+						|| (release.getDescription() != null && release.getDescription().toUpperCase().contains(upper));
+			}
+		};
+	}
+
+	private Comparator<ApplicationRelease> sortedBy(final ApplicationReleaseSearchCriteria criteria) {
+		return new Comparator<ApplicationRelease>() {
+			@Override
+			public int compare(ApplicationRelease o1, ApplicationRelease o2) {
+				int dir = criteria.isAscending() ? 1 : -1;
+				if (ApplicationReleaseSearchCriteria.SORT_BY_STATE.equals(criteria.getSortProperty())) {
+					return dir * o1.getState().compareTo(o2.getState());
+				} else if (ApplicationReleaseSearchCriteria.SORT_BY_DESCRIPTION.equals(criteria.getSortProperty())) {
+					return dir * String.valueOf(o1.getDescription()).compareToIgnoreCase(String.valueOf(o2.getDescription()));
+				}
+				String release1 = o1.getApplication().getLabel() + " - " + o1.getReleaseVersion();
+				String release2 = o2.getApplication().getLabel() + " - " + o2.getReleaseVersion();
+				return dir * release1.compareToIgnoreCase(release2);
+			}
+		};
+	}
+
 	@Override
 	public List<ApplicationRelease> findMyApplicationReleases() {
 		return find(new Predicate<ApplicationRelease>() {
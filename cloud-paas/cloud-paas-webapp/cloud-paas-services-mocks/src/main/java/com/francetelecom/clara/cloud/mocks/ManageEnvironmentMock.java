@@ -14,6 +14,7 @@ package com.francetelecom.clara.cloud.mocks;
 
 import com.francetelecom.clara.cloud.commons.BusinessException;
 import com.francetelecom.clara.cloud.commons.TechnicalException;
+import com.francetelecom.clara.cloud.core.service.EnvironmentSearchCriteria;
 import com.francetelecom.clara.cloud.core.service.ManageEnvironment;
 import com.francetelecom.clara.cloud.core.service.exception.*;
 import com.francetelecom.clara.cloud.coremodel.ApplicationRelease;
@@ -582,4 +583,68 @@ public class ManageEnvironmentMock extends CoreItemServiceMock<Environment> impl
         return count();
     }
 
+    @Override
+    public List<EnvironmentDto> findEnvironments(EnvironmentSearchCriteria criteria, int firstIndex, int count) {
+        List<EnvironmentDto> environments = findMatching(criteria);
+        Collections.sort(environments, sortedBy(criteria));
+        int from = Math.min(firstIndex, environments.size());
+        int to = Math.min(firstIndex + count, environments.size());
+        return new ArrayList<EnvironmentDto>(environments.subList(from, to));
+    }
+
+    @Override
+    public long countEnvironments(EnvironmentSearchCriteria criteria) {
+        return findMatching(criteria).size();
+    }
+
+    private List<EnvironmentDto> findMatching(final EnvironmentSearchCriteria criteria) {
+        List<EnvironmentDto> environments = createEnvironmentDtoList(find(new Predicate<Environment>() {
+            @Override
+            public boolean apply(Environment environment) {
+                if (criteria.isMyEnvironmentsOnly() && !environment.getApplicationRelease().getApplication().hasForMember(currentUser())) {
+                    return false;
+                }
+                return criteria.getReleaseUID() == null || criteria.getReleaseUID().equals(environment.getApplicationRelease().getUID());
+            }
+        }));
+        if (criteria.getSearchText() == null || criteria.getSearchText().trim().isEmpty()) {
+            return environments;
+        }
+        String upper = criteria.getSearchText().trim().toUpperCase();
+        Iterator<EnvironmentDto> it = environments.iterator();
+        while (it.hasNext()) {
+            EnvironmentDto env = it.next();
+            String releaseName = env.getApplicationLabel() + " - " + env.getReleaseVersion();
+            if (!releaseName.toUpperCase().contains(upper) && !env.getLabel().toUpperCase().contains(upper) && !env.getOwnerId().toUpperCase().contains(upper)
+                    && !env.getType().name().contains(upper) && !env.getStatus().name().contains(upper)) {
+                it.remove();
+            }
+        }
+        return environments;
+    }
+
+    private Comparator<EnvironmentDto> sortedBy(final EnvironmentSearchCriteria criteria) {
+        return new Comparator<EnvironmentDto>() {
+            @Override
+            public int compare(EnvironmentDto o1, EnvironmentDto o2) {
+                int dir = criteria.isAscending() ? 1 : -1;
+                String sortProperty = criteria.getSortProperty();
+                if (EnvironmentSearchCriteria.SORT_BY_LABEL.equals(sortProperty)) {
+                    return dir * o1.getLabel().compareToIgnoreCase(o2.getLabel());
+                } else if (EnvironmentSearchCriteria.SORT_BY_RELEASE.equals(sortProperty)) {
+                    String releaseName1 = o1.getApplicationLabel() + " - " + o1.getReleaseVersion();
+                    String releaseName2 = o2.getApplicationLabel() + " - " + o2.getReleaseVersion();
+                    return dir * releaseName1.compareToIgnoreCase(releaseName2);
+                } else if (EnvironmentSearchCriteria.SORT_BY_TYPE.equals(sortProperty)) {
+                    return dir * o1.getType().name().compareTo(o2.getType().name());
+                } else if (EnvironmentSearchCriteria.SORT_BY_OWNER.equals(sortProperty)) {
+                    return dir * o1.getOwnerId().compareToIgnoreCase(o2.getOwnerId());
+                } else if (EnvironmentSearchCriteria.SORT_BY_STATUS.equals(sortProperty)) {
+                    return dir * o1.getStatus().name().compareTo(o2.getStatus().name());
+                }
+                return dir * o1.getCreationDate().compareTo(o2.getCreationDate());
+            }
+        };
+    }
+
 }
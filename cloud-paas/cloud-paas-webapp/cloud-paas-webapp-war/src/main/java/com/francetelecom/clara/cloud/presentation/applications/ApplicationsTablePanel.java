@@ -15,13 +15,13 @@ package com.francetelecom.clara.cloud.presentation.applications;
 import com.francetelecom.clara.cloud.core.service.exception.ObjectNotFoundException;
 import com.francetelecom.clara.cloud.coremodel.Application;
 import com.francetelecom.clara.cloud.presentation.common.AjaxFallbackCustomDataTable;
+import com.francetelecom.clara.cloud.presentation.common.CoreItemChangeTimerBehavior;
 import com.francetelecom.clara.cloud.presentation.common.PageTemplate;
 import com.francetelecom.clara.cloud.presentation.resource.CacheActivatedImage;
 import com.francetelecom.clara.cloud.presentation.tools.ApplicationProvider;
 import com.francetelecom.clara.cloud.presentation.tools.BusinessExceptionHandler;
 import com.francetelecom.clara.cloud.presentation.tools.WicketSession;
 import org.apache.wicket.ajax.AjaxRequestTarget;
-import org.apache.wicket.ajax.AjaxSelfUpdatingTimerBehavior;
 import org.apache.wicket.ajax.markup.html.form.AjaxCheckBox;
 import org.apache.wicket.behavior.AttributeAppender;
 import org.apache.wicket.extensions.markup.html.repeater.data.grid.ICellPopulator;
@@ -163,7 +163,17 @@ public class ApplicationsTablePanel extends Panel {
         ApplicationProvider appProv = new ApplicationProvider(searchCriteria, applicationsList);
 
         dataTable = new AjaxFallbackCustomDataTable<>("applicationsDataTable",columns,appProv, PageTemplate.ROWS_PER_PAGE);
-        dataTable.add(new AjaxSelfUpdatingTimerBehavior(Duration.seconds(60)));
+        dataTable.add(new CoreItemChangeTimerBehavior(Application.class, Duration.seconds(60)) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void onRefreshAll(AjaxRequestTarget target) {
+                getApplicationsFromDB();
+                initTable();
+                refreshContainer.replace(dataTable);
+                target.add(refreshContainer);
+            }
+        });
         addOrReplace(dataTable);
     }
 
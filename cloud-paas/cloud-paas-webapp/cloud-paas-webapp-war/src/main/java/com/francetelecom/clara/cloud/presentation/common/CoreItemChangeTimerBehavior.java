@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.presentation.common;
+
+import com.francetelecom.clara.cloud.coremodel.EntityChangeTracker;
+import org.apache.wicket.Component;
+import org.apache.wicket.ajax.AbstractAjaxTimerBehavior;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.util.time.Duration;
+
+/**
+ * Timer behavior refreshing a view only when items of a given type changed since it was last refreshed, as
+ * recorded by the {@link EntityChangeTracker}. Unlike AjaxSelfUpdatingTimerBehavior, ticks without any change
+ * neither hit the database nor send back markup, and a tick happening while the browser tab is hidden is only sent
+ * once the tab becomes visible again.
+ * <p>
+ * As changes are only tracked within the current node, a full refresh is also done every fullRefreshPeriod.
+ */
+public abstract class CoreItemChangeTimerBehavior extends AbstractAjaxTimerBehavior {
+
+    private static final long serialVersionUID = -2903735815377237813L;
+
+    public static final Duration DEFAULT_FULL_REFRESH_PERIOD = Duration.minutes(5);
+
+    private final Class<?> type;
+
+    private final Duration fullRefreshPeriod;
+
+    private long version;
+
+    private long lastRefreshTime;
+
+    /**
+     * @param type
+     *            type of the items displayed by the view
+     * @param checkPeriod
+     *            how often changes are checked
+     */
+    public CoreItemChangeTimerBehavior(Class<?> type, Duration checkPeriod) {
+        this(type, checkPeriod, DEFAULT_FULL_REFRESH_PERIOD);
+    }
+
+    public CoreItemChangeTimerBehavior(Class<?> type, Duration checkPeriod, Duration fullRefreshPeriod) {
+        super(checkPeriod);
+        this.type = type;
+        this.fullRefreshPeriod = fullRefreshPeriod;
+        this.version = EntityChangeTracker.getInstance().getVersion();
+        this.lastRefreshTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Defers the tick of a hidden tab until it is shown again. The timer is only re-armed by the Ajax response, so
+     * the tick is delayed rather than skipped: a cancelled call (e.g. by a precondition) would stop polling for good.
+     */
+    @Override
+    protected CharSequence getCallbackScript(Component component) {
+        CharSequence call = super.getCallbackScript(component);
+        return "if (document.hidden) {"
+                + "var onVisible = function() {"
+                + "if (!document.hidden) {"
+                + "document.removeEventListener('visibilitychange', onVisible);"
+                + call
+                + "}};"
+                + "document.addEventListener('visibilitychange', onVisible);"
+                + "} else {"
+                + call
+                + "}";
+    }
+
+    @Override
+    protected final void onTimer(AjaxRequestTarget target) {
+        EntityChangeTracker.Changes changes = EntityChangeTracker.getInstance().changesSince(type, version);
+        version = changes.getVersion();
+        if (changes.isRefreshAll() || System.currentTimeMillis() - lastRefreshTime >= fullRefreshPeriod.getMilliseconds()) {
+            lastRefreshTime = System.currentTimeMillis();
+            onRefreshAll(target);
+        } else if (!changes.isEmpty()) {
+            onItemsChanged(target, changes);
+        }
+    }
+
+    /**
+     * Refreshes the whole view: items were added or removed, changes are unknown, or the full refresh period elapsed
+     */
+    protected abstract void onRefreshAll(AjaxRequestTarget target);
+
+    /**
+     * Refreshes the view after the given items changed. Refreshes the whole view by default.
+     */
+    protected void onItemsChanged(AjaxRequestTarget target, EntityChangeTracker.Changes changes) {
+        onRefreshAll(target);
+    }
+
+}
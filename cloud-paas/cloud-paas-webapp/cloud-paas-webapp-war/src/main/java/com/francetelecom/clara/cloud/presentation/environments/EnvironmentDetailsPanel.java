@@ -13,13 +13,15 @@
 package com.francetelecom.clara.cloud.presentation.environments;
 
 import com.francetelecom.clara.cloud.core.service.exception.ObjectNotFoundException;
+import com.francetelecom.clara.cloud.coremodel.EntityChangeTracker;
+import com.francetelecom.clara.cloud.coremodel.Environment;
+import com.francetelecom.clara.cloud.presentation.common.CoreItemChangeTimerBehavior;
 import com.francetelecom.clara.cloud.presentation.designer.panels.DesignerArchitectureMatrixPanel;
 import com.francetelecom.clara.cloud.presentation.tools.FieldFeedbackDecorator;
 import com.francetelecom.clara.cloud.services.dto.EnvironmentDetailsDto;
 import org.apache.wicket.AttributeModifier;
 import org.apache.wicket.Component;
 import org.apache.wicket.ajax.AjaxRequestTarget;
-import org.apache.wicket.ajax.AjaxSelfUpdatingTimerBehavior;
 import org.apache.wicket.ajax.markup.html.AjaxLink;
 import org.apache.wicket.ajax.markup.html.form.AjaxButton;
 import org.apache.wicket.bean.validation.PropertyValidator;
@@ -208,11 +210,18 @@ public class EnvironmentDetailsPanel extends GenericPanel<EnvironmentDetailsDto>
     }
 
     private void addBehaviorSelfUpdating() {
-        refreshContainer.add(new AjaxSelfUpdatingTimerBehavior(ajaxRefreshPeriod) {
+        refreshContainer.add(new CoreItemChangeTimerBehavior(Environment.class, ajaxRefreshPeriod) {
             @Override
-            protected void onPostProcessTarget(AjaxRequestTarget target) {
+            protected void onRefreshAll(AjaxRequestTarget target) {
                 updateEnvDetailsPanel(target);
             }
+
+            @Override
+            protected void onItemsChanged(AjaxRequestTarget target, EntityChangeTracker.Changes changes) {
+                if (changes.getChangedUIDs().contains(getModelObject().getUid())) {
+                    updateEnvDetailsPanel(target);
+                }
+            }
         });
     }
 
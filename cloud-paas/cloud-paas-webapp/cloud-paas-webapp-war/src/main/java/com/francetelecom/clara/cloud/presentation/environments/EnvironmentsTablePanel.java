@@ -12,21 +12,22 @@
  */
 package com.francetelecom.clara.cloud.presentation.environments;
 
+import com.francetelecom.clara.cloud.core.service.EnvironmentSearchCriteria;
 import com.francetelecom.clara.cloud.core.service.ManageApplicationRelease;
 import com.francetelecom.clara.cloud.core.service.ManageEnvironment;
-import com.francetelecom.clara.cloud.core.service.exception.ApplicationReleaseNotFoundException;
 import com.francetelecom.clara.cloud.core.service.exception.ObjectNotFoundException;
 import com.francetelecom.clara.cloud.coremodel.ApplicationRelease;
+import com.francetelecom.clara.cloud.coremodel.EntityChangeTracker;
+import com.francetelecom.clara.cloud.coremodel.Environment;
 import com.francetelecom.clara.cloud.presentation.common.AjaxFallbackCustomDataTable;
+import com.francetelecom.clara.cloud.presentation.common.CoreItemChangeTimerBehavior;
 import com.francetelecom.clara.cloud.presentation.common.PageTemplate;
 import com.francetelecom.clara.cloud.presentation.common.WicketUtils;
 import com.francetelecom.clara.cloud.presentation.resource.CacheActivatedImage;
-import com.francetelecom.clara.cloud.presentation.tools.BusinessExceptionHandler;
 import com.francetelecom.clara.cloud.presentation.tools.EnvironmentDtoProvider;
 import com.francetelecom.clara.cloud.presentation.tools.WicketSession;
 import com.francetelecom.clara.cloud.services.dto.EnvironmentDto;
 import org.apache.wicket.ajax.AjaxRequestTarget;
-import org.apache.wicket.ajax.AjaxSelfUpdatingTimerBehavior;
 import org.apache.wicket.ajax.markup.html.form.AjaxCheckBox;
 import org.apache.wicket.behavior.AttributeAppender;
 import org.apache.wicket.extensions.markup.html.repeater.data.grid.ICellPopulator;
@@ -46,11 +47,14 @@ import org.apache.wicket.model.Model;
 import org.apache.wicket.model.PropertyModel;
 import org.apache.wicket.model.StringResourceModel;
 import org.apache.wicket.util.time.Duration;
+import org.apache.wicket.util.visit.IVisit;
+import org.apache.wicket.util.visit.IVisitor;
 import org.slf4j.LoggerFactory;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * EnvironmentsTablePanel Panel which list the environments
@@ -79,7 +83,6 @@ public class EnvironmentsTablePanel extends Panel {
 
 	private EnvironmentDtoProvider envDtoProvider;
 
-	private List<EnvironmentDto> envList;
 	private Form<?> searchCriteriaForm;
 	private String searchCriteria;
 
@@ -122,8 +125,6 @@ public class EnvironmentsTablePanel extends Panel {
 		viewAllLabel.setVisible(release == null);
 		searchCriteriaForm.addOrReplace(viewAllLabel);
 
-		getEnvironmentsFromDB();
-
 		initTable();
 		refreshContainer.addOrReplace(dataTable);
 		super.onBeforeRender();
@@ -135,26 +136,15 @@ public class EnvironmentsTablePanel extends Panel {
 		return new StringResourceModel(key, this, null);
 	}
 
-	private void getEnvironmentsFromDB() {
+	private EnvironmentSearchCriteria getEnvironmentSearchCriteria() {
+		EnvironmentSearchCriteria criteria = new EnvironmentSearchCriteria();
 		if (release != null) {
-			try {
-
-				envList = manageEnvironment.findEnvironmentsByAppRelease(release.getUID());
-
-			} catch (ApplicationReleaseNotFoundException e) {
-				BusinessExceptionHandler handler = new BusinessExceptionHandler(this);
-				handler.error(e);
-			}
+			criteria.setReleaseUID(release.getUID());
 		} else {
-			if (viewAllCheckBox.getModelObject()) {
-				envList = manageEnvironment.findEnvironments();
-			} else {
-
-				envList = manageEnvironment.findMyEnvironments();
-			}
+			criteria.setMyEnvironmentsOnly(!viewAllCheckBox.getModelObject());
 		}
-		
-		envDtoProvider = new EnvironmentDtoProvider(searchCriteria, envList);
+		criteria.setSearchText(searchCriteria);
+		return criteria;
 	}
 
 	private void createSearchCriteriaForm() {
@@ -298,19 +288,25 @@ public class EnvironmentsTablePanel extends Panel {
 			}
 		});
 
-		envDtoProvider = new EnvironmentDtoProvider(searchCriteria, envList);
+		envDtoProvider = new EnvironmentDtoProvider(manageEnvironment, getEnvironmentSearchCriteria());
 
 		dataTable = new AjaxFallbackCustomDataTable<EnvironmentDto, String>("dataTable", columns, envDtoProvider, PageTemplate.ROWS_PER_PAGE);
 
-		dataTable.add(new AjaxSelfUpdatingTimerBehavior(ajaxRefreshPeriod) {
+		dataTable.add(new CoreItemChangeTimerBehavior(Environment.class, ajaxRefreshPeriod) {
 
 			private static final long serialVersionUID = 1L;
 
 			@Override
-			protected void onPostProcessTarget(AjaxRequestTarget target) {
-				// on va en base recuperer les donnes
+			protected void onRefreshAll(AjaxRequestTarget target) {
 				updateEnvDetailsPanel(target);
+			}
 
+			@Override
+			protected void onItemsChanged(AjaxRequestTarget target, EntityChangeTracker.Changes changes) {
+				// only environments of the current page are fetched again
+				if (isAnyDisplayed(changes.getChangedUIDs())) {
+					updateEnvDetailsPanel(target);
+				}
 			}
 
 		});
@@ -319,8 +315,20 @@ public class EnvironmentsTablePanel extends Panel {
 
 	}
 
+	private boolean isAnyDisplayed(final Set<String> uids) {
+		Boolean displayed = dataTable.visitChildren(Item.class, new IVisitor<Item<?>, Boolean>() {
+			@Override
+			public void component(Item<?> item, IVisit<Boolean> visit) {
+				Object row = item.getDefaultModelObject();
+				if (row instanceof EnvironmentDto && uids.contains(((EnvironmentDto) row).getUid())) {
+					visit.stop(true);
+				}
+			}
+		});
+		return displayed != null && displayed;
+	}
+
 	private void updateEnvDetailsPanel(AjaxRequestTarget target) {
-		getEnvironmentsFromDB();
 		initTable();
 
 		refreshContainer.replace(dataTable);
@@ -12,19 +12,18 @@
  */
 package com.francetelecom.clara.cloud.presentation.releases;
 
+import com.francetelecom.clara.cloud.core.service.ApplicationReleaseSearchCriteria;
 import com.francetelecom.clara.cloud.core.service.ManageApplicationRelease;
-import com.francetelecom.clara.cloud.core.service.exception.ApplicationNotFoundException;
 import com.francetelecom.clara.cloud.coremodel.Application;
 import com.francetelecom.clara.cloud.coremodel.ApplicationRelease;
 import com.francetelecom.clara.cloud.presentation.common.AjaxFallbackCustomDataTable;
+import com.francetelecom.clara.cloud.presentation.common.CoreItemChangeTimerBehavior;
 import com.francetelecom.clara.cloud.presentation.common.PageTemplate;
 import com.francetelecom.clara.cloud.presentation.common.WicketUtils;
 import com.francetelecom.clara.cloud.presentation.resource.CacheActivatedImage;
-import com.francetelecom.clara.cloud.presentation.tools.BusinessExceptionHandler;
 import com.francetelecom.clara.cloud.presentation.tools.ReleaseProvider;
 import com.francetelecom.clara.cloud.presentation.tools.WicketSession;
 import org.apache.wicket.ajax.AjaxRequestTarget;
-import org.apache.wicket.ajax.AjaxSelfUpdatingTimerBehavior;
 import org.apache.wicket.ajax.markup.html.form.AjaxCheckBox;
 import org.apache.wicket.behavior.AttributeAppender;
 import org.apache.wicket.extensions.markup.html.repeater.data.grid.ICellPopulator;
@@ -72,7 +71,6 @@ public class ReleasesTablePanel extends Panel {
 
     CheckBox viewAllCheckBox;
     
-    private List<ApplicationRelease> releasesList;
     private Form<?> searchCriteriaForm;
     private String searchCriteria;
     private WebMarkupContainer refreshContainer;
@@ -103,8 +101,6 @@ public class ReleasesTablePanel extends Panel {
 			@Override
             protected void onUpdate(AjaxRequestTarget target) {
                 WicketSession.get().setViewAll(getModelObject());
-                getApplicationReleasesFromDB();
-                //
                 initTable();
                 refreshContainer.replace(dataTable);
                 target.add(refreshContainer);
@@ -118,8 +114,6 @@ public class ReleasesTablePanel extends Panel {
         viewAllLabel.setVisible(app == null);
         searchCriteriaForm.addOrReplace(viewAllLabel);
 
-        getApplicationReleasesFromDB();
-        
         initTable();
         refreshContainer.addOrReplace(dataTable) ;
         super.onBeforeRender();
@@ -131,22 +125,15 @@ public class ReleasesTablePanel extends Panel {
     }
 
     
-    private void getApplicationReleasesFromDB() {
-    	releasesList = new ArrayList<ApplicationRelease>();    	
-		if (app != null) {
-            try{
-			releasesList = manageApplicationRelease.findApplicationReleasesByAppUID(app.getUID());
-            } catch (ApplicationNotFoundException e) {
-                BusinessExceptionHandler handler = new BusinessExceptionHandler(this);
-                handler.error(e);
-            }
-		} else {
-			if (viewAllCheckBox.getModelObject()) {
-				releasesList = manageApplicationRelease.findApplicationReleases(0, 1000);
-			} else {
-				releasesList = manageApplicationRelease.findMyApplicationReleases();
-			}
-		}				    	
+    private ApplicationReleaseSearchCriteria getApplicationReleaseSearchCriteria() {
+        ApplicationReleaseSearchCriteria criteria = new ApplicationReleaseSearchCriteria();
+        if (app != null) {
+            criteria.setApplicationUID(app.getUID());
+        } else {
+            criteria.setMyReleasesOnly(!viewAllCheckBox.getModelObject());
+        }
+        criteria.setSearchText(searchCriteria);
+        return criteria;
     }
 
      
@@ -214,10 +201,19 @@ public class ReleasesTablePanel extends Panel {
             }
         });
 
-        ReleaseProvider releaseProv = new ReleaseProvider(searchCriteria, releasesList);
+        ReleaseProvider releaseProv = new ReleaseProvider(manageApplicationRelease, getApplicationReleaseSearchCriteria());
 
         dataTable = new AjaxFallbackCustomDataTable<>("releasesDataTable",columns,releaseProv, PageTemplate.ROWS_PER_PAGE);
-        dataTable.add(new AjaxSelfUpdatingTimerBehavior(Duration.seconds(60)));
+        dataTable.add(new CoreItemChangeTimerBehavior(ApplicationRelease.class, Duration.seconds(60)) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void onRefreshAll(AjaxRequestTarget target) {
+                initTable();
+                refreshContainer.replace(dataTable);
+                target.add(refreshContainer);
+            }
+        });
         addOrReplace(dataTable);
     }
 
@@ -13,6 +13,7 @@
 package com.francetelecom.clara.cloud.presentation;
 
 import com.francetelecom.clara.cloud.commons.BusinessException;
+import com.francetelecom.clara.cloud.core.service.ApplicationReleaseSearchCriteria;
 import com.francetelecom.clara.cloud.core.service.ManageApplication;
 import com.francetelecom.clara.cloud.core.service.ManageApplicationReleaseImpl;
 import com.francetelecom.clara.cloud.core.service.ManageEnvironment;
@@ -576,6 +577,8 @@ public class ReleasePagesTest {
         when(manageApplicationRelease.findApplicationReleaseByUID(anyString())).thenReturn(createReleaseMock());
         when(manageApplicationRelease.findMyApplicationReleases()).thenReturn(releaseList);
         when(manageApplicationRelease.findApplicationReleases(anyInt(), anyInt())).thenReturn(releaseList);
+        when(manageApplicationRelease.findApplicationReleases(any(ApplicationReleaseSearchCriteria.class), anyInt(), anyInt())).thenReturn(releaseList);
+        when(manageApplicationRelease.countApplicationReleases(any(ApplicationReleaseSearchCriteria.class))).thenReturn(Long.valueOf("1"));
         when(manageApplicationRelease.countApplicationReleases()).thenReturn(Long.valueOf("1"));
         when(manageApplicationRelease.countApplicationReleasesByAppUID(anyString())).thenReturn(Long.valueOf("1"));
         when(manageApplicationRelease.countMyApplicationReleases()).thenReturn(Long.valueOf("1"));
@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.presentation.common;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.util.tester.WicketTester;
+import org.apache.wicket.util.time.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.francetelecom.clara.cloud.coremodel.ApplicationRelease;
+
+public class CoreItemChangeTimerBehaviorTest {
+
+	private WicketTester tester;
+
+	private int refreshCount;
+
+	private CoreItemChangeTimerBehavior behavior;
+
+	@Before
+	public void setUp() {
+		tester = new WicketTester();
+		behavior = new CoreItemChangeTimerBehavior(ApplicationRelease.class, Duration.seconds(60), Duration.NONE) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void onRefreshAll(AjaxRequestTarget target) {
+				refreshCount++;
+			}
+		};
+		Label label = new Label("label", "releases");
+		label.add(behavior);
+		tester.startComponentInPage(label);
+	}
+
+	@After
+	public void tearDown() {
+		tester.destroy();
+	}
+
+	@Test
+	public void tick_of_a_hidden_tab_is_deferred_until_the_tab_is_visible() {
+		String script = behavior.getCallbackScript().toString();
+
+		assertThat(script).contains("if (document.hidden)");
+		assertThat(script).contains("addEventListener('visibilitychange'");
+		// a cancelled tick would never re-arm the timer
+		assertThat(tester.getLastResponseAsString()).doesNotContain("document.hidden;");
+		assertThat(tester.getLastResponseAsString()).doesNotContain("\"pre\"");
+	}
+
+	@Test
+	public void deferred_tick_re_arms_the_timer() {
+		tester.executeBehavior(behavior);
+
+		assertThat(refreshCount).isEqualTo(1);
+		assertThat(tester.getLastResponseAsString()).contains("visibilitychange");
+	}
+
+}
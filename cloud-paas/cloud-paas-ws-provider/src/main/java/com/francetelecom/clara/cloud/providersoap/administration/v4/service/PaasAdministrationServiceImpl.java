@@ -22,7 +22,6 @@ import com.francetelecom.clara.cloud.providersoap.mapping.SoapMapper;
 import com.francetelecom.clara.cloud.services.dto.ApplicationDTO;
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
-import com.orange.clara.cloud.providersoap.administration.v4.exception.*;
 import com.orange.clara.cloud.providersoap.administration.v4.model.*;
 import com.orange.clara.cloud.providersoap.administration.v4.service.*;
 import com.orange.clara.cloud.providersoap.security.v1.Credentials;
@@ -84,13 +83,13 @@ public class PaasAdministrationServiceImpl implements PaasAdministrationService
 			// returns application generated uid
 		} catch (DuplicateApplicationException e) {
 			LOG.warn("exception : " + e);
-			throw (DuplicateApplicationErrorFault) mapper.map(e, DuplicateApplicationErrorFault.class, DuplicateApplicationError.class);
+			throw mapper.mapFault(e, DuplicateApplicationErrorFault.class);
 		} catch (MalformedURLException e) {
 			LOG.warn("exception : " + e);
 			throw new IllegalArgumentException(e);
 		} catch (PaasUserNotFoundException e) {
 			LOG.error("exception : " + e);
-			throw (PaasUserNotFoundErrorFault) mapper.map(e, PaasUserNotFoundErrorFault.class, PaasUserNotFoundError.class);
+			throw mapper.mapFault(e, PaasUserNotFoundErrorFault.class);
 		}
 	}
 
@@ -127,7 +126,7 @@ public class PaasAdministrationServiceImpl implements PaasAdministrationService
 
 		if (applications != null) {
 			for (Application application : applications) {
-				target.add(mapper.map(application, ApplicationModel.class));
+				target.add(mapper.mapApplication(application));
 			}
 		}
 
@@ -176,13 +175,13 @@ public class PaasAdministrationServiceImpl implements PaasAdministrationService
 			return manageApplicationRelease.createApplicationRelease(applicationUID, credentials.getSsoid(), version, description, url, profileVersion);
 		} catch (PaasUserNotFoundException e) {
 			LOG.warn("exception : " + e);
-			throw (PaasUserNotFoundErrorFault) mapper.map(e, PaasUserNotFoundErrorFault.class, PaasUserNotFoundError.class);
+			throw mapper.mapFault(e, PaasUserNotFoundErrorFault.class);
 		} catch (ApplicationNotFoundException e) {
 			LOG.warn("exception : " + e);
-			throw (ApplicationNotFoundErrorFault) mapper.map(e, ApplicationNotFoundErrorFault.class, ApplicationNotFoundError.class);
+			throw mapper.mapFault(e, ApplicationNotFoundErrorFault.class);
 		} catch (DuplicateApplicationReleaseException e) {
 			LOG.warn("exception : " + e);
-			throw (DuplicateReleaseErrorFault) mapper.map(e, DuplicateReleaseErrorFault.class, DuplicateReleaseError.class);
+			throw mapper.mapFault(e, DuplicateReleaseErrorFault.class);
 		} catch (MalformedURLException e) {
 			throw new IllegalArgumentException(e);
 		}
@@ -215,7 +214,7 @@ public class PaasAdministrationServiceImpl implements PaasAdministrationService
 			return source.getUID();
 		} catch (ApplicationReleaseNotFoundException e) {
 			LOG.warn("exception : " + e);
-			throw (ReleaseNotFoundErrorFault) mapper.map(e, ReleaseNotFoundErrorFault.class, ReleaseNotFoundError.class);
+			throw mapper.mapFault(e, ReleaseNotFoundErrorFault.class);
 		}
 	}
 
@@ -238,10 +237,10 @@ public class PaasAdministrationServiceImpl implements PaasAdministrationService
 			// we want to get an applicationRelease
 			ApplicationRelease source = manageApplicationRelease.findApplicationReleaseByUID(uid);
 			// returns the given release
-			return mapper.map(source, ReleaseModel.class);
+			return mapper.mapRelease(source);
 		} catch (ApplicationReleaseNotFoundException e) {
 			LOG.warn("exception : " + e);
-			throw (ReleaseNotFoundErrorFault) mapper.map(e, ReleaseNotFoundErrorFault.class, ReleaseNotFoundError.class);
+			throw mapper.mapFault(e, ReleaseNotFoundErrorFault.class);
 		}
 	}
 
@@ -253,14 +252,14 @@ public class PaasAdministrationServiceImpl implements PaasAdministrationService
 			List<ReleaseModel> target = new ArrayList<ReleaseModel>();
 			// map releases (from core model) to releases (SOAP)
 			for (ApplicationRelease release : releases) {
-				target.add(mapper.map(release, ReleaseModel.class));
+				target.add(mapper.mapRelease(release));
 			}
 			// returns releases
 			return target;
 
 		} catch (ObjectNotFoundException e) {
 			LOG.warn("exception : " + e);
-			throw (ApplicationNotFoundErrorFault) mapper.map(e, ApplicationNotFoundErrorFault.class, ApplicationNotFoundError.class);
+			throw mapper.mapFault(e, ApplicationNotFoundErrorFault.class);
 		}
 
 	}
@@ -271,7 +270,7 @@ public class PaasAdministrationServiceImpl implements PaasAdministrationService
 			manageApplicationRelease.deleteApplicationRelease(uid);
 		} catch (ApplicationReleaseNotFoundException e) {
 			LOG.warn("exception : " + e);
-			throw (ReleaseNotFoundErrorFault) mapper.map(e, ReleaseNotFoundErrorFault.class, ReleaseNotFoundError.class);
+			throw mapper.mapFault(e, ReleaseNotFoundErrorFault.class);
 		}
 	}
 
@@ -295,7 +294,7 @@ public class PaasAdministrationServiceImpl implements PaasAdministrationService
 			return source.getUid();
 		} catch (ApplicationNotFoundException e) {
 			LOG.warn("exception : " + e);
-			throw (ApplicationNotFoundErrorFault) mapper.map(e, ApplicationNotFoundErrorFault.class, ApplicationNotFoundError.class);
+			throw mapper.mapFault(e, ApplicationNotFoundErrorFault.class);
 		}
 	}
 
@@ -323,7 +322,7 @@ public class PaasAdministrationServiceImpl implements PaasAdministrationService
 			manageApplication.deleteApplication(uid);
 		} catch (ApplicationNotFoundException e) {
 			LOG.warn("exception : " + e);
-			throw (ApplicationNotFoundErrorFault) mapper.map(e, ApplicationNotFoundErrorFault.class, ApplicationNotFoundError.class);
+			throw mapper.mapFault(e, ApplicationNotFoundErrorFault.class);
 		}
 
 	}
@@ -23,11 +23,6 @@ import com.francetelecom.clara.cloud.core.service.exception.ObjectNotFoundExcept
 import com.francetelecom.clara.cloud.core.service.exception.PaasUserNotFoundException;
 import com.francetelecom.clara.cloud.providersoap.mapping.SoapMapper;
 import com.francetelecom.clara.cloud.services.dto.EnvironmentDto;
-import com.francetelecom.clara.cloud.services.dto.EnvironmentDto.EnvironmentTypeEnum;
-import com.orange.clara.cloud.providersoap.environment.v3.exception.EnvironmentNotFoundError;
-import com.orange.clara.cloud.providersoap.environment.v3.exception.InvalidEnvironmentError;
-import com.orange.clara.cloud.providersoap.environment.v3.exception.PaasUserNotFoundError;
-import com.orange.clara.cloud.providersoap.environment.v3.exception.ReleaseNotFoundError;
 import com.orange.clara.cloud.providersoap.environment.v3.model.*;
 import com.orange.clara.cloud.providersoap.environment.v3.service.*;
 import com.orange.clara.cloud.providersoap.security.v1.Credentials;
@@ -86,17 +81,17 @@ public class PaasEnvironmentServiceImpl implements PaasEnvironmentService {
 			Assert.hasText(command.getLabel(), "environment label must not be empty");
 			// we want to create an environment
 			String environmentUID = manageEnvironment.createEnvironment(command.getReleaseUID(),
-					mapper.map(command.getType(), EnvironmentTypeEnum.class), credentials.getSsoid(), command.getLabel());
+					mapper.mapEnvironmentType(command.getType()), credentials.getSsoid(), command.getLabel());
 			return environmentUID;
 		} catch (PaasUserNotFoundException e) {
 			LOG.warn("exception : " + e);
-			throw (PaasUserNotFoundErrorFault) mapper.map(e, PaasUserNotFoundErrorFault.class, PaasUserNotFoundError.class);
+			throw mapper.mapFault(e, PaasUserNotFoundErrorFault.class);
 		} catch (ApplicationReleaseNotFoundException e) {
 			LOG.warn("exception : " + e);
-			throw (ReleaseNotFoundErrorFault) mapper.map(e, ReleaseNotFoundErrorFault.class, ReleaseNotFoundError.class);
+			throw mapper.mapFault(e, ReleaseNotFoundErrorFault.class);
 		} catch (Exception e) {
 			LOG.warn("exception : " + e);
-			throw (InvalidEnvironmentErrorFault) mapper.map(e, InvalidEnvironmentErrorFault.class, InvalidEnvironmentError.class);
+			throw mapper.mapFault(e, InvalidEnvironmentErrorFault.class);
 		}
 	}
 
@@ -121,7 +116,7 @@ public class PaasEnvironmentServiceImpl implements PaasEnvironmentService {
 			manageEnvironment.stopEnvironment(command.getUid());
 		} catch (ObjectNotFoundException e) {
 			LOG.warn("exception : " + e);
-			throw (EnvironmentNotFoundErrorFault) mapper.map(e, EnvironmentNotFoundErrorFault.class, EnvironmentNotFoundError.class);
+			throw mapper.mapFault(e, EnvironmentNotFoundErrorFault.class);
 		}
 	}
 
@@ -144,7 +139,7 @@ public class PaasEnvironmentServiceImpl implements PaasEnvironmentService {
 			manageEnvironment.deleteEnvironment(command.getUid());
 		} catch (ObjectNotFoundException e) {
 			LOG.warn("exception : " + e);
-			throw (EnvironmentNotFoundErrorFault) mapper.map(e, EnvironmentNotFoundErrorFault.class, EnvironmentNotFoundError.class);
+			throw mapper.mapFault(e, EnvironmentNotFoundErrorFault.class);
 		}
 	}
 
@@ -168,7 +163,7 @@ public class PaasEnvironmentServiceImpl implements PaasEnvironmentService {
 			manageEnvironment.startEnvironment(command.getUid());
 		} catch (ObjectNotFoundException e) {
 			LOG.warn("exception : " + e);
-			throw (EnvironmentNotFoundErrorFault) mapper.map(e, EnvironmentNotFoundErrorFault.class, EnvironmentNotFoundError.class);
+			throw mapper.mapFault(e, EnvironmentNotFoundErrorFault.class);
 		}
 	}
 
@@ -191,10 +186,10 @@ public class PaasEnvironmentServiceImpl implements PaasEnvironmentService {
 			Assert.hasText(uid, "environment uid must not be empty");
 			// we want to get an environment
 			EnvironmentDto source = manageEnvironment.findEnvironmentByUID(uid);
-			return mapper.map(source, EnvironmentModel.class);
+			return mapper.mapEnvironment(source);
 		} catch (ObjectNotFoundException e) {
 			LOG.warn("exception : " + e);
-			throw (EnvironmentNotFoundErrorFault) mapper.map(e, EnvironmentNotFoundErrorFault.class, EnvironmentNotFoundError.class);
+			throw mapper.mapFault(e, EnvironmentNotFoundErrorFault.class);
 		}
 	}
 
@@ -222,13 +217,13 @@ public class PaasEnvironmentServiceImpl implements PaasEnvironmentService {
 			List<EnvironmentModel> target = new ArrayList<EnvironmentModel>();
 
 			for (EnvironmentDto environment : source) {
-				target.add(mapper.map(environment, EnvironmentModel.class));
+				target.add(mapper.mapEnvironment(environment));
 			}
 			// returns environment status
 			return target;
 		} catch (ApplicationReleaseNotFoundException e) {
 			LOG.warn("exception : " + e);
-			throw (ReleaseNotFoundErrorFault) mapper.map(e, ReleaseNotFoundErrorFault.class, ReleaseNotFoundError.class);
+			throw mapper.mapFault(e, ReleaseNotFoundErrorFault.class);
 		}
 	}
 
@@ -250,10 +245,10 @@ public class PaasEnvironmentServiceImpl implements PaasEnvironmentService {
 			// we want to get an environment
 			EnvironmentDto source = manageEnvironment.findEnvironmentByUID(uid);
 			// returns environment status
-			return mapper.map(source, EnvironmentStatus.class);
+			return mapper.mapEnvironmentStatus(source);
 		} catch (ObjectNotFoundException e) {
 			LOG.warn("exception : " + e);
-			throw (EnvironmentNotFoundErrorFault) mapper.map(e, EnvironmentNotFoundErrorFault.class, EnvironmentNotFoundError.class);
+			throw mapper.mapFault(e, EnvironmentNotFoundErrorFault.class);
 		}
 	}
 
@@ -24,7 +24,6 @@ import com.francetelecom.clara.cloud.logicalmodel.LogicalDeployment;
 import com.francetelecom.clara.cloud.logicalmodel.samplecatalog.SampleAppFactory;
 import com.francetelecom.clara.cloud.providersoap.mapping.SoapMapper;
 import com.francetelecom.clara.cloud.service.backdoor.BackdoorService;
-import com.orange.clara.cloud.providersoap.incubator.v4.exception.InvalidLogicalDeploymentError;
 import com.orange.clara.cloud.providersoap.incubator.v4.model.CreateUserCommand;
 import com.orange.clara.cloud.providersoap.incubator.v4.model.SetLogicalDeploymentFromCatalogCommand;
 import com.orange.clara.cloud.providersoap.incubator.v4.service.InvalidLogicalDeploymentErrorFault;
@@ -102,7 +101,7 @@ public class PaasIncubatorServiceImpl implements PaasIncubatorService {
             logicalDeployment = manageLogicalDeployment.checkOverallConsistencyAndUpdateLogicalDeployment(logicalDeployment);
         } catch (Exception e) {
             LOG.warn("exception : " + e);
-            throw (InvalidLogicalDeploymentErrorFault) mapper.map(e, InvalidLogicalDeploymentErrorFault.class, InvalidLogicalDeploymentError.class);
+            throw mapper.mapFault(e, InvalidLogicalDeploymentErrorFault.class);
         }
     }
 
@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.providersoap.mapping;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.orange.clara.cloud.providersoap.administration.v4.service.ApplicationNotFoundErrorFault;
+import com.orange.clara.cloud.providersoap.administration.v4.service.DuplicateApplicationErrorFault;
+import com.orange.clara.cloud.providersoap.administration.v4.service.DuplicateReleaseErrorFault;
+import com.orange.clara.cloud.providersoap.administration.v4.service.PaasUserNotFoundErrorFault;
+import com.orange.clara.cloud.providersoap.administration.v4.service.ReleaseNotFoundErrorFault;
+import com.orange.clara.cloud.providersoap.environment.v3.service.EnvironmentNotFoundErrorFault;
+import com.orange.clara.cloud.providersoap.environment.v3.service.InvalidEnvironmentErrorFault;
+import com.orange.clara.cloud.providersoap.incubator.v4.service.InvalidLogicalDeploymentErrorFault;
+
+/**
+ * Registry of the SOAP faults that business exceptions can be translated to.
+ * 
+ * JAX-WS faults expose their fault bean through getFaultInfo() and are built
+ * with a (message, fault bean, cause) constructor. Both the fault and the
+ * fault bean constructors are looked up once, when the fault is registered,
+ * so that no reflective lookup is needed when a fault is thrown.
+ */
+public class SoapFaultRegistry {
+
+	/**
+	 * Creates a SOAP fault and its fault bean
+	 */
+	private static final class FaultFactory {
+
+		private final Constructor<?> faultInfoConstructor;
+
+		private final Constructor<? extends Exception> faultConstructor;
+
+		FaultFactory(Constructor<?> faultInfoConstructor, Constructor<? extends Exception> faultConstructor) {
+			this.faultInfoConstructor = faultInfoConstructor;
+			this.faultConstructor = faultConstructor;
+		}
+	}
+
+	private final Map<Class<? extends Exception>, FaultFactory> factories = new HashMap<Class<? extends Exception>, FaultFactory>();
+
+	public SoapFaultRegistry() {
+		// administration
+		register(ApplicationNotFoundErrorFault.class);
+		register(DuplicateApplicationErrorFault.class);
+		register(DuplicateReleaseErrorFault.class);
+		register(PaasUserNotFoundErrorFault.class);
+		register(ReleaseNotFoundErrorFault.class);
+		// environment
+		register(EnvironmentNotFoundErrorFault.class);
+		register(InvalidEnvironmentErrorFault.class);
+		register(com.orange.clara.cloud.providersoap.environment.v3.service.PaasUserNotFoundErrorFault.class);
+		register(com.orange.clara.cloud.providersoap.environment.v3.service.ReleaseNotFoundErrorFault.class);
+		// incubator
+		register(InvalidLogicalDeploymentErrorFault.class);
+	}
+
+	/**
+	 * Register a fault
+	 * 
+	 * @param faultClass
+	 *            a JAX-WS fault
+	 * @throws IllegalArgumentException
+	 *             if the fault has no fault bean or no (message, fault bean,
+	 *             cause) constructor
+	 */
+	public void register(Class<? extends Exception> faultClass) {
+		try {
+			Class<?> faultInfoClass = faultClass.getMethod("getFaultInfo").getReturnType();
+			factories.put(faultClass,
+					new FaultFactory(faultInfoClass.getConstructor(), faultClass.getConstructor(String.class, faultInfoClass, Throwable.class)));
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException(faultClass.getName() + " is not a JAX-WS fault", e);
+		}
+	}
+
+	/**
+	 * @return the faults that can be translated to
+	 */
+	public Set<Class<? extends Exception>> getRegisteredFaults() {
+		return Collections.unmodifiableSet(factories.keySet());
+	}
+
+	/**
+	 * Translate an exception to a SOAP fault
+	 * 
+	 * @param source
+	 *            the exception to translate
+	 * @param faultClass
+	 *            the fault to translate to
+	 * @param mapper
+	 *            used to populate the fault bean from the exception
+	 * @return the fault
+	 * @throws IllegalArgumentException
+	 *             if this fault is not registered
+	 */
+	public <F extends Exception> F translate(Exception source, Class<F> faultClass, SoapMapper mapper) {
+		FaultFactory factory = factories.get(faultClass);
+		if (factory == null) {
+			throw new IllegalArgumentException("No SOAP fault factory registered for " + faultClass.getName());
+		}
+		Object faultInfo = newInstance(factory.faultInfoConstructor);
+		mapper.map(source, faultInfo);
+		return faultClass.cast(newInstance(factory.faultConstructor, source.getMessage(), faultInfo, source));
+	}
+
+	private static Object newInstance(Constructor<?> constructor, Object... args) {
+		try {
+			return constructor.newInstance(args);
+		} catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+			throw new IllegalStateException("Unable to create " + constructor.getDeclaringClass().getName(), e);
+		}
+	}
+}
@@ -12,16 +12,23 @@
  */
 package com.francetelecom.clara.cloud.providersoap.mapping;
 
-import java.lang.reflect.Constructor;
 import java.util.List;
 
 import org.dozer.DozerBeanMapper;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+
+import com.francetelecom.clara.cloud.coremodel.Application;
+import com.francetelecom.clara.cloud.coremodel.ApplicationRelease;
+import com.francetelecom.clara.cloud.services.dto.EnvironmentDto;
+import com.orange.clara.cloud.providersoap.administration.v4.model.ApplicationModel;
+import com.orange.clara.cloud.providersoap.administration.v4.model.ReleaseModel;
+import com.orange.clara.cloud.providersoap.administration.v4.model.StateType;
+import com.orange.clara.cloud.providersoap.environment.v3.model.EnvironmentModel;
+import com.orange.clara.cloud.providersoap.environment.v3.model.EnvironmentStatus;
+import com.orange.clara.cloud.providersoap.environment.v3.model.EnvironmentStatusEnum;
 
 public class SoapMapper extends DozerBeanMapper {
 
-	private static final Logger logger = LoggerFactory.getLogger(SoapMapper.class);
+	private final SoapFaultRegistry faultRegistry = new SoapFaultRegistry();
 
 	@Override
 	public void setMappingFiles(List<String> mappingFiles) {
@@ -38,23 +45,95 @@ public class SoapMapper extends DozerBeanMapper {
 	 * 
 	 * @param source
 	 *            the functional exception
-	 * @param wrapperExceptionClass
-	 *            the exception
-	 * @param faultBeanClass
-	 *            the fault bean
+	 * @param faultClass
+	 *            the fault, must be registered in {@link SoapFaultRegistry}
 	 * @return the fault
 	 */
-	public Exception map(Exception source, Class<?> wrapperExceptionClass, Class<?> faultBeanClass) {
-		// 'faultBean' mapping
-		Object faultBean = super.map(source, faultBeanClass);
-
-		Constructor<?> c;
-		try {
-			c = wrapperExceptionClass.getConstructor(new Class[] { String.class, faultBeanClass, Throwable.class });
-			return (Exception) c.newInstance(new Object[] { source.getMessage(), faultBean, source });
-		} catch (Exception e) {
-			logger.error("Exception occured: ", e);
-		}
-		return null;
+	public <F extends Exception> F mapFault(Exception source, Class<F> faultClass) {
+		return faultRegistry.translate(source, faultClass, this);
+	}
+
+	/**
+	 * SOAP environment type to service environment type mapping, same
+	 * semantic as {@link EnvironmentTypeConverter} without going through
+	 * dozer
+	 * 
+	 * @param source
+	 *            the SOAP environment type
+	 * @return the service environment type
+	 */
+	public EnvironmentDto.EnvironmentTypeEnum mapEnvironmentType(com.orange.clara.cloud.providersoap.environment.v3.model.EnvironmentTypeEnum source) {
+		if (source == null) {
+			return null;
+		}
+		return EnvironmentDto.EnvironmentTypeEnum.valueOf(source.toString());
+	}
+
+	/**
+	 * Service environment to SOAP environment mapping, same semantic as
+	 * soap-mapping.xml without going through dozer
+	 */
+	public EnvironmentModel mapEnvironment(EnvironmentDto source) {
+		EnvironmentModel target = new EnvironmentModel();
+		target.setUid(source.getUid());
+		target.setLabel(source.getLabel());
+		target.setOwner(source.getOwnerId());
+		target.setReleaseUID(source.getReleaseUID());
+		if (source.getType() != null) {
+			target.setType(com.orange.clara.cloud.providersoap.environment.v3.model.EnvironmentTypeEnum.valueOf(source.getType().toString()));
+		}
+		target.setStatus(mapEnvironmentStatus(source));
+		return target;
+	}
+
+	/**
+	 * Service environment to SOAP environment status mapping, same semantic
+	 * as soap-mapping.xml without going through dozer
+	 */
+	public EnvironmentStatus mapEnvironmentStatus(EnvironmentDto source) {
+		EnvironmentStatus target = new EnvironmentStatus();
+		if (source.getStatus() != null) {
+			target.setType(EnvironmentStatusEnum.valueOf(source.getStatus().toString()));
+		}
+		target.setMessage(source.getStatusMessage());
+		target.setProgress(String.valueOf(source.getStatusPercent()));
+		return target;
+	}
+
+	/**
+	 * Core model release to SOAP release mapping, same semantic as
+	 * soap-mapping.xml without going through dozer
+	 */
+	public ReleaseModel mapRelease(ApplicationRelease source) {
+		ReleaseModel target = new ReleaseModel();
+		target.setUid(source.getUID());
+		if (source.getApplication() != null) {
+			target.setApplicationUID(source.getApplication().getUID());
+		}
+		target.setVersion(source.getReleaseVersion());
+		if (source.getState() != null) {
+			target.setState(StateType.valueOf(source.getState().toString()));
+		}
+		target.setDescription(source.getDescription());
+		if (source.getVersionControlUrl() != null) {
+			target.setVersionControlUrl(source.getVersionControlUrl().toString());
+		}
+		return target;
+	}
+
+	/**
+	 * Core model application to SOAP application mapping, same semantic as
+	 * soap-mapping.xml without going through dozer
+	 */
+	public ApplicationModel mapApplication(Application source) {
+		ApplicationModel target = new ApplicationModel();
+		target.setUid(source.getUID());
+		target.setCode(source.getCode());
+		target.setLabel(source.getLabel());
+		target.setDescription(source.getDescription());
+		if (source.getApplicationRegistryUrl() != null) {
+			target.setRegistryUrl(source.getApplicationRegistryUrl().toString());
+		}
+		return target;
 	}
 }
@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.providersoap.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.codec.Hex;
+
+import com.francetelecom.clara.cloud.commons.TechnicalException;
+
+/**
+ * Short lived cache of successful authentications, so that clients calling the SOAP API repeatedly with the same
+ * credentials do not trigger an LDAP bind on each call.
+ * <p>
+ * Entries are keyed by a salted SHA-256 hash of the credentials: the salt is randomly generated for each cache
+ * instance and passwords are never kept in memory. Entries expire after {@link #setTtlMs(long)}, at most
+ * {@link #setMaxEntries(int)} entries are kept (least recently used ones are evicted first) and all entries of a user
+ * are invalidated as soon as one of its authentications fails.
+ */
+public class AuthenticationCache {
+
+	private static class Entry {
+		final String userKey;
+		final Authentication authentication;
+		final long expirationTime;
+
+		Entry(String userKey, Authentication authentication, long expirationTime) {
+			this.userKey = userKey;
+			this.authentication = authentication;
+			this.expirationTime = expirationTime;
+		}
+	}
+
+	private final byte[] salt = new byte[32];
+
+	private long ttlMs = 60 * 1000;
+
+	private int maxEntries = 1000;
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > maxEntries;
+		}
+	};
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong bindCount = new AtomicLong();
+	private final AtomicLong bindFailureCount = new AtomicLong();
+	private final AtomicLong bindTotalTimeMs = new AtomicLong();
+	private final AtomicLong bindMaxTimeMs = new AtomicLong();
+
+	public AuthenticationCache() {
+		new SecureRandom().nextBytes(salt);
+	}
+
+	/**
+	 * @return the cached authentication of these credentials, or null if there is none or if it expired
+	 */
+	public Authentication get(String ssoid, String password) {
+		String key = hash(ssoid, password);
+		synchronized (entries) {
+			Entry entry = entries.get(key);
+			if (entry != null && entry.expirationTime > System.currentTimeMillis()) {
+				hitCount.incrementAndGet();
+				return entry.authentication;
+			}
+			if (entry != null) {
+				entries.remove(key);
+			}
+		}
+		missCount.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Caches a successful authentication, with the authorities it was granted
+	 */
+	public void put(String ssoid, String password, Authentication authentication) {
+		if (ttlMs <= 0) {
+			return;
+		}
+		Entry entry = new Entry(hash(ssoid, null), authentication, System.currentTimeMillis() + ttlMs);
+		String key = hash(ssoid, password);
+		synchronized (entries) {
+			entries.put(key, entry);
+		}
+	}
+
+	/**
+	 * Forgets all authentications of a user, whatever the password they were made with
+	 */
+	public void invalidate(String ssoid) {
+		String userKey = hash(ssoid, null);
+		synchronized (entries) {
+			Iterator<Entry> it = entries.values().iterator();
+			while (it.hasNext()) {
+				if (it.next().userKey.equals(userKey)) {
+					it.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records the outcome of an authentication performed against the authentication manager
+	 */
+	public void bindPerformed(long durationMs, boolean succeeded) {
+		bindCount.incrementAndGet();
+		if (!succeeded) {
+			bindFailureCount.incrementAndGet();
+		}
+		bindTotalTimeMs.addAndGet(durationMs);
+		long max = bindMaxTimeMs.get();
+		while (durationMs > max && !bindMaxTimeMs.compareAndSet(max, durationMs)) {
+			max = bindMaxTimeMs.get();
+		}
+	}
+
+	private String hash(String ssoid, String password) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(salt);
+			digest.update(String.valueOf(ssoid).getBytes(StandardCharsets.UTF_8));
+			if (password != null) {
+				digest.update((byte) 0);
+				digest.update(password.getBytes(StandardCharsets.UTF_8));
+			}
+			return new String(Hex.encode(digest.digest()));
+		} catch (NoSuchAlgorithmException e) {
+			throw new TechnicalException("SHA-256 is not supported by this JVM", e);
+		}
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public long getBindCount() {
+		return bindCount.get();
+	}
+
+	public long getBindFailureCount() {
+		return bindFailureCount.get();
+	}
+
+	/**
+	 * @return ratio of lookups served by the cache, between 0 and 1
+	 */
+	public double getHitRatio() {
+		long hits = hitCount.get();
+		long total = hits + missCount.get();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * @return average duration of authentications performed against the authentication manager, in ms
+	 */
+	public long getAverageBindTimeMs() {
+		long binds = bindCount.get();
+		return binds == 0 ? 0 : bindTotalTimeMs.get() / binds;
+	}
+
+	public long getMaxBindTimeMs() {
+		return bindMaxTimeMs.get();
+	}
+
+	public String getStatistics() {
+		return "size=" + size() + " hits=" + getHitCount() + " misses=" + getMissCount() + " hitRatio=" + getHitRatio() + " binds=" + getBindCount()
+				+ " bindFailures=" + getBindFailureCount() + " avgBindTimeMs=" + getAverageBindTimeMs() + " maxBindTimeMs=" + getMaxBindTimeMs();
+	}
+
+	public void setTtlMs(long ttlMs) {
+		this.ttlMs = ttlMs;
+	}
+
+	public void setMaxEntries(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+}
@@ -12,9 +12,12 @@
  */
 package com.francetelecom.clara.cloud.providersoap.security;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import com.orange.clara.cloud.providersoap.security.v1.Credentials;
@@ -26,8 +29,15 @@ import com.orange.clara.cloud.providersoap.security.v1.Credentials;
  */
 public class CredentialsAuthenticationService implements AuthenticationService<Credentials>  {
 	
+	private static final Logger LOG = LoggerFactory.getLogger(CredentialsAuthenticationService.class);
+
+	// number of authentications against the authentication manager between two logs of the cache statistics
+	private static final int STATISTICS_LOG_PERIOD = 100;
+
 	private AuthenticationManager authenticationManager;
 
+	private AuthenticationCache authenticationCache;
+
 	public CredentialsAuthenticationService(AuthenticationManager authenticationManager) {
 		this.setAuthenticationManager(authenticationManager);
 	}
@@ -36,11 +46,51 @@ public class CredentialsAuthenticationService implements AuthenticationService<C
 	public void authenticate(Credentials credentials) throws AuthenticationFailedException {
 		if (credentials == null)
 			throw new AuthenticationFailedException("No user credentials provided");
-		Authentication authentication = new UsernamePasswordAuthenticationToken(credentials.getSsoid(), credentials.getPassword());
-		authentication = authenticationManager.authenticate(authentication);
+		String ssoid = credentials.getSsoid();
+		String password = credentials.getPassword();
+		boolean cacheable = authenticationCache != null && ssoid != null && password != null;
+		Authentication authentication = cacheable ? authenticationCache.get(ssoid, password) : null;
+		if (authentication == null) {
+			authentication = bind(ssoid, password, cacheable);
+		}
 		SecurityContextHolder.getContext().setAuthentication(authentication);
 	}
 
+	private Authentication bind(String ssoid, String password, boolean cacheable) {
+		long start = System.currentTimeMillis();
+		boolean succeeded = false;
+		try {
+			Authentication authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(ssoid, password));
+			succeeded = true;
+			if (cacheable) {
+				authenticationCache.put(ssoid, password, authentication);
+			}
+			return authentication;
+		} catch (AuthenticationException e) {
+			if (authenticationCache != null && ssoid != null) {
+				authenticationCache.invalidate(ssoid);
+			}
+			throw e;
+		} finally {
+			long duration = System.currentTimeMillis() - start;
+			if (authenticationCache != null) {
+				authenticationCache.bindPerformed(duration, succeeded);
+				if (authenticationCache.getBindCount() % STATISTICS_LOG_PERIOD == 0) {
+					LOG.info("SOAP authentication cache statistics: {}", authenticationCache.getStatistics());
+				}
+			}
+			LOG.debug("authentication of ssoid<{}> against authentication manager took {} ms", ssoid, duration);
+		}
+	}
+
+	/**
+	 * @param authenticationCache optional cache of successful authentications, each call is authenticated
+	 *                            against the authentication manager when not set
+	 */
+	public void setAuthenticationCache(AuthenticationCache authenticationCache) {
+		this.authenticationCache = authenticationCache;
+	}
+
 	
 	private void setAuthenticationManager(AuthenticationManager authenticationManager) {
 		if (authenticationManager == null)
@@ -12,6 +12,7 @@
  */
 package com.francetelecom.clara.cloud.providersoap.mapping;
 
+import com.francetelecom.clara.cloud.core.service.exception.ApplicationNotFoundException;
 import com.francetelecom.clara.cloud.coremodel.Application;
 import com.francetelecom.clara.cloud.coremodel.ApplicationRelease;
 import com.francetelecom.clara.cloud.coremodel.ApplicationReleaseStateEnum;
@@ -22,8 +23,10 @@ import com.orange.clara.cloud.providersoap.administration.v4.model.ApplicationMo
 import com.orange.clara.cloud.providersoap.administration.v4.model.MiddlewareProfile;
 import com.orange.clara.cloud.providersoap.administration.v4.model.ReleaseModel;
 import com.orange.clara.cloud.providersoap.administration.v4.model.StateType;
+import com.orange.clara.cloud.providersoap.administration.v4.service.ApplicationNotFoundErrorFault;
 import com.orange.clara.cloud.providersoap.environment.v3.model.EnvironmentModel;
 import com.orange.clara.cloud.providersoap.environment.v3.model.EnvironmentStatus;
+import com.orange.clara.cloud.providersoap.environment.v3.service.InvalidEnvironmentErrorFault;
 import org.fest.assertions.Assertions;
 import org.junit.Assert;
 import org.junit.Test;
@@ -32,6 +35,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Date;
@@ -137,4 +142,102 @@ public class SoapMapperTest {
 		assertEquals(coreProfile.getVersion(), target.getVersion());
 		assertEquals(coreProfile.getStatus().name(), target.getStatus());
 	}
+
+	@Test
+	public void explicit_environment_type_mapping_should_match_dozer_mapping() {
+		for (com.orange.clara.cloud.providersoap.environment.v3.model.EnvironmentTypeEnum src : com.orange.clara.cloud.providersoap.environment.v3.model.EnvironmentTypeEnum
+				.values()) {
+			Assert.assertEquals(mapper.map(src, EnvironmentTypeEnum.class), mapper.mapEnvironmentType(src));
+		}
+		Assert.assertNull(mapper.mapEnvironmentType(null));
+	}
+
+	@Test
+	public void explicit_environment_mapping_should_match_dozer_mapping() throws Exception {
+		EnvironmentDto[] sources = {
+				new EnvironmentDto("uid", "internal-name", "label", "applicationLabel", "releaseUID", "releaseVersion", "ownerId", "ownerName", new Date(),
+						EnvironmentTypeEnum.DEVELOPMENT, EnvironmentStatusEnum.CREATING, "statusMessage", 50, "comment", "tdiTdName"),
+				new EnvironmentDto("uid", null, null, null, null, null, null, null, null, null, null, null, 0, null, null) };
+		for (EnvironmentDto source : sources) {
+			assertSameFields(mapper.map(source, EnvironmentModel.class), mapper.mapEnvironment(source));
+			assertSameFields(mapper.map(source, EnvironmentStatus.class), mapper.mapEnvironmentStatus(source));
+		}
+	}
+
+	@Test
+	public void explicit_release_mapping_should_match_dozer_mapping() throws Exception {
+		Application application = new Application("aLabel", "aCode");
+		ApplicationRelease described = new ApplicationRelease(application, "aVersion");
+		described.setDescription("aDescription");
+		described.setVersionControlUrl(new URL("http://www.yahoo.com"));
+		ApplicationRelease[] sources = { described, new ApplicationRelease(application, "otherVersion") };
+		for (ApplicationRelease source : sources) {
+			assertSameFields(mapper.map(source, ReleaseModel.class), mapper.mapRelease(source));
+		}
+	}
+
+	@Test
+	public void explicit_application_mapping_should_match_dozer_mapping() throws Exception {
+		Application described = new Application("aLabel", "aCode");
+		described.setDescription("aDescription");
+		described.setApplicationRegistryUrl(new URL("http://www.yahoo.com"));
+		Application[] sources = { described, new Application("otherLabel", "otherCode") };
+		for (Application source : sources) {
+			assertSameFields(mapper.map(source, ApplicationModel.class), mapper.mapApplication(source));
+		}
+	}
+
+	/**
+	 * Compares all fields of generated SOAP model classes, which do not
+	 * implement equals()
+	 */
+	private static void assertSameFields(Object expected, Object actual) throws IllegalAccessException {
+		Assert.assertEquals(expected.getClass(), actual.getClass());
+		for (Class<?> type = expected.getClass(); type != Object.class; type = type.getSuperclass()) {
+			for (Field field : type.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers())) {
+					continue;
+				}
+				field.setAccessible(true);
+				Object expectedValue = field.get(expected);
+				Object actualValue = field.get(actual);
+				if (expectedValue != null && actualValue != null && !expectedValue.getClass().isEnum()
+						&& expectedValue.getClass().getName().startsWith("com.orange.clara.cloud.providersoap.")) {
+					assertSameFields(expectedValue, actualValue);
+				} else {
+					Assert.assertEquals(type.getSimpleName() + "." + field.getName(), expectedValue, actualValue);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void should_map_business_exception_to_fault() {
+		ApplicationNotFoundException source = new ApplicationNotFoundException("application not found");
+
+		ApplicationNotFoundErrorFault fault = mapper.mapFault(source, ApplicationNotFoundErrorFault.class);
+
+		Assertions.assertThat(fault.getMessage()).isEqualTo("application not found");
+		Assertions.assertThat(fault.getCause()).isSameAs(source);
+		Assertions.assertThat(fault.getFaultInfo()).isNotNull();
+	}
+
+	@Test
+	public void should_map_any_exception_to_every_registered_fault() {
+		Exception source = new IllegalStateException("failure");
+
+		for (Class<?> faultClass : new SoapFaultRegistry().getRegisteredFaults()) {
+			Exception fault = mapper.mapFault(source, faultClass.asSubclass(Exception.class));
+
+			Assertions.assertThat(fault).isInstanceOf(faultClass);
+			Assertions.assertThat(fault.getMessage()).isEqualTo("failure");
+			Assertions.assertThat(fault.getCause()).isSameAs(source);
+		}
+		Assertions.assertThat(new SoapFaultRegistry().getRegisteredFaults()).contains(InvalidEnvironmentErrorFault.class);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void should_fail_to_map_exception_to_unregistered_fault() {
+		mapper.mapFault(new IllegalStateException("failure"), UnsupportedOperationException.class);
+	}
 }
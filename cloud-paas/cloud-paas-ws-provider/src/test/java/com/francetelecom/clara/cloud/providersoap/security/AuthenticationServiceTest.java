@@ -12,11 +12,16 @@
  */
 package com.francetelecom.clara.cloud.providersoap.security;
 
+import java.util.Arrays;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import com.orange.clara.cloud.providersoap.security.v1.Credentials;
@@ -46,4 +51,90 @@ public class AuthenticationServiceTest {
 		Assert.assertEquals(authentication,SecurityContextHolder.getContext().getAuthentication());
 	}
 
+	@Test
+	public void should_reuse_cached_authentication_with_its_authorities() {
+		AuthenticationManager authenticationManager = Mockito.mock(AuthenticationManager.class);
+		Authentication authentication = new UsernamePasswordAuthenticationToken("bob123", null, Arrays.asList(new SimpleGrantedAuthority("ROLE_USER")));
+		Mockito.when(authenticationManager.authenticate(Mockito.isA(Authentication.class))).thenReturn(authentication);
+		AuthenticationCache authenticationCache = new AuthenticationCache();
+		CredentialsAuthenticationService authenticationService = new CredentialsAuthenticationService(authenticationManager);
+		authenticationService.setAuthenticationCache(authenticationCache);
+
+		authenticationService.authenticate(credentials("bob123", "secret"));
+		SecurityContextHolder.getContext().setAuthentication(null);
+		authenticationService.authenticate(credentials("bob123", "secret"));
+
+		Mockito.verify(authenticationManager, Mockito.times(1)).authenticate(Mockito.isA(Authentication.class));
+		Authentication cached = SecurityContextHolder.getContext().getAuthentication();
+		Assert.assertEquals(authentication, cached);
+		Assert.assertEquals(1, cached.getAuthorities().size());
+		Assert.assertEquals(1, authenticationCache.getHitCount());
+		Assert.assertEquals(1, authenticationCache.getBindCount());
+	}
+
+	@Test
+	public void should_not_reuse_cached_authentication_with_another_password() {
+		AuthenticationManager authenticationManager = Mockito.mock(AuthenticationManager.class);
+		Mockito.when(authenticationManager.authenticate(Mockito.isA(Authentication.class))).thenReturn(Mockito.mock(Authentication.class));
+		CredentialsAuthenticationService authenticationService = new CredentialsAuthenticationService(authenticationManager);
+		authenticationService.setAuthenticationCache(new AuthenticationCache());
+
+		authenticationService.authenticate(credentials("bob123", "secret"));
+		authenticationService.authenticate(credentials("bob123", "other"));
+
+		Mockito.verify(authenticationManager, Mockito.times(2)).authenticate(Mockito.isA(Authentication.class));
+	}
+
+	@Test
+	public void should_invalidate_cached_authentications_of_a_user_on_failure() {
+		AuthenticationManager authenticationManager = Mockito.mock(AuthenticationManager.class);
+		Mockito.when(authenticationManager.authenticate(Mockito.isA(Authentication.class))).thenReturn(Mockito.mock(Authentication.class))
+				.thenThrow(new BadCredentialsException("invalid password")).thenReturn(Mockito.mock(Authentication.class));
+		AuthenticationCache authenticationCache = new AuthenticationCache();
+		CredentialsAuthenticationService authenticationService = new CredentialsAuthenticationService(authenticationManager);
+		authenticationService.setAuthenticationCache(authenticationCache);
+		authenticationService.authenticate(credentials("bob123", "secret"));
+
+		try {
+			authenticationService.authenticate(credentials("bob123", "wrong"));
+			Assert.fail("expected authentication to fail");
+		} catch (BadCredentialsException e) {
+			// expected
+		}
+		authenticationService.authenticate(credentials("bob123", "secret"));
+
+		Mockito.verify(authenticationManager, Mockito.times(3)).authenticate(Mockito.isA(Authentication.class));
+		Assert.assertEquals(1, authenticationCache.getBindFailureCount());
+	}
+
+	@Test
+	public void should_expire_cached_authentications() throws InterruptedException {
+		AuthenticationCache authenticationCache = new AuthenticationCache();
+		authenticationCache.setTtlMs(1);
+		authenticationCache.put("bob123", "secret", Mockito.mock(Authentication.class));
+		Thread.sleep(10);
+
+		Assert.assertNull(authenticationCache.get("bob123", "secret"));
+	}
+
+	@Test
+	public void should_bound_cache_size() {
+		AuthenticationCache authenticationCache = new AuthenticationCache();
+		authenticationCache.setMaxEntries(2);
+		authenticationCache.put("bob123", "secret", Mockito.mock(Authentication.class));
+		authenticationCache.put("alice123", "secret", Mockito.mock(Authentication.class));
+		authenticationCache.put("joe123", "secret", Mockito.mock(Authentication.class));
+
+		Assert.assertEquals(2, authenticationCache.size());
+		Assert.assertNull(authenticationCache.get("bob123", "secret"));
+		Assert.assertNotNull(authenticationCache.get("joe123", "secret"));
+	}
+
+	private static Credentials credentials(String ssoid, String password) {
+		Credentials credentials = new Credentials();
+		credentials.setSsoid(ssoid);
+		credentials.setPassword(password);
+		return credentials;
+	}
+
 }
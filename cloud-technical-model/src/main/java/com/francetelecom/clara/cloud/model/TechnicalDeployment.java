@@ -20,7 +20,9 @@ import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlElementWrapper;
 import javax.xml.bind.annotation.XmlRootElement;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -49,14 +51,35 @@ public class TechnicalDeployment extends ModelItem {
      * TechnicalDeploymentInstance, then this list represents a list of
      * subscription instances (and the deployment state associated becomes
      * CREATED)
+     * <p>
+     * Lazily loaded: use {@link TechnicalDeploymentInstanceRepository#findOneWithSubscriptions(int)}
+     * where the whole graph is needed
      */
     @XStreamImplicit(itemFieldName = "xaasSubscription")
     @XmlElementWrapper
     @XmlElement(name = "xaasSubscriptions")
-    @OneToMany(cascade = {CascadeType.PERSIST, CascadeType.REMOVE}, fetch = FetchType.EAGER)
+    @OneToMany(cascade = {CascadeType.PERSIST, CascadeType.REMOVE}, fetch = FetchType.LAZY)
     @Valid
     protected Set<XaasSubscription> xaasSubscriptions = new HashSet<XaasSubscription>();
 
+    /**
+     * Subscriptions indexed by concrete type. Not persisted: it is built on
+     * first lookup and rebuilt whenever xaasSubscriptions has been replaced
+     * or modified behind our back (JPA/Jaxb/XStream loading).
+     */
+    private transient Map<Class<?>, Set<XaasSubscription>> subscriptionsByType;
+
+    /**
+     * Set (and size) subscriptionsByType was built from
+     */
+    private transient Set<XaasSubscription> indexedSubscriptions;
+    private transient int indexedSize;
+
+    /**
+     * Concrete types already met for a requested filter type
+     */
+    private transient Map<Class<?>, Set<Class<?>>> matchingTypes;
+
     /**
      * Required constructor for JPA / Jaxb
      */
@@ -99,8 +122,10 @@ public class TechnicalDeployment extends ModelItem {
             return (Set<E>) Collections.unmodifiableSet(this.xaasSubscriptions);
         } else {
             Set<E> filteredSubscriptions = new HashSet<E>();
-            for (XaasSubscription subscription : this.xaasSubscriptions) {
-                if (filteredType.isInstance(subscription)) {
+            // logicalModelId is mutable once a subscription has been added, so it is
+            // checked here rather than indexed
+            for (Class<?> type : matchingTypes(filteredType)) {
+                for (XaasSubscription subscription : subscriptionsByType.get(type)) {
                     if (logicalModelItemId == null || logicalModelItemId.equals(subscription.getLogicalModelId())) {
                         boolean wasAdded = filteredSubscriptions.add((E) subscription);
                         assert wasAdded : "we don't expect duplicates : " + subscription;
@@ -111,6 +136,48 @@ public class TechnicalDeployment extends ModelItem {
         }
     }
 
+    /**
+     * @return concrete types of indexed subscriptions that are instances of filteredType
+     */
+    private Set<Class<?>> matchingTypes(Class<?> filteredType) {
+        ensureIndex();
+        Set<Class<?>> types = matchingTypes.get(filteredType);
+        if (types == null) {
+            types = new HashSet<Class<?>>();
+            for (Class<?> type : subscriptionsByType.keySet()) {
+                if (filteredType.isAssignableFrom(type)) {
+                    types.add(type);
+                }
+            }
+            matchingTypes.put(filteredType, types);
+        }
+        return types;
+    }
+
+    private void ensureIndex() {
+        if (isIndexUpToDate()) {
+            return;
+        }
+        subscriptionsByType = new HashMap<Class<?>, Set<XaasSubscription>>();
+        matchingTypes = new HashMap<Class<?>, Set<Class<?>>>();
+        for (XaasSubscription subscription : xaasSubscriptions) {
+            index(subscription);
+        }
+        indexedSubscriptions = xaasSubscriptions;
+        indexedSize = xaasSubscriptions.size();
+    }
+
+    private void index(XaasSubscription subscription) {
+        Set<XaasSubscription> subscriptions = subscriptionsByType.get(subscription.getClass());
+        if (subscriptions == null) {
+            subscriptions = new HashSet<XaasSubscription>();
+            subscriptionsByType.put(subscription.getClass(), subscriptions);
+            // a new concrete type may match filters already resolved
+            matchingTypes.clear();
+        }
+        subscriptions.add(subscription);
+    }
+
     /**
      * Returns an unmodifiable collection of SubscriptionsTemplate filtered by
      * type.
@@ -132,6 +199,27 @@ public class TechnicalDeployment extends ModelItem {
     }
 
     public void add(XaasSubscription subscription) {
-        xaasSubscriptions.add(subscription);
+        boolean indexUpToDate = isIndexUpToDate();
+        if (xaasSubscriptions.add(subscription) && indexUpToDate) {
+            index(subscription);
+            indexedSize = xaasSubscriptions.size();
+        }
+    }
+
+    public void remove(XaasSubscription subscription) {
+        boolean indexUpToDate = isIndexUpToDate();
+        if (xaasSubscriptions.remove(subscription) && indexUpToDate) {
+            Set<XaasSubscription> subscriptions = subscriptionsByType.get(subscription.getClass());
+            subscriptions.remove(subscription);
+            if (subscriptions.isEmpty()) {
+                subscriptionsByType.remove(subscription.getClass());
+                matchingTypes.clear();
+            }
+            indexedSize = xaasSubscriptions.size();
+        }
+    }
+
+    private boolean isIndexUpToDate() {
+        return subscriptionsByType != null && indexedSubscriptions == xaasSubscriptions && indexedSize == xaasSubscriptions.size();
     }
 }
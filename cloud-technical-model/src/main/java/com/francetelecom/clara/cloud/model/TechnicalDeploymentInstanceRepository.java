@@ -13,8 +13,16 @@
 package com.francetelecom.clara.cloud.model;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 public interface TechnicalDeploymentInstanceRepository extends
 		JpaRepository<TechnicalDeploymentInstance, Integer> {
 
+	/**
+	 * Loads a TDI together with its technical deployment and xaas subscriptions
+	 * in a single query
+	 */
+	@Query("SELECT tdi FROM TechnicalDeploymentInstance tdi JOIN FETCH tdi.technicalDeployment td LEFT JOIN FETCH td.xaasSubscriptions WHERE tdi.id=?1")
+	TechnicalDeploymentInstance findOneWithSubscriptions(int id);
+
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2015 Orange
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.francetelecom.clara.cloud.model;
+
+import com.francetelecom.clara.cloud.techmodel.cf.App;
+import com.francetelecom.clara.cloud.techmodel.cf.Route;
+import com.francetelecom.clara.cloud.techmodel.cf.RouteUri;
+import com.francetelecom.clara.cloud.techmodel.cf.Space;
+import com.francetelecom.clara.cloud.techmodel.cf.services.managed.ManagedService;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TechnicalDeploymentTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TechnicalDeploymentTest.class);
+
+    @Test
+    public void lists_subscriptions_by_type_and_logical_model_id() {
+        // given
+        TechnicalDeployment td = new TechnicalDeployment("td");
+        Space space = new Space();
+        ManagedService db = new ManagedService("o-dbaas", "MYSQL_1G", "db", space);
+        ManagedService log = new ManagedService("o-logs", "splunk", "log", space);
+        td.add(space);
+        td.add(db);
+        td.add(log);
+        // logical model id is usually set once the subscription has been added
+        db.setLogicalModelId("db-id");
+
+        // then
+        assertThat(td.listXaasSubscriptionTemplates(Space.class)).containsOnly(space);
+        assertThat(td.listXaasSubscriptionTemplates(ManagedService.class)).containsOnly(db, log);
+        assertThat(td.listXaasSubscriptionTemplates(ManagedService.class, "db-id")).containsOnly(db);
+        assertThat(td.listXaasSubscriptionTemplates(XaasSubscription.class)).containsOnly(space, db, log);
+        assertThat(td.listXaasSubscriptionTemplates(App.class)).isEmpty();
+    }
+
+    @Test
+    public void lookups_reflect_added_and_removed_subscriptions() {
+        // given
+        TechnicalDeployment td = new TechnicalDeployment("td");
+        Space space = new Space();
+        td.add(space);
+        assertThat(td.listXaasSubscriptionTemplates(XaasSubscription.class)).containsOnly(space);
+        assertThat(td.listXaasSubscriptionTemplates(Route.class)).isEmpty();
+
+        // when
+        Route route = new Route(new RouteUri("uri"), "", space);
+        td.add(route);
+        td.remove(space);
+
+        // then
+        assertThat(td.listXaasSubscriptionTemplates(XaasSubscription.class)).containsOnly(route);
+        assertThat(td.listXaasSubscriptionTemplates(Route.class)).containsOnly(route);
+        assertThat(td.listXaasSubscriptionTemplates(Space.class)).isEmpty();
+        assertThat(td.listXaasSubscriptionTemplates()).containsOnly(route);
+    }
+
+    @Test
+    public void lookups_reflect_subscriptions_set_after_load() {
+        // given
+        TechnicalDeployment td = new TechnicalDeployment("td");
+        td.add(new Space());
+        assertThat(td.listXaasSubscriptionTemplates(Space.class)).hasSize(1);
+
+        // when subscriptions are injected as JPA or Jaxb would do
+        Space space = new Space();
+        Route route = new Route(new RouteUri("uri"), "", space);
+        Set<XaasSubscription> loaded = new HashSet<XaasSubscription>();
+        loaded.add(space);
+        loaded.add(route);
+        ReflectionTestUtils.setField(td, "xaasSubscriptions", loaded);
+
+        // then
+        assertThat(td.listXaasSubscriptionTemplates(Space.class)).containsOnly(space);
+        assertThat(td.listXaasSubscriptionTemplates(Route.class)).containsOnly(route);
+    }
+
+    @Test
+    public void indexed_lookups_on_500_subscriptions_match_a_full_scan() {
+        // given
+        TechnicalDeployment td = new TechnicalDeployment("td");
+        Space space = new Space();
+        td.add(space);
+        for (int i = 0; i < 499; i++) {
+            XaasSubscription subscription = (i % 2 == 0) ? new ManagedService("o-dbaas", "MYSQL_1G", "db" + i, space) : new Route(new RouteUri("uri" + i), "", space);
+            td.add(subscription);
+            subscription.setLogicalModelId("id" + (i % 10));
+        }
+
+        // when
+        long start = System.nanoTime();
+        int lookups = 0;
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 10; i++) {
+                assertThat(td.listXaasSubscriptionTemplates(ManagedService.class, "id" + i)).hasSize(fullScan(td, ManagedService.class, "id" + i));
+                assertThat(td.listXaasSubscriptionTemplates(Route.class, "id" + i)).hasSize(fullScan(td, Route.class, "id" + i));
+                lookups += 2;
+            }
+            assertThat(td.listXaasSubscriptionTemplates(Space.class)).containsOnly(space);
+            lookups++;
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1000000;
+
+        // then
+        assertThat(td.listXaasSubscriptionTemplates(ManagedService.class)).hasSize(250);
+        assertThat(td.listXaasSubscriptionTemplates(Route.class)).hasSize(249);
+        logger.info("{} lookups on {} subscriptions (checked against a full scan) took {} ms", lookups, td.listXaasSubscriptionTemplates().size(), elapsedMs);
+    }
+
+    private static int fullScan(TechnicalDeployment td, Class<?> type, String logicalModelId) {
+        int count = 0;
+        for (XaasSubscription subscription : td.listXaasSubscriptionTemplates()) {
+            if (type.isInstance(subscription) && logicalModelId.equals(subscription.getLogicalModelId())) {
+                count++;
+            }
+        }
+        return count;
+    }
+}